@@ -0,0 +1,404 @@
+// Generated from Boa.g by ANTLR 4.5
+package boa.parser;
+
+import java.util.ArrayList;
+
+import boa.compiler.ast.*;
+import boa.compiler.ast.expressions.*;
+import boa.compiler.ast.literals.*;
+import boa.compiler.ast.statements.*;
+import boa.compiler.ast.types.*;
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.*;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.*;
+
+@SuppressWarnings({"all", "warnings", "unchecked", "unused", "cast"})
+public class BoaLexer extends Lexer {
+	static { RuntimeMetaData.checkVersion("4.5", RuntimeMetaData.VERSION); }
+
+	protected static final DFA[] _decisionToDFA;
+	protected static final PredictionContextCache _sharedContextCache =
+		new PredictionContextCache();
+	public static final int
+		OF=1, IF=2, DO=3, MAP=4, STACK=5, QUEUE=6, SET=7, FOR=8, FOREACH=9, IFALL=10, 
+		EXISTS=11, NOT=12, TYPE=13, ELSE=14, CASE=15, OUTPUT=16, FORMAT=17, WHILE=18, 
+		BREAK=19, ARRAY=20, STATIC=21, SWITCH=22, RETURN=23, WEIGHT=24, DEFAULT=25, 
+		CONTINUE=26, FUNCTION=27, FIXP=28, VISITOR=29, TRAVERSAL=30, BEFORE=31, 
+		AFTER=32, STOP=33, ENUM=34, SEMICOLON=35, COLON=36, COMMA=37, DOT=38, 
+		LBRACE=39, RBRACE=40, LPAREN=41, RPAREN=42, LBRACKET=43, RBRACKET=44, 
+		OR=45, ONEOR=46, TWOOR=47, AND=48, ONEAND=49, TWOAND=50, INCR=51, DECR=52, 
+		EQEQ=53, NEQ=54, LT=55, LTEQ=56, GT=57, GTEQ=58, PLUS=59, MINUS=60, XOR=61, 
+		STAR=62, DIV=63, MOD=64, RSHIFT=65, NEG=66, INV=67, PLUSEQ=68, MINUSEQ=69, 
+		STAREQ=70, DIVEQ=71, ONEOREQ=72, XOREQ=73, MODEQ=74, ONEANDEQ=75, RSHIFTEQ=76, 
+		LSHIFTEQ=77, WILDCARD=78, QUESTION=79, DOLLAR=80, EQUALS=81, EMIT=82, 
+		RIGHT_ARROW=83, ML_STRING=84, IntegerLiteral=85, FloatingPointLiteral=86, 
+		CharacterLiteral=87, RegexLiteral=88, MultilineStringLiteral=89, StringLiteral=90, 
+		TimeLiteral=91, Identifier=92, WS=93, LINE_COMMENT=94;
+	public static String[] modeNames = {
+		"DEFAULT_MODE"
+	};
+
+	public static final String[] ruleNames = {
+		"OF", "IF", "DO", "MAP", "STACK", "QUEUE", "SET", "FOR", "FOREACH", "IFALL", 
+		"EXISTS", "NOT", "TYPE", "ELSE", "CASE", "OUTPUT", "FORMAT", "WHILE", 
+		"BREAK", "ARRAY", "STATIC", "SWITCH", "RETURN", "WEIGHT", "DEFAULT", "CONTINUE", 
+		"FUNCTION", "FIXP", "VISITOR", "TRAVERSAL", "BEFORE", "AFTER", "STOP", 
+		"ENUM", "SEMICOLON", "COLON", "COMMA", "DOT", "LBRACE", "RBRACE", "LPAREN", 
+		"RPAREN", "LBRACKET", "RBRACKET", "OR", "ONEOR", "TWOOR", "AND", "ONEAND", 
+		"TWOAND", "INCR", "DECR", "EQEQ", "NEQ", "LT", "LTEQ", "GT", "GTEQ", "PLUS", 
+		"MINUS", "XOR", "STAR", "DIV", "MOD", "RSHIFT", "NEG", "INV", "PLUSEQ", 
+		"MINUSEQ", "STAREQ", "DIVEQ", "ONEOREQ", "XOREQ", "MODEQ", "ONEANDEQ", 
+		"RSHIFTEQ", "LSHIFTEQ", "WILDCARD", "QUESTION", "DOLLAR", "EQUALS", "EMIT", 
+		"RIGHT_ARROW", "ML_STRING", "IntegerLiteral", "DecimalNumeral", "Digit", 
+		"NonZeroDigit", "HexNumeral", "OctalNumeral", "BinaryNumeral", "FloatingPointLiteral", 
+		"ExponentPart", "CharacterLiteral", "SingleCharacter", "RegexLiteral", 
+		"RegexCharacter", "MultilineStringLiteral", "StringLiteral", "StringCharacter", 
+		"EscapeSequence", "OctalEscape", "TimeLiteral", "Identifier", "WS", "LINE_COMMENT"
+	};
+
+	private static final String[] _LITERAL_NAMES = {
+		null, "'of'", "'if'", "'do'", "'map'", "'stack'", "'queue'", "'set'", 
+		"'for'", "'foreach'", "'ifall'", "'exists'", "'not'", "'type'", "'else'", 
+		"'case'", "'output'", "'format'", "'while'", "'break'", "'array'", "'static'", 
+		"'switch'", "'return'", "'weight'", "'default'", "'continue'", "'function'", 
+		"'fixp'", "'visitor'", "'traversal'", "'before'", "'after'", "'stop'", 
+		"'enum'", "';'", "':'", "','", "'.'", "'{'", "'}'", "'('", "')'", "'['", 
+		"']'", "'or'", "'|'", "'||'", "'and'", "'&'", "'&&'", "'++'", "'--'", 
+		"'=='", "'!='", "'<'", "'<='", "'>'", "'>='", "'+'", "'-'", "'^'", "'*'", 
+		"'/'", "'%'", "'>>'", "'~'", "'!'", "'+='", "'-='", "'*='", "'/='", "'|='", 
+		"'^='", "'%='", "'&='", "'>>='", "'<<='", "'_'", "'?'", "'$'", "'='", 
+		"'<<'", "'->'", "'\"\"\"'"
+	};
+	private static final String[] _SYMBOLIC_NAMES = {
+		null, "OF", "IF", "DO", "MAP", "STACK", "QUEUE", "SET", "FOR", "FOREACH", 
+		"IFALL", "EXISTS", "NOT", "TYPE", "ELSE", "CASE", "OUTPUT", "FORMAT", 
+		"WHILE", "BREAK", "ARRAY", "STATIC", "SWITCH", "RETURN", "WEIGHT", "DEFAULT", 
+		"CONTINUE", "FUNCTION", "FIXP", "VISITOR", "TRAVERSAL", "BEFORE", "AFTER", 
+		"STOP", "ENUM", "SEMICOLON", "COLON", "COMMA", "DOT", "LBRACE", "RBRACE", 
+		"LPAREN", "RPAREN", "LBRACKET", "RBRACKET", "OR", "ONEOR", "TWOOR", "AND", 
+		"ONEAND", "TWOAND", "INCR", "DECR", "EQEQ", "NEQ", "LT", "LTEQ", "GT", 
+		"GTEQ", "PLUS", "MINUS", "XOR", "STAR", "DIV", "MOD", "RSHIFT", "NEG", 
+		"INV", "PLUSEQ", "MINUSEQ", "STAREQ", "DIVEQ", "ONEOREQ", "XOREQ", "MODEQ", 
+		"ONEANDEQ", "RSHIFTEQ", "LSHIFTEQ", "WILDCARD", "QUESTION", "DOLLAR", 
+		"EQUALS", "EMIT", "RIGHT_ARROW", "ML_STRING", "IntegerLiteral", "FloatingPointLiteral", 
+		"CharacterLiteral", "RegexLiteral", "MultilineStringLiteral", "StringLiteral", 
+		"TimeLiteral", "Identifier", "WS", "LINE_COMMENT"
+	};
+	public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
+
+	/**
+	 * @deprecated Use {@link #VOCABULARY} instead.
+	 */
+	@Deprecated
+	public static final String[] tokenNames;
+	static {
+		tokenNames = new String[_SYMBOLIC_NAMES.length];
+		for (int i = 0; i < tokenNames.length; i++) {
+			tokenNames[i] = VOCABULARY.getLiteralName(i);
+			if (tokenNames[i] == null) {
+				tokenNames[i] = VOCABULARY.getSymbolicName(i);
+			}
+
+			if (tokenNames[i] == null) {
+				tokenNames[i] = "<INVALID>";
+			}
+		}
+	}
+
+	@Override
+	@Deprecated
+	public String[] getTokenNames() {
+		return tokenNames;
+	}
+
+	@Override
+
+	public Vocabulary getVocabulary() {
+		return VOCABULARY;
+	}
+
+
+	public BoaLexer(CharStream input) {
+		super(input);
+		_interp = new LexerATNSimulator(this,_ATN,_decisionToDFA,_sharedContextCache);
+	}
+
+	@Override
+	public String getGrammarFileName() { return "Boa.g"; }
+
+	@Override
+	public String[] getRuleNames() { return ruleNames; }
+
+	@Override
+	public String getSerializedATN() { return _serializedATN; }
+
+	@Override
+	public String[] getModeNames() { return modeNames; }
+
+	@Override
+	public ATN getATN() { return _ATN; }
+
+	public static final String _serializedATN =
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\2`\u02d3\b\1\4\2\t"+
+		"\2\4\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4\13"+
+		"\t\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22\t\22"+
+		"\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31\t\31"+
+		"\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t \4!"+
+		"\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\4(\t(\4)\t)\4*\t*\4+\t+\4"+
+		",\t,\4-\t-\4.\t.\4/\t/\4\60\t\60\4\61\t\61\4\62\t\62\4\63\t\63\4\64\t"+
+		"\64\4\65\t\65\4\66\t\66\4\67\t\67\48\t8\49\t9\4:\t:\4;\t;\4<\t<\4=\t="+
+		"\4>\t>\4?\t?\4@\t@\4A\tA\4B\tB\4C\tC\4D\tD\4E\tE\4F\tF\4G\tG\4H\tH\4I"+
+		"\tI\4J\tJ\4K\tK\4L\tL\4M\tM\4N\tN\4O\tO\4P\tP\4Q\tQ\4R\tR\4S\tS\4T\tT"+
+		"\4U\tU\4V\tV\4W\tW\4X\tX\4Y\tY\4Z\tZ\4[\t[\4\\\t\\\4]\t]\4^\t^\4_\t_\4"+
+		"`\t`\4a\ta\4b\tb\4c\tc\4d\td\4e\te\4f\tf\4g\tg\4h\th\4i\ti\4j\tj\4k\t"+
+		"k\3\2\3\2\3\2\3\3\3\3\3\3\3\4\3\4\3\4\3\5\3\5\3\5\3\5\3\6\3\6\3\6\3\6"+
+		"\3\6\3\6\3\7\3\7\3\7\3\7\3\7\3\7\3\b\3\b\3\b\3\b\3\t\3\t\3\t\3\t\3\n\3"+
+		"\n\3\n\3\n\3\n\3\n\3\n\3\n\3\13\3\13\3\13\3\13\3\13\3\13\3\f\3\f\3\f\3"+
+		"\f\3\f\3\f\3\f\3\r\3\r\3\r\3\r\3\16\3\16\3\16\3\16\3\16\3\17\3\17\3\17"+
+		"\3\17\3\17\3\20\3\20\3\20\3\20\3\20\3\21\3\21\3\21\3\21\3\21\3\21\3\21"+
+		"\3\22\3\22\3\22\3\22\3\22\3\22\3\22\3\23\3\23\3\23\3\23\3\23\3\23\3\24"+
+		"\3\24\3\24\3\24\3\24\3\24\3\25\3\25\3\25\3\25\3\25\3\25\3\26\3\26\3\26"+
+		"\3\26\3\26\3\26\3\26\3\27\3\27\3\27\3\27\3\27\3\27\3\27\3\30\3\30\3\30"+
+		"\3\30\3\30\3\30\3\30\3\31\3\31\3\31\3\31\3\31\3\31\3\31\3\32\3\32\3\32"+
+		"\3\32\3\32\3\32\3\32\3\32\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33"+
+		"\3\34\3\34\3\34\3\34\3\34\3\34\3\34\3\34\3\34\3\35\3\35\3\35\3\35\3\35"+
+		"\3\36\3\36\3\36\3\36\3\36\3\36\3\36\3\36\3\37\3\37\3\37\3\37\3\37\3\37"+
+		"\3\37\3\37\3\37\3\37\3 \3 \3 \3 \3 \3 \3 \3!\3!\3!\3!\3!\3!\3\"\3\"\3"+
+		"\"\3\"\3\"\3#\3#\3#\3#\3#\3$\3$\3%\3%\3&\3&\3\'\3\'\3(\3(\3)\3)\3*\3*"+
+		"\3+\3+\3,\3,\3-\3-\3.\3.\3.\3/\3/\3\60\3\60\3\60\3\61\3\61\3\61\3\61\3"+
+		"\62\3\62\3\63\3\63\3\63\3\64\3\64\3\64\3\65\3\65\3\65\3\66\3\66\3\66\3"+
+		"\67\3\67\3\67\38\38\39\39\39\3:\3:\3;\3;\3;\3<\3<\3=\3=\3>\3>\3?\3?\3"+
+		"@\3@\3A\3A\3B\3B\3B\3C\3C\3D\3D\3E\3E\3E\3F\3F\3F\3G\3G\3G\3H\3H\3H\3"+
+		"I\3I\3I\3J\3J\3J\3K\3K\3K\3L\3L\3L\3M\3M\3M\3M\3N\3N\3N\3N\3O\3O\3P\3"+
+		"P\3Q\3Q\3R\3R\3S\3S\3S\3T\3T\3T\3U\3U\3U\3U\3V\3V\3V\3V\5V\u0229\nV\3"+
+		"W\3W\7W\u022d\nW\fW\16W\u0230\13W\3X\3X\5X\u0234\nX\3Y\3Y\3Z\3Z\3Z\6Z"+
+		"\u023b\nZ\rZ\16Z\u023c\3[\3[\7[\u0241\n[\f[\16[\u0244\13[\3\\\3\\\3\\"+
+		"\6\\\u0249\n\\\r\\\16\\\u024a\3]\6]\u024e\n]\r]\16]\u024f\3]\3]\7]\u0254"+
+		"\n]\f]\16]\u0257\13]\3]\5]\u025a\n]\3]\3]\6]\u025e\n]\r]\16]\u025f\3]"+
+		"\5]\u0263\n]\3]\6]\u0266\n]\r]\16]\u0267\3]\3]\5]\u026c\n]\3^\3^\5^\u0270"+
+		"\n^\3^\6^\u0273\n^\r^\16^\u0274\3_\3_\3_\3_\3_\3_\3_\3_\5_\u027f\n_\3"+
+		"`\3`\3a\3a\7a\u0285\na\fa\16a\u0288\13a\3a\3a\3b\3b\3c\3c\3c\7c\u0291"+
+		"\nc\fc\16c\u0294\13c\3c\3c\3d\3d\7d\u029a\nd\fd\16d\u029d\13d\3d\3d\3"+
+		"e\3e\5e\u02a3\ne\3f\3f\3f\5f\u02a8\nf\3g\3g\3g\3g\3g\3g\3g\3g\3g\5g\u02b3"+
+		"\ng\3h\3h\5h\u02b7\nh\3h\3h\5h\u02bb\nh\3i\3i\7i\u02bf\ni\fi\16i\u02c2"+
+		"\13i\3j\6j\u02c5\nj\rj\16j\u02c6\3j\3j\3k\3k\7k\u02cd\nk\fk\16k\u02d0"+
+		"\13k\3k\3k\3\u0292\2l\3\3\5\4\7\5\t\6\13\7\r\b\17\t\21\n\23\13\25\f\27"+
+		"\r\31\16\33\17\35\20\37\21!\22#\23%\24\'\25)\26+\27-\30/\31\61\32\63\33"+
+		"\65\34\67\359\36;\37= ?!A\"C#E$G%I&K\'M(O)Q*S+U,W-Y.[/]\60_\61a\62c\63"+
+		"e\64g\65i\66k\67m8o9q:s;u<w=y>{?}@\177A\u0081B\u0083C\u0085D\u0087E\u0089"+
+		"F\u008bG\u008dH\u008fI\u0091J\u0093K\u0095L\u0097M\u0099N\u009bO\u009d"+
+		"P\u009fQ\u00a1R\u00a3S\u00a5T\u00a7U\u00a9V\u00abW\u00ad\2\u00af\2\u00b1"+
+		"\2\u00b3\2\u00b5\2\u00b7\2\u00b9X\u00bb\2\u00bdY\u00bf\2\u00c1Z\u00c3"+
+		"\2\u00c5[\u00c7\\\u00c9\2\u00cb\2\u00cd\2\u00cf]\u00d1^\u00d3_\u00d5`"+
+		"\3\2\34\3\2\62\62\3\2\63;\4\2ZZzz\5\2\62;CHch\3\2\629\4\2DDdd\3\2\62\63"+
+		"\4\2GGgg\4\2--//\3\2))\6\2\f\f\17\17))^^\3\2bb\5\2\f\f\17\17bb\5\2\f\f"+
+		"\17\17$$\3\2$$\6\2\f\f\17\17$$^^\3\2^^\n\2$$))^^ddhhppttvv\3\2\62\65\4"+
+		"\2VVvv\3\2VV\4\2C\\c|\6\2\62;C\\aac|\5\2\13\f\16\17\"\"\3\2%%\4\2\f\f"+
+		"\17\17\u02e6\2\3\3\2\2\2\2\5\3\2\2\2\2\7\3\2\2\2\2\t\3\2\2\2\2\13\3\2"+
+		"\2\2\2\r\3\2\2\2\2\17\3\2\2\2\2\21\3\2\2\2\2\23\3\2\2\2\2\25\3\2\2\2\2"+
+		"\27\3\2\2\2\2\31\3\2\2\2\2\33\3\2\2\2\2\35\3\2\2\2\2\37\3\2\2\2\2!\3\2"+
+		"\2\2\2#\3\2\2\2\2%\3\2\2\2\2\'\3\2\2\2\2)\3\2\2\2\2+\3\2\2\2\2-\3\2\2"+
+		"\2\2/\3\2\2\2\2\61\3\2\2\2\2\63\3\2\2\2\2\65\3\2\2\2\2\67\3\2\2\2\29\3"+
+		"\2\2\2\2;\3\2\2\2\2=\3\2\2\2\2?\3\2\2\2\2A\3\2\2\2\2C\3\2\2\2\2E\3\2\2"+
+		"\2\2G\3\2\2\2\2I\3\2\2\2\2K\3\2\2\2\2M\3\2\2\2\2O\3\2\2\2\2Q\3\2\2\2\2"+
+		"S\3\2\2\2\2U\3\2\2\2\2W\3\2\2\2\2Y\3\2\2\2\2[\3\2\2\2\2]\3\2\2\2\2_\3"+
+		"\2\2\2\2a\3\2\2\2\2c\3\2\2\2\2e\3\2\2\2\2g\3\2\2\2\2i\3\2\2\2\2k\3\2\2"+
+		"\2\2m\3\2\2\2\2o\3\2\2\2\2q\3\2\2\2\2s\3\2\2\2\2u\3\2\2\2\2w\3\2\2\2\2"+
+		"y\3\2\2\2\2{\3\2\2\2\2}\3\2\2\2\2\177\3\2\2\2\2\u0081\3\2\2\2\2\u0083"+
+		"\3\2\2\2\2\u0085\3\2\2\2\2\u0087\3\2\2\2\2\u0089\3\2\2\2\2\u008b\3\2\2"+
+		"\2\2\u008d\3\2\2\2\2\u008f\3\2\2\2\2\u0091\3\2\2\2\2\u0093\3\2\2\2\2\u0095"+
+		"\3\2\2\2\2\u0097\3\2\2\2\2\u0099\3\2\2\2\2\u009b\3\2\2\2\2\u009d\3\2\2"+
+		"\2\2\u009f\3\2\2\2\2\u00a1\3\2\2\2\2\u00a3\3\2\2\2\2\u00a5\3\2\2\2\2\u00a7"+
+		"\3\2\2\2\2\u00a9\3\2\2\2\2\u00ab\3\2\2\2\2\u00b9\3\2\2\2\2\u00bd\3\2\2"+
+		"\2\2\u00c1\3\2\2\2\2\u00c5\3\2\2\2\2\u00c7\3\2\2\2\2\u00cf\3\2\2\2\2\u00d1"+
+		"\3\2\2\2\2\u00d3\3\2\2\2\2\u00d5\3\2\2\2\3\u00d7\3\2\2\2\5\u00da\3\2\2"+
+		"\2\7\u00dd\3\2\2\2\t\u00e0\3\2\2\2\13\u00e4\3\2\2\2\r\u00ea\3\2\2\2\17"+
+		"\u00f0\3\2\2\2\21\u00f4\3\2\2\2\23\u00f8\3\2\2\2\25\u0100\3\2\2\2\27\u0106"+
+		"\3\2\2\2\31\u010d\3\2\2\2\33\u0111\3\2\2\2\35\u0116\3\2\2\2\37\u011b\3"+
+		"\2\2\2!\u0120\3\2\2\2#\u0127\3\2\2\2%\u012e\3\2\2\2\'\u0134\3\2\2\2)\u013a"+
+		"\3\2\2\2+\u0140\3\2\2\2-\u0147\3\2\2\2/\u014e\3\2\2\2\61\u0155\3\2\2\2"+
+		"\63\u015c\3\2\2\2\65\u0164\3\2\2\2\67\u016d\3\2\2\29\u0176\3\2\2\2;\u017b"+
+		"\3\2\2\2=\u0183\3\2\2\2?\u018d\3\2\2\2A\u0194\3\2\2\2C\u019a\3\2\2\2E"+
+		"\u019f\3\2\2\2G\u01a4\3\2\2\2I\u01a6\3\2\2\2K\u01a8\3\2\2\2M\u01aa\3\2"+
+		"\2\2O\u01ac\3\2\2\2Q\u01ae\3\2\2\2S\u01b0\3\2\2\2U\u01b2\3\2\2\2W\u01b4"+
+		"\3\2\2\2Y\u01b6\3\2\2\2[\u01b8\3\2\2\2]\u01bb\3\2\2\2_\u01bd\3\2\2\2a"+
+		"\u01c0\3\2\2\2c\u01c4\3\2\2\2e\u01c6\3\2\2\2g\u01c9\3\2\2\2i\u01cc\3\2"+
+		"\2\2k\u01cf\3\2\2\2m\u01d2\3\2\2\2o\u01d5\3\2\2\2q\u01d7\3\2\2\2s\u01da"+
+		"\3\2\2\2u\u01dc\3\2\2\2w\u01df\3\2\2\2y\u01e1\3\2\2\2{\u01e3\3\2\2\2}"+
+		"\u01e5\3\2\2\2\177\u01e7\3\2\2\2\u0081\u01e9\3\2\2\2\u0083\u01eb\3\2\2"+
+		"\2\u0085\u01ee\3\2\2\2\u0087\u01f0\3\2\2\2\u0089\u01f2\3\2\2\2\u008b\u01f5"+
+		"\3\2\2\2\u008d\u01f8\3\2\2\2\u008f\u01fb\3\2\2\2\u0091\u01fe\3\2\2\2\u0093"+
+		"\u0201\3\2\2\2\u0095\u0204\3\2\2\2\u0097\u0207\3\2\2\2\u0099\u020a\3\2"+
+		"\2\2\u009b\u020e\3\2\2\2\u009d\u0212\3\2\2\2\u009f\u0214\3\2\2\2\u00a1"+
+		"\u0216\3\2\2\2\u00a3\u0218\3\2\2\2\u00a5\u021a\3\2\2\2\u00a7\u021d\3\2"+
+		"\2\2\u00a9\u0220\3\2\2\2\u00ab\u0228\3\2\2\2\u00ad\u022a\3\2\2\2\u00af"+
+		"\u0233\3\2\2\2\u00b1\u0235\3\2\2\2\u00b3\u0237\3\2\2\2\u00b5\u023e\3\2"+
+		"\2\2\u00b7\u0245\3\2\2\2\u00b9\u026b\3\2\2\2\u00bb\u026d\3\2\2\2\u00bd"+
+		"\u027e\3\2\2\2\u00bf\u0280\3\2\2\2\u00c1\u0282\3\2\2\2\u00c3\u028b\3\2"+
+		"\2\2\u00c5\u028d\3\2\2\2\u00c7\u0297\3\2\2\2\u00c9\u02a2\3\2\2\2\u00cb"+
+		"\u02a7\3\2\2\2\u00cd\u02b2\3\2\2\2\u00cf\u02ba\3\2\2\2\u00d1\u02bc\3\2"+
+		"\2\2\u00d3\u02c4\3\2\2\2\u00d5\u02ca\3\2\2\2\u00d7\u00d8\7q\2\2\u00d8"+
+		"\u00d9\7h\2\2\u00d9\4\3\2\2\2\u00da\u00db\7k\2\2\u00db\u00dc\7h\2\2\u00dc"+
+		"\6\3\2\2\2\u00dd\u00de\7f\2\2\u00de\u00df\7q\2\2\u00df\b\3\2\2\2\u00e0"+
+		"\u00e1\7o\2\2\u00e1\u00e2\7c\2\2\u00e2\u00e3\7r\2\2\u00e3\n\3\2\2\2\u00e4"+
+		"\u00e5\7u\2\2\u00e5\u00e6\7v\2\2\u00e6\u00e7\7c\2\2\u00e7\u00e8\7e\2\2"+
+		"\u00e8\u00e9\7m\2\2\u00e9\f\3\2\2\2\u00ea\u00eb\7s\2\2\u00eb\u00ec\7w"+
+		"\2\2\u00ec\u00ed\7g\2\2\u00ed\u00ee\7w\2\2\u00ee\u00ef\7g\2\2\u00ef\16"+
+		"\3\2\2\2\u00f0\u00f1\7u\2\2\u00f1\u00f2\7g\2\2\u00f2\u00f3\7v\2\2\u00f3"+
+		"\20\3\2\2\2\u00f4\u00f5\7h\2\2\u00f5\u00f6\7q\2\2\u00f6\u00f7\7t\2\2\u00f7"+
+		"\22\3\2\2\2\u00f8\u00f9\7h\2\2\u00f9\u00fa\7q\2\2\u00fa\u00fb\7t\2\2\u00fb"+
+		"\u00fc\7g\2\2\u00fc\u00fd\7c\2\2\u00fd\u00fe\7e\2\2\u00fe\u00ff\7j\2\2"+
+		"\u00ff\24\3\2\2\2\u0100\u0101\7k\2\2\u0101\u0102\7h\2\2\u0102\u0103\7"+
+		"c\2\2\u0103\u0104\7n\2\2\u0104\u0105\7n\2\2\u0105\26\3\2\2\2\u0106\u0107"+
+		"\7g\2\2\u0107\u0108\7z\2\2\u0108\u0109\7k\2\2\u0109\u010a\7u\2\2\u010a"+
+		"\u010b\7v\2\2\u010b\u010c\7u\2\2\u010c\30\3\2\2\2\u010d\u010e\7p\2\2\u010e"+
+		"\u010f\7q\2\2\u010f\u0110\7v\2\2\u0110\32\3\2\2\2\u0111\u0112\7v\2\2\u0112"+
+		"\u0113\7{\2\2\u0113\u0114\7r\2\2\u0114\u0115\7g\2\2\u0115\34\3\2\2\2\u0116"+
+		"\u0117\7g\2\2\u0117\u0118\7n\2\2\u0118\u0119\7u\2\2\u0119\u011a\7g\2\2"+
+		"\u011a\36\3\2\2\2\u011b\u011c\7e\2\2\u011c\u011d\7c\2\2\u011d\u011e\7"+
+		"u\2\2\u011e\u011f\7g\2\2\u011f \3\2\2\2\u0120\u0121\7q\2\2\u0121\u0122"+
+		"\7w\2\2\u0122\u0123\7v\2\2\u0123\u0124\7r\2\2\u0124\u0125\7w\2\2\u0125"+
+		"\u0126\7v\2\2\u0126\"\3\2\2\2\u0127\u0128\7h\2\2\u0128\u0129\7q\2\2\u0129"+
+		"\u012a\7t\2\2\u012a\u012b\7o\2\2\u012b\u012c\7c\2\2\u012c\u012d\7v\2\2"+
+		"\u012d$\3\2\2\2\u012e\u012f\7y\2\2\u012f\u0130\7j\2\2\u0130\u0131\7k\2"+
+		"\2\u0131\u0132\7n\2\2\u0132\u0133\7g\2\2\u0133&\3\2\2\2\u0134\u0135\7"+
+		"d\2\2\u0135\u0136\7t\2\2\u0136\u0137\7g\2\2\u0137\u0138\7c\2\2\u0138\u0139"+
+		"\7m\2\2\u0139(\3\2\2\2\u013a\u013b\7c\2\2\u013b\u013c\7t\2\2\u013c\u013d"+
+		"\7t\2\2\u013d\u013e\7c\2\2\u013e\u013f\7{\2\2\u013f*\3\2\2\2\u0140\u0141"+
+		"\7u\2\2\u0141\u0142\7v\2\2\u0142\u0143\7c\2\2\u0143\u0144\7v\2\2\u0144"+
+		"\u0145\7k\2\2\u0145\u0146\7e\2\2\u0146,\3\2\2\2\u0147\u0148\7u\2\2\u0148"+
+		"\u0149\7y\2\2\u0149\u014a\7k\2\2\u014a\u014b\7v\2\2\u014b\u014c\7e\2\2"+
+		"\u014c\u014d\7j\2\2\u014d.\3\2\2\2\u014e\u014f\7t\2\2\u014f\u0150\7g\2"+
+		"\2\u0150\u0151\7v\2\2\u0151\u0152\7w\2\2\u0152\u0153\7t\2\2\u0153\u0154"+
+		"\7p\2\2\u0154\60\3\2\2\2\u0155\u0156\7y\2\2\u0156\u0157\7g\2\2\u0157\u0158"+
+		"\7k\2\2\u0158\u0159\7i\2\2\u0159\u015a\7j\2\2\u015a\u015b\7v\2\2\u015b"+
+		"\62\3\2\2\2\u015c\u015d\7f\2\2\u015d\u015e\7g\2\2\u015e\u015f\7h\2\2\u015f"+
+		"\u0160\7c\2\2\u0160\u0161\7w\2\2\u0161\u0162\7n\2\2\u0162\u0163\7v\2\2"+
+		"\u0163\64\3\2\2\2\u0164\u0165\7e\2\2\u0165\u0166\7q\2\2\u0166\u0167\7"+
+		"p\2\2\u0167\u0168\7v\2\2\u0168\u0169\7k\2\2\u0169\u016a\7p\2\2\u016a\u016b"+
+		"\7w\2\2\u016b\u016c\7g\2\2\u016c\66\3\2\2\2\u016d\u016e\7h\2\2\u016e\u016f"+
+		"\7w\2\2\u016f\u0170\7p\2\2\u0170\u0171\7e\2\2\u0171\u0172\7v\2\2\u0172"+
+		"\u0173\7k\2\2\u0173\u0174\7q\2\2\u0174\u0175\7p\2\2\u01758\3\2\2\2\u0176"+
+		"\u0177\7h\2\2\u0177\u0178\7k\2\2\u0178\u0179\7z\2\2\u0179\u017a\7r\2\2"+
+		"\u017a:\3\2\2\2\u017b\u017c\7x\2\2\u017c\u017d\7k\2\2\u017d\u017e\7u\2"+
+		"\2\u017e\u017f\7k\2\2\u017f\u0180\7v\2\2\u0180\u0181\7q\2\2\u0181\u0182"+
+		"\7t\2\2\u0182<\3\2\2\2\u0183\u0184\7v\2\2\u0184\u0185\7t\2\2\u0185\u0186"+
+		"\7c\2\2\u0186\u0187\7x\2\2\u0187\u0188\7g\2\2\u0188\u0189\7t\2\2\u0189"+
+		"\u018a\7u\2\2\u018a\u018b\7c\2\2\u018b\u018c\7n\2\2\u018c>\3\2\2\2\u018d"+
+		"\u018e\7d\2\2\u018e\u018f\7g\2\2\u018f\u0190\7h\2\2\u0190\u0191\7q\2\2"+
+		"\u0191\u0192\7t\2\2\u0192\u0193\7g\2\2\u0193@\3\2\2\2\u0194\u0195\7c\2"+
+		"\2\u0195\u0196\7h\2\2\u0196\u0197\7v\2\2\u0197\u0198\7g\2\2\u0198\u0199"+
+		"\7t\2\2\u0199B\3\2\2\2\u019a\u019b\7u\2\2\u019b\u019c\7v\2\2\u019c\u019d"+
+		"\7q\2\2\u019d\u019e\7r\2\2\u019eD\3\2\2\2\u019f\u01a0\7g\2\2\u01a0\u01a1"+
+		"\7p\2\2\u01a1\u01a2\7w\2\2\u01a2\u01a3\7o\2\2\u01a3F\3\2\2\2\u01a4\u01a5"+
+		"\7=\2\2\u01a5H\3\2\2\2\u01a6\u01a7\7<\2\2\u01a7J\3\2\2\2\u01a8\u01a9\7"+
+		".\2\2\u01a9L\3\2\2\2\u01aa\u01ab\7\60\2\2\u01abN\3\2\2\2\u01ac\u01ad\7"+
+		"}\2\2\u01adP\3\2\2\2\u01ae\u01af\7\177\2\2\u01afR\3\2\2\2\u01b0\u01b1"+
+		"\7*\2\2\u01b1T\3\2\2\2\u01b2\u01b3\7+\2\2\u01b3V\3\2\2\2\u01b4\u01b5\7"+
+		"]\2\2\u01b5X\3\2\2\2\u01b6\u01b7\7_\2\2\u01b7Z\3\2\2\2\u01b8\u01b9\7q"+
+		"\2\2\u01b9\u01ba\7t\2\2\u01ba\\\3\2\2\2\u01bb\u01bc\7~\2\2\u01bc^\3\2"+
+		"\2\2\u01bd\u01be\7~\2\2\u01be\u01bf\7~\2\2\u01bf`\3\2\2\2\u01c0\u01c1"+
+		"\7c\2\2\u01c1\u01c2\7p\2\2\u01c2\u01c3\7f\2\2\u01c3b\3\2\2\2\u01c4\u01c5"+
+		"\7(\2\2\u01c5d\3\2\2\2\u01c6\u01c7\7(\2\2\u01c7\u01c8\7(\2\2\u01c8f\3"+
+		"\2\2\2\u01c9\u01ca\7-\2\2\u01ca\u01cb\7-\2\2\u01cbh\3\2\2\2\u01cc\u01cd"+
+		"\7/\2\2\u01cd\u01ce\7/\2\2\u01cej\3\2\2\2\u01cf\u01d0\7?\2\2\u01d0\u01d1"+
+		"\7?\2\2\u01d1l\3\2\2\2\u01d2\u01d3\7#\2\2\u01d3\u01d4\7?\2\2\u01d4n\3"+
+		"\2\2\2\u01d5\u01d6\7>\2\2\u01d6p\3\2\2\2\u01d7\u01d8\7>\2\2\u01d8\u01d9"+
+		"\7?\2\2\u01d9r\3\2\2\2\u01da\u01db\7@\2\2\u01dbt\3\2\2\2\u01dc\u01dd\7"+
+		"@\2\2\u01dd\u01de\7?\2\2\u01dev\3\2\2\2\u01df\u01e0\7-\2\2\u01e0x\3\2"+
+		"\2\2\u01e1\u01e2\7/\2\2\u01e2z\3\2\2\2\u01e3\u01e4\7`\2\2\u01e4|\3\2\2"+
+		"\2\u01e5\u01e6\7,\2\2\u01e6~\3\2\2\2\u01e7\u01e8\7\61\2\2\u01e8\u0080"+
+		"\3\2\2\2\u01e9\u01ea\7\'\2\2\u01ea\u0082\3\2\2\2\u01eb\u01ec\7@\2\2\u01ec"+
+		"\u01ed\7@\2\2\u01ed\u0084\3\2\2\2\u01ee\u01ef\7\u0080\2\2\u01ef\u0086"+
+		"\3\2\2\2\u01f0\u01f1\7#\2\2\u01f1\u0088\3\2\2\2\u01f2\u01f3\7-\2\2\u01f3"+
+		"\u01f4\7?\2\2\u01f4\u008a\3\2\2\2\u01f5\u01f6\7/\2\2\u01f6\u01f7\7?\2"+
+		"\2\u01f7\u008c\3\2\2\2\u01f8\u01f9\7,\2\2\u01f9\u01fa\7?\2\2\u01fa\u008e"+
+		"\3\2\2\2\u01fb\u01fc\7\61\2\2\u01fc\u01fd\7?\2\2\u01fd\u0090\3\2\2\2\u01fe"+
+		"\u01ff\7~\2\2\u01ff\u0200\7?\2\2\u0200\u0092\3\2\2\2\u0201\u0202\7`\2"+
+		"\2\u0202\u0203\7?\2\2\u0203\u0094\3\2\2\2\u0204\u0205\7\'\2\2\u0205\u0206"+
+		"\7?\2\2\u0206\u0096\3\2\2\2\u0207\u0208\7(\2\2\u0208\u0209\7?\2\2\u0209"+
+		"\u0098\3\2\2\2\u020a\u020b\7@\2\2\u020b\u020c\7@\2\2\u020c\u020d\7?\2"+
+		"\2\u020d\u009a\3\2\2\2\u020e\u020f\7>\2\2\u020f\u0210\7>\2\2\u0210\u0211"+
+		"\7?\2\2\u0211\u009c\3\2\2\2\u0212\u0213\7a\2\2\u0213\u009e\3\2\2\2\u0214"+
+		"\u0215\7A\2\2\u0215\u00a0\3\2\2\2\u0216\u0217\7&\2\2\u0217\u00a2\3\2\2"+
+		"\2\u0218\u0219\7?\2\2\u0219\u00a4\3\2\2\2\u021a\u021b\7>\2\2\u021b\u021c"+
+		"\7>\2\2\u021c\u00a6\3\2\2\2\u021d\u021e\7/\2\2\u021e\u021f\7@\2\2\u021f"+
+		"\u00a8\3\2\2\2\u0220\u0221\7$\2\2\u0221\u0222\7$\2\2\u0222\u0223\7$\2"+
+		"\2\u0223\u00aa\3\2\2\2\u0224\u0229\5\u00adW\2\u0225\u0229\5\u00b3Z\2\u0226"+
+		"\u0229\5\u00b5[\2\u0227\u0229\5\u00b7\\\2\u0228\u0224\3\2\2\2\u0228\u0225"+
+		"\3\2\2\2\u0228\u0226\3\2\2\2\u0228\u0227\3\2\2\2\u0229\u00ac\3\2\2\2\u022a"+
+		"\u022e\5\u00b1Y\2\u022b\u022d\5\u00afX\2\u022c\u022b\3\2\2\2\u022d\u0230"+
+		"\3\2\2\2\u022e\u022c\3\2\2\2\u022e\u022f\3\2\2\2\u022f\u00ae\3\2\2\2\u0230"+
+		"\u022e\3\2\2\2\u0231\u0234\t\2\2\2\u0232\u0234\5\u00b1Y\2\u0233\u0231"+
+		"\3\2\2\2\u0233\u0232\3\2\2\2\u0234\u00b0\3\2\2\2\u0235\u0236\t\3\2\2\u0236"+
+		"\u00b2\3\2\2\2\u0237\u0238\t\2\2\2\u0238\u023a\t\4\2\2\u0239\u023b\t\5"+
+		"\2\2\u023a\u0239\3\2\2\2\u023b\u023c\3\2\2\2\u023c\u023a\3\2\2\2\u023c"+
+		"\u023d\3\2\2\2\u023d\u00b4\3\2\2\2\u023e\u0242\t\2\2\2\u023f\u0241\t\6"+
+		"\2\2\u0240\u023f\3\2\2\2\u0241\u0244\3\2\2\2\u0242\u0240\3\2\2\2\u0242"+
+		"\u0243\3\2\2\2\u0243\u00b6\3\2\2\2\u0244\u0242\3\2\2\2\u0245\u0246\t\2"+
+		"\2\2\u0246\u0248\t\7\2\2\u0247\u0249\t\b\2\2\u0248\u0247\3\2\2\2\u0249"+
+		"\u024a\3\2\2\2\u024a\u0248\3\2\2\2\u024a\u024b\3\2\2\2\u024b\u00b8\3\2"+
+		"\2\2\u024c\u024e\5\u00afX\2\u024d\u024c\3\2\2\2\u024e\u024f\3\2\2\2\u024f"+
+		"\u024d\3\2\2\2\u024f\u0250\3\2\2\2\u0250\u0251\3\2\2\2\u0251\u0255\5M"+
+		"\'\2\u0252\u0254\5\u00afX\2\u0253\u0252\3\2\2\2\u0254\u0257\3\2\2\2\u0255"+
+		"\u0253\3\2\2\2\u0255\u0256\3\2\2\2\u0256\u0259\3\2\2\2\u0257\u0255\3\2"+
+		"\2\2\u0258\u025a\5\u00bb^\2\u0259\u0258\3\2\2\2\u0259\u025a\3\2\2\2\u025a"+
+		"\u026c\3\2\2\2\u025b\u025d\5M\'\2\u025c\u025e\5\u00afX\2\u025d\u025c\3"+
+		"\2\2\2\u025e\u025f\3\2\2\2\u025f\u025d\3\2\2\2\u025f\u0260\3\2\2\2\u0260"+
+		"\u0262\3\2\2\2\u0261\u0263\5\u00bb^\2\u0262\u0261\3\2\2\2\u0262\u0263"+
+		"\3\2\2\2\u0263\u026c\3\2\2\2\u0264\u0266\5\u00afX\2\u0265\u0264\3\2\2"+
+		"\2\u0266\u0267\3\2\2\2\u0267\u0265\3\2\2\2\u0267\u0268\3\2\2\2\u0268\u0269"+
+		"\3\2\2\2\u0269\u026a\5\u00bb^\2\u026a\u026c\3\2\2\2\u026b\u024d\3\2\2"+
+		"\2\u026b\u025b\3\2\2\2\u026b\u0265\3\2\2\2\u026c\u00ba\3\2\2\2\u026d\u026f"+
+		"\t\t\2\2\u026e\u0270\t\n\2\2\u026f\u026e\3\2\2\2\u026f\u0270\3\2\2\2\u0270"+
+		"\u0272\3\2\2\2\u0271\u0273\5\u00afX\2\u0272\u0271\3\2\2\2\u0273\u0274"+
+		"\3\2\2\2\u0274\u0272\3\2\2\2\u0274\u0275\3\2\2\2\u0275\u00bc\3\2\2\2\u0276"+
+		"\u0277\t\13\2\2\u0277\u0278\5\u00bf`\2\u0278\u0279\t\13\2\2\u0279\u027f"+
+		"\3\2\2\2\u027a\u027b\t\13\2\2\u027b\u027c\5\u00cbf\2\u027c\u027d\t\13"+
+		"\2\2\u027d\u027f\3\2\2\2\u027e\u0276\3\2\2\2\u027e\u027a\3\2\2\2\u027f"+
+		"\u00be\3\2\2\2\u0280\u0281\n\f\2\2\u0281\u00c0\3\2\2\2\u0282\u0286\t\r"+
+		"\2\2\u0283\u0285\5\u00c3b\2\u0284\u0283\3\2\2\2\u0285\u0288\3\2\2\2\u0286"+
+		"\u0284\3\2\2\2\u0286\u0287\3\2\2\2\u0287\u0289\3\2\2\2\u0288\u0286\3\2"+
+		"\2\2\u0289\u028a\t\r\2\2\u028a\u00c2\3\2\2\2\u028b\u028c\n\16\2\2\u028c"+
+		"\u00c4\3\2\2\2\u028d\u0292\5\u00a9U\2\u028e\u0291\5\u00c9e\2\u028f\u0291"+
+		"\t\17\2\2\u0290\u028e\3\2\2\2\u0290\u028f\3\2\2\2\u0291\u0294\3\2\2\2"+
+		"\u0292\u0293\3\2\2\2\u0292\u0290\3\2\2\2\u0293\u0295\3\2\2\2\u0294\u0292"+
+		"\3\2\2\2\u0295\u0296\5\u00a9U\2\u0296\u00c6\3\2\2\2\u0297\u029b\t\20\2"+
+		"\2\u0298\u029a\5\u00c9e\2\u0299\u0298\3\2\2\2\u029a\u029d\3\2\2\2\u029b"+
+		"\u0299\3\2\2\2\u029b\u029c\3\2\2\2\u029c\u029e\3\2\2\2\u029d\u029b\3\2"+
+		"\2\2\u029e\u029f\t\20\2\2\u029f\u00c8\3\2\2\2\u02a0\u02a3\n\21\2\2\u02a1"+
+		"\u02a3\5\u00cbf\2\u02a2\u02a0\3\2\2\2\u02a2\u02a1\3\2\2\2\u02a3\u00ca"+
+		"\3\2\2\2\u02a4\u02a5\t\22\2\2\u02a5\u02a8\t\23\2\2\u02a6\u02a8\5\u00cd"+
+		"g\2\u02a7\u02a4\3\2\2\2\u02a7\u02a6\3\2\2\2\u02a8\u00cc\3\2\2\2\u02a9"+
+		"\u02aa\t\22\2\2\u02aa\u02b3\t\6\2\2\u02ab\u02ac\t\22\2\2\u02ac\u02ad\t"+
+		"\6\2\2\u02ad\u02b3\t\6\2\2\u02ae\u02af\t\22\2\2\u02af\u02b0\t\24\2\2\u02b0"+
+		"\u02b1\t\6\2\2\u02b1\u02b3\t\6\2\2\u02b2\u02a9\3\2\2\2\u02b2\u02ab\3\2"+
+		"\2\2\u02b2\u02ae\3\2\2\2\u02b3\u00ce\3\2\2\2\u02b4\u02b6\5\u00abV\2\u02b5"+
+		"\u02b7\t\25\2\2\u02b6\u02b5\3\2\2\2\u02b6\u02b7\3\2\2\2\u02b7\u02bb\3"+
+		"\2\2\2\u02b8\u02b9\t\26\2\2\u02b9\u02bb\5\u00c7d\2\u02ba\u02b4\3\2\2\2"+
+		"\u02ba\u02b8\3\2\2\2\u02bb\u00d0\3\2\2\2\u02bc\u02c0\t\27\2\2\u02bd\u02bf"+
+		"\t\30\2\2\u02be\u02bd\3\2\2\2\u02bf\u02c2\3\2\2\2\u02c0\u02be\3\2\2\2"+
+		"\u02c0\u02c1\3\2\2\2\u02c1\u00d2\3\2\2\2\u02c2\u02c0\3\2\2\2\u02c3\u02c5"+
+		"\t\31\2\2\u02c4\u02c3\3\2\2\2\u02c5\u02c6\3\2\2\2\u02c6\u02c4\3\2\2\2"+
+		"\u02c6\u02c7\3\2\2\2\u02c7\u02c8\3\2\2\2\u02c8\u02c9\bj\2\2\u02c9\u00d4"+
+		"\3\2\2\2\u02ca\u02ce\t\32\2\2\u02cb\u02cd\n\33\2\2\u02cc\u02cb\3\2\2\2"+
+		"\u02cd\u02d0\3\2\2\2\u02ce\u02cc\3\2\2\2\u02ce\u02cf\3\2\2\2\u02cf\u02d1"+
+		"\3\2\2\2\u02d0\u02ce\3\2\2\2\u02d1\u02d2\bk\2\2\u02d2\u00d6\3\2\2\2\37"+
+		"\2\u0228\u022e\u0233\u023c\u0242\u024a\u024f\u0255\u0259\u025f\u0262\u0267"+
+		"\u026b\u026f\u0274\u027e\u0286\u0290\u0292\u029b\u02a2\u02a7\u02b2\u02b6"+
+		"\u02ba\u02c0\u02c6\u02ce\3\b\2\2";
+	public static final ATN _ATN =
+		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
+	static {
+		_decisionToDFA = new DFA[_ATN.getNumberOfDecisions()];
+		for (int i = 0; i < _ATN.getNumberOfDecisions(); i++) {
+			_decisionToDFA[i] = new DFA(_ATN.getDecisionState(i), i);
+		}
+	}
+}
\ No newline at end of file
@@ -18,9 +18,8 @@ package boa.aggregators;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer.Context;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
 import boa.functions.BoaCasts;
 import boa.io.EmitKey;
@@ -35,7 +34,7 @@ import boa.io.EmitValue;
 public abstract class Aggregator {
 	private long arg;
 	@SuppressWarnings("rawtypes")
-	private Context context;
+	private TaskInputOutputContext context;
 	private EmitKey key;
 	private boolean combining;
 
@@ -77,12 +76,28 @@ public abstract class Aggregator {
 		this.aggregate(data, null);
 	}
 
+	public void aggregate(final String data, final long metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.longToString(metadata));
+	}
+
+	public void aggregate(final String data, final double metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.doubleToString(metadata));
+	}
+
 	public void aggregate(final long data, final String metadata) throws IOException, InterruptedException, FinishedException {
 		this.aggregate(BoaCasts.longToString(data), metadata);
 	}
 
 	public void aggregate(final long data) throws IOException, InterruptedException, FinishedException {
-		this.aggregate(BoaCasts.longToString(data), null);
+		this.aggregate(data, null);
+	}
+
+	public void aggregate(final long data, final long metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.longToString(metadata));
+	}
+
+	public void aggregate(final long data, final double metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.doubleToString(metadata));
 	}
 
 	public void aggregate(final double data, final String metadata) throws IOException, InterruptedException, FinishedException {
@@ -90,7 +105,67 @@ public abstract class Aggregator {
 	}
 
 	public void aggregate(final double data) throws IOException, InterruptedException, FinishedException {
-		this.aggregate(BoaCasts.doubleToString(data), null);
+		this.aggregate(data, null);
+	}
+
+	public void aggregate(final double data, final long metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.longToString(metadata));
+	}
+
+	public void aggregate(final double data, final double metadata) throws IOException, InterruptedException, FinishedException {
+		this.aggregate(data, BoaCasts.doubleToString(metadata));
+	}
+
+	/**
+	 * Aggregate a value read from the map output, dispatching on the kinds of
+	 * its data and metadata so ints and floats never go through strings.
+	 * 
+	 * @param value
+	 *            The {@link EmitValue} to aggregate
+	 */
+	public void aggregate(final EmitValue value) throws IOException, InterruptedException, FinishedException {
+		switch (value.getDataKind()) {
+			case LONG:
+				switch (value.getMetadataKind()) {
+					case LONG:
+						this.aggregate(value.getLongData(), value.getLongMetadata());
+						break;
+					case DOUBLE:
+						this.aggregate(value.getLongData(), value.getDoubleMetadata());
+						break;
+					default:
+						this.aggregate(value.getLongData(), value.getMetadata());
+						break;
+				}
+				break;
+			case DOUBLE:
+				switch (value.getMetadataKind()) {
+					case LONG:
+						this.aggregate(value.getDoubleData(), value.getLongMetadata());
+						break;
+					case DOUBLE:
+						this.aggregate(value.getDoubleData(), value.getDoubleMetadata());
+						break;
+					default:
+						this.aggregate(value.getDoubleData(), value.getMetadata());
+						break;
+				}
+				break;
+			default:
+				for (final String s : value.getData())
+					switch (value.getMetadataKind()) {
+						case LONG:
+							this.aggregate(s, value.getLongMetadata());
+							break;
+						case DOUBLE:
+							this.aggregate(s, value.getDoubleMetadata());
+							break;
+						default:
+							this.aggregate(s, value.getMetadata());
+							break;
+					}
+				break;
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -98,29 +173,74 @@ public abstract class Aggregator {
 		if (this.combining)
 			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
 		else if (metadata != null)
-			this.getContext().write(new Text(this.getKey() + " = " + data + " weight " + metadata), NullWritable.get());
+			this.getContext().write(new Text(this.getKey() + " = " + data + " weight " + metadata), new Text(this.getKey().getIndex()));
 		else
-			this.getContext().write(new Text(this.getKey() + " = " + data), NullWritable.get());
+			this.getContext().write(new Text(this.getKey() + " = " + data), new Text(this.getKey().getIndex()));
+	}
+
+	/**
+	 * Write a typed value to the combiner's output.
+	 * 
+	 * @param value
+	 *            The {@link EmitValue} to write
+	 */
+	@SuppressWarnings("unchecked")
+	protected void combine(final EmitValue value) throws IOException, InterruptedException {
+		this.getContext().write(this.getKey(), value);
 	}
 
 	protected void collect(final String data) throws IOException, InterruptedException {
 		this.collect(data, null);
 	}
 
+	protected void collect(final String data, final long metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.combine(new EmitValue(data, metadata));
+		else
+			this.collect(data, BoaCasts.longToString(metadata));
+	}
+
+	protected void collect(final String data, final double metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.combine(new EmitValue(data, metadata));
+		else
+			this.collect(data, BoaCasts.doubleToString(metadata));
+	}
+
 	protected void collect(final long data, final String metadata) throws IOException, InterruptedException {
-		this.collect(BoaCasts.longToString(data), metadata);
+		if (this.combining)
+			this.combine(new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.longToString(data), metadata);
 	}
 
 	protected void collect(final long data) throws IOException, InterruptedException {
-		this.collect(BoaCasts.longToString(data), null);
+		this.collect(data, null);
+	}
+
+	protected void collect(final long data, final long metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.combine(new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.longToString(data), BoaCasts.longToString(metadata));
 	}
 
 	protected void collect(final double data, final String metadata) throws IOException, InterruptedException {
-		this.collect(BoaCasts.doubleToString(data), metadata);
+		if (this.combining)
+			this.combine(new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.doubleToString(data), metadata);
 	}
 
 	protected void collect(final double data) throws IOException, InterruptedException {
-		this.collect(BoaCasts.doubleToString(data), null);
+		this.collect(data, null);
+	}
+
+	protected void collect(final double data, final long metadata) throws IOException, InterruptedException {
+		if (this.combining)
+			this.combine(new EmitValue(data, metadata));
+		else
+			this.collect(BoaCasts.doubleToString(data), BoaCasts.longToString(metadata));
 	}
 
 	public void finish() throws IOException, InterruptedException {
@@ -131,7 +251,7 @@ public abstract class Aggregator {
 		return this.arg;
 	}
 
-	public void setContext(@SuppressWarnings("rawtypes") final Context context) {
+	public void setContext(@SuppressWarnings("rawtypes") final TaskInputOutputContext context) {
 		this.context = context;
 	}
 
@@ -144,7 +264,7 @@ public abstract class Aggregator {
 	}
 
 	@SuppressWarnings("rawtypes")
-	public Context getContext() {
+	public TaskInputOutputContext getContext() {
 		return this.context;
 	}
 
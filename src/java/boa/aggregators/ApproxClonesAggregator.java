@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import boa.io.EmitKey;
+
+/**
+ * A Boa aggregator to group values whose sketches (from getstructsketch())
+ * are similar, using locality-sensitive hashing.  Each sketch is cut into
+ * <i>n</i> bands, and two values land in the same group if any of their bands
+ * are equal, directly or through other values.  More bands find groups of
+ * less similar values.
+ *
+ * Each output line is a group of two or more values, in sorted order.  A
+ * sketch shorter than the number of bands can not be cut into them, and is
+ * an error.
+ *
+ * @author agent
+ */
+@AggregatorSpec(name = "approxclones", formalParameters = { "int" }, weightType = "string")
+public class ApproxClonesAggregator extends Aggregator {
+	private static final Comparator<List<String>> byFirst = new Comparator<List<String>>() {
+		@Override
+		public int compare(final List<String> a, final List<String> b) {
+			return a.get(0).compareTo(b.get(0));
+		}
+	};
+
+	// the index of each value
+	private Map<String, Integer> values;
+	// the first value found with each band, per band
+	private List<Map<String, Integer>> buckets;
+	// the union-find parent of each value
+	private List<Integer> parents;
+
+	/**
+	 * Construct an ApproxClonesAggregator.
+	 *
+	 * @param n
+	 *            A long representing the number of bands to cut each sketch
+	 *            into
+	 */
+	public ApproxClonesAggregator(final long n) {
+		super(Math.max(1, n));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void start(final EmitKey key) {
+		super.start(key);
+
+		this.values = new LinkedHashMap<String, Integer>();
+		this.parents = new ArrayList<Integer>();
+		this.buckets = new ArrayList<Map<String, Integer>>();
+		for (int i = 0; i < this.getArg(); i++)
+			this.buckets.add(new HashMap<String, Integer>());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final String metadata) {
+		Integer value = this.values.get(data);
+		if (value == null) {
+			value = this.parents.size();
+			this.values.put(data, value);
+			this.parents.add(value);
+		}
+
+		if (metadata == null || metadata.isEmpty())
+			return;
+
+		final int bands = this.buckets.size();
+		// empty bands would all be equal, making every value a clone of every other
+		if (metadata.length() < bands)
+			throw new IllegalArgumentException("sketch of length " + metadata.length() + " can not be cut into " + bands + " bands: " + data);
+
+		for (int i = 0; i < bands; i++) {
+			final String band = metadata.substring(i * metadata.length() / bands, (i + 1) * metadata.length() / bands);
+			final Integer other = this.buckets.get(i).get(band);
+			if (other == null)
+				this.buckets.get(i).put(band, value);
+			else
+				this.union(value, other);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void finish() throws IOException, InterruptedException {
+		final Map<Integer, List<String>> groups = new HashMap<Integer, List<String>>();
+		for (final Map.Entry<String, Integer> e : this.values.entrySet()) {
+			final int root = this.find(e.getValue());
+			List<String> group = groups.get(root);
+			if (group == null) {
+				group = new ArrayList<String>();
+				groups.put(root, group);
+			}
+			group.add(e.getKey());
+		}
+
+		final List<List<String>> clones = new ArrayList<List<String>>();
+		for (final List<String> group : groups.values())
+			if (group.size() > 1) {
+				Collections.sort(group);
+				clones.add(group);
+			}
+		Collections.sort(clones, byFirst);
+
+		for (final List<String> group : clones)
+			this.collect(String.join(", ", group));
+	}
+
+	private int find(final int value) {
+		int root = value;
+		while (this.parents.get(root) != root)
+			root = this.parents.get(root);
+
+		// point the whole path at the root
+		for (int v = value; v != root; ) {
+			final int next = this.parents.get(v);
+			this.parents.set(v, root);
+			v = next;
+		}
+		return root;
+	}
+
+	private void union(final int a, final int b) {
+		final int ra = this.find(a);
+		final int rb = this.find(b);
+		if (ra != rb)
+			this.parents.set(Math.max(ra, rb), Math.min(ra, rb));
+	}
+}
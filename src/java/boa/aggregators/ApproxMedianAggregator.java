@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.IOException;
+
+/**
+ * A Boa aggregator to approximate the median of the values in a dataset,
+ * using a {@link QuantileSketch} so memory use does not grow with the size of
+ * the dataset.
+ * 
+ * @author agent
+ */
+@AggregatorSpec(name = "approxmedian", formalParameters = { "float" }, type = "int", canCombine = true)
+public class ApproxMedianAggregator extends IntApproxQuantileAggregator {
+	/**
+	 * Construct an ApproxMedianAggregator.
+	 */
+	public ApproxMedianAggregator() {
+		this(DEFAULT_ERROR);
+	}
+
+	/**
+	 * Construct an ApproxMedianAggregator.
+	 * 
+	 * @param error
+	 *            A double representing the largest rank error, as a fraction
+	 *            of the number of values
+	 */
+	public ApproxMedianAggregator(final double error) {
+		super(2, error);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void finish() throws IOException, InterruptedException {
+		if (this.isCombining()) {
+			super.finish();
+			return;
+		}
+
+		final QuantileSketch sketch = this.getSketch();
+		final long count = sketch.getCount();
+		if (count == 0)
+			return;
+
+		// as with median, average the middle two values of an even count
+		final double median;
+		if (count % 2 == 0)
+			median = (sketch.getValue(count / 2) + sketch.getValue(count / 2 + 1)) / 2.0;
+		else
+			median = sketch.getValue(count / 2 + 1);
+
+		this.collect(median);
+	}
+}
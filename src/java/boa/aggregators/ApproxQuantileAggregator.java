@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import boa.io.EmitKey;
+
+/**
+ * A Boa aggregator to approximate the quantiles for the values in a dataset,
+ * using a {@link QuantileSketch} so memory use does not grow with the size of
+ * the dataset.  The combiner outputs its sketch, which the reducer merges.
+ * 
+ * @author agent
+ */
+abstract class ApproxQuantileAggregator extends Aggregator {
+	/**
+	 * The default rank error, as a fraction of the number of values.
+	 */
+	public static final double DEFAULT_ERROR = 0.01;
+
+	private final double error;
+	private QuantileSketch sketch;
+
+	/**
+	 * Construct an ApproxQuantileAggregator.
+	 * 
+	 * @param n
+	 *            A long representing the number of quantiles to calculate
+	 */
+	public ApproxQuantileAggregator(final long n) {
+		this(n, DEFAULT_ERROR);
+	}
+
+	/**
+	 * Construct an ApproxQuantileAggregator.
+	 * 
+	 * @param n
+	 *            A long representing the number of quantiles to calculate
+	 * 
+	 * @param error
+	 *            A double representing the largest rank error, as a fraction
+	 *            of the number of values
+	 */
+	public ApproxQuantileAggregator(final long n, final double error) {
+		super(n);
+
+		this.error = error;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void start(final EmitKey key) {
+		super.start(key);
+
+		this.sketch = QuantileSketch.withError(this.error);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final String metadata) throws IOException {
+		// a sketch from the combiner
+		if (data.indexOf(';') != -1)
+			this.sketch.merge(QuantileSketch.parse(data));
+		else
+			this.aggregate(Double.parseDouble(data), metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final String metadata) {
+		this.sketch.add(data, count(metadata));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) {
+		this.sketch.add(data, metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final String metadata) {
+		this.sketch.add(data, count(metadata));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final long metadata) {
+		this.sketch.add(data, metadata);
+	}
+
+	private static long count(final String metadata) {
+		if (metadata == null)
+			return 1;
+		return Long.parseLong(metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void finish() throws IOException, InterruptedException {
+		// if we're in the combiner, just output the sketch
+		if (this.isCombining()) {
+			this.collect(this.sketch.toString());
+			return;
+		}
+
+		// nothing was aggregated, so there are no quantiles
+		if (this.sketch.getCount() == 0)
+			return;
+
+		final int n = (int) (this.getArg() - 1);
+		final String[] quantiles = new String[n];
+		final double step = this.sketch.getCount() / (double) n;
+
+		for (int i = 0; i < n; i++)
+			quantiles[i] = this.format(this.sketch.getValue((i + 1) * step));
+
+		this.collect(Arrays.toString(quantiles));
+	}
+
+	/**
+	 * Return the sketch of the values aggregated so far.
+	 * 
+	 * @return The {@link QuantileSketch} for the current key
+	 */
+	protected QuantileSketch getSketch() {
+		return this.sketch;
+	}
+
+	/**
+	 * Format a value from the sketch as a value of this aggregator's type.
+	 * 
+	 * @param value
+	 *            A double from the sketch
+	 * 
+	 * @return A {@link String} containing the value
+	 */
+	protected abstract String format(double value);
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.IOException;
+
+import boa.functions.BoaCasts;
+import boa.io.EmitKey;
+
+/**
+ * A Boa aggregator to estimate the top <i>n</i> values in a dataset by
+ * cardinality (or total weight), in bounded memory.  It keeps a
+ * {@link SpaceSaving} summary with a fixed number of counters, and the combiner
+ * outputs only the summary.
+ * 
+ * Each output line holds a value, its estimated weight (never less than its
+ * true weight), and the most the estimate can be over by.
+ * 
+ * @author agent
+ */
+@AggregatorSpec(name = "approxtop", formalParameters = { "int", "int" }, weightType = "float", canOmitWeight = true, canCombine = true)
+public class ApproxTopAggregator extends Aggregator {
+	/**
+	 * How many counters to keep for each value returned, by default.
+	 */
+	public static final int DEFAULT_COUNTERS_PER_VALUE = 10;
+
+	// marks values from the combiner as summaries, not values
+	private static final String SUMMARY = "summary";
+
+	private final int counters;
+	private SpaceSaving summary;
+
+	/**
+	 * Construct an ApproxTopAggregator.
+	 * 
+	 * @param n
+	 *            A long representing the number of values to return
+	 */
+	public ApproxTopAggregator(final long n) {
+		this(n, n * DEFAULT_COUNTERS_PER_VALUE);
+	}
+
+	/**
+	 * Construct an ApproxTopAggregator.
+	 * 
+	 * @param n
+	 *            A long representing the number of values to return
+	 * 
+	 * @param counters
+	 *            A long representing the number of counters to keep, which
+	 *            bounds both the memory used and the error
+	 */
+	public ApproxTopAggregator(final long n, final long counters) {
+		super(n);
+
+		this.counters = (int) Math.max(n, counters);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void start(final EmitKey key) {
+		super.start(key);
+
+		this.summary = new SpaceSaving(this.counters);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final String metadata) {
+		if (metadata == null)
+			this.summary.add(data, 1.0);
+		else if (SUMMARY.equals(metadata))
+			this.summary.merge(SpaceSaving.parse(data));
+		else
+			this.summary.add(data, Double.valueOf(metadata));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) {
+		this.summary.add(data, metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final double metadata) {
+		this.summary.add(data, metadata);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void finish() throws IOException, InterruptedException {
+		if (this.isCombining()) {
+			this.collect(this.summary.toString(), SUMMARY);
+			return;
+		}
+
+		final SpaceSaving.Counter[] top = this.summary.getCounters();
+		for (int i = 0; i < top.length && i < this.getArg(); i++)
+			this.collect(top[i].getValue() + ", " + BoaCasts.doubleToString(top[i].getCount()) + ", " + BoaCasts.doubleToString(top[i].getError()));
+	}
+}
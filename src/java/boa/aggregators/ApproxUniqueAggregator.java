@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.io.IOException;
+
+import boa.io.EmitKey;
+
+/**
+ * A Boa aggregator to estimate the size of the set of unique values in a
+ * dataset, using a {@link HyperLogLog} counter.  Unlike unique, the combiner
+ * outputs only the counter's registers (not the values), and memory use does
+ * not grow with the number of values.
+ * 
+ * @author agent
+ */
+@AggregatorSpec(name = "approxunique", formalParameters = { "int" }, canCombine = true)
+public class ApproxUniqueAggregator extends Aggregator {
+	/**
+	 * The default precision, for a standard error of about 0.8%.
+	 */
+	public static final int DEFAULT_PRECISION = 14;
+
+	/**
+	 * The smallest precision allowed.
+	 */
+	public static final int MIN_PRECISION = HyperLogLog.MIN_PRECISION;
+
+	/**
+	 * The largest precision allowed.
+	 */
+	public static final int MAX_PRECISION = HyperLogLog.MAX_PRECISION;
+
+	// marks values from the combiner as counters, not values
+	private static final String COUNTER = "hll";
+
+	private HyperLogLog counter;
+
+	/**
+	 * Construct an ApproxUniqueAggregator.
+	 */
+	public ApproxUniqueAggregator() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Construct an ApproxUniqueAggregator.
+	 * 
+	 * @param precision
+	 *            A long representing the precision of the counter, which uses
+	 *            2^precision registers
+	 */
+	public ApproxUniqueAggregator(final long precision) {
+		super(precision);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void start(final EmitKey key) {
+		super.start(key);
+
+		this.counter = new HyperLogLog((int) this.getArg());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final String metadata) throws IOException, InterruptedException {
+		if (COUNTER.equals(metadata))
+			this.counter.merge(HyperLogLog.parse(data));
+		else
+			this.counter.add(data);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void finish() throws IOException, InterruptedException {
+		if (this.isCombining())
+			this.collect(this.counter.toString(), COUNTER);
+		else
+			this.collect(this.counter.estimate());
+	}
+}
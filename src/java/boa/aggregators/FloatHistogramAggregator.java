@@ -70,12 +70,24 @@ public class FloatHistogramAggregator extends HistogramAggregator {
 		this.aggregate(Long.valueOf(data).doubleValue(), metadata);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) {
+		this.aggregate(Long.valueOf(data).doubleValue(), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final double data, final String metadata) throws IOException {
 		this.list.add(Double.valueOf(data), super.count(metadata));
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final long metadata) {
+		this.list.add(Double.valueOf(data), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public List<Pair<Number, Long>> getTuples() {
@@ -62,6 +62,12 @@ public class FloatQuantileAggregator extends QuantileAggregator {
 		this.aggregate(Long.valueOf(data).doubleValue(), metadata);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) {
+		this.aggregate(Long.valueOf(data).doubleValue(), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final double data, final String metadata) throws IOException {
@@ -70,12 +76,18 @@ public class FloatQuantileAggregator extends QuantileAggregator {
 
 	/** {@inheritDoc} */
 	@Override
-	public List<Pair<String, Long>> getTuples() {
-		final List<Pair<String, Long>> list = new ArrayList<Pair<String, Long>>();
+	public void aggregate(final double data, final long metadata) {
+		this.list.add(Double.valueOf(data), super.count(metadata));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<Pair<Number, Long>> getTuples() {
+		final List<Pair<Number, Long>> list = new ArrayList<Pair<Number, Long>>();
 
 		// convert the map entries into a list of Pair
 		for (final Entry<Double, Long> e : this.list.getEntries())
-			list.add(new Pair<String, Long>(e.getKey().toString(), e.getValue()));
+			list.add(new Pair<Number, Long>(e.getKey(), e.getValue()));
 
 		return list;
 	}
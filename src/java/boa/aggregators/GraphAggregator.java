@@ -19,7 +19,6 @@ package boa.aggregators;
 import java.util.*;
 import java.io.IOException;
 
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 
 import boa.io.EmitKey;
@@ -61,7 +60,7 @@ public abstract class GraphAggregator extends Aggregator {
 			this.getContext().write(this.getKey(), new EmitValue(data, metadata));
 			return;
 		}
-		this.getContext().write(new Text(format(this.getKey().getIndex(), data, metadata)), NullWritable.get());
+		this.getContext().write(new Text(format(this.getKey().getIndex(), data, metadata)), new Text(this.getKey().getIndex()));
 	}
 
 	protected abstract String format(final String idx, final String data, final String metadata);
@@ -77,7 +77,10 @@ abstract class HistogramAggregator extends Aggregator {
 		if (this.isCombining()) {
 			// if we're in the combiner, just output the compressed data
 			for (final Pair<Number, Long> p : this.getTuples())
-				this.collect(p.getFirst().toString(), p.getSecond().toString());
+				if (p.getFirst() instanceof Double)
+					this.collect(p.getFirst().doubleValue(), p.getSecond().longValue());
+				else
+					this.collect(p.getFirst().longValue(), p.getSecond().longValue());
 		} else {
 			// otherwise, set up the histogram
 			int[] buckets = new int[this.buckets];
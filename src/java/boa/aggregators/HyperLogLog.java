@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A HyperLogLog counter, estimating the number of distinct values added to it
+ * in a fixed amount of memory (2^p registers of one byte).  As in HLL++, values
+ * are hashed to 64 bits and small counters are kept sparse (only the registers
+ * that are set).  Small cardinalities are estimated by linear counting.
+ * Counters of the same precision merge by taking the maximum of each register.
+ * 
+ * The standard error of the estimate is about 1.04 / sqrt(2^p).
+ * 
+ * @author agent
+ */
+class HyperLogLog {
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 18;
+
+	private final int p;
+	private final int m;
+
+	// sorted entries of (register << 8 | value), while sparse
+	private int[] sparse = new int[4];
+	private int sparseSize = 0;
+
+	// all registers, once dense
+	private byte[] registers = null;
+
+	/**
+	 * Construct a {@link HyperLogLog}.
+	 * 
+	 * @param p
+	 *            The precision, so the counter has 2^p registers
+	 */
+	public HyperLogLog(final int p) {
+		if (p < MIN_PRECISION || p > MAX_PRECISION)
+			throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ": " + p);
+
+		this.p = p;
+		this.m = 1 << p;
+	}
+
+	/**
+	 * Add a value to the counter.
+	 * 
+	 * @param s
+	 *            The value to add
+	 */
+	public void add(final String s) {
+		final long hash = hash(s.getBytes(StandardCharsets.UTF_8));
+
+		final int index = (int) (hash >>> (64 - this.p));
+		// the position of the first 1 bit in the rest of the hash
+		final int rho = Long.numberOfLeadingZeros((hash << this.p) | (1L << (this.p - 1))) + 1;
+
+		this.set(index, rho);
+	}
+
+	/**
+	 * Merge another counter into this one.
+	 * 
+	 * @param that
+	 *            The {@link HyperLogLog} to merge
+	 */
+	public void merge(final HyperLogLog that) {
+		if (that.p != this.p)
+			throw new IllegalArgumentException("can not merge counters of precision " + this.p + " and " + that.p);
+
+		if (that.registers == null) {
+			for (int i = 0; i < that.sparseSize; i++)
+				this.set(that.sparse[i] >>> 8, that.sparse[i] & 0xFF);
+		} else {
+			this.toDense();
+			for (int i = 0; i < this.m; i++)
+				if (that.registers[i] > this.registers[i])
+					this.registers[i] = that.registers[i];
+		}
+	}
+
+	/**
+	 * Returns the estimated number of distinct values added.
+	 * 
+	 * @return the estimate
+	 */
+	public long estimate() {
+		double sum = 0;
+		int zeros = 0;
+
+		if (this.registers == null) {
+			zeros = this.m - this.sparseSize;
+			sum = zeros;
+			for (int i = 0; i < this.sparseSize; i++)
+				sum += 1.0 / (1L << (this.sparse[i] & 0xFF));
+		} else {
+			for (int i = 0; i < this.m; i++) {
+				if (this.registers[i] == 0)
+					zeros++;
+				sum += 1.0 / (1L << this.registers[i]);
+			}
+		}
+
+		final double estimate = this.alpha() * this.m * this.m / sum;
+
+		// small cardinalities are better estimated by linear counting
+		if (zeros > 0 && estimate <= 2.5 * this.m)
+			return Math.round(this.m * Math.log(this.m / (double) zeros));
+
+		return Math.round(estimate);
+	}
+
+	private double alpha() {
+		switch (this.m) {
+			case 16:
+				return 0.673;
+			case 32:
+				return 0.697;
+			case 64:
+				return 0.709;
+			default:
+				return 0.7213 / (1 + 1.079 / this.m);
+		}
+	}
+
+	private void set(final int index, final int rho) {
+		if (this.registers != null) {
+			if (rho > this.registers[index])
+				this.registers[index] = (byte) rho;
+			return;
+		}
+
+		int pos = Arrays.binarySearch(this.sparse, 0, this.sparseSize, index << 8);
+		if (pos < 0)
+			pos = -pos - 1;
+
+		if (pos < this.sparseSize && this.sparse[pos] >>> 8 == index) {
+			if (rho > (this.sparse[pos] & 0xFF))
+				this.sparse[pos] = index << 8 | rho;
+			return;
+		}
+
+		// a sparse entry takes 4 bytes, so go dense once that is smaller
+		if (this.sparseSize >= this.m / 4) {
+			this.toDense();
+			this.set(index, rho);
+			return;
+		}
+
+		if (this.sparseSize == this.sparse.length)
+			this.sparse = Arrays.copyOf(this.sparse, this.sparse.length * 2);
+		System.arraycopy(this.sparse, pos, this.sparse, pos + 1, this.sparseSize - pos);
+		this.sparse[pos] = index << 8 | rho;
+		this.sparseSize++;
+	}
+
+	private void toDense() {
+		if (this.registers != null)
+			return;
+
+		this.registers = new byte[this.m];
+		for (int i = 0; i < this.sparseSize; i++)
+			this.registers[this.sparse[i] >>> 8] = (byte) (this.sparse[i] & 0xFF);
+		this.sparse = null;
+		this.sparseSize = 0;
+	}
+
+	/**
+	 * Parse a counter written by {@link #toString()}.
+	 * 
+	 * @param s
+	 *            The {@link String} to parse
+	 * @return the {@link HyperLogLog}
+	 */
+	public static HyperLogLog parse(final String s) {
+		final String[] parts = s.split(";", 3);
+
+		final HyperLogLog hll = new HyperLogLog(Integer.parseInt(parts[0]));
+		final byte[] bytes = Base64.getDecoder().decode(parts[2]);
+
+		if (parts[1].equals("d")) {
+			hll.registers = bytes;
+		} else {
+			final ByteBuffer buf = ByteBuffer.wrap(bytes);
+			hll.sparse = new int[Math.max(4, bytes.length / 4)];
+			while (buf.hasRemaining())
+				hll.sparse[hll.sparseSize++] = buf.getInt();
+		}
+
+		return hll;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		if (this.registers != null)
+			return this.p + ";d;" + Base64.getEncoder().encodeToString(this.registers);
+
+		final ByteBuffer buf = ByteBuffer.allocate(this.sparseSize * 4);
+		for (int i = 0; i < this.sparseSize; i++)
+			buf.putInt(this.sparse[i]);
+		return this.p + ";s;" + Base64.getEncoder().encodeToString(buf.array());
+	}
+
+	// MurmurHash64A, by Austin Appleby
+	private static long hash(final byte[] data) {
+		final long seed = 0xe17a1465L;
+		final long mix = 0xc6a4a7935bd1e995L;
+		final int r = 47;
+
+		long h = seed ^ (data.length * mix);
+
+		final int blocks = data.length / 8;
+		for (int i = 0; i < blocks; i++) {
+			final int off = i * 8;
+			long k = (data[off] & 0xFFL)
+					| (data[off + 1] & 0xFFL) << 8
+					| (data[off + 2] & 0xFFL) << 16
+					| (data[off + 3] & 0xFFL) << 24
+					| (data[off + 4] & 0xFFL) << 32
+					| (data[off + 5] & 0xFFL) << 40
+					| (data[off + 6] & 0xFFL) << 48
+					| (data[off + 7] & 0xFFL) << 56;
+
+			k *= mix;
+			k ^= k >>> r;
+			k *= mix;
+
+			h ^= k;
+			h *= mix;
+		}
+
+		final int off = blocks * 8;
+		switch (data.length & 7) {
+			case 7: h ^= (data[off + 6] & 0xFFL) << 48;
+				// fall through
+			case 6: h ^= (data[off + 5] & 0xFFL) << 40;
+				// fall through
+			case 5: h ^= (data[off + 4] & 0xFFL) << 32;
+				// fall through
+			case 4: h ^= (data[off + 3] & 0xFFL) << 24;
+				// fall through
+			case 3: h ^= (data[off + 2] & 0xFFL) << 16;
+				// fall through
+			case 2: h ^= (data[off + 1] & 0xFFL) << 8;
+				// fall through
+			case 1: h ^= (data[off] & 0xFFL);
+				h *= mix;
+				break;
+			default:
+				break;
+		}
+
+		h ^= h >>> r;
+		h *= mix;
+		h ^= h >>> r;
+
+		return h;
+	}
+}
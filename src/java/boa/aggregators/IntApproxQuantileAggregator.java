@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+/**
+ * A Boa aggregator to approximate the quantiles for the values in a dataset.
+ * 
+ * @author agent
+ */
+@AggregatorSpec(name = "approxquantile", formalParameters = { "int", "float" }, type = "int", canCombine = true)
+public class IntApproxQuantileAggregator extends ApproxQuantileAggregator {
+	/**
+	 * Construct a IntApproxQuantileAggregator.
+	 * 
+	 * @param n
+	 *            A long representing the number of quantiles to calculate
+	 */
+	public IntApproxQuantileAggregator(final long n) {
+		super(n);
+	}
+
+	/**
+	 * Construct a IntApproxQuantileAggregator.
+	 * 
+	 * @param n
+	 *            A long representing the number of quantiles to calculate
+	 * 
+	 * @param error
+	 *            A double representing the largest rank error, as a fraction
+	 *            of the number of values
+	 */
+	public IntApproxQuantileAggregator(final long n, final double error) {
+		super(n, error);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected String format(final double value) {
+		return Long.toString(Math.round(value));
+	}
+}
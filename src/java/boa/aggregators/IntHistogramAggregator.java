@@ -70,12 +70,24 @@ public class IntHistogramAggregator extends HistogramAggregator {
 		this.list.add(Long.valueOf(data), super.count(metadata));
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final long data, final long metadata) {
+		this.list.add(Long.valueOf(data), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final double data, final String metadata) throws IOException {
 		this.aggregate(Double.valueOf(data).longValue(), metadata);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final double data, final long metadata) {
+		this.aggregate(Double.valueOf(data).longValue(), metadata);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public List<Pair<Number, Long>> getTuples() {
@@ -18,7 +18,6 @@ package boa.aggregators;
 
 import java.io.IOException;
 
-import boa.functions.BoaCasts;
 import boa.io.EmitKey;
 
 /**
@@ -61,14 +60,22 @@ abstract class MinOrMaxAggregator extends Aggregator {
 	/** {@inheritDoc} */
 	@Override
 	public void aggregate(final String data, final String metadata) {
-		double weight;
-
 		if (metadata == null)
-			weight = 1.0;
+			this.aggregate(data, 1.0);
 		else
-			weight = Double.parseDouble(metadata);
+			this.aggregate(data, Double.parseDouble(metadata));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final long metadata) {
+		this.aggregate(data, (double) metadata);
+	}
 
-		final WeightedString s = new WeightedString(data, weight);
+	/** {@inheritDoc} */
+	@Override
+	public void aggregate(final String data, final double metadata) {
+		final WeightedString s = new WeightedString(data, metadata);
 
 		if (this.compare(s, this.list[this.last]) > 0)
 			// find this new item's position within the list
@@ -107,7 +114,7 @@ abstract class MinOrMaxAggregator extends Aggregator {
 	public void finish() throws IOException, InterruptedException {
 		for (int i = 0; i < this.getArg(); i++)
 			if (this.isCombining())
-				this.collect(this.list[i].getString(), BoaCasts.doubleToString(this.list[i].getWeight()));
+				this.collect(this.list[i].getString(), this.list[i].getWeight());
 			else
 				this.collect(this.list[i].toString());
 	}
@@ -61,6 +61,20 @@ abstract class QuantileAggregator extends Aggregator {
 		return count;
 	}
 
+	/**
+	 * Add a count to the running total.
+	 * 
+	 * @param metadata
+	 *            A long containing the number of values
+	 * 
+	 * @return A long representing the value in metadata
+	 */
+	public long count(final long metadata) {
+		this.total += metadata;
+
+		return metadata;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void start(final EmitKey key) {
@@ -78,8 +92,11 @@ abstract class QuantileAggregator extends Aggregator {
 	public void finish() throws IOException, InterruptedException {
 		// if we're in the combiner, just output the compressed data
 		if (this.isCombining()) {
-			for (final Pair<String, Long> e : this.getTuples())
-				this.collect(e.getFirst(), e.getSecond().toString());
+			for (final Pair<Number, Long> e : this.getTuples())
+				if (e.getFirst() instanceof Double)
+					this.collect(e.getFirst().doubleValue(), e.getSecond().longValue());
+				else
+					this.collect(e.getFirst().longValue(), e.getSecond().longValue());
 		} else {
 			// otherwise, set up the quantiles
 			final int n = (int) (this.getArg() - 1);
@@ -88,7 +105,7 @@ abstract class QuantileAggregator extends Aggregator {
 
 			long last = 0;
 			long q = 0;
-			for (final Pair<String, Long> e : this.getTuples()) {
+			for (final Pair<Number, Long> e : this.getTuples()) {
 				q += e.getSecond();
 
 				final int curr = (int) (q / step);
@@ -98,7 +115,7 @@ abstract class QuantileAggregator extends Aggregator {
 
 				last = curr;
 
-				quantiles[curr - 1] = e.getFirst();
+				quantiles[curr - 1] = e.getFirst().toString();
 			}
 
 			this.collect(Arrays.toString(quantiles));
@@ -111,5 +128,5 @@ abstract class QuantileAggregator extends Aggregator {
 	 * @return A {@link List} of {@link Pair}&lt{@link Number}, {@link Long}&gt;
 	 *         containing the data points from the dataset
 	 */
-	public abstract List<Pair<String, Long>> getTuples();
+	public abstract List<Pair<Number, Long>> getTuples();
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A mergeable sketch of a stream of numbers, answering rank queries (and thus
+ * quantiles) approximately.  This is a KLL sketch (Karnin, Lang and Liberty):
+ * values are kept in levels of compactors, where a value at level h stands for
+ * 2^h values of the stream.  When the sketch fills, a level is sorted and every
+ * other value moves up a level.
+ *
+ * For a sketch of size k the rank error is typically about 1.7/k of the number
+ * of values, and rarely above 3.3/k, while at most about 3k values are ever
+ * kept.
+ *
+ * @author agent
+ */
+class QuantileSketch {
+	private static final double CAPACITY_DECAY = 2.0 / 3.0;
+	private static final int MIN_CAPACITY = 2;
+
+	private final int k;
+	private final Random random = new Random(0);
+	private final List<double[]> levels = new ArrayList<double[]>();
+	private int[] sizes = new int[0];
+	private int size;
+	private long count;
+
+	// sorted view of the sketch, built on demand
+	private double[] sortedValues;
+	private long[] sortedRanks;
+
+	/**
+	 * Construct a {@link QuantileSketch}.
+	 *
+	 * @param k
+	 *            The size of the sketch
+	 */
+	public QuantileSketch(final int k) {
+		this.k = Math.max(8, k);
+	}
+
+	/**
+	 * Construct a {@link QuantileSketch} with a given rank error.
+	 *
+	 * @param epsilon
+	 *            The largest rank error wanted, as a fraction of the number of
+	 *            values
+	 * @return a new {@link QuantileSketch}
+	 */
+	public static QuantileSketch withError(final double epsilon) {
+		if (epsilon <= 0 || epsilon >= 1)
+			throw new IllegalArgumentException("error bound must be between 0 and 1: " + epsilon);
+		return new QuantileSketch((int) Math.ceil(3.3 / epsilon));
+	}
+
+	/**
+	 * Add a value to the sketch.
+	 *
+	 * @param value
+	 *            The value to add
+	 */
+	public void add(final double value) {
+		this.add(value, 1);
+	}
+
+	/**
+	 * Add a value with a cardinality to the sketch.
+	 *
+	 * @param value
+	 *            The value to add
+	 * @param n
+	 *            The cardinality of the value
+	 */
+	public void add(final double value, final long n) {
+		// a value at level h counts 2^h times, so place one copy per bit of n
+		for (int h = 0; h < 64; h++)
+			if ((n & (1L << h)) != 0)
+				this.append(h, value);
+
+		this.count += n;
+		this.compress();
+	}
+
+	/**
+	 * Merge another sketch into this one.
+	 *
+	 * @param that
+	 *            The {@link QuantileSketch} to merge
+	 */
+	public void merge(final QuantileSketch that) {
+		for (int h = 0; h < that.levels.size(); h++)
+			for (int i = 0; i < that.sizes[h]; i++)
+				this.append(h, that.levels.get(h)[i]);
+
+		this.count += that.count;
+		this.compress();
+	}
+
+	/**
+	 * Returns the number of values added to the sketch.
+	 *
+	 * @return the number of values in the stream
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns (approximately) the value with a given rank, that is the
+	 * smallest value such that at least <code>rank</code> values of the stream
+	 * are less than or equal to it.
+	 *
+	 * @param rank
+	 *            The rank, from 1 to the number of values
+	 * @return the value with that rank, or NaN if the sketch is empty
+	 */
+	public double getValue(final double rank) {
+		if (this.size == 0)
+			return Double.NaN;
+
+		if (this.sortedValues == null)
+			this.sort();
+
+		int lo = 0;
+		int hi = this.sortedRanks.length - 1;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (this.sortedRanks[mid] < rank)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return this.sortedValues[lo];
+	}
+
+	private void sort() {
+		final double[] values = new double[this.size];
+		final long[] weights = new long[this.size];
+		final Integer[] order = new Integer[this.size];
+
+		int j = 0;
+		for (int h = 0; h < this.levels.size(); h++)
+			for (int i = 0; i < this.sizes[h]; i++, j++) {
+				values[j] = this.levels.get(h)[i];
+				weights[j] = 1L << h;
+				order[j] = j;
+			}
+
+		Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+		this.sortedValues = new double[this.size];
+		this.sortedRanks = new long[this.size];
+		long rank = 0;
+		for (int i = 0; i < this.size; i++) {
+			rank += weights[order[i]];
+			this.sortedValues[i] = values[order[i]];
+			this.sortedRanks[i] = rank;
+		}
+	}
+
+	private void append(final int level, final double value) {
+		while (this.levels.size() <= level) {
+			this.levels.add(new double[MIN_CAPACITY]);
+			this.sizes = Arrays.copyOf(this.sizes, this.levels.size());
+		}
+
+		double[] items = this.levels.get(level);
+		if (this.sizes[level] == items.length) {
+			items = Arrays.copyOf(items, items.length * 2);
+			this.levels.set(level, items);
+		}
+
+		items[this.sizes[level]++] = value;
+		this.size++;
+		this.sortedValues = null;
+	}
+
+	private int capacity(final int level) {
+		final int depth = this.levels.size() - 1 - level;
+		return Math.max(MIN_CAPACITY, (int) Math.ceil(this.k * Math.pow(CAPACITY_DECAY, depth)));
+	}
+
+	private int capacity() {
+		int total = 0;
+		for (int h = 0; h < this.levels.size(); h++)
+			total += this.capacity(h);
+		return total;
+	}
+
+	private void compress() {
+		// an empty sketch (nothing added, or only with no cardinality) has no levels to compact
+		while (this.size > 0 && this.size >= this.capacity()) {
+			for (int h = 0; h < this.levels.size(); h++) {
+				if (this.sizes[h] < this.capacity(h))
+					continue;
+
+				final double[] items = this.levels.get(h);
+				final int n = this.sizes[h];
+				Arrays.sort(items, 0, n);
+
+				// with an odd number of values, the smallest stays behind
+				final int first = n % 2;
+				for (int i = first + this.random.nextInt(2); i < n; i += 2)
+					this.append(h + 1, items[i]);
+
+				this.size -= n - first;
+				this.sizes[h] = first;
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Parse a sketch written by {@link #toString()}.
+	 *
+	 * @param s
+	 *            The {@link String} to parse
+	 * @return the {@link QuantileSketch}
+	 */
+	public static QuantileSketch parse(final String s) {
+		final String[] parts = s.split(";", -1);
+
+		final QuantileSketch sketch = new QuantileSketch(Integer.parseInt(parts[0]));
+		for (int h = 2; h < parts.length; h++)
+			if (!parts[h].isEmpty())
+				for (final String value : parts[h].split(","))
+					sketch.append(h - 2, Double.parseDouble(value));
+		sketch.count = Long.parseLong(parts[1]);
+
+		return sketch;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(this.k).append(';').append(this.count);
+
+		for (int h = 0; h < this.levels.size(); h++) {
+			sb.append(';');
+			for (int i = 0; i < this.sizes[h]; i++) {
+				if (i > 0)
+					sb.append(',');
+				sb.append(this.levels.get(h)[i]);
+			}
+		}
+
+		return sb.toString();
+	}
+}
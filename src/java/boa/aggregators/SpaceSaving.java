@@ -0,0 +1,288 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.aggregators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Space-Saving summary (Metwally, Agrawal and El Abbadi) of the heaviest
+ * values in a weighted stream, using a fixed number of counters kept in a
+ * min-heap.  A value that is not counted takes over the smallest counter,
+ * inheriting its count as the error.
+ * 
+ * Each counted value's count is an upper bound of its true total weight, and
+ * its count minus its error is a lower bound.  Any value with a total weight
+ * above the smallest count is guaranteed to be counted.  Summaries merge by
+ * adding the counts of both (using the other summary's floor for values it
+ * does not count) and keeping the largest.
+ * 
+ * @author agent
+ */
+class SpaceSaving {
+	private final int capacity;
+
+	// a min-heap of the counters, on their counts
+	private final String[] values;
+	private final double[] counts;
+	private final double[] errors;
+	private final Map<String, Integer> positions;
+	private int size = 0;
+
+	// the most an uncounted value can weigh, once values have been dropped
+	private double floor = 0;
+
+	/**
+	 * Construct a {@link SpaceSaving} summary.
+	 * 
+	 * @param capacity
+	 *            The number of counters
+	 */
+	public SpaceSaving(final int capacity) {
+		this.capacity = capacity;
+		this.values = new String[capacity];
+		this.counts = new double[capacity];
+		this.errors = new double[capacity];
+		this.positions = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Add a weighted value to the summary.
+	 * 
+	 * @param value
+	 *            The value to add
+	 * @param weight
+	 *            The (non-negative) weight of the value
+	 */
+	public void add(final String value, final double weight) {
+		final Integer pos = this.positions.get(value);
+
+		if (pos != null) {
+			this.counts[pos] += weight;
+			this.siftDown(pos);
+		} else if (this.size < this.capacity) {
+			this.put(this.size, value, this.floor + weight, this.floor);
+			this.size++;
+			this.siftUp(this.size - 1);
+		} else {
+			// take over the smallest counter
+			final double min = this.counts[0];
+			this.positions.remove(this.values[0]);
+			this.put(0, value, min + weight, min);
+			this.siftDown(0);
+		}
+	}
+
+	/**
+	 * Merge another summary into this one.
+	 * 
+	 * @param that
+	 *            The {@link SpaceSaving} summary to merge
+	 */
+	public void merge(final SpaceSaving that) {
+		final double thisFloor = this.getFloor();
+		final double thatFloor = that.getFloor();
+
+		final Map<String, double[]> merged = new HashMap<String, double[]>();
+		for (int i = 0; i < this.size; i++)
+			merged.put(this.values[i], new double[] { this.counts[i] + thatFloor, this.errors[i] + thatFloor });
+		for (int i = 0; i < that.size; i++) {
+			final double[] e = merged.get(that.values[i]);
+			if (e == null) {
+				merged.put(that.values[i], new double[] { that.counts[i] + thisFloor, that.errors[i] + thisFloor });
+			} else {
+				// this value was counted by both, so take back the floor added above
+				e[0] += that.counts[i] - thatFloor;
+				e[1] += that.errors[i] - thatFloor;
+			}
+		}
+
+		final List<Map.Entry<String, double[]>> entries = new ArrayList<Map.Entry<String, double[]>>(merged.entrySet());
+		Collections.sort(entries, (a, b) -> Double.compare(b.getValue()[0], a.getValue()[0]));
+
+		double newFloor = thisFloor + thatFloor;
+		if (entries.size() > this.capacity)
+			newFloor = Math.max(newFloor, entries.get(this.capacity).getValue()[0]);
+
+		this.positions.clear();
+		this.size = 0;
+		this.floor = newFloor;
+		for (final Map.Entry<String, double[]> e : entries) {
+			if (this.size == this.capacity)
+				break;
+			this.put(this.size, e.getKey(), e.getValue()[0], e.getValue()[1]);
+			this.size++;
+			this.siftUp(this.size - 1);
+		}
+	}
+
+	/**
+	 * Returns the most an uncounted value can weigh.
+	 * 
+	 * @return the floor of the summary
+	 */
+	public double getFloor() {
+		if (this.size == this.capacity)
+			return Math.max(this.floor, this.counts[0]);
+		return this.floor;
+	}
+
+	/**
+	 * Returns the counted values, heaviest first (and then by value).
+	 * 
+	 * @return An array of {@link Counter}s
+	 */
+	public Counter[] getCounters() {
+		final Counter[] counters = new Counter[this.size];
+		for (int i = 0; i < this.size; i++)
+			counters[i] = new Counter(this.values[i], this.counts[i], this.errors[i]);
+
+		Arrays.sort(counters);
+
+		return counters;
+	}
+
+	private void put(final int pos, final String value, final double count, final double error) {
+		this.values[pos] = value;
+		this.counts[pos] = count;
+		this.errors[pos] = error;
+		this.positions.put(value, pos);
+	}
+
+	private void swap(final int i, final int j) {
+		final String value = this.values[i];
+		final double count = this.counts[i];
+		final double error = this.errors[i];
+
+		this.put(i, this.values[j], this.counts[j], this.errors[j]);
+		this.put(j, value, count, error);
+	}
+
+	private void siftUp(int pos) {
+		while (pos > 0) {
+			final int parent = (pos - 1) / 2;
+			if (this.counts[parent] <= this.counts[pos])
+				break;
+			this.swap(pos, parent);
+			pos = parent;
+		}
+	}
+
+	private void siftDown(int pos) {
+		while (true) {
+			final int left = 2 * pos + 1;
+			if (left >= this.size)
+				break;
+
+			int child = left;
+			if (left + 1 < this.size && this.counts[left + 1] < this.counts[left])
+				child = left + 1;
+
+			if (this.counts[pos] <= this.counts[child])
+				break;
+			this.swap(pos, child);
+			pos = child;
+		}
+	}
+
+	/**
+	 * Parse a summary written by {@link #toString()}.
+	 * 
+	 * @param s
+	 *            The {@link String} to parse
+	 * @return the {@link SpaceSaving} summary
+	 */
+	public static SpaceSaving parse(final String s) {
+		int i = s.indexOf(';');
+		int j = s.indexOf(';', i + 1);
+		if (j == -1)
+			j = s.length();
+
+		final SpaceSaving summary = new SpaceSaving(Integer.parseInt(s.substring(0, i)));
+		summary.floor = Double.parseDouble(s.substring(i + 1, j));
+
+		// each counter is ;<length>:<value><count>,<error>
+		while (j < s.length()) {
+			i = s.indexOf(':', j);
+			final int end = i + 1 + Integer.parseInt(s.substring(j + 1, i));
+			final String value = s.substring(i + 1, end);
+
+			final int comma = s.indexOf(',', end);
+			j = s.indexOf(';', comma);
+			if (j == -1)
+				j = s.length();
+
+			summary.put(summary.size, value, Double.parseDouble(s.substring(end, comma)), Double.parseDouble(s.substring(comma + 1, j)));
+			summary.size++;
+			summary.siftUp(summary.size - 1);
+		}
+
+		return summary;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(this.capacity).append(';').append(this.floor);
+
+		for (int i = 0; i < this.size; i++)
+			sb.append(';').append(this.values[i].length()).append(':').append(this.values[i])
+				.append(this.counts[i]).append(',').append(this.errors[i]);
+
+		return sb.toString();
+	}
+
+	/**
+	 * A counted value, with its (upper bound) count and error.
+	 */
+	static class Counter implements Comparable<Counter> {
+		private final String value;
+		private final double count;
+		private final double error;
+
+		Counter(final String value, final double count, final double error) {
+			this.value = value;
+			this.count = count;
+			this.error = error;
+		}
+
+		public String getValue() {
+			return this.value;
+		}
+
+		public double getCount() {
+			return this.count;
+		}
+
+		public double getError() {
+			return this.error;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int compareTo(final Counter that) {
+			final int c = Double.compare(that.count, this.count);
+			if (c != 0)
+				return c;
+			return this.value.compareTo(that.value);
+		}
+	}
+}
@@ -150,7 +150,8 @@ public class BoaCompiler extends BoaMain {
 					if (cl.hasOption("pp")) new PrettyPrintVisitor().start(p);
 					if (cl.hasOption("ast2")) new ASTPrintingVisitor().start(p);
 
-					final CodeGeneratingVisitor cg = new CodeGeneratingVisitor(className, isSimple ? 64 * 1024 * 1024 : 10 * 1024 * 1024, seed, DefaultProperties.localDataPath != null);
+					final int reducers = cl.hasOption('r') ? Integer.parseInt(cl.getOptionValue('r')) : 1;
+					final CodeGeneratingVisitor cg = new CodeGeneratingVisitor(className, isSimple ? 64 * 1024 * 1024 : 10 * 1024 * 1024, seed, DefaultProperties.localDataPath != null, reducers);
 					cg.start(p);
 
 					final File outputFile = new File(outputSrcDir, className + ".java");
@@ -284,6 +285,7 @@ public class BoaCompiler extends BoaMain {
 		options.addOption("o", "out", true, "the name of the resulting jar");
 		options.addOption("j", "rtjar", true, "the path to the Boa runtime jar");
 		options.addOption("n", "name", true, "the name of the generated main class");
+		options.addOption("r", "reducers", true, "how many reducers each indexed output variable may use");
 		options.addOption("ast", "ast-parsed", false, "print the AST immediately after parsing (debug)");
 		options.addOption("ast2", "ast-transformed", false, "print the AST after transformations, before code generation (debug)");
 		options.addOption("pp", "pretty-print", false, "pretty print the AST before code generation (debug)");
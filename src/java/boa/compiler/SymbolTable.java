@@ -75,6 +75,8 @@ public class SymbolTable {
 		new PDGProtoTuple(),
 		new PDGNodeProtoTuple(),
 		new PDGEdgeProtoTuple(),
+		new CallGraphProtoTuple(),
+		new CallGraphNodeProtoTuple(),
 		new DTreeProtoTuple(),
 		new PDTreeProtoTuple(),
 		new TreeNodeProtoTuple(),
@@ -174,6 +176,8 @@ public class SymbolTable {
 		globalFunctions.addFunction("getvalue", new BoaFunction(new BoaAny(), new BoaType[] { new DDGNodeProtoTuple()},"getValue(${0})"));
 		globalFunctions.addFunction("getvalue", new BoaFunction(new BoaTypeVar("K"), new BoaType[] { new PDGNodeProtoTuple(), new BoaTraversal(new BoaTypeVar("K"))},"${1}.getValue(${0})"));
 		globalFunctions.addFunction("getvalue", new BoaFunction(new BoaAny(), new BoaType[] { new PDGNodeProtoTuple()},"getValue(${0})"));
+		globalFunctions.addFunction("getvalue", new BoaFunction(new BoaTypeVar("K"), new BoaType[] { new CallGraphNodeProtoTuple(), new BoaTraversal(new BoaTypeVar("K"))},"${1}.getValue(${0})"));
+		globalFunctions.addFunction("getvalue", new BoaFunction(new BoaAny(), new BoaType[] { new CallGraphNodeProtoTuple()},"getValue(${0})"));
 		globalFunctions.addFunction("clear", new BoaFunction(new BoaAny(), new BoaType[] { new BoaTraversal()},"${0}.clear()"));
 
 		// graph functions
@@ -226,6 +230,8 @@ public class SymbolTable {
 		globalFunctions.addFunction("traverse", new BoaFunction(new BoaBool(), new BoaType[] { new DDGProtoTuple(), new TraversalDirectionProtoMap(), new TraversalKindProtoMap(), new BoaTraversal(), new BoaFixP() }, "${3}.traverse(${0},${1},${2},${4})"));
 		globalFunctions.addFunction("traverse", new BoaFunction(new BoaAny(), new BoaType[] { new PDGProtoTuple(), new TraversalDirectionProtoMap(), new TraversalKindProtoMap(), new BoaTraversal()}, "${3}.traverse(${0},${1},${2})"));
 		globalFunctions.addFunction("traverse", new BoaFunction(new BoaBool(), new BoaType[] { new PDGProtoTuple(), new TraversalDirectionProtoMap(), new TraversalKindProtoMap(), new BoaTraversal(), new BoaFixP() }, "${3}.traverse(${0},${1},${2},${4})"));
+		globalFunctions.addFunction("traverse", new BoaFunction(new BoaAny(), new BoaType[] { new CallGraphProtoTuple(), new TraversalDirectionProtoMap(), new TraversalKindProtoMap(), new BoaTraversal()}, "${3}.traverse(${0},${1},${2})"));
+		globalFunctions.addFunction("traverse", new BoaFunction(new BoaBool(), new BoaType[] { new CallGraphProtoTuple(), new TraversalDirectionProtoMap(), new TraversalKindProtoMap(), new BoaTraversal(), new BoaFixP() }, "${3}.traverse(${0},${1},${2},${4})"));
 
 
 		// stack functions
@@ -569,16 +575,22 @@ public class SymbolTable {
 
 		// load built-in aggregators
 		final Class<?>[] builtinAggs = {
+			boa.aggregators.ApproxClonesAggregator.class,
+			boa.aggregators.ApproxMedianAggregator.class,
+			boa.aggregators.ApproxTopAggregator.class,
+			boa.aggregators.ApproxUniqueAggregator.class,
 			boa.aggregators.BottomAggregator.class,
 			boa.aggregators.CollectionAggregator.class,
 			boa.aggregators.ConfidenceIntervalAggregator.class,
 			boa.aggregators.DistinctAggregator.class,
+			boa.aggregators.FloatApproxQuantileAggregator.class,
 			boa.aggregators.FloatHistogramAggregator.class,
 			boa.aggregators.FloatMeanAggregator.class,
 			boa.aggregators.FloatQuantileAggregator.class,
 			boa.aggregators.FloatSumAggregator.class,
 			boa.aggregators.GraphAggregator.class,
 			boa.aggregators.GraphvizAggregator.class,
+			boa.aggregators.IntApproxQuantileAggregator.class,
 			boa.aggregators.IntHistogramAggregator.class,
 			boa.aggregators.IntMeanAggregator.class,
 			boa.aggregators.IntQuantileAggregator.class,
@@ -476,6 +476,10 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 	protected final IdentifierFindingVisitor idFinder = new IdentifierFindingVisitor();
 	protected final IndexeeFindingVisitor indexeeFinder = new IndexeeFindingVisitor();
 	protected final CallFindingVisitor callFinder = new CallFindingVisitor();
+	protected final ProtoFieldFindingVisitor astFieldFinder = new ProtoFieldFindingVisitor(boa.types.Ast.ASTRoot.getDescriptor(), new boa.types.proto.ASTRootProtoTuple());
+	protected final ProtoFieldFindingVisitor projectFieldFinder = new ProtoFieldFindingVisitor(boa.types.Toplevel.Project.getDescriptor(), new boa.types.proto.ProjectProtoTuple(), boa.types.Diff.ChangedFile.getDescriptor());
+	protected final TraversalPurityAnalysis purityAnalysis = new TraversalPurityAnalysis();
+	protected final ParallelSafetyAnalysis parallelAnalysis = new ParallelSafetyAnalysis();
 	protected final VarDeclCodeGeneratingVisitor varDecl;
 	protected final StaticInitializationCodeGeneratingVisitor staticInitialization;
 	protected final FunctionDeclaratorCodeGeneratingVisitor functionDeclarator;
@@ -483,6 +487,7 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 	protected final EnumDeclaratorCodeGeneratingVisitor enumDeclarator;
 
 	protected final HashMap<String, AggregatorDescription> aggregators = new HashMap<String, AggregatorDescription>();
+	protected final Set<String> indexedAggregators = new HashSet<String>();
 
 	protected String skipIndex = "";
 	protected boolean abortGeneration = false;
@@ -491,12 +496,18 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 	protected int splitSize;
 	protected int seed;
 	protected boolean isLocal;
+	protected int reducers;
 
 	public CodeGeneratingVisitor(final String className, final int splitSize, final int seed, final boolean isLocal) throws IOException {
+		this(className, splitSize, seed, isLocal, 1);
+	}
+
+	public CodeGeneratingVisitor(final String className, final int splitSize, final int seed, final boolean isLocal, final int reducers) throws IOException {
 		this.className = className;
 		this.splitSize = splitSize;
 		this.seed = seed;
 		this.isLocal = isLocal;
+		this.reducers = reducers;
 
 		varDecl = new VarDeclCodeGeneratingVisitor();
 		staticInitialization = new StaticInitializationCodeGeneratingVisitor();
@@ -542,13 +553,17 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 			throw new TypeCheckException(n, "No output variables were declared - must declare at least one output variable");
 
 		final List<String> combineAggregatorStrings = new ArrayList<String>();
+		final List<String> combineFactoryStrings = new ArrayList<String>();
 		final List<String> reduceAggregatorStrings = new ArrayList<String>();
 
 		for (final Entry<String, AggregatorDescription> entry : this.aggregators.entrySet()) {
 			final String id = entry.getKey();
 
 			final AggregatorDescription description = entry.getValue();
-			final String parameters = description.getParameters() == null ? "" : description.getParameters().get(0);
+			String parameters = "";
+			if (description.getParameters() != null)
+				for (final String param : description.getParameters())
+					parameters += (parameters.isEmpty() ? "" : ", ") + param;
 			final BoaType type = description.getType();
 
 			boolean combines = false;
@@ -561,11 +576,14 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 				throw new TypeCheckException(n, e.getMessage(), e);
 			}
 			reduceAggregatorStrings.add("this.aggregators.put(\"" + id + "\", new " + c.getCanonicalName() + "(" + parameters + "));");
-			if (combines)
+			if (combines) {
 				combineAggregatorStrings.add(reduceAggregatorStrings.get(reduceAggregatorStrings.size() - 1));
+				combineFactoryStrings.add("if (\"" + id + "\".equals(name)) return new " + c.getCanonicalName() + "(" + parameters + ");");
+			}
 		}
 
 		st.add("combineTables", combineAggregatorStrings);
+		st.add("combineFactories", combineFactoryStrings);
 		st.add("reduceTables", reduceAggregatorStrings);
 
 		final List<String> variableNames = new ArrayList<String>();
@@ -573,12 +591,42 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 			variableNames.add(s.substring(s.indexOf('"'), s.indexOf(", new")));
 		Collections.sort(variableNames);
 
+		// indexed output variables can have their keys spread over several reducers
+		final List<Boolean> variableSpreads = new ArrayList<Boolean>();
+		for (final String s : variableNames)
+			variableSpreads.add(this.indexedAggregators.contains(s.substring(1, s.length() - 1)));
+
 		st.add("name", className);
 		st.add("splitsize", splitSize);
 		st.add("seed", seed);
 		st.add("outputVariableNames", variableNames);
+		st.add("outputVariableSpreads", variableSpreads);
+		st.add("reducers", reducers);
 		if (isLocal) st.add("isLocal", true);
 
+		// ASTs only need to be decoded as far as the program looks into them
+		this.astFieldFinder.start(n);
+		if (!this.astFieldFinder.usesAll()) {
+			String astFields = "";
+			for (final String f : this.astFieldFinder.getFieldNames())
+				astFields += (astFields.isEmpty() ? "" : ", ") + "\"" + f + "\"";
+			st.add("astFields", astFields);
+		}
+
+		// and projects only need the columns holding the fields it looks at
+		this.projectFieldFinder.start(n);
+		if (!this.projectFieldFinder.usesAll()) {
+			String columns = "";
+			for (final String c : boa.io.ProjectColumns.columnsFor(this.projectFieldFinder.getFieldNames()))
+				columns += (columns.isEmpty() ? "" : ", ") + "\"" + c + "\"";
+			st.add("columns", columns);
+		}
+
+		// a project's files may be split between threads if they share no state
+		this.parallelAnalysis.start(n);
+		if (this.parallelAnalysis.isParallel())
+			st.add("parallel", true);
+
 		code.add(st.render());
 	}
 
@@ -1076,15 +1124,36 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 
 		n.getValue().accept(this);
 		st.add("expression", code.removeLast());
+		st.add("cast", emitCast(n.getValue().type));
 
 		if (n.hasWeight()) {
 			n.getWeight().accept(this);
 			st.add("weight", code.removeLast());
+			st.add("weightCast", emitCast(n.getWeight().type));
 		}
 
 		code.add(st.render());
 	}
 
+	/**
+	 * Selects the type an emitted value is cast to, so the typed {@link boa.io.EmitValue}
+	 * constructor is picked: ints and floats stay binary and tuples are sent as strings.
+	 *
+	 * @param type the Boa type of the emitted expression
+	 * @return the Java type to cast to, or null if no cast is needed
+	 */
+	protected String emitCast(final BoaType type) {
+		if (type == null)
+			return null;
+		if (type instanceof BoaTuple)
+			return "Object";
+
+		final String javaType = type.toJavaType();
+		if (javaType.equals("long") || javaType.equals("double"))
+			return javaType;
+		return null;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void visit(final ExprStatement n) {
@@ -1669,10 +1738,26 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		st.add("staticDeclarations", this.varDecl.getCode());
 
 		final List<String> body = new ArrayList<String>();
+		// saved results must share nothing with the program, so a traversal is
+		// only reusable if its results can be deep copied
+		boolean copyable = true;
 		for (final Node node : n.getBody().getStatements()) {
 			if (node instanceof TraverseStatement) {
-				if (!(((BoaFunction) node.type).getType() instanceof BoaAny)) {
-					st.add("T", ((BoaFunction) node.type).getType().toBoxedJavaType());
+				final BoaType ret = ((BoaFunction) node.type).getType();
+				if (!(ret instanceof BoaAny)) {
+					st.add("T", ret.toBoxedJavaType());
+
+					final List<String> helpers = new ArrayList<String>();
+					final String copy = copyOf(ret, "value", helpers);
+					if (copy == null) {
+						copyable = false;
+					} else {
+						final ST copyST = stg.getInstanceOf("CopyResult");
+						copyST.add("ret", ret.toBoxedJavaType());
+						copyST.add("copy", copy);
+						copyST.add("helpers", helpers);
+						st.add("copy", copyST.render());
+					}
 				} else {
 					st.add("T", "Object");
 				}
@@ -1684,6 +1769,9 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		st.add("flowSensitive", flowSensitive);
 		st.add("loopSensitive", loopSensitive);
 
+		this.purityAnalysis.start(n);
+		st.add("reusable", copyable && this.purityAnalysis.isReusable());
+
 		code.add(st.render());
 	}
 
@@ -1702,9 +1790,98 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		}
 		st.add("body", body);
 
+		this.purityAnalysis.start(n);
+		st.add("reusable", this.purityAnalysis.isReusable());
+
 		code.add(st.render());
 	}
 
+	/**
+	 * Returns an expression that deep copies a traversal result, or
+	 * <code>null</code> if results of the type can not be copied.  Copies
+	 * of nested containers are made by helper methods, which are added to
+	 * <code>helpers</code>.
+	 *
+	 * @param type the type of the result
+	 * @param value the expression holding the result
+	 * @param helpers the helper methods needed so far
+	 * @return the copying expression, or <code>null</code>
+	 */
+	private String copyOf(BoaType type, final String value, final List<String> helpers) {
+		while (type instanceof BoaName)
+			type = ((BoaName) type).getType();
+
+		// protocol buffers (and their enums and lists) never change
+		if (type instanceof BoaScalar || type instanceof BoaProtoTuple || type instanceof BoaProtoMap || type instanceof BoaProtoList)
+			return value;
+
+		final ST st;
+		if (type instanceof BoaSet || type instanceof BoaStack || type instanceof BoaQueue) {
+			final BoaType elemType = type instanceof BoaSet ? ((BoaSet) type).getType()
+					: type instanceof BoaStack ? ((BoaStack) type).getType() : ((BoaQueue) type).getType();
+			final String elem = copyOf(elemType, "e", helpers);
+			if (elem == null)
+				return null;
+			// stacks have no copy constructor
+			if (elem.equals("e") && !(type instanceof BoaStack))
+				return "new " + type.toBoxedJavaType() + "(" + value + ")";
+			st = stg.getInstanceOf("CopyElements");
+			st.add("elemType", elemType.toBoxedJavaType());
+			st.add("elem", elem);
+		} else if (type instanceof BoaMap) {
+			final BoaMap map = (BoaMap) type;
+			final String key = copyOf(map.getIndexType(), "e.getKey()", helpers);
+			final String elem = copyOf(map.getType(), "e.getValue()", helpers);
+			if (key == null || elem == null)
+				return null;
+			if (key.equals("e.getKey()") && elem.equals("e.getValue()"))
+				return "new " + type.toBoxedJavaType() + "(" + value + ")";
+			st = stg.getInstanceOf("CopyEntries");
+			st.add("keyType", map.getIndexType().toBoxedJavaType());
+			st.add("valueType", map.getType().toBoxedJavaType());
+			st.add("key", key);
+			st.add("elem", elem);
+		} else if (type instanceof BoaArray) {
+			final String elem = copyOf(((BoaArray) type).getType(), "copy[i]", helpers);
+			if (elem == null)
+				return null;
+			if (elem.equals("copy[i]"))
+				return value + ".clone()";
+			st = stg.getInstanceOf("CopyArray");
+			st.add("elem", elem);
+		} else if (type instanceof BoaTuple) {
+			final BoaTuple tuple = (BoaTuple) type;
+			final List<String> fields = new ArrayList<String>();
+			final List<String> members = new ArrayList<String>();
+			for (int i = 0; i < tuple.getTypes().size(); i++) {
+				final String field = "value.___" + tuple.getMemberName("f" + i);
+				final String member = copyOf(tuple.getMember(i), field, helpers);
+				if (member == null)
+					return null;
+				// the tuple's copy constructor already copies one level down
+				if (!member.equals(field) && !member.equals("new " + tuple.getMember(i).toBoxedJavaType() + "(" + field + ")")) {
+					fields.add(tuple.getMemberName("f" + i));
+					members.add(member);
+				}
+			}
+			if (fields.isEmpty())
+				return "new " + type.toBoxedJavaType() + "(" + value + ")";
+			st = stg.getInstanceOf("CopyTuple");
+			st.add("fields", fields);
+			st.add("members", members);
+		} else {
+			// functions, visitors, traversals and such
+			return null;
+		}
+
+		// named after the helpers of nested values, which were added first
+		final String name = "copyResult" + (helpers.size() + 1);
+		st.add("name", name);
+		st.add("type", type.toBoxedJavaType());
+		helpers.add(st.render());
+		return name + "(" + value + ")";
+	}
+
 	//
 	// literals
 	//
@@ -1864,10 +2041,16 @@ public class CodeGeneratingVisitor extends AbstractCodeGeneratingVisitor {
 		final String aggregator = n.getId().getToken();
 
 		final BoaTable t = (BoaTable) n.env.get(id);
+		if (t.countIndices() > 0)
+			this.indexedAggregators.add(id);
 
 		if (n.getArgsSize() > 0) {
-			n.getArg(0).accept(this);
-			this.aggregators.put(id, new AggregatorDescription(aggregator, t.getType(), Arrays.asList(code.removeLast())));
+			final List<String> args = new ArrayList<String>();
+			for (final Expression e : n.getArgs()) {
+				e.accept(this);
+				args.add(code.removeLast());
+			}
+			this.aggregators.put(id, new AggregatorDescription(aggregator, t.getType(), args));
 		} else {
 			this.aggregators.put(id, new AggregatorDescription(aggregator, t.getType()));
 		}
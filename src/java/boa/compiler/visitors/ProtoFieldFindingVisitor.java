@@ -0,0 +1,343 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.compiler.visitors;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeSet;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+
+import boa.compiler.ast.Call;
+import boa.compiler.ast.Comparison;
+import boa.compiler.ast.Factor;
+import boa.compiler.ast.Identifier;
+import boa.compiler.ast.Node;
+import boa.compiler.ast.Selector;
+import boa.compiler.ast.expressions.Expression;
+import boa.compiler.ast.expressions.VisitorExpression;
+import boa.compiler.ast.statements.Block;
+import boa.compiler.ast.statements.EmitStatement;
+import boa.compiler.ast.statements.StopStatement;
+import boa.compiler.ast.statements.VisitStatement;
+import boa.types.BoaArray;
+import boa.types.BoaMap;
+import boa.types.BoaName;
+import boa.types.BoaProtoList;
+import boa.types.BoaProtoMap;
+import boa.types.BoaProtoTuple;
+import boa.types.BoaQueue;
+import boa.types.BoaSet;
+import boa.types.BoaStack;
+import boa.types.BoaTuple;
+import boa.types.BoaType;
+
+/**
+ * Finds the fields of protocol buffer messages below a root type (such as
+ * an AST or a project) that a program can look at, so the rest can be left
+ * out when reading the data.  A field is used if the program selects it,
+ * or if a visitor has to go through it to reach a type it has a clause for.
+ * Visitors do not go below types whose before clause always stops.  If a
+ * value is passed to a function, compared, hashed or output, all fields
+ * below it are used.
+ *
+ * Fields are named "Type.field", after the protocol buffer messages.
+ *
+ * @author agent
+ */
+public class ProtoFieldFindingVisitor extends AbstractVisitorNoArgNoRet {
+	// functions that only look at the reference to their arguments
+	protected final static Set<String> opaqueFunctions = new HashSet<String>(Arrays.asList(
+		"def", "len", "visit", "push", "pop", "peek", "offer", "poll", "clear"
+	));
+
+	// functions that read the whole AST of each file they are given
+	protected final static Set<String> astReadingFunctions = new HashSet<String>(Arrays.asList(
+		"getcallgraph"
+	));
+
+	protected final Descriptor root;
+	protected final BoaProtoTuple rootTuple;
+	protected final Set<Class<? extends BoaProtoTuple>> rootTypes;
+	protected final Map<String, Descriptor> descriptors = new HashMap<String, Descriptor>();
+	protected final Set<Descriptor> gateways = new HashSet<Descriptor>();
+
+	protected final Set<FieldDescriptor> fields = new HashSet<FieldDescriptor>();
+
+	protected Set<Descriptor> visited;
+	protected Set<Descriptor> stopped;
+	protected final Stack<Set<Descriptor>> visitedStack = new Stack<Set<Descriptor>>();
+	protected final Stack<Set<Descriptor>> stoppedStack = new Stack<Set<Descriptor>>();
+
+	/**
+	 * Construct a {@link ProtoFieldFindingVisitor}.
+	 *
+	 * @param root
+	 *            The {@link Descriptor} of the root message
+	 * @param rootTuple
+	 *            The type of the root message
+	 * @param gateways
+	 *            The types whose visits go on into messages that are not
+	 *            reachable through fields (e.g., a ChangedFile's AST)
+	 */
+	public ProtoFieldFindingVisitor(final Descriptor root, final BoaProtoTuple rootTuple, final Descriptor... gateways) {
+		this.root = root;
+		this.rootTuple = rootTuple;
+		this.rootTypes = rootTuple.reachableTypes();
+		for (final Descriptor d : reachable(root))
+			this.descriptors.put(d.getName(), d);
+		this.gateways.addAll(Arrays.asList(gateways));
+	}
+
+	/**
+	 * Returns <code>true</code> if the program may look at any part of the
+	 * root message.
+	 *
+	 * @return if all fields are used
+	 */
+	public boolean usesAll() {
+		for (final Descriptor d : reachable(root))
+			for (final FieldDescriptor fd : d.getFields())
+				if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE && !fields.contains(fd))
+					return false;
+		return true;
+	}
+
+	/**
+	 * Returns the names of the fields the program uses.
+	 *
+	 * @return the sorted field names
+	 */
+	public Set<String> getFieldNames() {
+		final Set<String> names = new TreeSet<String>();
+		for (final FieldDescriptor fd : fields)
+			names.add(fd.getContainingType().getName() + "." + fd.getName());
+		return names;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void initialize() {
+		fields.clear();
+		visited = stopped = null;
+		visitedStack.clear();
+		stoppedStack.clear();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Factor n) {
+		BoaType type = n.getOperand().type;
+		hashed(type);
+
+		for (final Node op : n.getOps()) {
+			if (op instanceof Selector) {
+				final Descriptor d = descriptor(type);
+				if (d != null) {
+					final FieldDescriptor fd = d.findFieldByName(((Selector) op).getId().getToken());
+					if (fd != null && fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE)
+						fields.add(fd);
+				}
+			}
+			type = op.type;
+			hashed(type);
+		}
+
+		// arguments given to most functions may be looked at in full
+		if (n.getOperand() instanceof Identifier && n.getOpsSize() > 0 && n.getOp(0) instanceof Call) {
+			final String name = ((Identifier) n.getOperand()).getToken();
+			if (!opaqueFunctions.contains(name))
+				for (final Expression e : ((Call) n.getOp(0)).getArgs())
+					useAll(e.type);
+			if (astReadingFunctions.contains(name) && root == boa.types.Ast.ASTRoot.getDescriptor())
+				useAll(rootTuple);
+		}
+
+		super.visit(n);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Comparison n) {
+		if (n.hasRhs()) {
+			useAll(n.getLhs().type);
+			useAll(n.getRhs().type);
+		}
+
+		super.visit(n);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final EmitStatement n) {
+		for (final Expression e : n.getIndices())
+			useAll(e.type);
+		useAll(n.getValue().type);
+		if (n.hasWeight())
+			useAll(n.getWeight().type);
+
+		super.visit(n);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VisitorExpression n) {
+		visitedStack.push(visited);
+		stoppedStack.push(stopped);
+		visited = new HashSet<Descriptor>();
+		stopped = new HashSet<Descriptor>();
+
+		super.visit(n);
+
+		// a visitor needs the fields that lead to a type it has a clause for,
+		// except below types where it always stops
+		final Set<Descriptor> types = reachable(root);
+		final Set<Descriptor> needed = new HashSet<Descriptor>(visited);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (final Descriptor d : types)
+				if (!needed.contains(d) && !stopped.contains(d))
+					for (final FieldDescriptor fd : d.getFields())
+						if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE && needed.contains(fd.getMessageType())) {
+							changed = needed.add(d);
+							break;
+						}
+		}
+		for (final Descriptor d : types)
+			if (!stopped.contains(d))
+				for (final FieldDescriptor fd : d.getFields())
+					if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE && needed.contains(fd.getMessageType()))
+						fields.add(fd);
+
+		visited = visitedStack.pop();
+		stopped = stoppedStack.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VisitStatement n) {
+		if (n.hasWildcard()) {
+			useAll(rootTuple);
+		} else if (n.hasComponent()) {
+			clause(n, n.getComponent().getType().type);
+		} else {
+			for (final Identifier id : n.getIdList())
+				clause(n, id.type);
+		}
+
+		super.visit(n);
+	}
+
+	protected void clause(final VisitStatement n, final BoaType t) {
+		if (visited == null)
+			return;
+
+		final Descriptor d = descriptor(t);
+		if (d == null) {
+			// a type below the root's messages is reached through a gateway
+			if (unwrap(t) instanceof BoaProtoTuple)
+				visited.addAll(gateways);
+			return;
+		}
+
+		final Block body = n.getBody();
+		final int size = body.getStatementsSize();
+		if (n.isBefore() && size > 0 && body.getStatement(size - 1) instanceof StopStatement) {
+			stopped.add(d);
+			// a clause that only stops looks at nothing
+			if (size == 1)
+				return;
+		}
+
+		visited.add(d);
+	}
+
+	// keys of maps and elements of sets are hashed, which looks at everything
+	protected void hashed(final BoaType t) {
+		if (t instanceof BoaSet)
+			useAll(((BoaSet) t).getType());
+		else if (t instanceof BoaMap && !(t instanceof BoaProtoMap))
+			useAll(((BoaMap) t).getIndexType());
+	}
+
+	protected void useAll(final BoaType t) {
+		if (t == null || t instanceof BoaProtoMap)
+			return;
+
+		if (t instanceof BoaProtoTuple) {
+			final Descriptor d = descriptor(t);
+			if (d != null)
+				for (final Descriptor r : reachable(d))
+					for (final FieldDescriptor fd : r.getFields())
+						if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE)
+							fields.add(fd);
+		} else if (t instanceof BoaName) {
+			useAll(((BoaName) t).getType());
+		} else if (t instanceof BoaArray) {
+			useAll(((BoaArray) t).getType());
+		} else if (t instanceof BoaProtoList) {
+			useAll(((BoaProtoList) t).getType());
+		} else if (t instanceof BoaStack) {
+			useAll(((BoaStack) t).getType());
+		} else if (t instanceof BoaQueue) {
+			useAll(((BoaQueue) t).getType());
+		} else if (t instanceof BoaSet) {
+			useAll(((BoaSet) t).getType());
+		} else if (t instanceof BoaMap) {
+			useAll(((BoaMap) t).getIndexType());
+			useAll(((BoaMap) t).getType());
+		} else if (t instanceof BoaTuple) {
+			final List<BoaType> members = ((BoaTuple) t).getTypes();
+			if (members != null)
+				for (final BoaType member : members)
+					useAll(member);
+		}
+	}
+
+	protected Descriptor descriptor(final BoaType type) {
+		final BoaType t = unwrap(type);
+		if (!(t instanceof BoaProtoTuple) || !rootTypes.contains(t.getClass()))
+			return null;
+		return descriptors.get(t.toString());
+	}
+
+	protected static BoaType unwrap(final BoaType t) {
+		if (t instanceof BoaName)
+			return ((BoaName) t).getType();
+		return t;
+	}
+
+	protected static Set<Descriptor> reachable(final Descriptor d) {
+		final Set<Descriptor> types = new HashSet<Descriptor>();
+		reachable(d, types);
+		return types;
+	}
+
+	private static void reachable(final Descriptor d, final Set<Descriptor> types) {
+		if (!types.add(d))
+			return;
+		for (final FieldDescriptor fd : d.getFields())
+			if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE)
+				reachable(fd.getMessageType(), types);
+	}
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.*;
 
 import boa.aggregators.AggregatorSpec;
+import boa.aggregators.ApproxUniqueAggregator;
 import boa.compiler.SymbolTable;
 import boa.compiler.TypeCheckException;
 import boa.compiler.ast.*;
@@ -1393,6 +1394,25 @@ public class TypeCheckingVisitor extends AbstractVisitorNoReturn<SymbolTable> {
 		if (n.getArgsSize() > 0 && annotation.formalParameters().length == 0)
 			throw new TypeCheckException(n.getArgs(), "output aggregator '" + n.getId().getToken() + "' takes no arguments");
 
+		if (n.getArgsSize() > annotation.formalParameters().length)
+			throw new TypeCheckException(n.getArgs(), "output aggregator '" + n.getId().getToken() + "' takes at most " + annotation.formalParameters().length + " arguments");
+
+		for (int i = 0; i < n.getArgsSize(); i++) {
+			final Expression arg = n.getArg(i);
+			arg.accept(this, st);
+
+			final BoaType formal = SymbolTable.getType(annotation.formalParameters()[i]);
+			if (!formal.assigns(arg.type))
+				throw new TypeCheckException(arg, "invalid type for argument " + (i + 1) + " of output aggregator '" + n.getId().getToken() + "', found: " + arg.type + " expected: " + formal);
+		}
+
+		// a counter of a precision out of range can not be built
+		if (n.getId().getToken().equals("approxunique") && n.getArgsSize() > 0) {
+			final Long precision = getIntegerLiteral(n.getArg(0));
+			if (precision != null && (precision < ApproxUniqueAggregator.MIN_PRECISION || precision > ApproxUniqueAggregator.MAX_PRECISION))
+				throw new TypeCheckException(n.getArg(0), "precision of output aggregator 'approxunique' must be between " + ApproxUniqueAggregator.MIN_PRECISION + " and " + ApproxUniqueAggregator.MAX_PRECISION + ", found: " + precision);
+		}
+
 		n.type = new BoaTable(type, indexTypes, tweight, annotation.canOmitWeight());
 
 		n.env = env;
@@ -1539,6 +1559,24 @@ public class TypeCheckingVisitor extends AbstractVisitorNoReturn<SymbolTable> {
 		return types;
 	}
 
+	// the value of an expression that is only an int literal, or null
+	protected static Long getIntegerLiteral(final Expression e) {
+		if (e.getRhsSize() > 0 || e.getLhs().getRhsSize() > 0)
+			return null;
+		final Comparison c = e.getLhs().getLhs();
+		if (c.hasRhs() || c.getLhs().getRhsSize() > 0 || c.getLhs().getLhs().getRhsSize() > 0)
+			return null;
+		final Factor f = c.getLhs().getLhs().getLhs();
+		if (f.getOpsSize() > 0 || !(f.getOperand() instanceof IntegerLiteral))
+			return null;
+
+		try {
+			return Long.decode(((IntegerLiteral) f.getOperand()).getLiteral());
+		} catch (final NumberFormatException ex) {
+			return null;
+		}
+	}
+
 	protected boolean checkTupleArray(final List<BoaType> types) {
 		if (types == null)
 			return false;
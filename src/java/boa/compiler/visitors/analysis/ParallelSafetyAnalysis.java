@@ -0,0 +1,952 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.compiler.visitors.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import boa.compiler.ast.Call;
+import boa.compiler.ast.Component;
+import boa.compiler.ast.Factor;
+import boa.compiler.ast.Identifier;
+import boa.compiler.ast.Node;
+import boa.compiler.ast.Operand;
+import boa.compiler.ast.Program;
+import boa.compiler.ast.Selector;
+import boa.compiler.ast.expressions.Expression;
+import boa.compiler.ast.expressions.FixPExpression;
+import boa.compiler.ast.expressions.FunctionExpression;
+import boa.compiler.ast.expressions.TraversalExpression;
+import boa.compiler.ast.expressions.VisitorExpression;
+import boa.compiler.ast.statements.AssignmentStatement;
+import boa.compiler.ast.statements.Block;
+import boa.compiler.ast.statements.EmitStatement;
+import boa.compiler.ast.statements.ExistsStatement;
+import boa.compiler.ast.statements.FixPStatement;
+import boa.compiler.ast.statements.ForStatement;
+import boa.compiler.ast.statements.ForeachStatement;
+import boa.compiler.ast.statements.IfAllStatement;
+import boa.compiler.ast.statements.PostfixStatement;
+import boa.compiler.ast.statements.Statement;
+import boa.compiler.ast.statements.TraverseStatement;
+import boa.compiler.ast.statements.TypeDecl;
+import boa.compiler.ast.statements.VarDeclStatement;
+import boa.compiler.ast.statements.VisitStatement;
+import boa.compiler.visitors.AbstractVisitorNoArgNoRet;
+import boa.types.BoaArray;
+import boa.types.BoaFixP;
+import boa.types.BoaFunction;
+import boa.types.BoaMap;
+import boa.types.BoaProtoTuple;
+import boa.types.BoaQueue;
+import boa.types.BoaSet;
+import boa.types.BoaStack;
+import boa.types.BoaTraversal;
+import boa.types.BoaTuple;
+import boa.types.BoaType;
+import boa.types.BoaVisitor;
+import boa.types.proto.ASTRootProtoTuple;
+import boa.types.proto.ChangedFileProtoTuple;
+import boa.types.proto.CodeRepositoryProtoTuple;
+import boa.types.proto.CommentProtoTuple;
+import boa.types.proto.DeclarationProtoTuple;
+import boa.types.proto.ExpressionProtoTuple;
+import boa.types.proto.MethodProtoTuple;
+import boa.types.proto.ModifierProtoTuple;
+import boa.types.proto.NamespaceProtoTuple;
+import boa.types.proto.PersonProtoTuple;
+import boa.types.proto.ProjectProtoTuple;
+import boa.types.proto.RevisionProtoTuple;
+import boa.types.proto.StatementProtoTuple;
+import boa.types.proto.TypeProtoTuple;
+import boa.types.proto.VariableProtoTuple;
+
+/**
+ * Decides if a program may analyze the files of a project in parallel, with
+ * each thread running its own copy of the program but visiting only some of
+ * the files.
+ *
+ * That is safe if nothing the code for one file (visit clauses for
+ * ChangedFile and anything inside it, and the functions, visitors and
+ * traversals they use) leaves behind is seen by the code for another file or
+ * by the code outside of files.  So a variable declared outside that the code
+ * for files changes must be set, or cleared, at the start of each clause for
+ * files before it is used (or at the start of the visitor's clause for the
+ * file itself, which runs first), and never be used outside of files.  The same holds
+ * for traversals whose results are read.  Containers the code for files only
+ * reads may not hand out references to their insides.  Static variables are
+ * shared by all threads, so no code may change them at all.
+ * Programs using random numbers are never safe, as the threads would share
+ * one generator.
+ *
+ * @author agent
+ */
+public class ParallelSafetyAnalysis extends AbstractVisitorNoArgNoRet {
+	// built-in functions that read their arguments but never change them
+	private static final Set<String> readOnlyFunctions = new HashSet<String>(Arrays.asList(
+		"len", "contains", "containsall", "haskey", "lookup", "peek", "string",
+		"keys", "values", "clone", "union", "intersect", "difference", "symdiff"
+	));
+
+	// read-only built-in functions that return a new container
+	private static final Set<String> copyingFunctions = new HashSet<String>(Arrays.asList(
+		"keys", "values", "clone", "union", "intersect", "difference", "symdiff"
+	));
+
+	// built-in functions sharing state between threads
+	private static final Set<String> sharedFunctions = new HashSet<String>(Arrays.asList(
+		"rand", "nrand"
+	));
+
+	// the ways code uses a variable declared outside of it
+	private static final int CALL = 0;
+	private static final int RESET = 1;
+	private static final int WRITE = 2;
+	private static final int READ = 3;
+	// a reference to a container, which may then be changed
+	private static final int ESCAPE = 4;
+
+	// a use of a variable or a call of a declared body, in the order they happen
+	private static final class Event {
+		final String name;
+		final int use;
+		// the clause it happens in, or 0 if none
+		final int clause;
+		// happens every time the clause runs
+		final boolean definite;
+
+		Event(final String name, final int use, final int clause, final boolean definite) {
+			this.name = name;
+			this.use = use;
+			this.clause = clause;
+			this.definite = definite;
+		}
+	}
+
+	// what the code for files does, in one clause or body
+	private static final class Summary {
+		final List<Event> events = new ArrayList<Event>();
+		boolean readsSelf;
+		boolean safe = true;
+	}
+
+	protected boolean parallel;
+
+	// functions, visitors, traversals and fixpoints declared by name
+	private final Map<String, Operand> bodies = new HashMap<String, Operand>();
+	// the outermost visit clauses for files
+	private final List<VisitStatement> roots = new ArrayList<VisitStatement>();
+	private final Map<Node, Summary> summaries = new IdentityHashMap<Node, Summary>();
+	// names used by code outside of files
+	private final Set<String> outside = new HashSet<String>();
+	private final Set<String> traversals = new HashSet<String>();
+	// variables declared static, which all threads share
+	private final Set<String> statics = new HashSet<String>();
+	private boolean usesShared;
+	// if a visitor may visit the inside of a file without visiting the file
+	private boolean visitsInsideFiles;
+	private int fileDepth;
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void initialize() {
+		parallel = false;
+		bodies.clear();
+		roots.clear();
+		summaries.clear();
+		outside.clear();
+		traversals.clear();
+		statics.clear();
+		usesShared = false;
+		visitsInsideFiles = false;
+		fileDepth = 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Program n) {
+		// finds the declared bodies and the clauses for files
+		super.visit(n);
+
+		if (roots.isEmpty() || usesShared)
+			return;
+
+		final StaticWrites staticWrites = new StaticWrites();
+		for (final Node s : n.getStatements())
+			s.accept(staticWrites);
+		if (staticWrites.found)
+			return;
+
+		// the code for files and every body it may run
+		final Deque<Node> todo = new ArrayDeque<Node>(roots);
+		while (!todo.isEmpty()) {
+			final Node node = todo.pop();
+			if (summaries.containsKey(node))
+				continue;
+
+			final Summary summary = new Summary();
+			summaries.put(node, summary);
+			node.accept(new FileCode(summary));
+			if (!summary.safe)
+				return;
+
+			for (final Event e : summary.events)
+				if (e.use == CALL && bodies.containsKey(e.name))
+					todo.push(bodies.get(e.name));
+		}
+
+		// the code outside of files and every body it may run
+		final OutsideCode outsideCode = new OutsideCode();
+		for (final Node s : n.getStatements())
+			s.accept(outsideCode);
+		final Set<String> done = new HashSet<String>();
+		for (boolean changed = true; changed; ) {
+			changed = false;
+			for (final String name : new ArrayList<String>(outside))
+				if (bodies.containsKey(name) && done.add(name)) {
+					bodies.get(name).accept(outsideCode);
+					changed = true;
+				}
+		}
+
+		final Set<String> written = new HashSet<String>();
+		final Set<String> read = new HashSet<String>();
+		final Set<String> escaped = new HashSet<String>();
+		for (final Map.Entry<Node, Summary> entry : summaries.entrySet()) {
+			for (final Event e : entry.getValue().events) {
+				if (e.use == RESET || e.use == WRITE)
+					written.add(e.name);
+				else if (e.use == READ)
+					read.add(e.name);
+				else if (e.use == ESCAPE)
+					escaped.add(e.name);
+			}
+			// a traversal reading its own results
+			if (entry.getValue().readsSelf)
+				for (final Map.Entry<String, Operand> body : bodies.entrySet())
+					if (body.getValue() == entry.getKey())
+						read.add(body.getKey());
+		}
+
+		// containers only read by files may not be changed through a reference
+		for (final String name : escaped)
+			if (!written.contains(name))
+				return;
+
+		// and what files change must start over in each file
+		for (final String name : written) {
+			if (traversals.contains(name) && !read.contains(name))
+				continue;
+			if (outside.contains(name))
+				return;
+			for (final VisitStatement root : roots)
+				if (firstUse(root, name, new HashSet<Node>()) != CALL && !startsOverInFile(root, name))
+					return;
+		}
+
+		parallel = true;
+	}
+
+	// is the variable started over when the file the clause runs in is visited?
+	private boolean startsOverInFile(final VisitStatement root, final String name) {
+		if (visitsInsideFiles || !isInsideFiles(root))
+			return false;
+
+		// the clause for the file runs before any other clause for its insides
+		final VisitorExpression visitor = visitorOf(root);
+		for (final VisitStatement r : roots)
+			if (r != root && r.isBefore() && isFile(r) && visitorOf(r) == visitor && startsOver(r, name))
+				return true;
+		return false;
+	}
+
+	// does the clause always reset the variable, before anything else uses it?
+	private boolean startsOver(final VisitStatement root, final String name) {
+		if (firstUse(root, name, new HashSet<Node>()) != CALL)
+			return false;
+		for (final Event e : summaries.get(root).events)
+			if (e.use == RESET && e.definite && e.name.equals(name))
+				return true;
+		return false;
+	}
+
+	// how the code may first use a variable before resetting it, or CALL if it
+	// never does; a reset covers the rest of a clause if it always happens
+	private int firstUse(final Node node, final String name, final Set<Node> seen) {
+		if (!seen.add(node))
+			return CALL;
+
+		final Set<Integer> reset = new HashSet<Integer>();
+		for (final Event e : summaries.get(node).events) {
+			if (reset.contains(e.clause))
+				continue;
+			if (e.use == CALL) {
+				if (bodies.containsKey(e.name)) {
+					final int use = firstUse(bodies.get(e.name), name, seen);
+					if (use != CALL)
+						return use;
+				}
+			} else if (e.name.equals(name)) {
+				if (e.use != RESET)
+					return e.use;
+				if (e.definite)
+					reset.add(e.clause);
+			}
+		}
+		return CALL;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VarDeclStatement n) {
+		final Operand body = body(n);
+		if (body != null)
+			bodies.put(n.getId().getToken(), body);
+		if (n.isStatic())
+			statics.add(n.getId().getToken());
+		super.visit(n);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VisitStatement n) {
+		final boolean forFiles = isForFiles(n);
+		if (forFiles) {
+			if (fileDepth == 0)
+				roots.add(n);
+			fileDepth++;
+		}
+		n.getBody().accept(this);
+		if (forFiles)
+			fileDepth--;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Factor n) {
+		if (n.getOperand() instanceof Identifier && n.getOpsSize() > 0 && n.getOp(0) instanceof Call) {
+			final String name = ((Identifier) n.getOperand()).getToken();
+			final Call call = (Call) n.getOp(0);
+			if (sharedFunctions.contains(name))
+				usesShared = true;
+			if (name.equals("visit") && call.getArgsSize() > 0) {
+				final BoaType t = call.getArg(0).type;
+				if (!(t instanceof ChangedFileProtoTuple) && !isOutsideType(t))
+					visitsInsideFiles = true;
+			}
+		}
+		super.visit(n);
+	}
+
+	/**
+	 * Finds code that may change a static variable, or hand out a reference
+	 * to a static container that then may be changed.
+	 */
+	private class StaticWrites extends AbstractVisitorNoArgNoRet {
+		boolean found;
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final VarDeclStatement n) {
+			// the initializer of a static variable runs once, for all threads
+			if (!n.isStatic() && n.hasInitializer())
+				n.getInitializer().accept(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final AssignmentStatement n) {
+			if (isStatic(n.getLhs().getOperand()))
+				found = true;
+			else
+				super.visit(n);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final PostfixStatement n) {
+			final Factor f = factor(n.getExpr());
+			if (f == null || isStatic(f.getOperand()))
+				found = true;
+			else
+				super.visit(n);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Factor n) {
+			if (!(n.getOperand() instanceof Identifier) || n.getOpsSize() == 0) {
+				super.visit(n);
+				return;
+			}
+
+			if (!(n.getOp(0) instanceof Call)) {
+				for (final Node op : n.getOps())
+					op.accept(this);
+				// reading an element is fine, if it is not itself a container
+				if (!isStatic(n.getOperand()) || isShared(n.type))
+					n.getOperand().accept(this);
+				return;
+			}
+
+			final String name = ((Identifier) n.getOperand()).getToken();
+			final Call call = (Call) n.getOp(0);
+			final boolean readOnly = readOnlyFunctions.contains(name)
+					&& (!isShared(call.type) || (copyingFunctions.contains(name) && !isShared(elementType(call.type))));
+			for (final Expression e : call.getArgs()) {
+				final Factor f = factor(e);
+				if (f != null && f.getOpsSize() == 0 && isStatic(f.getOperand())) {
+					if (!readOnly)
+						found = true;
+					continue;
+				}
+				e.accept(this);
+			}
+			for (int i = 1; i < n.getOpsSize(); i++)
+				n.getOp(i).accept(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Identifier n) {
+			if (isStatic(n) && isShared(n.type))
+				found = true;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Selector n) {
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final TypeDecl n) {
+		}
+
+		private boolean isStatic(final Operand n) {
+			return n instanceof Identifier && statics.contains(((Identifier) n).getToken());
+		}
+	}
+
+	/**
+	 * Finds the names used by code that runs outside of files.
+	 */
+	private class OutsideCode extends AbstractVisitorNoArgNoRet {
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final VarDeclStatement n) {
+			// bodies are looked at when (and if) they are used
+			if (body(n) == null && n.hasInitializer())
+				n.getInitializer().accept(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final VisitStatement n) {
+			if (isOutsideFiles(n))
+				n.getBody().accept(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Identifier n) {
+			outside.add(n.getToken());
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Selector n) {
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final TypeDecl n) {
+		}
+	}
+
+	/**
+	 * Checks the code that runs for a file, in one clause or body.
+	 */
+	private class FileCode extends AbstractVisitorNoArgNoRet {
+		private final Summary summary;
+		// the bodies of clauses, whose statements run every time the clause does
+		private final Map<Node, Integer> clauses = new IdentityHashMap<Node, Integer>();
+		private final Deque<Set<String>> scopes = new ArrayDeque<Set<String>>();
+		// variables kept by the declared body between calls
+		private final Set<String> state = new HashSet<String>();
+
+		FileCode(final Summary summary) {
+			this.summary = summary;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final VisitStatement n) {
+			if (scopes.isEmpty())
+				addClause(n.getBody());
+			scopes.push(new HashSet<String>());
+			if (n.hasComponent())
+				n.getComponent().accept(this);
+			n.getBody().accept(this);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final TraverseStatement n) {
+			if (scopes.isEmpty() && n.hasBody())
+				addClause(n.getBody());
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final FixPStatement n) {
+			if (scopes.isEmpty() && n.hasBody())
+				addClause(n.getBody());
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final VisitorExpression n) {
+			visitBody(n.getBody());
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final TraversalExpression n) {
+			visitBody(n.getBody());
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final FixPExpression n) {
+			visitBody(n.getBody());
+		}
+
+		// a declared body only runs its clauses for files, everything else is
+		// state set up where it is declared; a body created for a file is all local
+		private void visitBody(final Block body) {
+			if (!scopes.isEmpty()) {
+				scopes.push(new HashSet<String>());
+				body.accept(this);
+				scopes.pop();
+				return;
+			}
+
+			for (final Node s : body.getStatements())
+				if (s instanceof VarDeclStatement)
+					state.add(((VarDeclStatement) s).getId().getToken());
+			for (final Node s : body.getStatements())
+				if (s instanceof VisitStatement || s instanceof TraverseStatement || s instanceof FixPStatement)
+					s.accept(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final FunctionExpression n) {
+			if (scopes.isEmpty())
+				addClause(n.getBody());
+			scopes.push(new HashSet<String>());
+			n.getType().accept(this);
+			n.getBody().accept(this);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Block n) {
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final ForeachStatement n) {
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final ExistsStatement n) {
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final IfAllStatement n) {
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final ForStatement n) {
+			scopes.push(new HashSet<String>());
+			super.visit(n);
+			scopes.pop();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Component n) {
+			if (n.hasIdentifier())
+				scopes.peek().add(n.getIdentifier().getToken());
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final VarDeclStatement n) {
+			if (n.hasInitializer())
+				n.getInitializer().accept(this);
+			scopes.peek().add(n.getId().getToken());
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final TypeDecl n) {
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Selector n) {
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final EmitStatement n) {
+			// output variables are the one thing files may write to
+			for (final Expression e : n.getIndices())
+				e.accept(this);
+			n.getValue().accept(this);
+			if (n.hasWeight())
+				n.getWeight().accept(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final AssignmentStatement n) {
+			final Factor lhs = n.getLhs();
+			if (!isOutside(lhs.getOperand())) {
+				super.visit(n);
+				return;
+			}
+
+			final Identifier id = (Identifier) lhs.getOperand();
+			n.getRhs().accept(this);
+			for (final Node op : lhs.getOps())
+				op.accept(this);
+			if (!"=".equals(n.getOp()))
+				use(id, READ, n);
+			use(id, lhs.getOpsSize() == 0 ? RESET : WRITE, n);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final PostfixStatement n) {
+			final Factor f = factor(n.getExpr());
+			if (f == null) {
+				summary.safe = false;
+			} else if (isOutside(f.getOperand())) {
+				for (final Node op : f.getOps())
+					op.accept(this);
+				use((Identifier) f.getOperand(), READ, n);
+				use((Identifier) f.getOperand(), WRITE, n);
+			} else {
+				super.visit(n);
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Factor n) {
+			if (!(n.getOperand() instanceof Identifier) || n.getOpsSize() == 0) {
+				super.visit(n);
+				return;
+			}
+
+			final Identifier id = (Identifier) n.getOperand();
+			if (n.getOp(0) instanceof Call) {
+				visitCall(id, n);
+				for (int i = 1; i < n.getOpsSize(); i++)
+					n.getOp(i).accept(this);
+				return;
+			}
+
+			for (final Node op : n.getOps())
+				op.accept(this);
+			// reading an element is fine, if it is not itself a container
+			if (isOutside(id) && !isShared(n.type))
+				use(id, READ, n);
+			else
+				id.accept(this);
+		}
+
+		private void visitCall(final Identifier function, final Factor n) {
+			final String name = function.getToken();
+			final Call call = (Call) n.getOp(0);
+
+			if (isDeclared(name) || (function.env != null && function.env.hasLocal(name))) {
+				for (final Expression e : call.getArgs())
+					e.accept(this);
+				if (!isDeclared(name))
+					called(name, n);
+				return;
+			}
+
+			if (name.equals("getvalue") && call.getArgsSize() == 1)
+				summary.readsSelf = true;
+
+			final int use = name.equals("clear") ? RESET : name.equals("traverse") ? WRITE : name.equals("getvalue") ? READ : CALL;
+			final boolean readOnly = readOnlyFunctions.contains(name)
+					&& (!isShared(call.type) || (copyingFunctions.contains(name) && !isShared(elementType(call.type))));
+
+			for (final Expression e : call.getArgs()) {
+				final Factor f = factor(e);
+				if (f != null && f.getOpsSize() == 0 && isOutside(f.getOperand())) {
+					final Identifier arg = (Identifier) f.getOperand();
+					if (use != CALL && arg.type instanceof BoaTraversal) {
+						traversals.add(arg.getToken());
+						use(arg, use, n);
+						if (use == WRITE) {
+							called(arg.getToken(), n);
+							// a fixpoint compares the results with the last ones
+							if (call.getArgsSize() > 4)
+								use(arg, READ, n);
+						}
+						continue;
+					}
+					if (use == RESET) {
+						use(arg, RESET, n);
+						continue;
+					}
+					if (isShared(arg.type)) {
+						use(arg, readOnly ? READ : WRITE, n);
+						continue;
+					}
+				}
+				e.accept(this);
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void visit(final Identifier n) {
+			if (!isOutside(n))
+				return;
+
+			if (n.type instanceof BoaFunction || n.type instanceof BoaVisitor || n.type instanceof BoaFixP)
+				called(n.getToken(), n);
+			else if (n.type instanceof BoaTraversal)
+				summary.safe = false;
+			else
+				use(n, isShared(n.type) ? ESCAPE : READ, n);
+		}
+
+		private void use(final Identifier id, final int use, final Node n) {
+			if (state.contains(id.getToken())) {
+				// kept between calls, so never starts over
+				if (use != READ)
+					summary.safe = false;
+				return;
+			}
+			summary.events.add(new Event(id.getToken(), use, clause(n), clauses.containsKey(statement(n).getParent())));
+		}
+
+		// the clause the node is in, if any
+		private int clause(final Node n) {
+			for (Node p = n; p != null; p = p.getParent())
+				if (clauses.containsKey(p))
+					return clauses.get(p);
+			return 0;
+		}
+
+		private void addClause(final Block body) {
+			clauses.put(body, clauses.size() + 1);
+		}
+
+		// runs a body declared outside
+		private void called(final String name, final Node n) {
+			if (bodies.containsKey(name))
+				summary.events.add(new Event(name, CALL, clause(n), false));
+			else
+				summary.safe = false;
+		}
+
+		private boolean isDeclared(final String name) {
+			for (final Set<String> scope : scopes)
+				if (scope.contains(name))
+					return true;
+			return false;
+		}
+
+		// is it a variable declared outside the code for the file?
+		private boolean isOutside(final Operand n) {
+			if (!(n instanceof Identifier))
+				return false;
+
+			final String id = ((Identifier) n).getToken();
+			if (isDeclared(id))
+				return false;
+			if (n.env == null)
+				return true;
+			return !n.env.hasType(id) && !n.env.hasGlobal(id) && n.env.hasLocal(id);
+		}
+	}
+
+	// the body a variable is declared as, if any
+	private static Operand body(final VarDeclStatement n) {
+		if (!n.hasInitializer())
+			return null;
+		final Factor f = factor(n.getInitializer());
+		if (f == null || f.getOpsSize() > 0)
+			return null;
+		final Operand o = f.getOperand();
+		if (o instanceof FunctionExpression || o instanceof VisitorExpression
+				|| o instanceof TraversalExpression || o instanceof FixPExpression)
+			return o;
+		return null;
+	}
+
+	// the expression as a single factor, if it is one
+	private static Factor factor(final Expression e) {
+		if (e.getRhsSize() > 0 || e.getLhs().getRhsSize() > 0 || e.getLhs().getLhs().hasRhs()
+				|| e.getLhs().getLhs().getLhs().getRhsSize() > 0 || e.getLhs().getLhs().getLhs().getLhs().getRhsSize() > 0)
+			return null;
+		return e.getLhs().getLhs().getLhs().getLhs().getLhs();
+	}
+
+	private static Node statement(final Node n) {
+		Node s = n;
+		while (s != null && !(s instanceof Statement))
+			s = s.getParent();
+		return s == null ? n : s;
+	}
+
+	// can a value of the type be changed through another reference to it?
+	private static boolean isShared(final BoaType t) {
+		if (t instanceof BoaProtoTuple)
+			return false;
+		return t instanceof BoaMap || t instanceof BoaSet || t instanceof BoaStack || t instanceof BoaQueue
+				|| t instanceof BoaArray || t instanceof BoaTuple;
+	}
+
+	private static BoaType elementType(final BoaType t) {
+		if (t instanceof BoaMap)
+			return ((BoaMap) t).getType();
+		if (t instanceof BoaSet)
+			return ((BoaSet) t).getType();
+		if (t instanceof BoaStack)
+			return ((BoaStack) t).getType();
+		if (t instanceof BoaQueue)
+			return ((BoaQueue) t).getType();
+		if (t instanceof BoaArray)
+			return ((BoaArray) t).getType();
+		return null;
+	}
+
+	private static boolean isOutsideType(final BoaType t) {
+		return t instanceof ProjectProtoTuple || t instanceof CodeRepositoryProtoTuple
+				|| t instanceof RevisionProtoTuple || t instanceof PersonProtoTuple;
+	}
+
+	// does the clause run for files, or for something inside a file?
+	private static boolean isForFiles(final VisitStatement n) {
+		if (n.hasWildcard())
+			return true;
+		if (n.hasComponent())
+			return !isOutsideType(n.getComponent().getType().type);
+		for (final Identifier id : n.getIdList())
+			if (!isOutsideType(id.type))
+				return true;
+		return false;
+	}
+
+	// does the clause run only for files?
+	private static boolean isFile(final VisitStatement n) {
+		if (n.hasWildcard())
+			return false;
+		if (n.hasComponent())
+			return n.getComponent().getType().type instanceof ChangedFileProtoTuple;
+		for (final Identifier id : n.getIdList())
+			if (!(id.type instanceof ChangedFileProtoTuple))
+				return false;
+		return true;
+	}
+
+	// does the clause run only for files or what is inside of them?
+	private static boolean isInsideFiles(final VisitStatement n) {
+		if (n.hasWildcard())
+			return false;
+		if (n.hasComponent())
+			return isInsideFilesType(n.getComponent().getType().type);
+		for (final Identifier id : n.getIdList())
+			if (!isInsideFilesType(id.type))
+				return false;
+		return true;
+	}
+
+	private static boolean isInsideFilesType(final BoaType t) {
+		return t instanceof ChangedFileProtoTuple || t instanceof ASTRootProtoTuple
+				|| t instanceof NamespaceProtoTuple || t instanceof DeclarationProtoTuple
+				|| t instanceof MethodProtoTuple || t instanceof VariableProtoTuple
+				|| t instanceof StatementProtoTuple || t instanceof ExpressionProtoTuple
+				|| t instanceof ModifierProtoTuple || t instanceof TypeProtoTuple
+				|| t instanceof CommentProtoTuple;
+	}
+
+	private static VisitorExpression visitorOf(final Node n) {
+		for (Node p = n.getParent(); p != null; p = p.getParent())
+			if (p instanceof VisitorExpression)
+				return (VisitorExpression) p;
+		return null;
+	}
+
+	// does the clause run for something that is not a file?
+	private static boolean isOutsideFiles(final VisitStatement n) {
+		if (n.hasWildcard())
+			return true;
+		if (n.hasComponent())
+			return isOutsideType(n.getComponent().getType().type);
+		for (final Identifier id : n.getIdList())
+			if (id.type == null || isOutsideType(id.type))
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.compiler.visitors.analysis;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import boa.compiler.ast.Component;
+import boa.compiler.ast.Identifier;
+import boa.compiler.ast.Node;
+import boa.compiler.ast.Selector;
+import boa.compiler.ast.expressions.FixPExpression;
+import boa.compiler.ast.expressions.FunctionExpression;
+import boa.compiler.ast.expressions.TraversalExpression;
+import boa.compiler.ast.expressions.VisitorExpression;
+import boa.compiler.ast.statements.Block;
+import boa.compiler.ast.statements.EmitStatement;
+import boa.compiler.ast.statements.ExistsStatement;
+import boa.compiler.ast.statements.FixPStatement;
+import boa.compiler.ast.statements.ForStatement;
+import boa.compiler.ast.statements.ForeachStatement;
+import boa.compiler.ast.statements.IfAllStatement;
+import boa.compiler.ast.statements.IfStatement;
+import boa.compiler.ast.statements.TraverseStatement;
+import boa.compiler.ast.statements.TypeDecl;
+import boa.compiler.ast.statements.VarDeclStatement;
+import boa.compiler.ast.statements.VisitStatement;
+import boa.compiler.visitors.AbstractVisitorNoArgNoRet;
+import boa.types.BoaTraversal;
+
+/**
+ * Decides if a traversal (or fixpoint function) is reusable, that is if its
+ * results only depend on its arguments and the results of other traversals.
+ * Such a traversal may skip graphs it already traversed.
+ *
+ * A clause is reusable if it never emits or visits, and every name it uses is
+ * declared in the clause itself, is a type, a constant, a traversal (whose
+ * results the runtime keeps track of) or a built-in function that has no
+ * side effects.
+ *
+ * @author agent
+ */
+public class TraversalPurityAnalysis extends AbstractVisitorNoArgNoRet {
+	// built-in functions with side effects, or whose results change from call to call
+	private static final Set<String> impureFunctions = new HashSet<String>(Arrays.asList(
+		"traverse", "clear", "debug", "now", "rand", "nrand"
+	));
+
+	protected final Deque<Set<String>> scopes = new ArrayDeque<Set<String>>();
+	protected boolean reusable;
+
+	public boolean isReusable() {
+		return reusable;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void initialize() {
+		scopes.clear();
+		reusable = true;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final TraversalExpression n) {
+		if (!scopes.isEmpty()) {
+			reusable = false;
+			return;
+		}
+
+		// declarations outside the clause are state kept between calls
+		for (final Node s : n.getBody().getStatements())
+			if (s instanceof TraverseStatement)
+				s.accept(this);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final FixPExpression n) {
+		if (!scopes.isEmpty()) {
+			reusable = false;
+			return;
+		}
+
+		for (final Node s : n.getBody().getStatements())
+			if (s instanceof FixPStatement)
+				s.accept(this);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final TraverseStatement n) {
+		scopes.push(new HashSet<String>());
+		if (n.hasComponent())
+			n.getComponent().accept(this);
+		if (n.hasCondition())
+			n.getCondition().accept(this);
+		for (final IfStatement ifStatement : n.getIfStatements())
+			ifStatement.accept(this);
+		if (n.hasBody())
+			n.getBody().accept(this);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final FixPStatement n) {
+		scopes.push(new HashSet<String>());
+		n.getParam1().accept(this);
+		n.getParam2().accept(this);
+		if (n.hasCondition())
+			n.getCondition().accept(this);
+		if (n.hasBody())
+			n.getBody().accept(this);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Block n) {
+		scopes.push(new HashSet<String>());
+		super.visit(n);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final ForeachStatement n) {
+		scopes.push(new HashSet<String>());
+		super.visit(n);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final ExistsStatement n) {
+		scopes.push(new HashSet<String>());
+		super.visit(n);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final IfAllStatement n) {
+		scopes.push(new HashSet<String>());
+		super.visit(n);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final ForStatement n) {
+		scopes.push(new HashSet<String>());
+		super.visit(n);
+		scopes.pop();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Component n) {
+		// only the name matters, types never refer to variables
+		if (n.hasIdentifier())
+			declare(n.getIdentifier());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VarDeclStatement n) {
+		if (n.hasInitializer())
+			n.getInitializer().accept(this);
+		declare(n.getId());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final TypeDecl n) {
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Selector n) {
+		// a field name, not a variable
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final Identifier n) {
+		final String id = n.getToken();
+
+		for (final Set<String> scope : scopes)
+			if (scope.contains(id))
+				return;
+
+		if (n.env == null) {
+			reusable = false;
+		} else if (n.env.hasType(id)) {
+			// types (including enums) never change
+		} else if (n.env.hasGlobal(id)) {
+			// constants, but not the input
+			if (id.equals("input"))
+				reusable = false;
+		} else if (n.type instanceof BoaTraversal) {
+			// the runtime checks which results were read
+		} else if (!n.env.hasGlobalFunction(id) || impureFunctions.contains(id)) {
+			reusable = false;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final EmitStatement n) {
+		reusable = false;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VisitStatement n) {
+		reusable = false;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final FunctionExpression n) {
+		reusable = false;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void visit(final VisitorExpression n) {
+		reusable = false;
+	}
+
+	private void declare(final Identifier id) {
+		scopes.peek().add(id.getToken());
+	}
+}
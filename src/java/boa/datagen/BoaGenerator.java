@@ -65,6 +65,7 @@ public class BoaGenerator {
 				e.printStackTrace();
 			}
 			SeqCombiner.main(new String[0]);
+			splitColumns();
 		} else if (tokenAvailable) { // when user provides local repo and does
 										// not have json files
 			MetaDataMaster mdm = new MetaDataMaster();
@@ -81,11 +82,18 @@ public class BoaGenerator {
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
+			splitColumns();
 		}
 
 		clear();
 	}
 
+	// splits the projects.seq just written; the token branch only downloads metadata, so has none
+	private static void splitColumns() throws IOException {
+		if (DefaultProperties.STORE_COLUMNS)
+			SeqColumnSplitter.main(new String[0]);
+	}
+
 	private static final void printHelp(Options options, String message) {
 		String header = "The most commonly used Boa options are:";
 		String footer = "\nPlease report issues at http://www.github.com/boalang/";
@@ -104,10 +112,15 @@ public class BoaGenerator {
 		options.addOption("inputToken", "token", true, "token file");
 		options.addOption("inputRepo", "json", true, "cloned repo path");
 		options.addOption("threads", "threads", true, "number of threads");
+		options.addOption("parsethreads", "parsethreads", true, "number of threads parsing the files of each project");
 		options.addOption("projects", "projects", true, "maximum number of projects per sequence file");
 		options.addOption("commits", "commits", true, "maximum number of commits of a project to be stored in the project object");
 		options.addOption("nocommits", "nocommits", false, "do not store commits");
+		options.addOption("columns", "columns", false, "also write the dataset split into columns");
+		options.addOption("sharedasts", "sharedasts", false, "reuse the ASTs of identical files across all projects written to the same AST file");
+		options.addOption("blobs", "blobs", true, "maximum number of file blobs to remember the ASTs of");
 		options.addOption("size", "size", true, "maximum size of a project object to be stored");
+		options.addOption("blobsize", "blobsize", true, "maximum size of a file to be parsed, in bytes");
 		options.addOption("libs", "libs", true, "directory to store libraries");
 		options.addOption("output", "output", true, "directory where output is desired");
 		options.addOption("user", "user", true, "github username to authenticate");
@@ -169,6 +182,9 @@ public class BoaGenerator {
 		if (cl.hasOption("threads")) {
 			DefaultProperties.NUM_THREADS = cl.getOptionValue("threads");
 		}
+		if (cl.hasOption("parsethreads")) {
+			DefaultProperties.PARSE_THREADS = cl.getOptionValue("parsethreads");
+		}
 		if (cl.hasOption("projects")) {
 			DefaultProperties.MAX_PROJECTS = cl.getOptionValue("projects");
 		}
@@ -178,6 +194,9 @@ public class BoaGenerator {
 		if (cl.hasOption("size")) {
 			DefaultProperties.MAX_SIZE_FOR_PROJECT_WITH_COMMITS = cl.getOptionValue("size");
 		}
+		if (cl.hasOption("blobsize")) {
+			DefaultProperties.MAX_BLOB_SIZE = cl.getOptionValue("blobsize");
+		}
 		if (cl.hasOption("debug")) {
 			DefaultProperties.DEBUG = true;
 		}
@@ -192,6 +211,12 @@ public class BoaGenerator {
 		}
 		if (cl.hasOption("nocommits"))
 			DefaultProperties.STORE_COMMITS = false;
+		if (cl.hasOption("columns"))
+			DefaultProperties.STORE_COLUMNS = true;
+		if (cl.hasOption("sharedasts"))
+			DefaultProperties.SHARE_BLOB_INDEX = true;
+		if (cl.hasOption("blobs"))
+			DefaultProperties.MAX_BLOB_INDEX = cl.getOptionValue("blobs");
 	}
 
 	//
@@ -24,9 +24,11 @@ import java.io.File;
  */
 public class DefaultProperties {
 	public static String NUM_THREADS = "1";
+	public static String PARSE_THREADS = "1";
 	public static String MAX_PROJECTS = "1000";
 	public static String MAX_COMMITS = "10000";
 	public static String MAX_SIZE_FOR_PROJECT_WITH_COMMITS = String.valueOf(1 << 26); // Integer.MAX_VALUE / 3
+	public static String MAX_BLOB_SIZE = String.valueOf(1 << 24);
 	
 	public static boolean DEBUG = false, DEBUGPARSE = false, CACHE = false;
 
@@ -70,7 +72,11 @@ public class DefaultProperties {
 	public static String CLASSPATH_ROOT = getClasspathRoot();
 	public static  String OUTPUT = "output";
 	
-	public static boolean STORE_ASCII_PRINTABLE_CONTENTS = true, STORE_COMMITS = true;
+	public static boolean STORE_ASCII_PRINTABLE_CONTENTS = true, STORE_COMMITS = true, STORE_COLUMNS = false;
+
+	// the most file blobs to remember the ASTs of, and if projects written to the same AST file share them
+	public static String MAX_BLOB_INDEX = String.valueOf(1 << 20);
+	public static boolean SHARE_BLOB_INDEX = false;
 
 	public static String localDataPath = null;
 	
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A log of the sequence files an importer wrote and the projects it finished
+ * in each, so a restarted importer knows what is done and which files were
+ * left open.
+ *
+ * Each line is one event, written out to disk before the call returns:
+ * <ul>
+ * <li><code>opened file</code></li>
+ * <li><code>started id file ast commit content</code></li>
+ * <li><code>finished id file ast commit content</code></li>
+ * <li><code>recovered file n</code>, keeping only the first n projects</li>
+ * <li><code>closed file</code></li>
+ * </ul>
+ * with the offsets the project's ASTs, commits and contents start or end at.
+ * A last line torn by a crash is ignored.
+ *
+ * @author agent
+ */
+public class ImportJournal {
+	/**
+	 * What was written to one set of sequence files.
+	 */
+	public static class Segment {
+		private final List<String> projects = new ArrayList<String>();
+		private final List<long[]> ends = new ArrayList<long[]>();
+		private boolean closed = false;
+
+		/**
+		 * @return the ids of the projects finished, in order
+		 */
+		public List<String> getProjects() {
+			return projects;
+		}
+
+		/**
+		 * Returns where the AST, commit and content files ended once a project
+		 * was finished.
+		 *
+		 * @param i the index of the project
+		 * @return the AST, commit and content offsets
+		 */
+		public long[] getEnd(final int i) {
+			return ends.get(i);
+		}
+
+		/**
+		 * @return true if the files were closed cleanly
+		 */
+		public boolean isClosed() {
+			return closed;
+		}
+	}
+
+	private final Map<String, Segment> segments = new LinkedHashMap<String, Segment>();
+	private final FileOutputStream out;
+
+	/**
+	 * Opens a journal, reading what it already holds.
+	 *
+	 * @param file the journal's file
+	 * @throws IOException if the journal can not be read or opened
+	 */
+	public ImportJournal(final File file) throws IOException {
+		boolean torn = false;
+		if (file.exists()) {
+			final String content = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+			final String[] lines = content.split("\n");
+			// a last line without its newline was torn by a crash
+			torn = !content.isEmpty() && !content.endsWith("\n");
+			for (int i = 0; i < lines.length - (torn ? 1 : 0); i++)
+				read(lines[i].split("\t"));
+		} else if (file.getAbsoluteFile().getParentFile() != null) {
+			file.getAbsoluteFile().getParentFile().mkdirs();
+		}
+		this.out = new FileOutputStream(file, true);
+		if (torn)
+			out.write('\n');
+	}
+
+	private void read(final String[] fields) {
+		try {
+			if (fields[0].equals("opened") && fields.length == 2) {
+				segment(fields[1]);
+			} else if (fields[0].equals("finished") && fields.length == 6) {
+				final Segment s = segment(fields[2]);
+				final long[] end = { Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5]) };
+				s.projects.add(fields[1]);
+				s.ends.add(end);
+			} else if (fields[0].equals("recovered") && fields.length == 3) {
+				final Segment s = segment(fields[1]);
+				final int n = Integer.parseInt(fields[2]);
+				while (s.projects.size() > n) {
+					s.projects.remove(s.projects.size() - 1);
+					s.ends.remove(s.ends.size() - 1);
+				}
+				s.closed = true;
+			} else if (fields[0].equals("closed") && fields.length == 2) {
+				segment(fields[1]).closed = true;
+			}
+		} catch (final NumberFormatException e) {
+			// not written by this journal
+		}
+	}
+
+	private Segment segment(final String file) {
+		Segment s = segments.get(file);
+		if (s == null) {
+			s = new Segment();
+			segments.put(file, s);
+		}
+		return s;
+	}
+
+	/**
+	 * @return the sets of files written, by name
+	 */
+	public synchronized Map<String, Segment> getSegments() {
+		return segments;
+	}
+
+	public synchronized void opened(final String file) throws IOException {
+		segment(file);
+		write("opened", file);
+	}
+
+	public synchronized void started(final String id, final String file, final long ast, final long commit, final long content) throws IOException {
+		write("started", id, file, String.valueOf(ast), String.valueOf(commit), String.valueOf(content));
+	}
+
+	public synchronized void finished(final String id, final String file, final long ast, final long commit, final long content) throws IOException {
+		final Segment s = segment(file);
+		s.projects.add(id);
+		s.ends.add(new long[] { ast, commit, content });
+		write("finished", id, file, String.valueOf(ast), String.valueOf(commit), String.valueOf(content));
+	}
+
+	public synchronized void recovered(final String file, final int n) throws IOException {
+		read(new String[] { "recovered", file, String.valueOf(n) });
+		write("recovered", file, String.valueOf(n));
+	}
+
+	public synchronized void closed(final String file) throws IOException {
+		segment(file).closed = true;
+		write("closed", file);
+	}
+
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	private void write(final String... fields) throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		for (final String f : fields) {
+			if (sb.length() > 0)
+				sb.append('\t');
+			sb.append(f);
+		}
+		sb.append('\n');
+		out.write(sb.toString().getBytes("UTF-8"));
+		out.getFD().sync();
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.DefaultCodec;
+
+import com.google.protobuf.CodedInputStream;
+
+import boa.datagen.util.Properties;
+import boa.io.ProjectColumns;
+import boa.types.Toplevel.Project;
+
+/**
+ * Writes the column-split layout of a dataset (see {@link ProjectColumns})
+ * next to its <code>projects.seq</code>.  Columns are keyed by the position
+ * of the project in <code>projects.seq</code>; meta is a sequence file (so it
+ * can be split) and the other columns are map files, without entries for
+ * projects that have nothing in them.  Meta's header records which
+ * <code>projects.seq</code> the columns were split from.
+ *
+ * @author agent
+ */
+public class SeqColumnSplitter {
+	public static void main(String[] args) throws IOException {
+		String base = Properties.getProperty("output.path", DefaultProperties.OUTPUT);
+		if (args.length > 0)
+			base = args[0];
+
+		final Configuration conf = new Configuration();
+		final FileSystem fileSystem = FileSystem.get(conf);
+		final Path dir = new Path(base, ProjectColumns.DIR);
+		fileSystem.delete(dir, true);
+
+		final SequenceFile.Reader r = new SequenceFile.Reader(fileSystem, new Path(base, ProjectColumns.SOURCE), conf);
+		final SequenceFile.Writer metaWriter = SequenceFile.createWriter(fileSystem, conf, new Path(dir, ProjectColumns.META), LongWritable.class, BytesWritable.class, CompressionType.BLOCK, new DefaultCodec(), null, ProjectColumns.describe(fileSystem, new Path(base)));
+		final MapFile.Writer[] writers = new MapFile.Writer[ProjectColumns.COLUMNS.length];
+		for (int i = 0; i < writers.length; i++)
+			writers[i] = new MapFile.Writer(conf, fileSystem, new Path(dir, ProjectColumns.COLUMNS[i]).toString(), LongWritable.class, BytesWritable.class, CompressionType.BLOCK, new DefaultCodec(), null);
+
+		final Text textKey = new Text();
+		final BytesWritable value = new BytesWritable();
+		final LongWritable ordinal = new LongWritable();
+		try {
+			for (long n = 0; r.next(textKey, value); n++) {
+				ordinal.set(n);
+				final Project p = Project.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
+				final Project[] columns = ProjectColumns.split(p);
+
+				metaWriter.append(ordinal, new BytesWritable(columns[0].toByteArray()));
+				for (int i = 0; i < writers.length; i++)
+					if (columns[i + 1] != null)
+						writers[i].append(ordinal, new BytesWritable(columns[i + 1].toByteArray()));
+			}
+		} finally {
+			r.close();
+			metaWriter.close();
+			for (final MapFile.Writer w : writers)
+				w.close();
+		}
+	}
+}
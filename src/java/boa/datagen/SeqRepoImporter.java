@@ -21,6 +21,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -39,6 +41,7 @@ import com.google.gson.JsonObject;
 import boa.datagen.forges.github.RepoMetadata;
 import boa.datagen.forges.github.RepositoryCloner;
 import boa.datagen.scm.AbstractConnector;
+import boa.datagen.scm.BlobIndex;
 import boa.datagen.scm.GitConnector;
 import boa.datagen.util.FileIO;
 import boa.datagen.util.Properties;
@@ -64,14 +67,13 @@ public class SeqRepoImporter {
 	final static String jsonCachePath = Properties.getProperty("output.path", DefaultProperties.OUTPUT);
 	final static boolean STORE_COMMITS = DefaultProperties.STORE_COMMITS;
 	private static boolean done = false;
+	// what was written before, so a restarted import can pick up where it stopped
+	private static ImportJournal journal = null;
 	
 	public static void main(String[] args) throws IOException, InterruptedException {
 
-		conf = new Configuration();
-		fileSystem = FileSystem.get(conf);
-		base = Properties.getProperty("output.path", DefaultProperties.OUTPUT);
-		
-		getProcessedProjects();
+		final String output = Properties.getProperty("output.path", DefaultProperties.OUTPUT);
+		resume(output, new ImportJournal(new File(Properties.getProperty("journal.path", output + "/journal.log"))));
 
 		ImportTask[] workers = new ImportTask[poolSize];
 		Thread[] threads = new Thread[poolSize];
@@ -136,14 +138,162 @@ public class SeqRepoImporter {
 		for (Thread thread : threads)
 			while (thread.isAlive())
 				Thread.sleep(1000);
+		journal.close();
+	}
+
+	/**
+	 * Sets up an import into the given directory, picking up where an earlier
+	 * import stopped: files it left open are cut back to the projects that
+	 * made it to disk, and the projects it finished are skipped.
+	 *
+	 * @param output the directory the sequence files are written to
+	 * @param log the journal of what was written before
+	 * @return the ids of the projects already imported
+	 * @throws IOException if the files can not be recovered
+	 */
+	public static Set<String> resume(final String output, final ImportJournal log) throws IOException {
+		conf = new Configuration();
+		fileSystem = FileSystem.get(conf);
+		base = output;
+		journal = log;
+
+		recover();
+		processedProjectIds.clear();
+		getProcessedProjects();
+		return processedProjectIds;
+	}
+
+	/*
+	 * Cuts the files left open by a crash back to the projects the journal says
+	 * were finished and whose records all made it to disk.  The files are
+	 * copied, as sequence files can not be truncated, and the copies closed.
+	 */
+	private static void recover() throws IOException {
+		for (final Map.Entry<String, ImportJournal.Segment> e : journal.getSegments().entrySet()) {
+			final String suffix = e.getKey();
+			final ImportJournal.Segment segment = e.getValue();
+			if (segment.isClosed())
+				continue;
+
+			final List<String> projects = segment.getProjects();
+			final long[] limit = projects.isEmpty() ? new long[] { 1, 1, 1 } : segment.getEnd(projects.size() - 1);
+			final long[] reached = new long[3];
+			final String[] dirs = { "ast", "commit", "source" };
+			for (int j = 0; j < dirs.length; j++)
+				reached[j] = recoverRecords(dirs[j], suffix, limit[j]);
+			final Set<String> stored = readProjectIds(recoverPath("project", suffix));
+
+			// keep the projects up to the first with anything missing
+			int n = 0;
+			while (n < projects.size() && stored.contains(projects.get(n))
+					&& segment.getEnd(n)[0] <= reached[0] && segment.getEnd(n)[1] <= reached[1] && segment.getEnd(n)[2] <= reached[2])
+				n++;
+			recoverProjects(suffix, new HashSet<String>(projects.subList(0, n)));
+			// and drop the records of the projects not kept
+			if (n < projects.size()) {
+				final long[] kept = n == 0 ? new long[] { 1, 1, 1 } : segment.getEnd(n - 1);
+				for (int j = 0; j < dirs.length; j++)
+					recoverRecords(dirs[j], suffix, kept[j]);
+			}
+
+			System.out.println("Recovered " + n + " of " + projects.size() + " projects in " + suffix);
+			journal.recovered(suffix, n);
+		}
+	}
+
+	// returns the file to recover from, finishing an earlier recovery if it got that far
+	private static Path recoverPath(final String dir, final String suffix) throws IOException {
+		final Path path = new Path(base + "/" + dir + "/" + suffix);
+		final Path copy = new Path(path + ".recovered");
+		if (!fileSystem.exists(path) && fileSystem.exists(copy))
+			fileSystem.rename(copy, path);
+		return path;
+	}
+
+	// copies the readable records keyed below the limit, returning where they end
+	private static long recoverRecords(final String dir, final String suffix, final long limit) throws IOException {
+		final Path path = recoverPath(dir, suffix);
+		final Path copy = new Path(path + ".recovered");
+		long end = 1;
+		final SequenceFile.Writer w = SequenceFile.createWriter(fileSystem, conf, copy, LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		try {
+			SequenceFile.Reader r = null;
+			try {
+				r = new SequenceFile.Reader(fileSystem, path, conf);
+				final LongWritable key = new LongWritable();
+				final BytesWritable value = new BytesWritable();
+				while (r.next(key, value) && key.get() < limit) {
+					w.append(key, value);
+					end = key.get() + value.getLength();
+				}
+			} catch (final IOException e) {
+				// the rest never made it to disk
+			} finally {
+				if (r != null)
+					r.close();
+			}
+		} finally {
+			w.close();
+		}
+		fileSystem.delete(path, false);
+		fileSystem.rename(copy, path);
+		return end;
+	}
+
+	private static Set<String> readProjectIds(final Path path) throws IOException {
+		final Set<String> ids = new HashSet<String>();
+		SequenceFile.Reader r = null;
+		try {
+			r = new SequenceFile.Reader(fileSystem, path, conf);
+			final Text key = new Text();
+			while (r.next(key))
+				ids.add(key.toString());
+		} catch (final IOException e) {
+			// the rest never made it to disk
+		} finally {
+			if (r != null)
+				r.close();
+		}
+		return ids;
+	}
+
+	private static void recoverProjects(final String suffix, final Set<String> ids) throws IOException {
+		final Path path = recoverPath("project", suffix);
+		final Path copy = new Path(path + ".recovered");
+		final SequenceFile.Writer w = SequenceFile.createWriter(fileSystem, conf, copy, Text.class, BytesWritable.class, CompressionType.BLOCK);
+		try {
+			SequenceFile.Reader r = null;
+			try {
+				r = new SequenceFile.Reader(fileSystem, path, conf);
+				final Text key = new Text();
+				final BytesWritable value = new BytesWritable();
+				while (r.next(key, value))
+					if (ids.contains(key.toString()))
+						w.append(key, value);
+			} catch (final IOException e) {
+				// the rest never made it to disk
+			} finally {
+				if (r != null)
+					r.close();
+			}
+		} finally {
+			w.close();
+		}
+		fileSystem.delete(path, false);
+		fileSystem.rename(copy, path);
 	}
 
 	private static void getProcessedProjects() throws IOException {
+		// the journal knows what is in the files it saw written
+		final Map<String, ImportJournal.Segment> segments = journal.getSegments();
+		for (final ImportJournal.Segment segment : segments.values())
+			processedProjectIds.addAll(segment.getProjects());
+
 		FileStatus[] files = fileSystem.listStatus(new Path(base + "/project"));
 		for (int i = 0; i < files.length; i++) {
 			FileStatus file = files[i];
 			String name = file.getPath().getName();
-			if (name.endsWith(".seq")) {
+			if (name.endsWith(".seq") && !segments.containsKey(name)) {
 				SequenceFile.Reader r = null;
 				try {
 					r = new SequenceFile.Reader(fileSystem, file.getPath(), conf);
@@ -170,6 +320,8 @@ public class SeqRepoImporter {
 		private String suffix;
 		private SequenceFile.Writer projectWriter, astWriter, commitWriter, contentWriter;
 		private long astWriterLen = 1, commitWriterLen = 1, contentWriterLen = 1;
+		// the ASTs written to the current AST file for file blobs, if projects share them
+		private BlobIndex blobIndex;
 		private boolean ready = true;
 		Project project;
 
@@ -201,6 +353,9 @@ public class SeqRepoImporter {
 					astWriterLen = 1;
 					commitWriterLen = 1;
 					contentWriterLen = 1;
+					if (DefaultProperties.SHARE_BLOB_INDEX)
+						blobIndex = new BlobIndex(Integer.parseInt(DefaultProperties.MAX_BLOB_INDEX));
+					journal.opened(suffix);
 					break;
 				} catch (Throwable t) {
 					t.printStackTrace();
@@ -219,6 +374,7 @@ public class SeqRepoImporter {
 					astWriter.close();
 					commitWriter.close();
 					contentWriter.close();
+					journal.closed(suffix);
 					try {
 						Thread.sleep(1000);
 					} catch (InterruptedException e) {
@@ -234,6 +390,14 @@ public class SeqRepoImporter {
 			}
 		}
 
+		// writes out everything appended so far, so the journal can count on it
+		private void flushWriters() throws IOException {
+			for (final SequenceFile.Writer w : new SequenceFile.Writer[] { projectWriter, astWriter, commitWriter, contentWriter }) {
+				w.sync();
+				w.syncFs();
+			}
+		}
+
 		@Override
 		public void run() {
 			openWriters();
@@ -255,16 +419,19 @@ public class SeqRepoImporter {
 					if (debug)
 						System.out.println(
 								Thread.currentThread().getId() + " Processing " + (allCounter+1) + " project " + project.getId() + " " + name);
+					journal.started(project.getId(), suffix, astWriterLen, commitWriterLen, contentWriterLen);
 					project = storeRepository(project, 0);
 					if (debug)
 						System.out.println(
 								Thread.currentThread().getId() + " Putting in sequence file: " + project.getId());
 
+					boolean stored = false;
 					BytesWritable bw = new BytesWritable(project.toByteArray());
 					if (bw.getLength() <= MAX_SIZE_FOR_PROJECT_WITH_COMMITS 
 							|| (project.getCodeRepositoriesCount() > 0 && project.getCodeRepositories(0).getRevisionKeysCount() > 0)) {
 						try {
 							projectWriter.append(new Text(project.getId()), bw);
+							stored = true;
 						} catch (IOException e) {
 							e.printStackTrace();
 						}
@@ -281,10 +448,15 @@ public class SeqRepoImporter {
 						}
 						try {
 							projectWriter.append(new Text(pb.getId()), new BytesWritable(pb.build().toByteArray()));
+							stored = true;
 						} catch (IOException e) {
 							e.printStackTrace();
 						}
 					}
+					if (stored) {
+						flushWriters();
+						journal.finished(project.getId(), suffix, astWriterLen, commitWriterLen, contentWriterLen);
+					}
 					counter++;
 					allCounter++;
 					if (counter >= Integer.parseInt(DefaultProperties.MAX_PROJECTS)) {
@@ -330,6 +502,8 @@ public class SeqRepoImporter {
 			try {
 				conn = new GitConnector(gitDir.getAbsolutePath(), project.getName(), astWriter, astWriterLen, commitWriter, commitWriterLen,
 						contentWriter, contentWriterLen);
+				if (blobIndex != null)
+					conn.setBlobIndex(blobIndex);
 				final CodeRepository.Builder repoBuilder = CodeRepository.newBuilder(repo);
 				if (STORE_COMMITS) {
 					List<Object> revisions = conn.getRevisions(project.getName());
@@ -52,6 +52,7 @@ import boa.datagen.util.CssVisitor;
 import boa.datagen.util.FileIO;
 import boa.datagen.util.HtmlVisitor;
 import boa.datagen.util.JavaScriptErrorCheckVisitor;
+import boa.datagen.util.JavaScriptVersionVisitor;
 import boa.datagen.util.JavaScriptVisitor;
 import boa.datagen.util.JavaVisitor;
 import boa.datagen.util.PHPErrorCheckVisitor;
@@ -67,6 +68,8 @@ public abstract class AbstractCommit {
 	protected static final boolean debug = Properties.getBoolean("debug", DefaultProperties.DEBUG);
 	protected static final boolean debugparse = Properties.getBoolean("debugparse", DefaultProperties.DEBUGPARSE);
 	protected static final boolean STORE_ASCII_PRINTABLE_CONTENTS = Properties.getBoolean("ascii", DefaultProperties.STORE_ASCII_PRINTABLE_CONTENTS);
+	// files larger than this, in bytes, are not read or parsed
+	protected static final int MAX_BLOB_SIZE = Integer.parseInt(Properties.getProperty("max.blob.size", DefaultProperties.MAX_BLOB_SIZE));
 
 	protected AbstractConnector connector;
 	protected String projectName;
@@ -143,10 +146,35 @@ public abstract class AbstractCommit {
 
 	protected List<Integer> childrenIndices = new LinkedList<Integer>();
 
-	protected static final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
-
+	// the JavaScript dialects the parser tells apart, oldest first, and the
+	// kinds they give; 1.2 to 1.6 accept exactly what 1.1 does
+	private static final int[] JS_VERSIONS = { Context.VERSION_1_1, Context.VERSION_1_7, Context.VERSION_1_8 };
+	private static final FileKind[] JS_KINDS = { FileKind.SOURCE_JS_ES1, FileKind.SOURCE_JS_ES7, FileKind.SOURCE_JS_ES8 };
+
+	// the ASTs of changed files parsed ahead of writing, or null
+	private Map<ChangedFile.Builder, byte[]> parsedAsts;
+	// the AST of the file being parsed, or null
+	private byte[] parsedAst;
+
+	/**
+	 * Returns the contents of the file at the path.
+	 *
+	 * @param path the path of the file
+	 * @return the contents, or null if the file is too large to read
+	 */
 	protected abstract String getFileContents(final String path);
 
+	/**
+	 * Returns the id of the blob at the path, which is the same exactly when
+	 * the contents are.
+	 *
+	 * @param path the path of the file
+	 * @return the blob's id, or null if not known
+	 */
+	protected String getFileId(final String path) {
+		return null;
+	}
+
 	public abstract String writeFile(final String classpathRoot, final String path);
 
 	public abstract Set<String> getGradleDependencies(final String classpathRoot, final String path);
@@ -182,22 +210,79 @@ public abstract class AbstractCommit {
 				revision.addParents(parentIndex);
 
 		for (ChangedFile.Builder cfb : changedFiles) {
-			cfb.setKind(FileKind.OTHER);
 			if (cfb.getChange() == ChangeKind.DELETED || cfb.getChange() == ChangeKind.UNKNOWN) {
+				cfb.setKind(FileKind.OTHER);
 				cfb.setKey(0);
 //				cfb.setKind(connector.revisions.get(cfb.getPreviousVersions(0)).changedFiles.get(cfb.getPreviousIndices(0)).getKind());
 			} else
 				processChangeFile(cfb);
 			revision.addFiles(cfb.build());
 		}
+		this.parsedAsts = null;
 
 		return revision.build();
 	}
 
+	/**
+	 * Parses the changed files ahead of {@link #asProtobuf(String)}, which then
+	 * only has to write their ASTs.  Files whose blobs are already indexed are
+	 * left to it.  This may run on another thread, as long as nothing else uses
+	 * the commit until it returns.
+	 */
+	void parse() {
+		final Map<ChangedFile.Builder, byte[]> asts = new IdentityHashMap<ChangedFile.Builder, byte[]>();
+		for (final ChangedFile.Builder cfb : changedFiles) {
+			if (cfb.getChange() == ChangeKind.DELETED || cfb.getChange() == ChangeKind.UNKNOWN)
+				continue;
+			final String id = getFileId(cfb.getName());
+			if (id != null && connector.blobIndex.contains(BlobIndex.key(id, cfb.getName())))
+				continue;
+			asts.put(cfb, parseChangeFile(cfb));
+		}
+		this.parsedAsts = asts;
+	}
+
 	Builder processChangeFile(final ChangedFile.Builder fb) {
-		long len = connector.astWriterLen;
+		// a blob already seen is not parsed again
+		final String id = getFileId(fb.getName());
+		final String blob = id == null ? null : BlobIndex.key(id, fb.getName());
+		if (blob != null && connector.blobIndex.apply(blob, fb)) {
+			if (parsedAsts != null)
+				parsedAsts.remove(fb);
+			return fb;
+		}
+
+		final byte[] ast;
+		if (parsedAsts != null && parsedAsts.containsKey(fb))
+			ast = parsedAsts.remove(fb);
+		else
+			ast = parseChangeFile(fb);
+
+		if (ast != null) {
+			try {
+				final BytesWritable bw = new BytesWritable(ast);
+				connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
+				fb.setKey(connector.astWriterLen);
+				fb.setAst(true);
+				connector.astWriterLen += bw.getLength();
+			} catch (IOException e) {
+				if (debug)
+					e.printStackTrace();
+			}
+		}
+
+		if (blob != null)
+			connector.blobIndex.put(blob, fb);
+		return fb;
+	}
+
+	// sets the kind of the changed file, returning its AST or null if none
+	private byte[] parseChangeFile(final ChangedFile.Builder fb) {
+		parsedAst = null;
 		String path = fb.getName();
 
+		fb.setKind(FileKind.OTHER);
+
 		final String lowerPath = path.toLowerCase();
 		if (lowerPath.endsWith(".txt"))
 			fb.setKind(FileKind.TEXT);
@@ -208,60 +293,21 @@ public abstract class AbstractCommit {
 		else if (lowerPath.endsWith(".java")) {
 			final String content = getFileContents(path);
 			fb.setKind(FileKind.SOURCE_JAVA_ERROR);
-			parseJavaFile(path, fb, content, false);
+			if (content != null)
+				parseJavaFile(path, fb, content, false);
 		} else if (lowerPath.endsWith(".js")) {
 			final String content = getFileContents(path);
-
-			fb.setKind(FileKind.SOURCE_JS_ES1);
-			if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_1, false)) {
-				if (debugparse)
-					System.err.println("Found ES3 parse error in: revision " + id + ": file " + path);
-				fb.setKind(FileKind.SOURCE_JS_ES2);
-				if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_2, false)) {
-					if (debugparse)
-						System.err.println("Found ES3 parse error in: revision " + id + ": file " + path);
-					fb.setKind(FileKind.SOURCE_JS_ES3);
-					if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_3, false)) {
-						if (debugparse)
-							System.err.println("Found ES3 parse error in: revision " + id + ": file " + path);
-						fb.setKind(FileKind.SOURCE_JS_ES5);
-						if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_5, false)) {
-							if (debugparse)
-								System.err.println("Found ES4 parse error in: revision " + id + ": file " + path);
-							fb.setKind(FileKind.SOURCE_JS_ES6);
-							if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_6, false)) {
-								if (debugparse)
-									System.err.println("Found ES4 parse error in: revision " + id + ": file " + path);
-								fb.setKind(FileKind.SOURCE_JS_ES7);
-								if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_7, false)) {
-									if (debugparse)
-										System.err
-												.println("Found ES3 parse error in: revision " + id + ": file " + path);
-									fb.setKind(FileKind.SOURCE_JS_ES8);
-									if (!parseJavaScriptFile(path, fb, content, Context.VERSION_1_8, false)) {
-										if (debugparse)
-											System.err.println(
-													"Found ES4 parse error in: revision " + id + ": file " + path);
-										fb.setKind(FileKind.SOURCE_JS_ERROR);
-									} else if (debugparse)
-										System.err.println("Accepted ES8: revision " + id + ": file " + path);
-								} else if (debugparse)
-									System.err.println("Accepted ES7: revision " + id + ": file " + path);
-							} else if (debugparse)
-								System.err.println("Accepted ES6: revision " + id + ": file " + path);
-						} else if (debugparse)
-							System.err.println("Accepted ES5: revision " + id + ": file " + path);
-					} else if (debugparse)
-						System.err.println("Accepted ES3: revision " + id + ": file " + path);
-				} else if (debugparse)
-					System.err.println("Accepted ES2: revision " + id + ": file " + path);
-			} else if (debugparse)
-				System.err.println("Accepted ES1: revision " + id + ": file " + path);
+			if (content == null)
+				fb.setKind(FileKind.SOURCE_JS_ERROR);
+			else
+				parseJavaScriptFile(path, fb, content);
 		} else if (lowerPath.endsWith(".php")) {
 			final String content = getFileContents(path);
 
 			fb.setKind(FileKind.SOURCE_PHP5);
-			if (!parsePHPFile(path, fb, content, PHPVersion.PHP5, false)) {
+			if (content == null)
+				fb.setKind(FileKind.SOURCE_PHP_ERROR);
+			else if (!parsePHPFile(path, fb, content, PHPVersion.PHP5, false)) {
 				if (debugparse)
 					System.err.println("Found ES3 parse error in: revision " + id + ": file " + path);
 				fb.setKind(FileKind.SOURCE_PHP5_3);
@@ -351,12 +397,15 @@ public abstract class AbstractCommit {
 			}
 		}*/
 		 
-		if (connector.astWriterLen > len) {
-			fb.setKey(len);
-			fb.setAst(true);
-		}
+		final byte[] ast = parsedAst;
+		parsedAst = null;
+		return ast;
+	}
 
-		return fb;
+	// keeps the first AST built for the file being parsed
+	private void store(final ASTRoot.Builder ast) {
+		if (parsedAst == null)
+			parsedAst = ast.build().toByteArray();
 	}
 
 	@SuppressWarnings("unused")
@@ -384,14 +433,7 @@ public abstract class AbstractCommit {
 			System.exit(-1);
 			return false;
 		}
-		try {
-			// System.out.println("writing=" + count + "\t" + path);
-			BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-			connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-			connector.astWriterLen += bw.getLength();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		store(ast);
 		return true;
 	}
 
@@ -422,14 +464,7 @@ public abstract class AbstractCommit {
 			System.exit(-1);
 			return false;
 		}
-		try {
-			// System.out.println("writing=" + count + "\t" + path);
-			BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-			connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-			connector.astWriterLen += bw.getLength();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		store(ast);
 		return true;
 	}
 
@@ -460,14 +495,7 @@ public abstract class AbstractCommit {
 			System.exit(-1);
 			return false;
 		}
-		try {
-			// System.out.println("writing=" + count + "\t" + path);
-			BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-			connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-			connector.astWriterLen += bw.getLength();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		store(ast);
 		return true;
 	}
 	
@@ -502,20 +530,65 @@ public abstract class AbstractCommit {
 				System.exit(-1);
 				return false;
 			}
-			try {
-				// System.out.println("writing=" + count + "\t" + path);
-				BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-				connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-				connector.astWriterLen += bw.getLength();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			store(ast);
 		}
 		return !errorCheck.hasError;
 	}
 
-	private boolean parseJavaScriptFile(final String path, final ChangedFile.Builder fb, final String content,
-			final int astLevel, final boolean storeOnError) {
+	/*
+	 * Gives a JavaScript file the kind of the oldest dialect it parses in.  The
+	 * file is parsed in the newest dialect first, and if it parses the syntax it
+	 * uses tells the oldest dialect, so other dialects are only tried when it
+	 * does not.  Nothing carries over from other files, so the kind and tree
+	 * do not depend on which files were parsed before, or on which thread.
+	 */
+	private void parseJavaScriptFile(final String path, final ChangedFile.Builder fb, final String content) {
+		final int newest = JS_VERSIONS.length - 1;
+		int dialect = -1;
+
+		AstRoot cu = parseJavaScript(path, content, JS_VERSIONS[newest]);
+		if (cu != null) {
+			final JavaScriptVersionVisitor syntax = new JavaScriptVersionVisitor();
+			cu.visit(syntax);
+			dialect = newest;
+			for (int i = 0; i < newest; i++)
+				if (JS_VERSIONS[i] >= syntax.version) {
+					dialect = i;
+					break;
+				}
+
+			// older dialects read let and yield as names, so may still parse it
+			if (dialect > 0 && JS_VERSIONS[dialect] == Context.VERSION_1_7) {
+				final AstRoot older = parseJavaScript(path, content, JS_VERSIONS[0]);
+				if (older != null) {
+					cu = older;
+					dialect = 0;
+				}
+			}
+		} else {
+			for (int i = 0; i < newest; i++) {
+				cu = parseJavaScript(path, content, JS_VERSIONS[i]);
+				if (cu != null) {
+					dialect = i;
+					break;
+				}
+			}
+		}
+
+		if (dialect < 0 || !storeJavaScript(path, content, cu)) {
+			if (debugparse)
+				System.err.println("Found JS parse error in: revision " + id + ": file " + path);
+			fb.setKind(FileKind.SOURCE_JS_ERROR);
+			return;
+		}
+
+		fb.setKind(JS_KINDS[dialect]);
+		if (debugparse)
+			System.err.println("Accepted " + JS_KINDS[dialect] + ": revision " + id + ": file " + path);
+	}
+
+	// returns the tree of a JavaScript file, or null if it does not parse cleanly
+	private AstRoot parseJavaScript(final String path, final String content, final int astLevel) {
 		try {
 			// System.out.println("parsing=" + (++count) + "\t" + path);
 			CompilerEnvirons cp = new CompilerEnvirons();
@@ -526,53 +599,47 @@ public abstract class AbstractCommit {
 			try {
 				cu = parser.parse(content, null, 0);
 			} catch (java.lang.IllegalArgumentException ex) {
-				return false;
+				return null;
 			} catch (org.mozilla.javascript.EvaluatorException ex) {
-				return false;
+				return null;
 			}
 
 			final JavaScriptErrorCheckVisitor errorCheck = new JavaScriptErrorCheckVisitor();
 			cu.visit(errorCheck);
 
-			if (!errorCheck.hasError || storeOnError) {
-				final ASTRoot.Builder ast = ASTRoot.newBuilder();
-				// final CommentsRoot.Builder comments =
-				// CommentsRoot.newBuilder();
-				final JavaScriptVisitor visitor = new JavaScriptVisitor(content);
-				try {
-					ast.addNamespaces(visitor.getNamespaces(cu));
-					// for (final String s : visitor.getImports())
-					// ast.addImports(s);
-					/*
-					 * for (final Comment c : visitor.getComments())
-					 * comments.addComments(c);
-					 */
-				} catch (final UnsupportedOperationException e) {
-					return false;
-				} catch (final Throwable e) {
-					if (debug)
-						System.err.println("Error visiting JS file: " + path  + " from: " + projectName);
-					e.printStackTrace();
-					System.exit(-1);
-					return false;
-				}
-
-				try {
-					// System.out.println("writing=" + count + "\t" + path);
-					BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-					connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-					connector.astWriterLen += bw.getLength();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-				// fb.setComments(comments);
-			}
-
-			return !errorCheck.hasError;
+			return errorCheck.hasError ? null : cu;
 		} catch (final Exception e) {
 			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private boolean storeJavaScript(final String path, final String content, final AstRoot cu) {
+		final ASTRoot.Builder ast = ASTRoot.newBuilder();
+		// final CommentsRoot.Builder comments =
+		// CommentsRoot.newBuilder();
+		final JavaScriptVisitor visitor = new JavaScriptVisitor(content);
+		try {
+			ast.addNamespaces(visitor.getNamespaces(cu));
+			// for (final String s : visitor.getImports())
+			// ast.addImports(s);
+			/*
+			 * for (final Comment c : visitor.getComments())
+			 * comments.addComments(c);
+			 */
+		} catch (final UnsupportedOperationException e) {
+			return false;
+		} catch (final Throwable e) {
+			if (debug)
+				System.err.println("Error visiting JS file: " + path  + " from: " + projectName);
+			e.printStackTrace();
+			System.exit(-1);
 			return false;
 		}
+
+		store(ast);
+		// fb.setComments(comments);
+		return true;
 	}
 
 	public Map<String, String> getLOC() {
@@ -645,15 +712,7 @@ public abstract class AbstractCommit {
 						fb.setKind(FileKind.SOURCE_JAVA_ERROR);
 				}
 
-				try {
-					BytesWritable bw = new BytesWritable(ast.build().toByteArray());
-					connector.astWriter.append(new LongWritable(connector.astWriterLen), bw);
-					connector.astWriterLen += bw.getLength();
-				} catch (IOException e) {
-					if (debug) 
-						e.printStackTrace();
-					
-				}
+				store(ast);
 				// fb.setComments(comments);
 			}
 
@@ -673,6 +732,8 @@ public abstract class AbstractCommit {
 			return loc;
 
 		final String content = getFileContents(path);
+		if (content == null)
+			return loc;
 
 		final File dir = new File(new File(System.getProperty("java.io.tmpdir")), UUID.randomUUID().toString());
 		final File tmpPath = new File(dir, path.substring(0, path.lastIndexOf("/")));
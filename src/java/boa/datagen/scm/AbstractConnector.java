@@ -36,6 +36,8 @@ public abstract class AbstractConnector implements AutoCloseable {
 	
 	protected static final boolean debug = boa.datagen.util.Properties.getBoolean("debug", boa.datagen.DefaultProperties.DEBUG);
 	protected static final String classpathRoot = boa.datagen.util.Properties.getProperty("libs", boa.datagen.DefaultProperties.CLASSPATH_ROOT);
+	// the number of threads parsing the changed files of each project
+	protected static final int PARSE_THREADS = Integer.parseInt(boa.datagen.util.Properties.getProperty("parse.threads", boa.datagen.DefaultProperties.PARSE_THREADS));
 
 	protected String path;
 	protected List<AbstractCommit> revisions = new ArrayList<AbstractCommit>();
@@ -47,6 +49,11 @@ public abstract class AbstractConnector implements AutoCloseable {
 	protected int headCommitOffset = -1;
 	protected SequenceFile.Writer astWriter, commitWriter, contentWriter;
 	protected long astWriterLen = 1, commitWriterLen = 1, contentWriterLen = 1;
+	// the ASTs already written for file blobs
+	protected BlobIndex blobIndex = new BlobIndex(Integer.parseInt(boa.datagen.DefaultProperties.MAX_BLOB_INDEX));
+	protected int parseThreads = PARSE_THREADS;
+	// files larger than this, in bytes, are not read or parsed
+	protected int maxBlobSize = AbstractCommit.MAX_BLOB_SIZE;
 
 	public long getAstWriterLen() {
 		return astWriterLen;
@@ -60,6 +67,40 @@ public abstract class AbstractConnector implements AutoCloseable {
 		return contentWriterLen;
 	}
 
+	/**
+	 * Shares the ASTs already written for file blobs with other connectors
+	 * writing to the same AST file.
+	 *
+	 * @param blobIndex the index to use
+	 */
+	public void setBlobIndex(final BlobIndex blobIndex) {
+		this.blobIndex = blobIndex;
+	}
+
+	/**
+	 * Sets the number of threads parsing the changed files of the project,
+	 * instead of the configured number.
+	 *
+	 * @param threads the number of threads
+	 */
+	public void setParseThreads(final int threads) {
+		this.parseThreads = threads;
+	}
+
+	/**
+	 * Lowers the size of the largest file read and parsed from the configured
+	 * size, which can not be raised as the repositories are read with it.
+	 *
+	 * @param size the largest size, in bytes
+	 */
+	public void setMaxBlobSize(final int size) {
+		this.maxBlobSize = Math.min(size, AbstractCommit.MAX_BLOB_SIZE);
+	}
+
+	int getMaxBlobSize() {
+		return this.maxBlobSize;
+	}
+
 	public int getHeadCommitOffset() {
 		return this.headCommitOffset;
 	}
@@ -192,17 +233,25 @@ public abstract class AbstractConnector implements AutoCloseable {
 		long maxTime = 1000;
 		final List<Object> revs = new ArrayList<Object>();
 		if (!revisions.isEmpty()) {
-			for (int i = 0; i < revisions.size(); i++) {
-				long startTime = System.currentTimeMillis();
-				final AbstractCommit rev = revisions.get(i);
-				revs.add(rev.asProtobuf(projectName));
-				
-				if (debug) {
-					long endTime = System.currentTimeMillis();
-					long time = endTime - startTime;
-					if (time > maxTime) {
-						System.out.println(Thread.currentThread().getId() + " Max time " + (time / 1000) + " writing to protobuf commit " + (i+1)  + " " + rev.id);
-						maxTime = time;
+			try (final CommitParser parser = new CommitParser(parseThreads)) {
+				for (int i = 0, offered = 0; i < revisions.size(); i++) {
+					// keep the parsers ahead of the writing
+					AbstractCommit rev = null;
+					while (rev == null && offered < revisions.size())
+						rev = parser.offer(revisions.get(offered++));
+					if (rev == null)
+						rev = parser.poll();
+
+					long startTime = System.currentTimeMillis();
+					revs.add(rev.asProtobuf(projectName));
+					
+					if (debug) {
+						long endTime = System.currentTimeMillis();
+						long time = endTime - startTime;
+						if (time > maxTime) {
+							System.out.println(Thread.currentThread().getId() + " Max time " + (time / 1000) + " writing to protobuf commit " + (i+1)  + " " + rev.id);
+							maxTime = time;
+						}
 					}
 				}
 			}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen.scm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * Remembers what came of processing each file blob, so a blob seen again
+ * (after a revert, merge, cherry-pick, or in another branch or fork) is not
+ * parsed again and its changed file points at the AST already written.
+ *
+ * Blobs are known by their object id and the extension of the path they were
+ * seen at, as the extension picks the parser.  The offsets kept are only valid
+ * in the AST file they were written to, so an index must not outlive it.  The
+ * least recently used blobs are forgotten once the index is full.  It is safe
+ * to share with the threads parsing commits ahead of writing them.
+ *
+ * @author agent
+ */
+public class BlobIndex {
+	// what processing a blob gave its changed file
+	private static final class Entry {
+		final FileKind kind;
+		// the offset of its AST, or 0 if none was written
+		final long key;
+
+		Entry(final FileKind kind, final long key) {
+			this.kind = kind;
+			this.key = key;
+		}
+	}
+
+	private final Map<String, Entry> entries;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * Constructs a BlobIndex.
+	 *
+	 * @param size the most blobs to remember
+	 */
+	public BlobIndex(final int size) {
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+				return size() > size;
+			}
+		};
+	}
+
+	/**
+	 * Gives the changed file what processing the blob gave before, if the
+	 * blob was seen before.
+	 *
+	 * @param blob the blob's key, from {@link #key(String, String)}
+	 * @param fb the changed file
+	 * @return true if the blob was seen before
+	 */
+	public synchronized boolean apply(final String blob, final ChangedFile.Builder fb) {
+		final Entry e = this.entries.get(blob);
+		if (e == null) {
+			this.misses++;
+			return false;
+		}
+
+		this.hits++;
+		fb.setKind(e.kind);
+		if (e.key > 0) {
+			fb.setKey(e.key);
+			fb.setAst(true);
+		}
+		return true;
+	}
+
+	/**
+	 * Remembers what processing the blob gave the changed file.
+	 *
+	 * @param blob the blob's key, from {@link #key(String, String)}
+	 * @param fb the changed file
+	 */
+	public synchronized void put(final String blob, final ChangedFile.Builder fb) {
+		this.entries.put(blob, new Entry(fb.getKind(), fb.getAst() ? fb.getKey() : 0));
+	}
+
+	/**
+	 * Checks if a blob was seen before, without counting it as used.
+	 *
+	 * @param blob the blob's key, from {@link #key(String, String)}
+	 * @return true if the blob was seen before
+	 */
+	public synchronized boolean contains(final String blob) {
+		return this.entries.containsKey(blob);
+	}
+
+	/**
+	 * Returns the key of a blob seen at a path.
+	 *
+	 * @param id the blob's object id
+	 * @param path the path it was seen at
+	 * @return the key for the blob
+	 */
+	public static String key(final String id, final String path) {
+		final int dot = path.lastIndexOf('.');
+		final int slash = path.lastIndexOf('/');
+		if (dot <= slash)
+			return id;
+		return id + path.substring(dot).toLowerCase();
+	}
+
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen.scm;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses the changed files of a project's commits on several threads, ahead
+ * of the commits being written.
+ *
+ * Commits are handed back in the order they were offered, each only once it
+ * is parsed, so whoever writes them assigns the same offsets no matter how
+ * many threads parse.  Only a few commits are in flight at once, so their
+ * ASTs do not pile up in memory.  With one thread nothing is parsed ahead and
+ * commits are handed straight back.
+ *
+ * @author agent
+ */
+final class CommitParser implements AutoCloseable {
+	private final ExecutorService pool;
+	private final int window;
+	private final Deque<AbstractCommit> commits = new ArrayDeque<AbstractCommit>();
+	private final Deque<Future<?>> parses = new ArrayDeque<Future<?>>();
+
+	/**
+	 * Constructs a CommitParser.
+	 *
+	 * @param threads the number of threads to parse on
+	 */
+	CommitParser(final int threads) {
+		this.pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		this.window = 2 * threads;
+	}
+
+	/**
+	 * Starts parsing a commit.  It must not be changed until handed back.
+	 *
+	 * @param commit the commit to parse
+	 * @return the oldest commit, once parsed, if too many are in flight, or null
+	 */
+	AbstractCommit offer(final AbstractCommit commit) {
+		if (this.pool == null)
+			return commit;
+
+		this.commits.add(commit);
+		this.parses.add(this.pool.submit(new Runnable() {
+			@Override
+			public void run() {
+				commit.parse();
+			}
+		}));
+
+		if (this.commits.size() > this.window)
+			return this.poll();
+		return null;
+	}
+
+	/**
+	 * Waits for the oldest commit in flight to be parsed.
+	 *
+	 * @return the oldest commit, or null if none are in flight
+	 */
+	AbstractCommit poll() {
+		if (this.commits.isEmpty())
+			return null;
+
+		final AbstractCommit commit = this.commits.remove();
+		final Future<?> parse = this.parses.remove();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				parse.get();
+				break;
+			} catch (final InterruptedException e) {
+				// the commit may not be handed back while still being parsed
+				interrupted = true;
+			} catch (final ExecutionException e) {
+				// whatever was not parsed is parsed again when written
+				if (AbstractConnector.debug)
+					e.getCause().printStackTrace();
+				break;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		return commit;
+	}
+
+	@Override
+	public void close() {
+		if (this.pool != null)
+			this.pool.shutdownNow();
+	}
+}
@@ -37,6 +37,8 @@ import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
@@ -62,10 +64,12 @@ public class GitCommit extends AbstractCommit {
 	// the repository the commit lives in - should already be connected!
 	private Repository repository;
 	private RevWalk revwalk;
+	private GitConnector gitConnector;
 	Map<String, ObjectId> filePathGitObjectIds = new HashMap<String, ObjectId>();
 
 	public GitCommit(final GitConnector cnn, final Repository repository, final RevWalk revwalk, String projectName) {
 		super(cnn);
+		this.gitConnector = cnn;
 		this.repository = repository;
 		this.revwalk = revwalk;
 		this.projectName = projectName;
@@ -76,13 +80,26 @@ public class GitCommit extends AbstractCommit {
 	protected String getFileContents(final String path) {
 		ObjectId fileid = filePathGitObjectIds.get(path);
 		try {
-			buffer.reset();
-			buffer.write(repository.open(fileid, Constants.OBJ_BLOB).getCachedBytes());
+			final ObjectLoader loader = gitConnector.getObjectReader().open(fileid, Constants.OBJ_BLOB);
+			final int max = gitConnector.getMaxBlobSize();
+			if (loader.getSize() > max) {
+				if (debug)
+					System.err.println("Skipping contents of '" + path + "' at revision " + id + ": " + loader.getSize() + " bytes");
+				return null;
+			}
+			return new String(loader.getCachedBytes(max));
 		} catch (final Throwable e) {
 			if (debug)
 				System.err.println("Git Error getting contents for '" + path + "' at revision " + id + ": " + e.getMessage());
 		}
-		return buffer.toString();
+		return "";
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected String getFileId(final String path) {
+		final ObjectId fileid = filePathGitObjectIds.get(path);
+		return fileid == null ? null : fileid.name();
 	}
 
 	@Override
@@ -93,18 +110,14 @@ public class GitCommit extends AbstractCommit {
 			ObjectId fileid = filePathGitObjectIds.get(path);
 			OutputStream fos = null;
 			try {
-				buffer.reset();
-				buffer.write(repository.open(fileid, Constants.OBJ_BLOB).getCachedBytes());
+				final ObjectLoader loader = gitConnector.getObjectReader().open(fileid, Constants.OBJ_BLOB);
 				fos = new FileOutputStream(file);
-				buffer.writeTo(fos);
+				loader.copyTo(fos);
 			} catch (final IOException e) {
 				if (debug)
 					System.err.println("Git Error write contents of '" + path + "' at revision " + id + ": " + e.getMessage());
 				return null;
 			} finally {
-				try {
-					buffer.flush();
-				} catch (Exception e) {}
 				if (fos != null) {
 					try {
 						fos.flush();
@@ -119,18 +132,7 @@ public class GitCommit extends AbstractCommit {
 	@Override
 	public Set<String> getGradleDependencies(final String classpathRoot, final String path) {
 		Set<String> paths = new HashSet<String>();
-		String content = null;
-		ObjectId fileid = filePathGitObjectIds.get(path);
-		try {
-			buffer.reset();
-			buffer.write(repository.open(fileid, Constants.OBJ_BLOB).getCachedBytes());
-			content = buffer.toString();
-			buffer.flush();
-		} catch (final IOException e) {
-			if (debug)
-				System.err.println("Git Error write contents of '" + path + "' at revision " + id + ": " + e.getMessage());
-			return paths;
-		}
+		String content = getFileContents(path);
 		if (content == null)
 			return paths;
 		GradleFile gradle = new GradleFile(content);
@@ -143,18 +145,7 @@ public class GitCommit extends AbstractCommit {
 			HashSet<String> globalRepoLinks, HashMap<String, String> globalProperties, HashMap<String, String> globalManagedDependencies,
 			Stack<PomFile> parentPomFiles) {
 		Set<String> paths = new HashSet<String>();
-		String content = null;
-		ObjectId fileid = filePathGitObjectIds.get(path);
-		try {
-			buffer.reset();
-			buffer.write(repository.open(fileid, Constants.OBJ_BLOB).getCachedBytes());
-			content = buffer.toString();
-			buffer.flush();
-		} catch (final IOException e) {
-			if (debug)
-				System.err.println("Git Error write contents of '" + path + "' at revision " + id + ": " + e.getMessage());
-			return paths;
-		}
+		String content = getFileContents(path);
 		if (content == null)
 			return paths;
 		MavenXpp3Reader xpp3Reader = new MavenXpp3Reader();
@@ -225,9 +216,10 @@ public class GitCommit extends AbstractCommit {
 		df.setDetectRenames(true);
 
 		try {
-			final AbstractTreeIterator parentIter = new CanonicalTreeParser(null, repository.newObjectReader(), parent.getTree());
+			final ObjectReader reader = gitConnector.getObjectReader();
+			final AbstractTreeIterator parentIter = new CanonicalTreeParser(null, reader, parent.getTree());
 			
-			List<DiffEntry> diffs = df.scan(parentIter, new CanonicalTreeParser(null, repository.newObjectReader(), rc.getTree()));			
+			List<DiffEntry> diffs = df.scan(parentIter, new CanonicalTreeParser(null, reader, rc.getTree()));			
 			for (final DiffEntry diff : diffs) {
 				if (diff.getChangeType() == ChangeType.MODIFY) {
 					if (diff.getNewMode().getObjectType() == Constants.OBJ_BLOB) {
@@ -352,8 +344,9 @@ public class GitCommit extends AbstractCommit {
 
 				try {
 					RevCommit parent = revwalk.parseCommit(rc.getParent(i).getId());
-					final AbstractTreeIterator parentIter = new CanonicalTreeParser(null, repository.newObjectReader(), parent.getTree());
-					List<DiffEntry> diffs = df.scan(parentIter, new CanonicalTreeParser(null, repository.newObjectReader(), rc.getTree()));
+					final ObjectReader reader = gitConnector.getObjectReader();
+					final AbstractTreeIterator parentIter = new CanonicalTreeParser(null, reader, parent.getTree());
+					List<DiffEntry> diffs = df.scan(parentIter, new CanonicalTreeParser(null, reader, rc.getTree()));
 					if (diffs.size() > count)
 						count = diffs.size();
 				} catch (final IOException e) {
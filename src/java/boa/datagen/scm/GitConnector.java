@@ -33,6 +33,7 @@ import org.apache.hadoop.io.SequenceFile.Writer;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -40,6 +41,7 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 import org.eclipse.jgit.treewalk.TreeWalk;
 
 import boa.datagen.DefaultProperties;
@@ -59,6 +61,30 @@ public class GitConnector extends AbstractConnector {
 	private Repository repository;
 	private Git git;
 	private RevWalk revwalk;
+	// readers are not thread safe, so each thread reading objects gets its own
+	private final List<ObjectReader> readers = new ArrayList<ObjectReader>();
+	private final ThreadLocal<ObjectReader> reader = new ThreadLocal<ObjectReader>() {
+		@Override
+		protected ObjectReader initialValue() {
+			final ObjectReader r = repository.newObjectReader();
+			synchronized (readers) {
+				readers.add(r);
+			}
+			return r;
+		}
+	};
+
+	static {
+		// the whole history is walked and every changed blob read, mostly from
+		// packs, so keep more of them and their delta bases in memory; blobs
+		// too large to parse are never read, so none need streaming
+		final WindowCacheConfig cfg = new WindowCacheConfig();
+		cfg.setPackedGitLimit(256 * WindowCacheConfig.MB);
+		cfg.setPackedGitWindowSize(64 * WindowCacheConfig.KB);
+		cfg.setDeltaBaseCacheLimit(32 * WindowCacheConfig.MB);
+		cfg.setStreamFileThreshold(Math.max(cfg.getStreamFileThreshold(), AbstractCommit.MAX_BLOB_SIZE));
+		cfg.install();
+	}
 
 	public GitConnector(final String path, String projectName) {
 		this.projectName = projectName;
@@ -88,8 +114,24 @@ public class GitConnector extends AbstractConnector {
 	@Override
 	public void close() {
 		revwalk.close();
+		synchronized (readers) {
+			for (final ObjectReader r : readers)
+				r.close();
+			readers.clear();
+		}
+		reader.remove();
 		repository.close();
 	}
+
+	/**
+	 * Returns the object reader of the calling thread, which is reused for
+	 * every object it reads from this repository.
+	 *
+	 * @return the reader
+	 */
+	ObjectReader getObjectReader() {
+		return reader.get();
+	}
 	
 	public void countChangedFiles(List<String> commits, Map<String, Integer> counts) {
 		RevWalk temprevwalk = new RevWalk(repository);
@@ -119,6 +161,8 @@ public class GitConnector extends AbstractConnector {
 	@Override
 	public void setRevisions() {
 		RevWalk temprevwalk = new RevWalk(repository);
+		// commits too many to keep are parsed ahead on other threads, then written in order
+		final CommitParser parser = new CommitParser(parseThreads);
 		try {
 			revwalk.reset();
 			Set<RevCommit> heads = getHeads();
@@ -167,13 +211,11 @@ public class GitConnector extends AbstractConnector {
 				gc.fileNameIndices.clear();
 				
 				if (commitList.size() > MAX_COMMITS) {
-					revisionMap.put(gc.id, revisionKeys.size());
+					revisionMap.put(gc.id, i - 1);
 					
-					Revision revision = gc.asProtobuf(projectName);
-					revisionKeys.add(commitWriterLen);
-					BytesWritable bw = new BytesWritable(revision.toByteArray());
-					commitWriter.append(new LongWritable(commitWriterLen), bw);
-					commitWriterLen += bw.getLength();
+					final AbstractCommit parsed = parser.offer(gc);
+					if (parsed != null)
+						writeCommit(parsed);
 				} else {
 					revisionMap.put(gc.id, revisions.size());
 					
@@ -189,6 +231,8 @@ public class GitConnector extends AbstractConnector {
 					}
 				}
 			}
+			for (AbstractCommit parsed = parser.poll(); parsed != null; parsed = parser.poll())
+				writeCommit(parsed);
 			System.out.println(Thread.currentThread().getId() + " Process metadata of all commits");
 			
 			RevCommit head = revwalk.parseCommit(repository.resolve(Constants.HEAD));
@@ -199,11 +243,21 @@ public class GitConnector extends AbstractConnector {
 			if (debug)
 				System.err.println("Git Error getting parsing HEAD commit for " + path + ". " + e.getMessage());
 		} finally {
+			parser.close();
 			temprevwalk.dispose();
 			temprevwalk.close();
 		}
 	}
 
+	// writes the commits in the order they are walked, so their offsets do not depend on the parsing
+	private void writeCommit(final AbstractCommit commit) throws IOException {
+		Revision revision = commit.asProtobuf(projectName);
+		revisionKeys.add(commitWriterLen);
+		BytesWritable bw = new BytesWritable(revision.toByteArray());
+		commitWriter.append(new LongWritable(commitWriterLen), bw);
+		commitWriterLen += bw.getLength();
+	}
+
 	private Set<RevCommit> getHeads() {
 		Set<RevCommit> heads = new HashSet<RevCommit>();
 		try {
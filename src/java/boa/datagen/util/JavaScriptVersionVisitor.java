@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.datagen.util;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.Token;
+import org.mozilla.javascript.ast.AstNode;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.NodeVisitor;
+
+/**
+ * Finds the oldest language version whose syntax a parsed JavaScript file
+ * uses.  Only what the parser treats differently by version is looked at:
+ * <code>let</code> and <code>yield</code> are keywords from 1.7, and
+ * expression closures and shorthand properties need 1.8.
+ *
+ * @author agent
+ */
+public class JavaScriptVersionVisitor implements NodeVisitor {
+	public int version = Context.VERSION_1_1;
+
+	@Override
+	public boolean visit(AstNode node) {
+		if (node.getType() == Token.LET || node.getType() == Token.YIELD)
+			version = Math.max(version, Context.VERSION_1_7);
+		if (node.getProp(Node.DESTRUCTURING_SHORTHAND) != null
+				|| (node instanceof FunctionNode && ((FunctionNode) node).isExpressionClosure()))
+			version = Context.VERSION_1_8;
+		return version < Context.VERSION_1_8;
+	}
+}
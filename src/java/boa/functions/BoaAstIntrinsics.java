@@ -18,6 +18,7 @@
 package boa.functions;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,7 @@ import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.MapFile;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
@@ -70,6 +72,16 @@ public class BoaAstIntrinsics {
 	@SuppressWarnings("rawtypes")
 	static Context context;
 	private static MapFile.Reader map, commentsMap, issuesMap;
+	private static MapFileCache astCache;
+
+	/** the size, in bytes, of the per-task cache of serialized ASTs */
+	public static final String AST_CACHE_SIZE = "boa.ast.cache.size";
+
+	// files a revision or snapshot is about to visit, prefetched on the first miss
+	private static List<ChangedFile> pendingFiles;
+
+	// decodes only the parts of ASTs the program looks at, or null to decode everything
+	private static PartialMessageParser astParser;
 
 	private static final Revision emptyRevision;
 	static {
@@ -101,6 +113,9 @@ public class BoaAstIntrinsics {
 		GETS_FAIL_MISSING,
 		GETS_FAIL_BADPROTOBUF,
 		GETS_FAIL_BADLOC,
+		CACHE_HITS,
+		CACHE_MISSES,
+		PREFETCHED,
 	};
 
 	@FunctionSpec(name = "url", returnType = "string", formalParameters = { "ChangedFile" })
@@ -126,18 +141,21 @@ public class BoaAstIntrinsics {
 
 		context.getCounter(ASTCOUNTER.GETS_ATTEMPTED).increment(1);
 
-		if (map == null)
-			openMap();
-
 		try {
-			final BytesWritable value = new BytesWritable();
-			if (map.get(new LongWritable(f.getKey()), value) == null) {
+			final byte[] value = readAst(f.getKey());
+
+			if (value == null) {
 				context.getCounter(ASTCOUNTER.GETS_FAIL_MISSING).increment(1);
 			} else {
-				final CodedInputStream _stream = CodedInputStream.newInstance(value.getBytes(), 0, value.getLength());
-				// defaults to 64, really big ASTs require more
-				_stream.setRecursionLimit(Integer.MAX_VALUE);
-				final ASTRoot root = ASTRoot.parseFrom(_stream);
+				final ASTRoot root;
+				if (astParser != null) {
+					root = (ASTRoot) astParser.parse(value, ASTRoot.newBuilder());
+				} else {
+					final CodedInputStream _stream = CodedInputStream.newInstance(value);
+					// defaults to 64, really big ASTs require more
+					_stream.setRecursionLimit(Integer.MAX_VALUE);
+					root = ASTRoot.parseFrom(_stream);
+				}
 				context.getCounter(ASTCOUNTER.GETS_SUCCEED).increment(1);
 				return root;
 			}
@@ -160,16 +178,64 @@ public class BoaAstIntrinsics {
 		return emptyAst;
 	}
 
+	// the reader and cache are shared by every thread, but the bytes read are parsed outside the lock
+	@SuppressWarnings("unchecked")
+	private static synchronized byte[] readAst(final long key) throws IOException {
+		if (map == null)
+			openMap();
+
+		final byte[] value = astCache.getCached(key);
+		if (value != null) {
+			context.getCounter(ASTCOUNTER.CACHE_HITS).increment(1);
+			return value;
+		}
+
+		context.getCounter(ASTCOUNTER.CACHE_MISSES).increment(1);
+		prefetchPending(key);
+		return astCache.get(key);
+	}
+
+	/**
+	 * Notes the files a revision or snapshot is about to visit.  Nothing is
+	 * read yet: the first of their ASTs that is actually requested and not
+	 * cached reads all of them, in file order.
+	 *
+	 * @param files the files that may soon be passed to getast()
+	 */
+	public static synchronized void prefetch(final List<ChangedFile> files) {
+		pendingFiles = files;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void prefetchPending(final long key) throws IOException {
+		final List<ChangedFile> files = pendingFiles;
+		if (files == null)
+			return;
+
+		pendingFiles = null;
+
+		final long[] keys = new long[files.size()];
+		int n = 0;
+		boolean found = false;
+		for (final ChangedFile f : files)
+			if (f.getAst()) {
+				keys[n++] = f.getKey();
+				if (f.getKey() == key)
+					found = true;
+			}
+
+		// a stale list, the program has moved on to some other files
+		if (found && n > 1)
+			context.getCounter(ASTCOUNTER.PREFETCHED).increment(astCache.prefetch(Arrays.copyOf(keys, n)));
+	}
+
 	@SuppressWarnings("unchecked")
 	static Revision getRevision(long key) {
 		context.getCounter(COMMITCOUNTER.GETS_ATTEMPTED).increment(1);
 		
-		if (commitMap == null)
-			openCommitMap();
-		
 		try {
 			final BytesWritable value = new BytesWritable();
-			if (commitMap.get(new LongWritable(key), value) == null) {
+			if (readCommit(key, value) == null) {
 				context.getCounter(COMMITCOUNTER.GETS_FAIL_MISSING).increment(1);
 			} else {
 				final CodedInputStream _stream = CodedInputStream.newInstance(value.getBytes(), 0, value.getLength());
@@ -198,6 +264,12 @@ public class BoaAstIntrinsics {
 		return emptyRevision;
 	}
 
+	private static synchronized Writable readCommit(final long key, final BytesWritable value) throws IOException {
+		if (commitMap == null)
+			openCommitMap();
+		return commitMap.get(new LongWritable(key), value);
+	}
+
 	/**
 	 * Given a ChangedFile, return the comments for that file at that revision.
 	 *
@@ -217,12 +289,9 @@ public class BoaAstIntrinsics {
 
 		final String rowName = f.getKey() + "!!" + f.getName();
 
-		if (commentsMap == null)
-			openCommentMap();
-
 		try {
 			final BytesWritable value = new BytesWritable();
-			if (commentsMap.get(new Text(rowName), value) != null) {
+			if (readComments(rowName, value) != null) {
 				final CodedInputStream _stream = CodedInputStream.newInstance(value.getBytes(), 0, value.getLength());
 				final CommentsRoot root = CommentsRoot.parseFrom(_stream);
 				return root;
@@ -241,6 +310,12 @@ public class BoaAstIntrinsics {
 		return emptyComments;
 	}
 
+	private static synchronized Writable readComments(final String rowName, final BytesWritable value) throws IOException {
+		if (commentsMap == null)
+			openCommentMap();
+		return commentsMap.get(new Text(rowName), value);
+	}
+
 	/**
 	 * Given an IssueRepository, return the issues.
 	 *
@@ -249,12 +324,9 @@ public class BoaAstIntrinsics {
 	 */
 	@FunctionSpec(name = "getissues", returnType = "IssuesRoot", formalParameters = { "IssueRepository" })
 	public static IssuesRoot getissues(final IssueRepository f) {
-		if (issuesMap == null)
-			openIssuesMap();
-
 		try {
 			final BytesWritable value = new BytesWritable();
-			if (issuesMap.get(new Text(f.getKey()), value) != null) {
+			if (readIssues(f.getKey(), value) != null) {
 				final CodedInputStream _stream = CodedInputStream.newInstance(value.getBytes(), 0, value.getLength());
 				final IssuesRoot root = IssuesRoot.parseFrom(_stream);
 				return root;
@@ -273,9 +345,34 @@ public class BoaAstIntrinsics {
 		return emptyIssues;
 	}
 
+	private static synchronized Writable readIssues(final String key, final BytesWritable value) throws IOException {
+		if (issuesMap == null)
+			openIssuesMap();
+		return issuesMap.get(new Text(key), value);
+	}
+
 	@SuppressWarnings("rawtypes")
 	public static void setup(final Context context) {
 		BoaAstIntrinsics.context = context;
+		astParser = null;
+		GraphCache.clear();
+	}
+
+	/**
+	 * Sets up for a task whose program only looks at some parts of ASTs.
+	 * The ASTs returned by getast() will be missing every node the program
+	 * can not reach through the given fields.
+	 *
+	 * @param context the task's context
+	 * @param astFields the AST fields the program uses, named "Type.field"
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void setup(final Context context, final String[] astFields) {
+		setup(context);
+
+		final PartialMessageParser parser = new PartialMessageParser(ASTRoot.getDescriptor(), Arrays.asList(astFields));
+		if (!parser.isFull())
+			astParser = parser;
 	}
 
 	private static void openMap() {
@@ -297,6 +394,7 @@ public class BoaAstIntrinsics {
 				fs = FileSystem.get(conf);
 			}
 			map = new MapFile.Reader(fs, p.toString(), conf);
+			astCache = new MapFileCache(map, conf.getLong(AST_CACHE_SIZE, 64L * 1024 * 1024));
 		} catch (final Exception e) {
 			e.printStackTrace();
 		}
@@ -370,11 +468,12 @@ public class BoaAstIntrinsics {
 	}
 
 	@SuppressWarnings("rawtypes")
-	public static void cleanup(final Context context) {
+	public static synchronized void cleanup(final Context context) {
 		closeMap();
 		closeCommentMap();
 		closeIssuesMap();
 		closeCommitMap();
+		GraphCache.clear();
 	}
 
 	private static void closeMap() {
@@ -385,6 +484,10 @@ public class BoaAstIntrinsics {
 				e.printStackTrace();
 			}
 		map = null;
+		if (astCache != null)
+			astCache.clear();
+		astCache = null;
+		pendingFiles = null;
 	}
 
 	private static void closeCommentMap() {
@@ -712,8 +815,10 @@ public class BoaAstIntrinsics {
 
 	@FunctionSpec(name = "collect_annotations", returnType = "map[string] of int", formalParameters = { "ASTRoot", "map[string] of int" })
 	public static HashMap<String,Long> collect_annotations(final ASTRoot f, final HashMap<String,Long> map) throws Exception {
-		annotationCollectingVisitor.initialize(map).visit(f);
-		return annotationCollectingVisitor.map;
+		synchronized (annotationCollectingVisitor) {
+			annotationCollectingVisitor.initialize(map).visit(f);
+			return annotationCollectingVisitor.map;
+		}
 	}
 
 	///////////////////////////
@@ -738,8 +843,10 @@ public class BoaAstIntrinsics {
 
 	@FunctionSpec(name = "collect_generic_types", returnType = "map[string] of int", formalParameters = { "ASTRoot", "map[string] of int" })
 	public static HashMap<String,Long> collect_generic_types(final ASTRoot f, final HashMap<String,Long> map) throws Exception {
-		genericsCollectingVisitor.initialize(map).visit(f);
-		return genericsCollectingVisitor.map;
+		synchronized (genericsCollectingVisitor) {
+			genericsCollectingVisitor.initialize(map).visit(f);
+			return genericsCollectingVisitor.map;
+		}
 	}
 
 	@SuppressWarnings("unused")
@@ -818,10 +925,17 @@ public class BoaAstIntrinsics {
 		counts.put(rawType, rawCount + 1);
 	}
 
-	static int indent = 0;
+	// per thread, as files may be printed in parallel
+	private static final ThreadLocal<int[]> indent = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
 	private static String indent() {
+		final int depth = indent.get()[0];
 		String s = "";
-		for (int i = 0; i < indent; i++)
+		for (int i = 0; i < depth; i++)
 			s += "\t";
 		return s;
 	}
@@ -940,7 +1054,7 @@ public class BoaAstIntrinsics {
 
 		s += " {\n";
 
-		indent++;
+		indent.get()[0]++;
 		for (int i = 0; i < d.getFieldsCount(); i++) {
 			s += indent() + prettyprint(d.getFieldsList().get(i));
 			s += (!d.getFieldsList().get(i).hasVariableType() 
@@ -952,7 +1066,7 @@ public class BoaAstIntrinsics {
 		for (final Declaration d2 : d.getNestedDeclarationsList())
 			s += prettyprint(d2);
 
-		indent--;
+		indent.get()[0]--;
 
 		s += indent() + "}\n";
 
@@ -1045,10 +1159,10 @@ public class BoaAstIntrinsics {
 
 			case BLOCK:
 				s += "{\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += indent() + "}";
 				return s;
 
@@ -1096,10 +1210,10 @@ public class BoaAstIntrinsics {
 
 			case SYNCHRONIZED:
 				s += "synchronized () {\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += "}";
 				return s;
 
@@ -1107,19 +1221,19 @@ public class BoaAstIntrinsics {
 				s += indent() + "catch (";
 				s += prettyprint(stmt.getVariableDeclaration());
 				s += ") {\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += indent() + "}";
 				return s;
 
 			case FINALLY:
 				s += indent() + "finally {\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += indent() + "}";
 				return s;
 
@@ -1158,9 +1272,9 @@ public class BoaAstIntrinsics {
 					}
 				}
 				s += ")\n";
-				indent++;
+				indent.get()[0]++;
 				s += indent() + prettyprint(stmt.getStatements(0)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				return s;
 				
 			case FOREACH:
@@ -1171,41 +1285,41 @@ public class BoaAstIntrinsics {
 
 			case DO:
 				s += "do\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += indent() + "while (" + prettyprint(stmt.getConditions(0)) + ");";
 				return s;
 
 			case WHILE:
 				s += "while (" + prettyprint(stmt.getConditions(0)) + ") {\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += indent() + "}";
 				return s;
 
 			case IF:
 				s += "if (" + prettyprint(stmt.getConditions(0)) + ")\n";
-				indent++;
+				indent.get()[0]++;
 				s += indent() + prettyprint(stmt.getStatements(0)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				if (stmt.getStatementsCount() > 1) {
 					s += indent() + "else\n";
-					indent++;
+					indent.get()[0]++;
 					s += indent() + prettyprint(stmt.getStatements(1)) + "\n";
-					indent--;
+					indent.get()[0]--;
 				}
 				return s;
 
 			case SWITCH:
 				s += "switch (" + prettyprint(stmt.getExpressions(0)) + ") {\n";
-				indent++;
+				indent.get()[0]++;
 				for (int i = 0; i < stmt.getStatementsCount(); i++)
 					s += indent() + prettyprint(stmt.getStatements(i)) + "\n";
-				indent--;
+				indent.get()[0]--;
 				s += indent() + "}";
 				return s;
 
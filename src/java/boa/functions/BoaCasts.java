@@ -110,7 +110,13 @@ public class BoaCasts {
 		return BoaCasts.stringToTime(s, "PST8PDT");
 	}
 
-	private static final DecimalFormat df = new DecimalFormat("0", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+	// formats are not thread-safe, and a project's files may be analyzed in parallel
+	private static final ThreadLocal<DecimalFormat> formats = new ThreadLocal<DecimalFormat>() {
+		@Override
+		protected DecimalFormat initialValue() {
+			return new DecimalFormat("0", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+		}
+	};
 
 	/**
 	 * Format a double into a {@link String}.
@@ -121,6 +127,7 @@ public class BoaCasts {
 	 * @return A {@link String} containing the number <em>d</em>
 	 */
 	public static String doubleToString(final double d) {
+		final DecimalFormat df = formats.get();
 		df.setMaximumFractionDigits(340); // value in private field: DecimalFormat.DOUBLE_FRACTION_DIGITS
 		df.setMinimumFractionDigits(1);
 		return df.format(d);
@@ -135,6 +142,7 @@ public class BoaCasts {
 	 * @return A {@link String} containing the number <em>l</em>
 	 */
 	public static String longToString(final long l) {
+		final DecimalFormat df = formats.get();
 		df.setMaximumFractionDigits(0);
 		df.setMinimumFractionDigits(0);
 		return df.format(l);
@@ -38,59 +38,59 @@ public class BoaCountingVisitor extends BoaAbstractVisitor {
 		return super.initialize();
 	}
 
-	public long getCount(final Project node) throws Exception {
+	public synchronized long getCount(final Project node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final CodeRepository node) throws Exception {
+	public synchronized long getCount(final CodeRepository node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Revision node) throws Exception {
+	public synchronized long getCount(final Revision node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final ChangedFile node) throws Exception {
+	public synchronized long getCount(final ChangedFile node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final ASTRoot node) throws Exception {
+	public synchronized long getCount(final ASTRoot node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Namespace node) throws Exception {
+	public synchronized long getCount(final Namespace node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Declaration node) throws Exception {
+	public synchronized long getCount(final Declaration node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Type node) throws Exception {
+	public synchronized long getCount(final Type node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Method node) throws Exception {
+	public synchronized long getCount(final Method node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Variable node) throws Exception {
+	public synchronized long getCount(final Variable node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Statement node) throws Exception {
+	public synchronized long getCount(final Statement node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Expression node) throws Exception {
+	public synchronized long getCount(final Expression node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Modifier node) throws Exception {
+	public synchronized long getCount(final Modifier node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
-	public long getCount(final Comment node) throws Exception {
+	public synchronized long getCount(final Comment node) throws Exception {
 		initialize().visit(node);
 		return count;
 	}
@@ -19,18 +19,22 @@ package boa.functions;
 
 import java.util.*;
 
+import boa.graphs.callgraph.CallGraph;
 import boa.graphs.cdg.CDG;
 import boa.graphs.cfg.CFG;
 import boa.graphs.ddg.DDG;
 import boa.graphs.pdg.PDG;
 import boa.graphs.slicers.CFGSlicer;
 import boa.graphs.slicers.PDGSlicer;
+import boa.graphs.trees.Dominators;
 import boa.graphs.trees.PDTree;
+import boa.types.Ast.ASTRoot;
 import boa.types.Ast.Expression;
 import boa.types.Ast.Expression.ExpressionKind;
 import boa.types.Ast.Method;
 import boa.types.Ast.Variable;
 import boa.types.Control.Node;
+import boa.types.Diff.ChangedFile;
 import boa.runtime.BoaAbstractTraversal;
 
 /**
@@ -45,42 +49,76 @@ import boa.runtime.BoaAbstractTraversal;
 public class BoaGraphIntrinsics {
 	@FunctionSpec(name = "getcfg", returnType = "CFG", formalParameters = { "Method" })
 	public static CFG getcfg(final Method method) {
-		return new CFG(method).get();
+		return GraphCache.getCFG(method, false);
 	}
 
 	@FunctionSpec(name = "getpdtree", returnType = "PDTree", formalParameters = { "Method" })
 	public static PDTree getpdtree(final Method method) throws Exception {
-		return new PDTree(method);
+		return GraphCache.getPDTree(GraphCache.getCFG(method, false));
+	}
+
+	@FunctionSpec(name = "getdominancefrontier", returnType = "map[int] of set of int", formalParameters = { "CFG" })
+	public static HashMap<Long, HashSet<Long>> getdominancefrontier(final CFG cfg) {
+		return frontiers(Dominators.dominators(cfg));
+	}
+
+	@FunctionSpec(name = "getpostdominancefrontier", returnType = "map[int] of set of int", formalParameters = { "CFG" })
+	public static HashMap<Long, HashSet<Long>> getpostdominancefrontier(final CFG cfg) {
+		return frontiers(Dominators.postDominators(cfg));
+	}
+
+	private static HashMap<Long, HashSet<Long>> frontiers(final Dominators dom) {
+		final HashMap<Long, HashSet<Long>> map = new HashMap<Long, HashSet<Long>>();
+		final BitSet[] frontiers = dom.getFrontiers();
+		for (int id = 0; id < frontiers.length; id++) {
+			if (!dom.isReachable(id))
+				continue;
+			final HashSet<Long> frontier = new HashSet<Long>();
+			for (int f = frontiers[id].nextSetBit(0); f >= 0; f = frontiers[id].nextSetBit(f + 1))
+				frontier.add((long) f);
+			map.put((long) id, frontier);
+		}
+		return map;
 	}
 
 	@FunctionSpec(name = "getcdg", returnType = "CDG", formalParameters = { "Method" })
 	public static CDG getcdg(final Method method) throws Exception {
-		return new CDG(method);
+		return GraphCache.getCDG(GraphCache.getCFG(method, false));
 	}
 
 	@FunctionSpec(name = "getcdg", returnType = "CDG", formalParameters = { "CFG" })
 	public static CDG getcdg(final CFG cfg) throws Exception {
-		return new CDG(cfg);
+		return GraphCache.getCDG(cfg);
 	}
 
 	@FunctionSpec(name = "getddg", returnType = "DDG", formalParameters = { "Method" })
 	public static DDG getddg(final Method method) throws Exception {
-		return new DDG(method);
+		return GraphCache.getDDG(GraphCache.getCFG(method, false));
 	}
 
 	@FunctionSpec(name = "getddg", returnType = "DDG", formalParameters = { "CFG" })
 	public static DDG getddg(final CFG cfg) throws Exception {
-		return new DDG(cfg);
+		return GraphCache.getDDG(cfg);
 	}
 
 	@FunctionSpec(name = "getpdg", returnType = "PDG", formalParameters = { "Method" })
 	public static PDG getpdg(final Method method) throws Exception {
-		return new PDG(method);
+		return GraphCache.getPDG(GraphCache.getCFG(method, false));
 	}
 
 	@FunctionSpec(name = "getpdg", returnType = "PDG", formalParameters = { "Method", "bool" })
 	public static PDG getpdg(final Method method, boolean paramAsStatement) throws Exception {
-		return new PDG(method, paramAsStatement);
+		return GraphCache.getPDG(GraphCache.getCFG(method, paramAsStatement));
+	}
+
+	@FunctionSpec(name = "getcallgraph", returnType = "CallGraph", formalParameters = { "array of ChangedFile" })
+	public static CallGraph getcallgraph(final ChangedFile[] snapshot) throws Exception {
+		return new CallGraph(snapshot);
+	}
+
+	@FunctionSpec(name = "getcallgraph", returnType = "CallGraph", formalParameters = { "ASTRoot..." })
+	public static CallGraph getcallgraph(final ASTRoot... roots) throws Exception {
+		return new CallGraph(roots);
 	}
 
 	@FunctionSpec(name = "getcfgslice", returnType = "CFGSlicer", formalParameters = { "Method", "int" })
@@ -98,6 +136,11 @@ public class BoaGraphIntrinsics {
 		return new PDGSlicer(method, (int)(long) id, normalize);
 	}
 
+	@FunctionSpec(name = "getpdgslices", returnType = "array of PDGSlicer", formalParameters = { "PDG",  "array of int", "bool" })
+	public static PDGSlicer[] getpdgslices(final PDG pdg, final long[] ids, final boolean normalize) throws Exception {
+		return PDGSlicer.slices(pdg, ids, normalize);
+	}
+
 	//@FunctionSpec(name = "get_nodes_with_definition", returnType = "set of string", formalParameters = { "Node" })
 	public static HashSet<String> getNodesWithDefinition(final Node node) {
 		final HashSet<String> vardef = new HashSet<String>();
@@ -25,9 +25,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import boa.runtime.FilePartition;
 import boa.types.Code.CodeRepository;
 import boa.types.Code.Revision;
 import boa.types.Diff.ChangedFile;
@@ -47,12 +49,16 @@ public class BoaIntrinsics {
 		//"\\b(bug|issue|fix)\\b\\s*id(s)?\\s*(=)?\\s*[0-9]+"
 	};
 
-	private final static List<Matcher> fixingMatchers = new ArrayList<Matcher>();
-
-	static {
-		for (final String s : fixingRegex)
-			fixingMatchers.add(Pattern.compile(s).matcher(""));
-	}
+	// matchers keep state, so each thread has its own
+	private final static ThreadLocal<List<Matcher>> fixingMatchers = new ThreadLocal<List<Matcher>>() {
+		@Override
+		protected List<Matcher> initialValue() {
+			final List<Matcher> matchers = new ArrayList<Matcher>();
+			for (final String s : fixingRegex)
+				matchers.add(Pattern.compile(s).matcher(""));
+			return matchers;
+		}
+	};
 
 	private static int getRevisionIndex(final CodeRepository cr, final long timestamp) {
 		int low = 0;
@@ -89,8 +95,13 @@ public class BoaIntrinsics {
 	@FunctionSpec(name = "getrevision", returnType = "Revision", formalParameters = { "CodeRepository", "int" })
 	public static Revision getRevision(final CodeRepository cr, final long index) {
 		if (cr.getRevisionKeysCount() > 0) {
-			long key = cr.getRevisionKeys((int) index);
-			return BoaAstIntrinsics.getRevision(key);
+			final long key = cr.getRevisionKeys((int) index);
+			return FilePartition.shared(cr, "revision " + index, new Callable<Revision>() {
+				@Override
+				public Revision call() {
+					return BoaAstIntrinsics.getRevision(key);
+				}
+			});
 		}
 		return cr.getRevisions((int) index);
 	}
@@ -116,6 +127,15 @@ public class BoaIntrinsics {
 	public static ChangedFile[] getSnapshotByIndex(final CodeRepository cr, final long commitOffset, final String... kinds) {
 		if (commitOffset == cr.getHead())
 			return getSnapshot(cr, kinds);
+		return FilePartition.shared(cr, "snapshot " + commitOffset + " " + Arrays.toString(kinds), new Callable<ChangedFile[]>() {
+			@Override
+			public ChangedFile[] call() {
+				return snapshotByIndex(cr, commitOffset, kinds);
+			}
+		}).clone();
+	}
+
+	private static ChangedFile[] snapshotByIndex(final CodeRepository cr, final long commitOffset, final String... kinds) {
 		List<ChangedFile> snapshot = new LinkedList<ChangedFile>();
 		Set<String> adds = new HashSet<String>(), dels = new HashSet<String>();
 		PriorityQueue<Integer> pq = new PriorityQueue<Integer>(100, new Comparator<Integer>() {
@@ -132,6 +152,7 @@ public class BoaIntrinsics {
 			Revision commit = getRevision(cr, offset);
 			update(snapshot, commit, adds, dels, pq, queuedCommitIds, kinds);
 		}
+		BoaAstIntrinsics.prefetch(snapshot);
 		return snapshot.toArray(new ChangedFile[0]);
 	}
 
@@ -142,6 +163,15 @@ public class BoaIntrinsics {
 
 	@FunctionSpec(name = "getsnapshot", returnType = "array of ChangedFile", formalParameters = { "CodeRepository", "Revision", "string..." })
 	public static ChangedFile[] getSnapshot(final CodeRepository cr, final Revision commit, final String... kinds) {
+		return FilePartition.shared(commit, "snapshot " + Arrays.toString(kinds), new Callable<ChangedFile[]>() {
+			@Override
+			public ChangedFile[] call() {
+				return snapshot(cr, commit, kinds);
+			}
+		}).clone();
+	}
+
+	private static ChangedFile[] snapshot(final CodeRepository cr, final Revision commit, final String... kinds) {
 		List<ChangedFile> snapshot = new LinkedList<ChangedFile>();
 		Set<String> adds = new HashSet<String>(), dels = new HashSet<String>();
 		PriorityQueue<Integer> pq = new PriorityQueue<Integer>(100, new Comparator<Integer>() {
@@ -157,6 +187,7 @@ public class BoaIntrinsics {
 			Revision c = getRevision(cr, offset);
 			update(snapshot, c, adds, dels, pq, queuedCommitIds, kinds);
 		}
+		BoaAstIntrinsics.prefetch(snapshot);
 		return snapshot.toArray(new ChangedFile[0]);
 	}
 
@@ -261,12 +292,18 @@ public class BoaIntrinsics {
 	@FunctionSpec(name = "getsnapshot", returnType = "array of ChangedFile", formalParameters = { "CodeRepository", "string..." })
 	public static ChangedFile[] getSnapshot(final CodeRepository cr, final String... kinds) {
 //		return getSnapshot(cr, Long.MAX_VALUE, kinds);
-		List<ChangedFile> files = new ArrayList<ChangedFile>();
-		for (final ChangedFile file : cr.getHeadSnapshotList()) {
-			if (isIncluded(file, kinds))
-				files.add(file);
-		}
-		return files.toArray(new ChangedFile[0]);
+		return FilePartition.shared(cr, "head snapshot " + Arrays.toString(kinds), new Callable<ChangedFile[]>() {
+			@Override
+			public ChangedFile[] call() {
+				List<ChangedFile> files = new ArrayList<ChangedFile>();
+				for (final ChangedFile file : cr.getHeadSnapshotList()) {
+					if (isIncluded(file, kinds))
+						files.add(file);
+				}
+				BoaAstIntrinsics.prefetch(files);
+				return files.toArray(new ChangedFile[0]);
+			}
+		}).clone();
 	}
 
 	@FunctionSpec(name = "getsnapshot", returnType = "array of ChangedFile", formalParameters = { "CodeRepository", "time" })
@@ -277,7 +314,13 @@ public class BoaIntrinsics {
 	@FunctionSpec(name = "getsnapshot", returnType = "array of ChangedFile", formalParameters = { "CodeRepository" })
 	public static ChangedFile[] getSnapshot(final CodeRepository cr) {
 //		return getSnapshot(cr, Long.MAX_VALUE, new String[0]);
-		return cr.getHeadSnapshotList().toArray(new ChangedFile[0]);
+		return FilePartition.shared(cr, "head snapshot", new Callable<ChangedFile[]>() {
+			@Override
+			public ChangedFile[] call() {
+				BoaAstIntrinsics.prefetch(cr.getHeadSnapshotList());
+				return cr.getHeadSnapshotList().toArray(new ChangedFile[0]);
+			}
+		}).clone();
 	}
 
 	@FunctionSpec(name = "getpreviousversion", returnType = "array of ChangedFile", formalParameters = { "CodeRepository", "ChangedFile" })
@@ -347,7 +390,7 @@ public class BoaIntrinsics {
 	@FunctionSpec(name = "isfixingrevision", returnType = "bool", formalParameters = { "string" })
 	public static boolean isfixingrevision(final String log) {
 		final String lower = log.toLowerCase();
-		for (final Matcher m : fixingMatchers)
+		for (final Matcher m : fixingMatchers.get())
 			if (m.reset(lower).find())
 				return true;
 
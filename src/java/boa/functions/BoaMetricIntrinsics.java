@@ -48,8 +48,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_noa", returnType = "int", formalParameters = { "Declaration" })
 	public static long getMetricNOA(final Declaration node) throws Exception {
-		noaVisitor.initialize().visit(node);
-		return noaVisitor.count;
+		return noaVisitor.getCount(node);
 	}
 
 	////////////////////////////////
@@ -74,8 +73,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_noo", returnType = "int", formalParameters = { "Declaration" })
 	public static long getMetricNOO(final Declaration node) throws Exception {
-		nooVisitor.initialize().visit(node);
-		return nooVisitor.count;
+		return nooVisitor.getCount(node);
 	}
 
 	////////////////////////////////////
@@ -100,8 +98,7 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_npm", returnType = "int", formalParameters = { "Declaration" })
 	public static long getMetricNPM(final Declaration node) throws Exception {
-		npmVisitor.initialize().visit(node);
-		return npmVisitor.count;
+		return npmVisitor.getCount(node);
 	}
 
 	////////////////////////////////
@@ -135,7 +132,9 @@ public class BoaMetricIntrinsics {
 	 */
 	@FunctionSpec(name = "get_metric_noc", returnType = "map[string] of int", formalParameters = { "ASTRoot" })
 	public static HashMap<String,Long> getMetricNOC(final ASTRoot node) throws Exception {
-		nocVisitor.initialize(new HashMap<String,Long>()).visit(node);
-		return nocVisitor.map;
+		synchronized (nocVisitor) {
+			nocVisitor.initialize(new HashMap<String,Long>()).visit(node);
+			return nocVisitor.map;
+		}
 	}
 }
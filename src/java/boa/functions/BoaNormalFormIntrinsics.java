@@ -2924,6 +2924,62 @@ public class BoaNormalFormIntrinsics {
 		return sBDigest.toString();
 	}
 
+	/**
+	 * Returns a 128-bit structural hash of the PDG, computed from its nodes'
+	 * statements and expressions without printing them.  Graphs that only
+	 * differ in the names of their variables hash the same.
+	 *
+	 * @param pdg PDG graph
+	 * @return the structural hash of the pdg, as 32 hex digits
+	 */
+	@FunctionSpec(name = "getstructhash", returnType = "string", formalParameters = { "PDG" })
+	public static String getStructHash(final PDG pdg) {
+		final List<PDGNode> nodes = new ArrayList<PDGNode>();
+		if (pdg.getEntryNode() != null)
+			nodes.add(pdg.getEntryNode());
+		return StructuralHash.hash(nodes);
+	}
+
+	/**
+	 * Returns a 128-bit structural hash of the slice, computed from its nodes'
+	 * statements and expressions without printing them.  Slices that only
+	 * differ in the names of their variables hash the same.
+	 *
+	 * @param pdgslice slice of the PDG graph
+	 * @return the structural hash of the slice, as 32 hex digits
+	 */
+	@FunctionSpec(name = "getstructhash", returnType = "string", formalParameters = { "PDGSlicer" })
+	public static String getStructHash(final PDGSlicer pdgslice) {
+		return StructuralHash.hash(pdgslice.getEntrynodesList());
+	}
+
+	/**
+	 * Returns a MinHash sketch of the PDG's nodes and edges, for finding
+	 * similar graphs with the approxclones aggregator.
+	 *
+	 * @param pdg PDG graph
+	 * @return the sketch of the pdg
+	 */
+	@FunctionSpec(name = "getstructsketch", returnType = "string", formalParameters = { "PDG" })
+	public static String getStructSketch(final PDG pdg) {
+		final List<PDGNode> nodes = new ArrayList<PDGNode>();
+		if (pdg.getEntryNode() != null)
+			nodes.add(pdg.getEntryNode());
+		return StructuralHash.sketch(nodes);
+	}
+
+	/**
+	 * Returns a MinHash sketch of the slice's nodes and edges, for finding
+	 * similar slices with the approxclones aggregator.
+	 *
+	 * @param pdgslice slice of the PDG graph
+	 * @return the sketch of the slice
+	 */
+	@FunctionSpec(name = "getstructsketch", returnType = "string", formalParameters = { "PDGSlicer" })
+	public static String getStructSketch(final PDGSlicer pdgslice) {
+		return StructuralHash.sketch(pdgslice.getEntrynodesList());
+	}
+
 	/**
 	 * Returns the normalized statement given the normalized variable map
 	 *
@@ -205,10 +205,16 @@ public class BoaStringIntrinsics {
 			return str.replaceFirst(Pattern.quote(lit), rep);
 	}
 
-	// cache the regular expression patterns for performance
-	private static Map<String, Matcher> matchers = new HashMap<String, Matcher>();
+	// cache the regular expression patterns for performance, per thread as matchers keep state
+	private static final ThreadLocal<Map<String, Matcher>> threadMatchers = new ThreadLocal<Map<String, Matcher>>() {
+		@Override
+		protected Map<String, Matcher> initialValue() {
+			return new HashMap<String, Matcher>();
+		}
+	};
 
 	private static Matcher getMatcher(final String r) {
+		final Map<String, Matcher> matchers = threadMatchers.get();
 		if (!matchers.containsKey(r))
 			matchers.put(r, Pattern.compile(r).matcher(""));
 		return matchers.get(r);
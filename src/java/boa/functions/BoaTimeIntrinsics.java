@@ -831,7 +831,8 @@ public class BoaTimeIntrinsics {
 		return System.currentTimeMillis() * 1000;
 	}
 
-	private static String formatTime(final String formatstring, final long t, final TimeZone tz) {
+	// the shared date formats are not thread-safe
+	private static synchronized String formatTime(final String formatstring, final long t, final TimeZone tz) {
 		final Calendar calendar = Calendar.getInstance(tz);
 
 		calendar.setTimeInMillis(t / 1000);
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.protobuf.ByteString;
+
+import boa.graphs.cdg.CDG;
+import boa.graphs.cfg.CFG;
+import boa.graphs.ddg.DDG;
+import boa.graphs.pdg.PDG;
+import boa.graphs.trees.PDTree;
+import boa.types.Ast.Method;
+
+/**
+ * A per-task cache of the graphs built for methods, so that each method's
+ * CFG, post-dominator tree, CDG and DDG are only built once no matter
+ * how many graph functions (and slicers) ask for them.
+ *
+ * Methods are matched by identity, which is safe because protocol buffers
+ * never change, and only the most recently used methods are kept.  Graphs
+ * handed out by the cache are shared, so they are sealed: changing one throws
+ * an {@link UnsupportedOperationException}.  PDGs are cheap to assemble from
+ * the cached CDG and DDG, so each lookup gets its own, which may be changed
+ * (e.g. normalized).
+ *
+ * Each thread has its own cache, so files can be analyzed in parallel.
+ *
+ * In incremental mode ({@link #GRAPH_INCREMENTAL}) methods are instead
+ * matched by their serialized bytes, so a method that did not change between
+ * two revisions of a file gets the graphs already built for the older
+ * revision (whose nodes point into the older, but identical, method).
+ *
+ * @author agent
+ */
+public final class GraphCache {
+	/** the number of methods whose graphs are kept per task */
+	public static final String GRAPH_CACHE_SIZE = "boa.graph.cache.size";
+
+	/** if true, methods with the same bytes share their graphs */
+	public static final String GRAPH_INCREMENTAL = "boa.graph.incremental";
+
+	private static final int DEFAULT_SIZE = 128;
+
+	public static enum GRAPHCOUNTER {
+		CACHE_HITS,
+		CACHE_MISSES,
+		BUILD_MICROS,
+		// in incremental mode, methods found (or not) by their bytes; a method
+		// never seen before counts as changed
+		METHODS_UNCHANGED,
+		METHODS_CHANGED,
+	};
+
+	// the graphs of one method, indexed by whether parameters are statements
+	private static final class Graphs {
+		final Method method;
+		final CFG[] cfg = new CFG[2];
+		final PDTree[] pdtree = new PDTree[2];
+		final CDG[] cdg = new CDG[2];
+		final DDG[] ddg = new DDG[2];
+
+		Graphs(final Method method) {
+			this.method = method;
+		}
+	}
+
+	// a method, or in incremental mode the method's bytes
+	private static final class Key {
+		final Method method;
+		final ByteString bytes;
+		final int hash;
+
+		Key(final Method method, final boolean fingerprint) {
+			this.method = method;
+			this.bytes = fingerprint ? method.toByteString() : null;
+			this.hash = fingerprint ? this.bytes.hashCode() : System.identityHashCode(method);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Key))
+				return false;
+			final Key k = (Key) o;
+			if (this.bytes == null)
+				return k.method == this.method;
+			return this.hash == k.hash && this.bytes.equals(k.bytes);
+		}
+	}
+
+	// a thread's cached graphs, as each thread analyzing files in parallel builds its own
+	private static final class State {
+		final int generation;
+		final int size;
+		final boolean incremental;
+		final Map<Key, Graphs> cache;
+		// the cached graphs each cached CFG belongs to
+		final Map<CFG, Graphs> owners = new IdentityHashMap<CFG, Graphs>();
+		// the last method looked up, so asking for several graphs of a method only serializes it once
+		Method lastMethod;
+		Key lastKey;
+		long buildNanos;
+
+		State(final int generation) {
+			this.generation = generation;
+
+			if (BoaAstIntrinsics.context == null) {
+				this.size = DEFAULT_SIZE;
+				this.incremental = false;
+			} else {
+				this.size = BoaAstIntrinsics.context.getConfiguration().getInt(GRAPH_CACHE_SIZE, DEFAULT_SIZE);
+				this.incremental = BoaAstIntrinsics.context.getConfiguration().getBoolean(GRAPH_INCREMENTAL, false);
+			}
+
+			this.cache = new LinkedHashMap<Key, Graphs>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<Key, Graphs> eldest) {
+					if (size() <= State.this.size)
+						return false;
+					for (final CFG cfg : eldest.getValue().cfg)
+						if (cfg != null)
+							owners.remove(cfg);
+					return true;
+				}
+			};
+		}
+	}
+
+	private static final ThreadLocal<State> states = new ThreadLocal<State>();
+	// bumped by clear(), so that every thread starts over
+	private static final AtomicInteger generation = new AtomicInteger();
+
+	private GraphCache() {
+	}
+
+	/**
+	 * Empties the cache, e.g. when a task starts or ends.
+	 */
+	public static void clear() {
+		generation.incrementAndGet();
+		states.remove();
+	}
+
+	/**
+	 * Returns true if methods are matched by their bytes, so graphs (and the
+	 * results of traversals over them) carry over between revisions.
+	 *
+	 * @return if the cache is in incremental mode
+	 */
+	public static boolean isIncremental() {
+		return state().incremental;
+	}
+
+	/**
+	 * Returns the number of methods whose graphs are kept.
+	 *
+	 * @return the size of the cache
+	 */
+	public static int getSize() {
+		return state().size;
+	}
+
+	/**
+	 * Returns the CFG of a method.
+	 *
+	 * @param method the method
+	 * @param paramAsStatement if true, parameters are assign statements at the start of the CFG
+	 * @return the method's (shared, sealed) CFG
+	 */
+	public static CFG getCFG(final Method method, final boolean paramAsStatement) {
+		final Graphs g = graphs(method);
+		final int i = paramAsStatement ? 1 : 0;
+		if (g.cfg[i] == null) {
+			final long start = miss();
+			g.cfg[i] = new CFG(method, paramAsStatement).get();
+			g.cfg[i].seal();
+			state().owners.put(g.cfg[i], g);
+			built(start);
+		} else {
+			hit();
+		}
+		return g.cfg[i];
+	}
+
+	/**
+	 * Returns the post-dominator tree of a CFG.
+	 *
+	 * @param cfg the CFG
+	 * @return the (shared and sealed, if the CFG is) post-dominator tree
+	 * @throws Exception if tree construction fails
+	 */
+	public static PDTree getPDTree(final CFG cfg) throws Exception {
+		final Graphs g = owner(cfg);
+		if (g == null)
+			return new PDTree(cfg);
+
+		final int i = index(g, cfg);
+		if (g.pdtree[i] == null) {
+			final long start = miss();
+			g.pdtree[i] = new PDTree(cfg);
+			g.pdtree[i].seal();
+			built(start);
+		} else {
+			hit();
+		}
+		return g.pdtree[i];
+	}
+
+	/**
+	 * Returns the control dependence graph of a CFG, built from a copy of the
+	 * CFG's cached post-dominator tree.
+	 *
+	 * @param cfg the CFG
+	 * @return the (shared and sealed, if the CFG is) CDG
+	 * @throws Exception if CDG construction fails
+	 */
+	public static CDG getCDG(final CFG cfg) throws Exception {
+		final Graphs g = owner(cfg);
+		if (g == null)
+			return new CDG(cfg);
+
+		final int i = index(g, cfg);
+		if (g.cdg[i] == null) {
+			// the CDG adds an entry node to the cached tree, so gets a copy
+			final PDTree pdTree = getPDTree(cfg);
+			final long start = miss();
+			g.cdg[i] = new CDG(cfg, new PDTree(pdTree));
+			g.cdg[i].seal();
+			built(start);
+		} else {
+			hit();
+		}
+		return g.cdg[i];
+	}
+
+	/**
+	 * Returns the data dependence graph of a CFG.
+	 *
+	 * @param cfg the CFG
+	 * @return the (shared and sealed, if the CFG is) DDG
+	 * @throws Exception if DDG construction fails
+	 */
+	public static DDG getDDG(final CFG cfg) throws Exception {
+		final Graphs g = owner(cfg);
+		if (g == null)
+			return new DDG(cfg);
+
+		final int i = index(g, cfg);
+		if (g.ddg[i] == null) {
+			final long start = miss();
+			g.ddg[i] = new DDG(cfg);
+			g.ddg[i].seal();
+			built(start);
+		} else {
+			hit();
+		}
+		return g.ddg[i];
+	}
+
+	/**
+	 * Returns a new program dependence graph of a CFG, which is not shared
+	 * and so may be changed.  Its CDG and DDG come from the cache.
+	 *
+	 * @param cfg the CFG
+	 * @return a new PDG
+	 * @throws Exception if PDG construction fails
+	 */
+	public static PDG getPDG(final CFG cfg) throws Exception {
+		return new PDG(getCDG(cfg), getDDG(cfg));
+	}
+
+	private static State state() {
+		State s = states.get();
+		if (s == null || s.generation != generation.get()) {
+			s = new State(generation.get());
+			states.set(s);
+		}
+		return s;
+	}
+
+	private static Graphs graphs(final Method method) {
+		final State s = state();
+
+		final Key key = method == s.lastMethod ? s.lastKey : new Key(method, s.incremental);
+		Graphs g = s.cache.get(key);
+		if (g == null) {
+			g = new Graphs(method);
+			s.cache.put(key, g);
+			if (s.incremental)
+				count(GRAPHCOUNTER.METHODS_CHANGED, 1);
+		} else if (g.method != method && key != s.lastKey) {
+			count(GRAPHCOUNTER.METHODS_UNCHANGED, 1);
+		}
+
+		s.lastMethod = method;
+		s.lastKey = key;
+		return g;
+	}
+
+	// the cached graphs a CFG belongs to, or null if it is not from the cache
+	private static Graphs owner(final CFG cfg) {
+		if (cfg == null)
+			return null;
+		return state().owners.get(cfg);
+	}
+
+	private static int index(final Graphs g, final CFG cfg) {
+		return g.cfg[0] == cfg ? 0 : 1;
+	}
+
+	private static void hit() {
+		count(GRAPHCOUNTER.CACHE_HITS, 1);
+	}
+
+	private static long miss() {
+		count(GRAPHCOUNTER.CACHE_MISSES, 1);
+		return System.nanoTime();
+	}
+
+	// counts build time in whole microseconds, carrying over the remainder
+	private static void built(final long start) {
+		final State s = state();
+		s.buildNanos += System.nanoTime() - start;
+		count(GRAPHCOUNTER.BUILD_MICROS, s.buildNanos / 1000);
+		s.buildNanos %= 1000;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void count(final GRAPHCOUNTER counter, final long n) {
+		if (BoaAstIntrinsics.context != null && n > 0)
+			BoaAstIntrinsics.context.getCounter(counter).increment(n);
+	}
+}
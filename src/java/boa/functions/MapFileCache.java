@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+
+/**
+ * A read-through cache in front of a {@link MapFile} keyed by longs, such as
+ * the AST map.  Values are kept as raw bytes and evicted in least-recently
+ * used order once the cache holds more than its budget.
+ *
+ * Keys a task is about to ask for can be prefetched: they are sorted and read
+ * with a single forward pass over the data file, instead of one seek each.
+ *
+ * @author agent
+ */
+class MapFileCache {
+	/** if the next wanted key is further than this, seek instead of scanning */
+	private static final long MAX_SCAN_GAP = 64;
+
+	private final MapFile.Reader reader;
+	private final long budget;
+	private final LinkedHashMap<Long, byte[]> cache = new LinkedHashMap<Long, byte[]>(1024, 0.75f, true);
+	private long size;
+
+	private final LongWritable key = new LongWritable();
+	private final BytesWritable value = new BytesWritable();
+
+	/**
+	 * Construct a {@link MapFileCache}.
+	 *
+	 * @param reader
+	 *            The {@link MapFile.Reader} to read through
+	 * @param budget
+	 *            The most bytes of values to keep cached
+	 */
+	public MapFileCache(final MapFile.Reader reader, final long budget) {
+		this.reader = reader;
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns the cached value for a key, without reading the map.
+	 *
+	 * @param k
+	 *            The key to look up
+	 * @return the value, or <code>null</code> if it is not cached
+	 */
+	public byte[] getCached(final long k) {
+		return this.cache.get(k);
+	}
+
+	/**
+	 * Returns the value for a key, reading it from the map if it is not cached.
+	 *
+	 * @param k
+	 *            The key to look up
+	 * @return the value, or <code>null</code> if the map has no such key
+	 * @throws IOException
+	 */
+	public byte[] get(final long k) throws IOException {
+		final byte[] cached = this.cache.get(k);
+		if (cached != null)
+			return cached;
+
+		this.key.set(k);
+		if (this.reader.get(this.key, this.value) == null)
+			return null;
+		return this.put(k);
+	}
+
+	/**
+	 * Reads a set of keys into the cache in file order.  Keys already cached or
+	 * not in the map are skipped, and reading stops early rather than evict
+	 * values prefetched by this same call.
+	 *
+	 * @param keys
+	 *            The keys to prefetch, in any order
+	 * @return the number of values read
+	 * @throws IOException
+	 */
+	public int prefetch(final long[] keys) throws IOException {
+		final long[] sorted = keys.clone();
+		Arrays.sort(sorted);
+
+		final long limit = this.budget / 2;
+		long read = 0;
+		int count = 0;
+		boolean positioned = false;
+
+		for (int i = 0; i < sorted.length && read < limit; i++) {
+			final long k = sorted[i];
+			if ((i > 0 && sorted[i - 1] == k) || this.cache.containsKey(k))
+				continue;
+
+			// after a scan the reader may already sit on (or past) this key,
+			// otherwise scan forward over small gaps and seek over big ones
+			if (!positioned || this.key.get() < k) {
+				if (!positioned || k - this.key.get() > MAX_SCAN_GAP) {
+					// get() leaves the reader just past this entry, ready to scan on
+					this.key.set(k);
+					positioned = this.reader.get(this.key, this.value) != null;
+				} else {
+					while ((positioned = this.reader.next(this.key, this.value)) && this.key.get() < k)
+						;
+				}
+			}
+
+			if (!positioned)
+				continue;
+			if (this.key.get() == k) {
+				read += this.put(k).length;
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private byte[] put(final long k) {
+		final byte[] bytes = Arrays.copyOf(this.value.getBytes(), this.value.getLength());
+
+		// values bigger than a quarter of the budget would flush everything else
+		if (bytes.length > this.budget / 4)
+			return bytes;
+
+		final byte[] old = this.cache.put(k, bytes);
+		if (old != null)
+			this.size -= old.length;
+		this.size += bytes.length;
+
+		final Iterator<Map.Entry<Long, byte[]>> it = this.cache.entrySet().iterator();
+		while (this.size > this.budget && it.hasNext()) {
+			final Map.Entry<Long, byte[]> e = it.next();
+			if (e.getKey() == k)
+				continue;
+			this.size -= e.getValue().length;
+			it.remove();
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Drops all cached values.
+	 */
+	public void clear() {
+		this.cache.clear();
+		this.size = 0;
+	}
+}
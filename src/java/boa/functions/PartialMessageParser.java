@@ -0,0 +1,264 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Parses only the parts of a protocol buffer message a program can look at.
+ * Given the message fields that are needed (as "Type.field" names), any
+ * other sub-message is skipped over in the wire format without ever being
+ * decoded.  The kept bytes are then parsed by the generated parser as usual.
+ *
+ * The filtering takes two passes over the tags: one to find the size of each
+ * filtered sub-message and one to write them out.  Sub-messages whose whole
+ * subtree is kept are copied as-is, without looking inside.
+ *
+ * Decoding more than needed is always safe, so if filtering turns out to
+ * keep nearly everything it is given up and messages are parsed whole.
+ *
+ * Instances can be shared between threads, but filter one message at a time.
+ *
+ * @author agent
+ */
+public class PartialMessageParser {
+	private static enum Action { SKIP, FILTER, COPY };
+
+	/** how many messages to filter before deciding if it pays off */
+	private static final int SAMPLE_SIZE = 64;
+	/** the share of bytes that, if kept, makes filtering not worth it */
+	private static final double MAX_KEPT = 0.9;
+
+	private final Descriptor root;
+	private final boolean full;
+	private boolean filtering = true;
+	private int parsed;
+	private long seenBytes, keptBytes;
+	private final Map<FieldDescriptor, Action> actions = new HashMap<FieldDescriptor, Action>();
+
+	// sizes of the filtered sub-messages, in the order they are met
+	private int[] sizes = new int[64];
+	private int count;
+	private int next;
+
+	/**
+	 * Construct a {@link PartialMessageParser}.
+	 *
+	 * @param root
+	 *            The type of the messages to parse
+	 * @param fields
+	 *            The message-typed fields that must be decoded, named
+	 *            "Type.field" with types from the same file as the root
+	 */
+	public PartialMessageParser(final Descriptor root, final Collection<String> fields) {
+		this.root = root;
+
+		final Set<FieldDescriptor> kept = new HashSet<FieldDescriptor>();
+		for (final String field : fields) {
+			final int dot = field.indexOf('.');
+			final Descriptor d = root.getFile().findMessageTypeByName(field.substring(0, dot));
+			if (d != null && d.findFieldByName(field.substring(dot + 1)) != null)
+				kept.add(d.findFieldByName(field.substring(dot + 1)));
+		}
+
+		final Set<Descriptor> types = new HashSet<Descriptor>();
+		reachable(root, types);
+
+		// a sub-message is copied whole if every field below it is kept
+		final Set<Descriptor> complete = new HashSet<Descriptor>();
+		for (final Descriptor d : types) {
+			final Set<Descriptor> below = new HashSet<Descriptor>();
+			reachable(d, below);
+
+			boolean all = true;
+			for (final Descriptor b : below)
+				for (final FieldDescriptor fd : b.getFields())
+					if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE && !kept.contains(fd))
+						all = false;
+			if (all)
+				complete.add(d);
+		}
+
+		for (final Descriptor d : types)
+			for (final FieldDescriptor fd : d.getFields())
+				if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+					if (!kept.contains(fd))
+						this.actions.put(fd, Action.SKIP);
+					else if (complete.contains(fd.getMessageType()))
+						this.actions.put(fd, Action.COPY);
+					else
+						this.actions.put(fd, Action.FILTER);
+				}
+
+		this.full = complete.contains(root);
+	}
+
+	private static void reachable(final Descriptor d, final Set<Descriptor> types) {
+		if (!types.add(d))
+			return;
+		for (final FieldDescriptor fd : d.getFields())
+			if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE)
+				reachable(fd.getMessageType(), types);
+	}
+
+	/**
+	 * Returns <code>true</code> if every part of a message is needed, in which
+	 * case there is nothing to gain over the generated parser.
+	 *
+	 * @return if the whole message must be decoded
+	 */
+	public boolean isFull() {
+		return this.full;
+	}
+
+	/**
+	 * Parses a message.
+	 *
+	 * @param buf
+	 *            The serialized message
+	 * @param builder
+	 *            A builder for the root type
+	 * @return the message, with the unneeded sub-messages left out
+	 * @throws IOException
+	 */
+	public Message parse(final byte[] buf, final Message.Builder builder) throws IOException {
+		final byte[] kept = this.full ? buf : this.filter(buf);
+
+		final CodedInputStream in = CodedInputStream.newInstance(kept);
+		// defaults to 64, really big ASTs require more
+		in.setRecursionLimit(Integer.MAX_VALUE);
+		builder.mergeFrom(in);
+		return builder.build();
+	}
+
+	// the filtering keeps state, so only one message is filtered at a time
+	private synchronized byte[] filter(final byte[] buf) throws IOException {
+		byte[] kept = buf;
+
+		if (this.filtering) {
+			this.count = 0;
+			final int size = this.measure(buf, 0, buf.length, this.root);
+
+			// if nothing was left out, the message can be parsed as it is
+			if (size < buf.length) {
+				kept = new byte[size];
+
+				this.next = 0;
+				final CodedOutputStream out = CodedOutputStream.newInstance(kept);
+				this.write(buf, 0, buf.length, this.root, out);
+				out.checkNoSpaceLeft();
+			}
+
+			this.seenBytes += buf.length;
+			this.keptBytes += size;
+			if (++this.parsed == SAMPLE_SIZE && this.keptBytes > this.seenBytes * MAX_KEPT)
+				this.filtering = false;
+		}
+
+		return kept;
+	}
+
+	private Action action(final Descriptor type, final int tag) {
+		if ((tag & 7) != WireFormat.WIRETYPE_LENGTH_DELIMITED)
+			return Action.COPY;
+		final FieldDescriptor fd = type.findFieldByNumber(WireFormat.getTagFieldNumber(tag));
+		if (fd == null || fd.getJavaType() != FieldDescriptor.JavaType.MESSAGE)
+			return Action.COPY;
+		return this.actions.get(fd);
+	}
+
+	private int measure(final byte[] buf, final int off, final int len, final Descriptor type) throws IOException {
+		final CodedInputStream in = CodedInputStream.newInstance(buf, off, len);
+		int size = 0;
+
+		while (true) {
+			final int start = in.getTotalBytesRead();
+			final int tag = in.readTag();
+			if (tag == 0)
+				break;
+
+			switch (this.action(type, tag)) {
+			case SKIP:
+				in.skipField(tag);
+				break;
+			case FILTER:
+				final int tagSize = in.getTotalBytesRead() - start;
+				final int length = in.readRawVarint32();
+				final int at = off + in.getTotalBytesRead();
+				in.skipRawBytes(length);
+
+				// reserve the slot first, so sizes are in the order write() meets them
+				if (this.count == this.sizes.length)
+					this.sizes = Arrays.copyOf(this.sizes, this.count * 2);
+				final int slot = this.count++;
+				final int sub = this.measure(buf, at, length, type.findFieldByNumber(WireFormat.getTagFieldNumber(tag)).getMessageType());
+				this.sizes[slot] = sub;
+
+				size += tagSize + CodedOutputStream.computeRawVarint32Size(sub) + sub;
+				break;
+			default:
+				in.skipField(tag);
+				size += in.getTotalBytesRead() - start;
+				break;
+			}
+		}
+
+		return size;
+	}
+
+	private void write(final byte[] buf, final int off, final int len, final Descriptor type, final CodedOutputStream out) throws IOException {
+		final CodedInputStream in = CodedInputStream.newInstance(buf, off, len);
+
+		while (true) {
+			final int start = in.getTotalBytesRead();
+			final int tag = in.readTag();
+			if (tag == 0)
+				break;
+
+			switch (this.action(type, tag)) {
+			case SKIP:
+				in.skipField(tag);
+				break;
+			case FILTER:
+				out.writeRawBytes(buf, off + start, in.getTotalBytesRead() - start);
+				out.writeRawVarint32(this.sizes[this.next++]);
+
+				final int length = in.readRawVarint32();
+				final int at = off + in.getTotalBytesRead();
+				in.skipRawBytes(length);
+				this.write(buf, at, length, type.findFieldByNumber(WireFormat.getTagFieldNumber(tag)).getMessageType(), out);
+				break;
+			default:
+				in.skipField(tag);
+				out.writeRawBytes(buf, off + start, in.getTotalBytesRead() - start);
+				break;
+			}
+		}
+	}
+}
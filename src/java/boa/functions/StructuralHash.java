@@ -0,0 +1,389 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import boa.graphs.pdg.PDGEdge;
+import boa.graphs.pdg.PDGNode;
+import boa.types.Ast.Expression;
+import boa.types.Ast.Statement;
+import boa.types.Ast.Type;
+import boa.types.Ast.Variable;
+import boa.types.Control.Edge.EdgeType;
+
+/**
+ * Hashes the structure of a PDG straight from its nodes' ASTs, without
+ * printing them.
+ *
+ * Nodes are visited depth-first from the entry nodes, successors in the order
+ * of their ids, and each node's statement or expression and out edges are fed
+ * to a 128-bit MurmurHash3 as a stream of 64-bit words: kinds, the sizes of
+ * lists, names and literals.  Edges name their target by the order it was
+ * first reached in.  Variables are numbered in the order they are first seen,
+ * so graphs that only differ in variable names hash the same.
+ *
+ * A sketch is a MinHash signature of the set of the graph's nodes and edges,
+ * with variables not told apart at all, so that the sketches of similar
+ * graphs agree in about as many places as the graphs share nodes and edges.
+ *
+ * @author agent
+ */
+final class StructuralHash {
+	/**
+	 * The number of minimums in a sketch.
+	 */
+	static final int SKETCH_SIZE = 32;
+
+	// the constants of MurmurHash3's x64 128-bit variant
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	// added to a feature before mixing, to make the sketch's hash functions differ
+	private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final Comparator<PDGNode> byId = new Comparator<PDGNode>() {
+		@Override
+		public int compare(final PDGNode a, final PDGNode b) {
+			return Long.compare(a.getId(), b.getId());
+		}
+	};
+
+	// variables, numbered in the order they are first seen, or null to not tell them apart
+	private final Map<String, Integer> variables;
+
+	private long h1;
+	private long h2;
+	// the first word of a block not yet mixed in
+	private long pending;
+	private boolean hasPending;
+	private long words;
+
+	private StructuralHash(final boolean anonymous) {
+		this.variables = anonymous ? null : new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Returns the structural hash of the graph reachable from the nodes.
+	 *
+	 * @param entries the nodes to start from
+	 * @return the hash, as 32 hex digits
+	 */
+	static String hash(final Collection<PDGNode> entries) {
+		final List<PDGNode> order = order(entries);
+		final Map<PDGNode, Integer> index = new IdentityHashMap<PDGNode, Integer>();
+		for (final PDGNode node : order)
+			index.put(node, index.size());
+
+		final StructuralHash h = new StructuralHash(false);
+		h.add(order.size());
+		for (final PDGNode node : order) {
+			h.add(node);
+			final List<PDGEdge> edges = outEdges(node);
+			h.add(edges.size());
+			for (final PDGEdge e : edges)
+				h.add(e, index.get(e.getDest()));
+		}
+
+		final long[] result = h.finish();
+		final char[] out = new char[32];
+		hex(result[0], out, 0, 16);
+		hex(result[1], out, 16, 16);
+		return new String(out);
+	}
+
+	/**
+	 * Returns a sketch of the graph reachable from the nodes, whose places
+	 * agree with another graph's sketch about as often as the graphs share
+	 * nodes and edges.
+	 *
+	 * @param entries the nodes to start from
+	 * @return the sketch, as 8 hex digits for each of its {@link #SKETCH_SIZE}
+	 *         places, or the empty string for an empty graph
+	 */
+	static String sketch(final Collection<PDGNode> entries) {
+		final List<PDGNode> order = order(entries);
+		if (order.isEmpty())
+			return "";
+
+		final Map<PDGNode, Long> content = new IdentityHashMap<PDGNode, Long>();
+		for (final PDGNode node : order) {
+			final StructuralHash h = new StructuralHash(true);
+			h.add(node);
+			content.put(node, h.finish()[0]);
+		}
+
+		final Set<Long> features = new HashSet<Long>();
+		for (final PDGNode node : order) {
+			features.add(content.get(node));
+			for (final PDGEdge e : outEdges(node)) {
+				final StructuralHash h = new StructuralHash(true);
+				h.add(content.get(node));
+				h.add(e, 0);
+				h.add(content.get(e.getDest()));
+				features.add(h.finish()[0]);
+			}
+		}
+
+		final long[] mins = new long[SKETCH_SIZE];
+		Arrays.fill(mins, Long.MAX_VALUE);
+		for (final long f : features)
+			for (int i = 0; i < SKETCH_SIZE; i++) {
+				final long v = fmix(f + (i + 1) * GOLDEN);
+				if (v < mins[i])
+					mins[i] = v;
+			}
+
+		final char[] out = new char[SKETCH_SIZE * 8];
+		for (int i = 0; i < SKETCH_SIZE; i++)
+			hex(mins[i] >>> 32, out, i * 8, 8);
+		return new String(out);
+	}
+
+	// the nodes reachable from the entries, in the order they are first reached
+	private static List<PDGNode> order(final Collection<PDGNode> entries) {
+		final List<PDGNode> order = new ArrayList<PDGNode>();
+		final Set<PDGNode> seen = new HashSet<PDGNode>();
+		final List<PDGNode> stack = new ArrayList<PDGNode>();
+
+		for (final PDGNode entry : entries) {
+			stack.add(entry);
+			while (!stack.isEmpty()) {
+				final PDGNode node = stack.remove(stack.size() - 1);
+				if (!seen.add(node))
+					continue;
+				order.add(node);
+
+				final List<PDGNode> succs = node.getSuccessors();
+				Collections.sort(succs, byId);
+				for (int i = succs.size() - 1; i >= 0; i--)
+					if (!seen.contains(succs.get(i)))
+						stack.add(succs.get(i));
+			}
+		}
+
+		return order;
+	}
+
+	// out edges by target id, control edges first
+	private static List<PDGEdge> outEdges(final PDGNode node) {
+		final List<PDGNode> succs = node.getSuccessors();
+		Collections.sort(succs, byId);
+
+		final List<PDGEdge> edges = new ArrayList<PDGEdge>();
+		for (final PDGNode succ : succs)
+			edges.addAll(node.getOutEdges(succ));
+		return edges;
+	}
+
+	private void add(final PDGNode node) {
+		add(node.getKind().getNumber());
+		if (node.getStmt() != null) {
+			add(1);
+			add(node.getStmt());
+		} else {
+			add(0);
+		}
+		if (node.getExpr() != null) {
+			add(1);
+			add(node.getExpr());
+		} else {
+			add(0);
+		}
+	}
+
+	private void add(final PDGEdge e, final int target) {
+		add(e.getKind().getNumber());
+		if (e.getKind() == EdgeType.DATA)
+			add(variable(e.getLabel()));
+		else
+			add(e.getLabel());
+		add(target);
+	}
+
+	private void add(final Statement s) {
+		add(s.getKind().getNumber());
+
+		add(s.getStatementsCount());
+		for (final Statement sub : s.getStatementsList())
+			add(sub);
+		addAll(s.getInitializationsList());
+		addAll(s.getConditionsList());
+		addAll(s.getUpdatesList());
+		addAll(s.getExpressionsList());
+
+		if (s.hasVariableDeclaration()) {
+			add(1);
+			add(s.getVariableDeclaration());
+		} else {
+			add(0);
+		}
+		add(s.getVariableDeclarationsCount());
+		for (final Variable v : s.getVariableDeclarationsList())
+			add(v);
+
+		// a nested type is only told apart by its name
+		add(s.hasTypeDeclaration() ? s.getTypeDeclaration().getName() : null);
+	}
+
+	private void add(final Expression e) {
+		add(e.getKind().getNumber());
+
+		addAll(e.getExpressionsList());
+		add(e.getVariableDeclsCount());
+		for (final Variable v : e.getVariableDeclsList())
+			add(v);
+
+		add(e.hasNewType() ? e.getNewType() : null);
+		add(e.getIsPostfix() ? 1 : 0);
+		add(e.hasLiteral() ? e.getLiteral() : null);
+		add(e.hasVariable() ? variable(e.getVariable()) : -1);
+		add(e.hasMethod() ? e.getMethod() : null);
+		addAll(e.getMethodArgsList());
+
+		add(e.getStatementsCount());
+		for (final Statement s : e.getStatementsList())
+			add(s);
+
+		add(e.hasAnonDeclaration() ? e.getAnonDeclaration().getName() : null);
+	}
+
+	private void addAll(final List<Expression> exprs) {
+		add(exprs.size());
+		for (final Expression e : exprs)
+			add(e);
+	}
+
+	private void add(final Variable v) {
+		add(variable(v.getName()));
+		add(v.hasVariableType() ? v.getVariableType() : null);
+		if (v.hasInitializer()) {
+			add(1);
+			add(v.getInitializer());
+		} else {
+			add(0);
+		}
+	}
+
+	private void add(final Type t) {
+		if (t == null) {
+			add(-1);
+			return;
+		}
+		add(t.getKind().getNumber());
+		add(t.getName());
+	}
+
+	// the number of a variable, or 0 if variables are not told apart
+	private int variable(final String name) {
+		if (this.variables == null || name == null)
+			return 0;
+
+		Integer id = this.variables.get(name);
+		if (id == null) {
+			id = this.variables.size() + 1;
+			this.variables.put(name, id);
+		}
+		return id;
+	}
+
+	private void add(final String s) {
+		if (s == null) {
+			add(-1);
+			return;
+		}
+
+		add(s.length());
+		long w = 0;
+		int n = 0;
+		for (int i = 0; i < s.length(); i++) {
+			w = (w << 16) | s.charAt(i);
+			if (++n == 4) {
+				add(w);
+				w = 0;
+				n = 0;
+			}
+		}
+		if (n > 0)
+			add(w);
+	}
+
+	private void add(final long w) {
+		this.words++;
+		if (!this.hasPending) {
+			this.pending = w;
+			this.hasPending = true;
+			return;
+		}
+		this.hasPending = false;
+
+		long k1 = this.pending;
+		long k2 = w;
+
+		k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; this.h1 ^= k1;
+		this.h1 = Long.rotateLeft(this.h1, 27); this.h1 += this.h2; this.h1 = this.h1 * 5 + 0x52dce729;
+
+		k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; this.h2 ^= k2;
+		this.h2 = Long.rotateLeft(this.h2, 31); this.h2 += this.h1; this.h2 = this.h2 * 5 + 0x38495ab5;
+	}
+
+	private long[] finish() {
+		if (this.hasPending) {
+			long k1 = this.pending;
+			k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; this.h1 ^= k1;
+		}
+
+		final long length = this.words * 8;
+		long a = this.h1 ^ length;
+		long b = this.h2 ^ length;
+		a += b;
+		b += a;
+		a = fmix(a);
+		b = fmix(b);
+		a += b;
+		b += a;
+		return new long[] { a, b };
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	// writes the low digits of a number into the chars
+	private static void hex(long v, final char[] out, final int start, final int digits) {
+		for (int i = start + digits - 1; i >= start; i--) {
+			out[i] = HEX[(int) (v & 0xf)];
+			v >>>= 4;
+		}
+	}
+}
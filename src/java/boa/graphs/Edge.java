@@ -57,6 +57,7 @@ public abstract class Edge<N extends Node, E extends Edge<N, E>> implements Comp
 
 	@SuppressWarnings("unchecked")
 	public void setSrc(final N node) {
+		checkNotSealed();
 		if (this.dest.getPredecessors().contains(node)) {
 			delete();
 			this.dest.getInEdge(node).setLabel(".");
@@ -72,6 +73,7 @@ public abstract class Edge<N extends Node, E extends Edge<N, E>> implements Comp
 
 	@SuppressWarnings("unchecked")
 	public void setDest(final N node) {
+		checkNotSealed();
 		if (this.src.getSuccessors().contains(node)) {
 			delete();
 			this.src.getOutEdge(node).setLabel(".");
@@ -86,6 +88,7 @@ public abstract class Edge<N extends Node, E extends Edge<N, E>> implements Comp
 	}
 
 	public void setLabel(final String label) {
+		checkNotSealed();
 		this.label = label;
 	}
 
@@ -96,6 +99,11 @@ public abstract class Edge<N extends Node, E extends Edge<N, E>> implements Comp
         this.src = this.dest = null;
 	}
 
+	private void checkNotSealed() {
+		if ((this.src != null && this.src.isSealed()) || (this.dest != null && this.dest.isSealed()))
+			throw new UnsupportedOperationException("edge " + this + " belongs to a shared graph, which can not be changed");
+	}
+
 	public boa.types.Control.Edge.Builder newBuilder() {
 		final boa.types.Control.Edge.Builder eb = boa.types.Control.Edge.newBuilder();
 		eb.setLabel(Edge.convertLabel(this.label));
@@ -17,6 +17,7 @@
 package boa.graphs;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -32,7 +33,13 @@ import boa.types.Control.Node.NodeType;
  * @author rdyer
  */
 public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implements Comparable<N> {
-	public static int numOfNodes = -1;
+	// the last id handed out, per thread as graphs may be built in parallel
+	private static final ThreadLocal<int[]> numOfNodes = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[] { -1 };
+		}
+	};
 
 	protected int id;
 	protected NodeType kind = NodeType.OTHER;
@@ -43,25 +50,53 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	protected final Set<E> inEdges = new HashSet<E>();
 	protected final Set<E> outEdges = new HashSet<E>();
 
+	// set once the node's graph is shared, e.g. by the graph cache
+	private boolean sealed = false;
+
 	@Override
 	public int compareTo(final N node) {
 		return node.id - this.id;
 	}
 
 	public Node() {
-		this.id = ++numOfNodes;
+		this.id = ++numOfNodes.get()[0];
 	}
 
 	public Node(final NodeType kind) {
-		this.id = ++numOfNodes;
+		this.id = ++numOfNodes.get()[0];
 		this.kind = kind;
 	}
 
+	/**
+	 * Starts handing out node ids from 0 again, in the current thread.
+	 */
+	public static void resetIds() {
+		numOfNodes.get()[0] = -1;
+	}
+
+	/**
+	 * Makes the node read-only, as its graph is shared.  Any later change
+	 * throws an {@link UnsupportedOperationException}.
+	 */
+	public void seal() {
+		this.sealed = true;
+	}
+
+	public boolean isSealed() {
+		return this.sealed;
+	}
+
+	protected void checkNotSealed() {
+		if (this.sealed)
+			throw new UnsupportedOperationException("node " + this.id + " belongs to a shared graph, which can not be changed");
+	}
+
 	public Statement getStmt() {
 		return this.stmt;
 	}
 
 	public void setStmt(final Statement stmt) {
+		checkNotSealed();
 		this.stmt = stmt;
 	}
 
@@ -74,6 +109,7 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	}
 
 	public void setExpr(final Expression expr) {
+		checkNotSealed();
 		this.expr = expr;
 	}
 
@@ -90,15 +126,16 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	}
 
 	public void setId(final int id) {
+		checkNotSealed();
 		this.id = id;
 	}
 
 	public Set<E> getInEdges() {
-		return this.inEdges;
+		return this.sealed ? Collections.unmodifiableSet(this.inEdges) : this.inEdges;
 	}
 
 	public Set<E> getOutEdges() {
-		return this.outEdges;
+		return this.sealed ? Collections.unmodifiableSet(this.outEdges) : this.outEdges;
 	}
 
 	public List<N> getPredecessorsList() {
@@ -140,20 +177,24 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	}
 
 	public void addInEdge(final E edge) {
+		checkNotSealed();
 		if (getInEdge(edge.getSrc()) == null)
 			this.inEdges.add(edge);
 	}
 
 	public void addOutEdge(final E edge) {
+		checkNotSealed();
 		if (getOutEdge(edge.getDest()) == null)
 			this.outEdges.add(edge);
 	}
 
 	public void removeOutEdge(final E edge) {
+		checkNotSealed();
 		this.outEdges.remove(edge);
 	}
 
 	public void removeInEdge(final E edge) {
+		checkNotSealed();
 		this.inEdges.remove(edge);
 	}
 
@@ -170,14 +211,17 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	}
 
 	public void setPid(final String pid) {
+		checkNotSealed();
 		this.pid = pid;
 	}
 
 	public void setAstNode(final Statement stmt) {
+		checkNotSealed();
 		this.stmt = stmt;
 	}
 
 	public void setAstNode(final Expression expr) {
+		checkNotSealed();
 		this.expr = expr;
 	}
 
@@ -186,6 +230,7 @@ public abstract class Node<N extends Node<N, E>, E extends Edge<N, E>> implement
 	}
 
 	public void setKind(final NodeType kind) {
+		checkNotSealed();
 		this.kind = kind;
 	}
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * A {@link HashSet} that can not be changed once built, for the sets a
+ * sealed graph hands out where callers expect a <code>HashSet</code>.
+ *
+ * @author agent
+ */
+public final class ReadOnlyHashSet<T> extends HashSet<T> {
+	private static final long serialVersionUID = 1L;
+
+	// false only while the superclass constructor adds the elements
+	private final boolean built;
+
+	/**
+	 * Constructs a ReadOnlyHashSet.
+	 *
+	 * @param c the elements of the set
+	 */
+	public ReadOnlyHashSet(final Collection<? extends T> c) {
+		super(c);
+		this.built = true;
+	}
+
+	private void check() {
+		if (this.built)
+			throw new UnsupportedOperationException("the set belongs to a sealed graph, which can not be changed");
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean add(final T e) {
+		check();
+		return super.add(e);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean addAll(final Collection<? extends T> c) {
+		check();
+		return super.addAll(c);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean remove(final Object o) {
+		check();
+		return super.remove(o);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		check();
+		return super.removeAll(c);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		check();
+		return super.retainAll(c);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean removeIf(final Predicate<? super T> filter) {
+		check();
+		return super.removeIf(filter);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void clear() {
+		check();
+		super.clear();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Iterator<T> iterator() {
+		final Iterator<T> it = super.iterator();
+		return new Iterator<T>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public T next() {
+				return it.next();
+			}
+
+			@Override
+			public void remove() {
+				check();
+				it.remove();
+			}
+		};
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.callgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import boa.types.Ast.ASTRoot;
+import boa.types.Diff.ChangedFile;
+
+/**
+ * A call graph over every method declared in a set of files, usually a
+ * snapshot of a project.  Each method is a {@link CallGraphNode} and there is
+ * an edge from a method to each method it may call.  Calls are resolved by
+ * name, number of arguments and, where it can be found, the receiver's type;
+ * calls to methods outside the files have no edge.
+ *
+ * Node ids are dense, from 0 to the number of methods, and the edges are
+ * kept in compressed arrays indexed by those ids.
+ *
+ * @author agent
+ */
+public class CallGraph {
+    private CallGraphNode[] nodes = new CallGraphNode[0];
+
+    // the callees of node i are calleeIds[calleeStart[i]] .. calleeIds[calleeStart[i + 1] - 1]
+    private int[] calleeStart = new int[1];
+    private int[] calleeIds = new int[0];
+    private int[] callerStart = new int[1];
+    private int[] callerIds = new int[0];
+
+    /**
+     * Builds the call graph of a set of files.
+     *
+     * @param files the files, e.g. a snapshot
+     */
+    public CallGraph(final ChangedFile[] files) throws Exception {
+        final CallGraphBuilder builder = new CallGraphBuilder();
+        for (final ChangedFile file : files)
+            builder.add(file);
+        builder.build(this);
+    }
+
+    /**
+     * Builds the call graph of a set of ASTs.
+     *
+     * @param roots the ASTs
+     */
+    public CallGraph(final ASTRoot... roots) throws Exception {
+        final CallGraphBuilder builder = new CallGraphBuilder();
+        for (final ASTRoot root : roots)
+            builder.add(root);
+        builder.build(this);
+    }
+
+    void init(final CallGraphNode[] nodes, final int[][] callees) {
+        final int n = nodes.length;
+        final int[] callerCounts = new int[n + 1];
+
+        calleeStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            calleeStart[i + 1] = calleeStart[i] + callees[i].length;
+            for (final int callee : callees[i])
+                callerCounts[callee + 1]++;
+        }
+
+        calleeIds = new int[calleeStart[n]];
+        for (int i = 0; i < n; i++)
+            System.arraycopy(callees[i], 0, calleeIds, calleeStart[i], callees[i].length);
+
+        callerStart = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            callerStart[i + 1] = callerStart[i] + callerCounts[i + 1];
+
+        // callers are filled in caller order, so each list ends up sorted
+        final int[] next = Arrays.copyOf(callerStart, n);
+        callerIds = new int[calleeIds.length];
+        for (int i = 0; i < n; i++)
+            for (int k = calleeStart[i]; k < calleeStart[i + 1]; k++)
+                callerIds[next[calleeIds[k]]++] = i;
+
+        this.nodes = nodes;
+    }
+
+    public List<CallGraphNode> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    public List<CallGraphNode> getNodesList() {
+        return getNodes();
+    }
+
+    public CallGraphNode getNode(final int id) {
+        return nodes[id];
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public boolean isEmpty() {
+        return nodes.length == 0;
+    }
+
+    /**
+     * Returns the number of edges, that is caller-callee pairs.
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return calleeIds.length;
+    }
+
+    /**
+     * Returns the number of methods a node may call.
+     *
+     * @param id the node's id
+     * @return the number of callees
+     */
+    public int getSuccessorCount(final int id) {
+        return calleeStart[id + 1] - calleeStart[id];
+    }
+
+    /**
+     * Returns the id of a method a node may call.
+     *
+     * @param id the node's id
+     * @param k which callee, from 0 to {@link #getSuccessorCount(int)}
+     * @return the callee's id
+     */
+    public int getSuccessorId(final int id, final int k) {
+        return calleeIds[calleeStart[id] + k];
+    }
+
+    /**
+     * Returns the number of methods that may call a node.
+     *
+     * @param id the node's id
+     * @return the number of callers
+     */
+    public int getPredecessorCount(final int id) {
+        return callerStart[id + 1] - callerStart[id];
+    }
+
+    /**
+     * Returns the id of a method that may call a node.
+     *
+     * @param id the node's id
+     * @param k which caller, from 0 to {@link #getPredecessorCount(int)}
+     * @return the caller's id
+     */
+    public int getPredecessorId(final int id, final int k) {
+        return callerIds[callerStart[id] + k];
+    }
+
+    List<CallGraphNode> getSuccessors(final int id) {
+        final List<CallGraphNode> l = new ArrayList<CallGraphNode>(getSuccessorCount(id));
+        for (int k = calleeStart[id]; k < calleeStart[id + 1]; k++)
+            l.add(nodes[calleeIds[k]]);
+        return l;
+    }
+
+    List<CallGraphNode> getPredecessors(final int id) {
+        final List<CallGraphNode> l = new ArrayList<CallGraphNode>(getPredecessorCount(id));
+        for (int k = callerStart[id]; k < callerStart[id + 1]; k++)
+            l.add(nodes[callerIds[k]]);
+        return l;
+    }
+
+    /**
+     * Returns every node in postorder of the calls, so that callees come
+     * before their callers (except along cycles of recursive calls).  The
+     * walk starts from methods nobody calls and then from any method not yet
+     * reached, each in id order.
+     *
+     * @return the nodes, callees first
+     */
+    public CallGraphNode[] postorder() {
+        final int n = nodes.length;
+        final CallGraphNode[] order = new CallGraphNode[n];
+        final boolean[] visited = new boolean[n];
+        final int[] stack = new int[n];
+        final int[] edge = new int[n];
+        int count = 0;
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < n; root++) {
+                if (visited[root] || (pass == 0 && getPredecessorCount(root) != 0))
+                    continue;
+
+                int top = 0;
+                stack[0] = root;
+                edge[0] = calleeStart[root];
+                visited[root] = true;
+                while (top >= 0) {
+                    final int id = stack[top];
+                    if (edge[top] < calleeStart[id + 1]) {
+                        final int callee = calleeIds[edge[top]++];
+                        if (!visited[callee]) {
+                            visited[callee] = true;
+                            stack[++top] = callee;
+                            edge[top] = calleeStart[callee];
+                        }
+                    } else {
+                        order[count++] = nodes[id];
+                        top--;
+                    }
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Returns every node in reverse postorder of the calls, so that callers
+     * come before their callees (except along cycles of recursive calls).
+     *
+     * @return the nodes, callers first
+     */
+    public CallGraphNode[] reversePostorder() {
+        final CallGraphNode[] order = postorder();
+        for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+            final CallGraphNode tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (final CallGraphNode node : nodes) {
+            sb.append(node.getNodeId()).append(' ').append(node.getSignature());
+            for (int k = calleeStart[node.getNodeId()]; k < calleeStart[node.getNodeId() + 1]; k++)
+                sb.append(k == calleeStart[node.getNodeId()] ? " -> " : ", ").append(calleeIds[k]);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
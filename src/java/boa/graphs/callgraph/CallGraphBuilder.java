@@ -0,0 +1,445 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.callgraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import boa.runtime.BoaAbstractVisitor;
+import boa.types.Ast.ASTRoot;
+import boa.types.Ast.Declaration;
+import boa.types.Ast.Expression;
+import boa.types.Ast.Expression.ExpressionKind;
+import boa.types.Ast.Method;
+import boa.types.Ast.Namespace;
+import boa.types.Ast.Type;
+import boa.types.Ast.Variable;
+import boa.types.Diff.ChangedFile;
+
+/**
+ * Collects the classes and methods of a set of files and resolves the calls
+ * between them for a {@link CallGraph}.
+ *
+ * A call's targets are the methods with its name and number of arguments
+ * that are found by looking up from the receiver's type through its
+ * supertypes, plus the overriding methods of the type's subtypes.  The
+ * receiver's type comes from the declared types of locals, parameters and
+ * fields, from <code>new</code> expressions and casts, or from the bindings
+ * recorded in the data.  When the receiver's type can not be found at all,
+ * every method with the right name and number of arguments is a target.
+ *
+ * @author agent
+ */
+class CallGraphBuilder {
+    private static class ClassInfo {
+        final String name;
+        final ClassInfo outer;
+        final Declaration declaration;
+        final List<String> parents = new ArrayList<String>();
+        final Map<String, String> fields = new HashMap<String, String>();
+        final Map<String, List<MethodInfo>> methods = new HashMap<String, List<MethodInfo>>();
+
+        ClassInfo(final String name, final ClassInfo outer, final Declaration declaration) {
+            this.name = name;
+            this.outer = outer;
+            this.declaration = declaration;
+        }
+    }
+
+    private static class MethodInfo {
+        final int id;
+        final Method method;
+        final ClassInfo owner;
+        final Map<String, String> locals = new HashMap<String, String>();
+        final List<Expression> calls = new ArrayList<Expression>();
+
+        MethodInfo(final int id, final Method method, final ClassInfo owner) {
+            this.id = id;
+            this.method = method;
+            this.owner = owner;
+        }
+    }
+
+    private final List<MethodInfo> methods = new ArrayList<MethodInfo>();
+    private final Map<String, List<ClassInfo>> classesByName = new HashMap<String, List<ClassInfo>>();
+    private final Map<String, List<ClassInfo>> classesByParent = new HashMap<String, List<ClassInfo>>();
+    private final Map<String, List<MethodInfo>> methodsByName = new HashMap<String, List<MethodInfo>>();
+    private final Map<String, Set<ClassInfo>> subtypes = new HashMap<String, Set<ClassInfo>>();
+
+    private final BoaAbstractVisitor collector = new BoaAbstractVisitor() {
+        private final Stack<ClassInfo> classes = new Stack<ClassInfo>();
+        // the method being visited, or null in a class body
+        private final Stack<MethodInfo> scopes = new Stack<MethodInfo>();
+        private String pkg = "";
+
+        @Override
+        protected boolean preVisit(final Namespace node) throws Exception {
+            pkg = node.getName();
+            return true;
+        }
+
+        @Override
+        protected boolean preVisit(final Declaration node) throws Exception {
+            final ClassInfo outer = classes.isEmpty() ? null : classes.peek();
+            final String prefix = outer != null ? outer.name : pkg;
+            final String name;
+            if (node.hasFullyQualifiedName() && node.getFullyQualifiedName().length() > 0)
+                name = node.getFullyQualifiedName();
+            else
+                name = prefix.length() > 0 ? prefix + "." + node.getName() : node.getName();
+
+            final ClassInfo info = new ClassInfo(name, outer, node);
+            add(classesByName, simpleName(node.getName()), info);
+            for (final Type parent : node.getParentsList()) {
+                info.parents.add(simpleName(parent));
+                add(classesByParent, simpleName(parent), info);
+            }
+            for (final Variable field : node.getFieldsList())
+                if (field.hasVariableType())
+                    info.fields.put(field.getName(), simpleName(field.getVariableType()));
+
+            classes.push(info);
+            scopes.push(null);
+            return true;
+        }
+
+        @Override
+        protected void postVisit(final Declaration node) throws Exception {
+            classes.pop();
+            scopes.pop();
+        }
+
+        @Override
+        protected boolean preVisit(final Method node) throws Exception {
+            if (classes.isEmpty())
+                return false;
+
+            final MethodInfo info = new MethodInfo(methods.size(), node, classes.peek());
+            methods.add(info);
+            add(info.owner.methods, node.getName(), info);
+            add(methodsByName, node.getName(), info);
+
+            scopes.push(info);
+            return true;
+        }
+
+        @Override
+        protected void postVisit(final Method node) throws Exception {
+            scopes.pop();
+        }
+
+        @Override
+        protected boolean preVisit(final Variable node) throws Exception {
+            if (!scopes.isEmpty() && scopes.peek() != null && node.hasVariableType())
+                scopes.peek().locals.put(node.getName(), simpleName(node.getVariableType()));
+            return true;
+        }
+
+        @Override
+        protected boolean preVisit(final Expression node) throws Exception {
+            if (!scopes.isEmpty() && scopes.peek() != null)
+                if (node.getKind() == ExpressionKind.METHODCALL || (node.getKind() == ExpressionKind.NEW && node.hasNewType()))
+                    scopes.peek().calls.add(node);
+            return true;
+        }
+    };
+
+    public void add(final ChangedFile file) throws Exception {
+        collector.visit(file);
+    }
+
+    public void add(final ASTRoot root) throws Exception {
+        collector.visit(root);
+    }
+
+    /**
+     * Resolves the calls of every method collected so far and stores the
+     * result in a graph.
+     *
+     * @param graph the graph to fill in
+     */
+    public void build(final CallGraph graph) {
+        final int n = methods.size();
+        final CallGraphNode[] nodes = new CallGraphNode[n];
+        final int[][] callees = new int[n][];
+        final BitSet targets = new BitSet(n);
+
+        for (final MethodInfo info : methods) {
+            nodes[info.id] = new CallGraphNode(graph, info.id, info.method, info.owner.declaration, info.owner.name);
+
+            for (final Expression call : info.calls)
+                resolve(info, call, targets);
+
+            callees[info.id] = new int[targets.cardinality()];
+            int k = 0;
+            for (int i = targets.nextSetBit(0); i >= 0; i = targets.nextSetBit(i + 1))
+                callees[info.id][k++] = i;
+            targets.clear();
+        }
+
+        graph.init(nodes, callees);
+    }
+
+    private void resolve(final MethodInfo caller, final Expression call, final BitSet targets) {
+        final int arity = call.getMethodArgsCount();
+
+        if (call.getKind() == ExpressionKind.NEW) {
+            for (final ClassInfo c : classes(simpleName(call.getNewType())))
+                declared(c, "<init>", arity, targets);
+            return;
+        }
+
+        final String name = call.getMethod();
+
+        // this(...) and super(...)
+        if (name.equals("<init>")) {
+            declared(caller.owner, "<init>", arity, targets);
+            return;
+        }
+        if (name.equals("super")) {
+            for (final String parent : caller.owner.parents)
+                for (final ClassInfo c : classes(parent))
+                    declared(c, "<init>", arity, targets);
+            return;
+        }
+
+        // super.m(...) is not virtual
+        final int superCall = name.lastIndexOf("super.");
+        if (superCall != -1) {
+            final String method = name.substring(superCall + "super.".length());
+            for (final String parent : caller.owner.parents)
+                for (final ClassInfo c : classes(parent))
+                    inherited(c, method, arity, targets, new HashSet<ClassInfo>());
+            return;
+        }
+
+        // an implicit this, looking out through the enclosing classes
+        if (call.getExpressionsCount() == 0) {
+            for (ClassInfo c = caller.owner; c != null; c = c.outer)
+                if (virtual(Collections.singletonList(c), simpleName(c.declaration.getName()), name, arity, targets))
+                    break;
+            return;
+        }
+
+        String type = typeOf(caller, call.getExpressions(0));
+        if (type == null && call.hasDeclaringType())
+            type = simpleName(call.getDeclaringType());
+        if (type != null) {
+            virtual(classes(type), type, name, arity, targets);
+            return;
+        }
+
+        final List<MethodInfo> candidates = methodsByName.get(name);
+        if (candidates != null)
+            for (final MethodInfo m : candidates)
+                if (accepts(m.method, arity))
+                    targets.set(m.id);
+    }
+
+    private boolean virtual(final List<ClassInfo> types, final String type, final String name, final int arity, final BitSet targets) {
+        boolean found = false;
+        for (final ClassInfo c : types)
+            found |= inherited(c, name, arity, targets, new HashSet<ClassInfo>());
+        for (final ClassInfo c : subtypes(type))
+            found |= declared(c, name, arity, targets);
+        return found;
+    }
+
+    private boolean declared(final ClassInfo c, final String name, final int arity, final BitSet targets) {
+        final List<MethodInfo> candidates = c.methods.get(name);
+        boolean found = false;
+        if (candidates != null)
+            for (final MethodInfo m : candidates)
+                if (accepts(m.method, arity)) {
+                    targets.set(m.id);
+                    found = true;
+                }
+        return found;
+    }
+
+    private boolean inherited(final ClassInfo c, final String name, final int arity, final BitSet targets, final Set<ClassInfo> visited) {
+        if (!visited.add(c))
+            return false;
+        if (declared(c, name, arity, targets))
+            return true;
+        boolean found = false;
+        for (final String parent : c.parents)
+            for (final ClassInfo p : classes(parent))
+                found |= inherited(p, name, arity, targets, visited);
+        return found;
+    }
+
+    private Set<ClassInfo> subtypes(final String type) {
+        Set<ClassInfo> s = subtypes.get(type);
+        if (s == null) {
+            s = new HashSet<ClassInfo>();
+            final Stack<String> pending = new Stack<String>();
+            pending.push(type);
+            while (!pending.isEmpty()) {
+                final List<ClassInfo> children = classesByParent.get(pending.pop());
+                if (children != null)
+                    for (final ClassInfo c : children)
+                        if (s.add(c))
+                            pending.push(simpleName(c.declaration.getName()));
+            }
+            subtypes.put(type, s);
+        }
+        return s;
+    }
+
+    private String typeOf(final MethodInfo scope, final Expression e) {
+        switch (e.getKind()) {
+            case LITERAL:
+                final String literal = e.getLiteral();
+                if (literal.equals("this"))
+                    return simpleName(scope.owner.declaration.getName());
+                if (literal.endsWith(".this"))
+                    return simpleName(literal.substring(0, literal.length() - ".this".length()));
+                if (literal.startsWith("\""))
+                    return "String";
+                return null;
+            case VARACCESS:
+                return typeOfVariable(scope, e);
+            case NEW:
+            case CAST:
+                return e.hasNewType() ? simpleName(e.getNewType()) : null;
+            case PAREN:
+                return e.getExpressionsCount() > 0 ? typeOf(scope, e.getExpressions(0)) : null;
+            case METHODCALL:
+                return e.hasReturnType() ? simpleName(e.getReturnType()) : null;
+            default:
+                return null;
+        }
+    }
+
+    private String typeOfVariable(final MethodInfo scope, final Expression e) {
+        final String var = e.getVariable();
+
+        // a field of some other object
+        if (e.getExpressionsCount() > 0)
+            return fieldType(typeOf(scope, e.getExpressions(0)), var);
+
+        // a qualified name, e.g. other.a, is a chain of field accesses
+        final String[] names = var.split("\\.");
+        if (names.length > 1) {
+            String type = typeOfName(scope, names[0]);
+            for (int i = 1; i < names.length && type != null; i++)
+                type = fieldType(type, names[i]);
+            if (type != null)
+                return type;
+        }
+
+        return typeOfName(scope, var);
+    }
+
+    private String typeOfName(final MethodInfo scope, final String var) {
+        final String local = scope.locals.get(var);
+        if (local != null)
+            return local;
+
+        for (ClassInfo c = scope.owner; c != null; c = c.outer) {
+            final String type = fieldType(c, var, new HashSet<ClassInfo>());
+            if (type != null)
+                return type;
+        }
+
+        // otherwise, a (possibly qualified) class name for a static call
+        final String name = simpleName(var);
+        if (classesByName.containsKey(name) || (name.length() > 0 && Character.isUpperCase(name.charAt(0))))
+            return name;
+        return null;
+    }
+
+    private String fieldType(final String owner, final String var) {
+        if (owner == null)
+            return null;
+        for (final ClassInfo c : classes(owner)) {
+            final String type = fieldType(c, var, new HashSet<ClassInfo>());
+            if (type != null)
+                return type;
+        }
+        return null;
+    }
+
+    private String fieldType(final ClassInfo c, final String var, final Set<ClassInfo> visited) {
+        if (!visited.add(c))
+            return null;
+        final String type = c.fields.get(var);
+        if (type != null)
+            return type;
+        for (final String parent : c.parents)
+            for (final ClassInfo p : classes(parent)) {
+                final String t = fieldType(p, var, visited);
+                if (t != null)
+                    return t;
+            }
+        return null;
+    }
+
+    private List<ClassInfo> classes(final String name) {
+        final List<ClassInfo> l = classesByName.get(name);
+        if (l == null)
+            return Collections.emptyList();
+        return l;
+    }
+
+    private static boolean accepts(final Method m, final int arity) {
+        final int n = m.getArgumentsCount();
+        if (n == arity)
+            return true;
+        // variable arity
+        return n > 0 && arity >= n - 1 && m.getArguments(n - 1).getVariableType().getName().endsWith("...");
+    }
+
+    private static String simpleName(final Type t) {
+        return simpleName(t.getName());
+    }
+
+    /**
+     * Strips a type name down to the simple name of its class, dropping any
+     * qualifier, type arguments and array dimensions.
+     *
+     * @param name the type name
+     * @return the simple name
+     */
+    static String simpleName(final String name) {
+        String s = name;
+        final int generic = s.indexOf('<');
+        if (generic != -1)
+            s = s.substring(0, generic);
+        while (s.endsWith("[]"))
+            s = s.substring(0, s.length() - 2);
+        if (s.endsWith("..."))
+            s = s.substring(0, s.length() - 3);
+        return s.substring(s.lastIndexOf('.') + 1).trim();
+    }
+
+    private static <T> void add(final Map<String, List<T>> m, final String key, final T value) {
+        List<T> l = m.get(key);
+        if (l == null) {
+            l = new ArrayList<T>();
+            m.put(key, l);
+        }
+        l.add(value);
+    }
+}
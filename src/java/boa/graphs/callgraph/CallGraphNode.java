@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.callgraph;
+
+import java.util.List;
+
+import boa.types.Ast.Declaration;
+import boa.types.Ast.Method;
+
+/**
+ * A method in a {@link CallGraph}.  Its successors are the methods it may
+ * call and its predecessors are the methods that may call it.
+ *
+ * @author agent
+ */
+public class CallGraphNode implements Comparable<CallGraphNode> {
+    private final CallGraph graph;
+    private final int id;
+    private final Method method;
+    private final Declaration declaration;
+    private final String className;
+
+    CallGraphNode(final CallGraph graph, final int id, final Method method, final Declaration declaration, final String className) {
+        this.graph = graph;
+        this.id = id;
+        this.method = method;
+        this.declaration = declaration;
+        this.className = className;
+    }
+
+    public long getId() {
+        return (long)this.id;
+    }
+
+    public int getNodeId() {
+        return this.id;
+    }
+
+    public Method getMethod() {
+        return this.method;
+    }
+
+    public Declaration getDeclaration() {
+        return this.declaration;
+    }
+
+    /**
+     * Returns the name of the method's class, qualified by its package and
+     * enclosing classes.
+     *
+     * @return the class name
+     */
+    public String getClass_name() {
+        return this.className;
+    }
+
+    public String getName() {
+        return this.method.getName();
+    }
+
+    /**
+     * Returns the method's signature, e.g. <code>p.C.m(int, String)</code>.
+     *
+     * @return the signature
+     */
+    public String getSignature() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(this.className).append('.').append(this.method.getName()).append('(');
+        for (int i = 0; i < this.method.getArgumentsCount(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(this.method.getArguments(i).getVariableType().getName());
+        }
+        return sb.append(')').toString();
+    }
+
+    public CallGraph getGraph() {
+        return this.graph;
+    }
+
+    public List<CallGraphNode> getSuccessors() {
+        return this.graph.getSuccessors(this.id);
+    }
+
+    public List<CallGraphNode> getSuccessorsList() {
+        return getSuccessors();
+    }
+
+    public List<CallGraphNode> getPredecessors() {
+        return this.graph.getPredecessors(this.id);
+    }
+
+    public List<CallGraphNode> getPredecessorsList() {
+        return getPredecessors();
+    }
+
+    @Override
+    public int compareTo(final CallGraphNode node) {
+        return this.id - node.id;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CallGraphNode)) return false;
+
+        final CallGraphNode n = (CallGraphNode) o;
+
+        return this.graph == n.graph && this.id == n.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 + this.id;
+    }
+
+    @Override
+    public String toString() {
+        return getSignature();
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 
 import boa.functions.BoaAstIntrinsics;
+import boa.graphs.ReadOnlyHashSet;
 import boa.graphs.cfg.CFG;
 import boa.graphs.cfg.CFGEdge;
 import boa.graphs.cfg.CFGNode;
@@ -43,7 +44,7 @@ public class CDG {
     private Method md;
     private CDGNode entryNode;
     private CFG cfg;
-    private final Set<CDGNode> nodes = new HashSet<CDGNode>();
+    private Set<CDGNode> nodes = new HashSet<CDGNode>();
 
     /**
      * Constructs a control dependence graph
@@ -52,10 +53,21 @@ public class CDG {
      * @throws Exception if CDG construction fails
      */
     public CDG(final CFG cfg) throws Exception {
+        this(cfg, new PDTree(cfg));
+    }
+
+    /**
+     * Constructs a control dependence graph
+     *
+     * @param cfg control flow graph
+     * @param pdTree post-dominator tree of the control flow graph, which gets an
+     *               entry node added (and so can not be a shared tree)
+     * @throws Exception if CDG construction fails
+     */
+    public CDG(final CFG cfg, final PDTree pdTree) throws Exception {
         if (cfg != null && cfg.getNodes().size() > 0) {
             this.cfg = cfg;
             this.md = cfg.getMd();
-            final PDTree pdTree = new PDTree(cfg);
             pdTree.addEntryNode();
             constructCDG(pdTree, cfg);
         }
@@ -114,6 +126,17 @@ public class CDG {
         return nodes;
     }
 
+    /**
+     * Makes the graph and its nodes read-only, as the graph is shared (e.g.
+     * by the graph cache).  Any later change throws an
+     * {@link UnsupportedOperationException}.
+     */
+    public void seal() {
+        for (final CDGNode node : nodes)
+            node.seal();
+        nodes = new ReadOnlyHashSet<CDGNode>(nodes);
+    }
+
     public CDGNode[] sortNodes() {
         try {
             final CDGNode[] results = new CDGNode[nodes.size()];
@@ -169,7 +192,8 @@ public class CDG {
         // add the edge: entry ---> start
         controlEdges.put(new Integer[]{cfg.getNodes().size(), 0}, "T");
 
-        // for the given edge A ---> B, traverse from node B to the parent of node A
+        // for the given edge A ---> B, traverse from node B to the parent of node A,
+        // or to the root if B can not reach the exit (and so hangs off the root)
         try {
             for (final Map.Entry<Integer[], String> entry : controlEdges.entrySet()) {
                 final TreeNode srcTreeNode = pdTree.getNode(entry.getKey()[0]);
@@ -177,7 +201,7 @@ public class CDG {
                 final CDGNode source = getNode(srcTreeNode);
                 TreeNode dest = pdTree.getNode(entry.getKey()[1]);
 
-                while (!srcParent.equals(dest)) {
+                while (!srcParent.equals(dest) && dest != pdTree.getRootNode()) {
                     new CDGEdge(source, getNode(dest), entry.getValue());
                     dest = dest.getParent();
                 }
@@ -16,6 +16,7 @@
  */
 package boa.graphs.cdg;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -46,7 +47,7 @@ public class CDGNode extends Node<CDGNode, CDGEdge> {
         this.expr = node.getExpr();
         this.kind = node.getKind();
         this.defVariable = node.getDefVariable();
-        this.useVariables = node.getUseVariables();
+        this.useVariables = new HashSet<String>(node.getUseVariables());
     }
 
     /**
@@ -69,14 +70,16 @@ public class CDGNode extends Node<CDGNode, CDGEdge> {
     }
 
     public void setDefVariable(final String defVariables) {
+        checkNotSealed();
         this.defVariable = defVariables;
     }
 
     public Set<String> getUseVariables() {
-        return useVariables;
+        return isSealed() ? Collections.unmodifiableSet(useVariables) : useVariables;
     }
 
     public void setUseVariables(final HashSet<String> useVariables) {
+        checkNotSealed();
         this.useVariables = useVariables;
     }
 
@@ -20,9 +20,12 @@ package boa.graphs.cfg;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import boa.functions.BoaAstIntrinsics;
+import boa.graphs.ReadOnlyHashSet;
 import boa.types.Ast.Expression;
 import boa.types.Ast.Expression.ExpressionKind;
 import boa.types.Ast.Method;
@@ -44,12 +47,12 @@ public class CFG {
 	protected Method md;
 	protected String class_name;
 
-	protected final HashSet<CFGNode> nodes = new HashSet<CFGNode>();
+	protected HashSet<CFGNode> nodes = new HashSet<CFGNode>();
 	protected CFGNode entryNode;
 	protected CFGNode exitNode;
 
-	protected final HashSet<CFGNode> outs = new HashSet<CFGNode>();
-	protected final HashSet<CFGNode> ins = new HashSet<CFGNode>();
+	protected HashSet<CFGNode> outs = new HashSet<CFGNode>();
+	protected HashSet<CFGNode> ins = new HashSet<CFGNode>();
 	protected final HashSet<CFGNode> breaks = new HashSet<CFGNode>();
 	protected final HashSet<CFGNode> returns = new HashSet<CFGNode>();
 
@@ -57,6 +60,18 @@ public class CFG {
 	protected boolean isBranchPresent = false;
 	protected boolean paramAsStatement = false;
 
+	// compact form of the graph, built by get()
+	protected CFGNode[] nodeIndex;
+	protected int[] succStart;
+	protected int[] succIds;
+	protected int[] predStart;
+	protected int[] predIds;
+	protected int[] defVars;
+	protected int[] useStart;
+	protected int[] useVars;
+	protected final List<String> variables = new ArrayList<String>();
+	protected final Map<String, Integer> variableIds = new HashMap<String, Integer>();
+
 	public CFG(final Method method) {
 		this(method, "this");
 	}
@@ -118,6 +133,8 @@ public class CFG {
 	 * @return CFG node
 	 */
 	public CFGNode getNode(int id) {
+		if (nodeIndex != null)
+			return id >= 0 && id < nodeIndex.length ? nodeIndex[id] : null;
 		for (final CFGNode node : nodes) {
 			if (node.getNodeId() == id)
 				return node;
@@ -181,7 +198,7 @@ public class CFG {
 	}
 
 	protected void createNewEdge(final CFGNode src, final CFGNode dest, final String label) {
-		if (src.getSuccessors().contains(dest))
+		if (src.getOutEdge(dest) != null)
 			return;
 
 		if (label == null)
@@ -315,7 +332,7 @@ public class CFG {
 
 	public CFG get() {
 		if (md.getStatementsCount() > 0) {
-			CFGNode.numOfNodes = -1;
+			CFGNode.resetIds();
 			final CFGNode startNode = new CFGNode("ENTRY", NodeType.ENTRY, "ENTRY", "ENTRY");
 			mergeSeq(startNode);
 			if (paramAsStatement)
@@ -335,9 +352,238 @@ public class CFG {
 				return null;
 			}
 		}
+		freeze();
 		return this;
 	}
 
+	/**
+	 * Builds the compact (CSR) form of the finished graph: nodes indexed by
+	 * their (dense) ids and successor and predecessor ids packed into arrays.  Successors and predecessors
+	 * are stored in the same order {@link CFGNode#getSuccessors()} always
+	 * returned them.
+	 */
+	protected void freeze() {
+		final int n = nodes.size();
+		final CFGNode[] index = new CFGNode[n];
+		for (final CFGNode node : nodes) {
+			if (node.getNodeId() < 0 || node.getNodeId() >= n || index[node.getNodeId()] != null)
+				return;
+			index[node.getNodeId()] = node;
+		}
+
+		succStart = new int[n + 1];
+		predStart = new int[n + 1];
+		final List<List<CFGNode>> succs = new ArrayList<List<CFGNode>>(n);
+		final List<List<CFGNode>> preds = new ArrayList<List<CFGNode>>(n);
+		for (int i = 0; i < n; i++) {
+			succs.add(index[i].getSuccessors());
+			preds.add(index[i].getPredecessors());
+			succStart[i + 1] = succStart[i] + succs.get(i).size();
+			predStart[i + 1] = predStart[i] + preds.get(i).size();
+		}
+
+		succIds = new int[succStart[n]];
+		predIds = new int[predStart[n]];
+		for (int i = 0; i < n; i++) {
+			int k = succStart[i];
+			for (final CFGNode succ : succs.get(i))
+				succIds[k++] = succ.getNodeId();
+			k = predStart[i];
+			for (final CFGNode pred : preds.get(i))
+				predIds[k++] = pred.getNodeId();
+		}
+
+		nodeIndex = index;
+		for (final CFGNode node : nodeIndex)
+			node.setGraph(this);
+	}
+
+	/**
+	 * Interns the def and use variables of every node.  This is done on first
+	 * use, as most graphs are never asked about their variables.
+	 */
+	private void internVariables() {
+		final int n = nodeIndex.length;
+		final int[] start = new int[n + 1];
+		final int[] defs = new int[n];
+		final List<Set<String>> uses = new ArrayList<Set<String>>(n);
+		for (int i = 0; i < n; i++) {
+			uses.add(nodeIndex[i].getUseVariables());
+			start[i + 1] = start[i] + uses.get(i).size();
+		}
+
+		useVars = new int[start[n]];
+		for (int i = 0; i < n; i++) {
+			int k = start[i];
+			for (final String var : uses.get(i))
+				useVars[k++] = internVariable(var);
+			final String def = nodeIndex[i].getDefVariables();
+			defs[i] = def.length() == 0 ? -1 : internVariable(def);
+		}
+		defVars = defs;
+		useStart = start;
+	}
+
+	private int internVariable(final String var) {
+		final Integer id = variableIds.get(var);
+		if (id != null)
+			return id;
+		variableIds.put(var, variables.size());
+		variables.add(var);
+		return variables.size() - 1;
+	}
+
+	/**
+	 * Returns <code>true</code> if the compact form of the graph has been built.
+	 *
+	 * @return if the graph is frozen
+	 */
+	public boolean isFrozen() {
+		return nodeIndex != null;
+	}
+
+	/**
+	 * Makes the graph and its nodes read-only, as the graph is shared (e.g.
+	 * by the graph cache).  Any later change throws an
+	 * {@link UnsupportedOperationException}.
+	 */
+	public void seal() {
+		for (final CFGNode node : nodes)
+			node.seal();
+		nodes = new ReadOnlyHashSet<CFGNode>(nodes);
+		outs = new ReadOnlyHashSet<CFGNode>(outs);
+		ins = new ReadOnlyHashSet<CFGNode>(ins);
+	}
+
+	/**
+	 * Returns the number of successors of a node.
+	 *
+	 * @param id the node's id
+	 * @return the number of successors
+	 */
+	public int getSuccessorCount(final int id) {
+		return succStart[id + 1] - succStart[id];
+	}
+
+	/**
+	 * Returns the id of a successor of a node.
+	 *
+	 * @param id the node's id
+	 * @param k which successor, from 0 to {@link #getSuccessorCount(int)}
+	 * @return the successor's id
+	 */
+	public int getSuccessorId(final int id, final int k) {
+		return succIds[succStart[id] + k];
+	}
+
+	/**
+	 * Returns the number of predecessors of a node.
+	 *
+	 * @param id the node's id
+	 * @return the number of predecessors
+	 */
+	public int getPredecessorCount(final int id) {
+		return predStart[id + 1] - predStart[id];
+	}
+
+	/**
+	 * Returns the id of a predecessor of a node.
+	 *
+	 * @param id the node's id
+	 * @param k which predecessor, from 0 to {@link #getPredecessorCount(int)}
+	 * @return the predecessor's id
+	 */
+	public int getPredecessorId(final int id, final int k) {
+		return predIds[predStart[id] + k];
+	}
+
+	List<CFGNode> getSuccessors(final int id) {
+		final List<CFGNode> l = new ArrayList<CFGNode>(getSuccessorCount(id));
+		for (int k = succStart[id]; k < succStart[id + 1]; k++)
+			l.add(nodeIndex[succIds[k]]);
+		return l;
+	}
+
+	List<CFGNode> getPredecessors(final int id) {
+		final List<CFGNode> l = new ArrayList<CFGNode>(getPredecessorCount(id));
+		for (int k = predStart[id]; k < predStart[id + 1]; k++)
+			l.add(nodeIndex[predIds[k]]);
+		return l;
+	}
+
+	/**
+	 * Returns the number of distinct def and use variables in the graph.
+	 *
+	 * @return the number of variables
+	 */
+	public int getVariableCount() {
+		if (useStart == null)
+			internVariables();
+		return variables.size();
+	}
+
+	/**
+	 * Returns the variable with the given id.
+	 *
+	 * @param var the variable's id
+	 * @return the variable
+	 */
+	public String getVariable(final int var) {
+		if (useStart == null)
+			internVariables();
+		return variables.get(var);
+	}
+
+	/**
+	 * Returns the id of a variable.
+	 *
+	 * @param var the variable
+	 * @return the variable's id, or -1 if it is not defined or used in the graph
+	 */
+	public int getVariableId(final String var) {
+		if (useStart == null)
+			internVariables();
+		final Integer id = variableIds.get(var);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the id of the variable a node defines.
+	 *
+	 * @param id the node's id
+	 * @return the variable's id, or -1 if the node defines none
+	 */
+	public int getDefVariableId(final int id) {
+		if (useStart == null)
+			internVariables();
+		return defVars[id];
+	}
+
+	/**
+	 * Returns the number of variables a node uses.
+	 *
+	 * @param id the node's id
+	 * @return the number of variables used
+	 */
+	public int getUseVariableCount(final int id) {
+		if (useStart == null)
+			internVariables();
+		return useStart[id + 1] - useStart[id];
+	}
+
+	/**
+	 * Returns the id of a variable a node uses.
+	 *
+	 * @param id the node's id
+	 * @param k which variable, from 0 to {@link #getUseVariableCount(int)}
+	 * @return the variable's id
+	 */
+	public int getUseVariableId(final int id, final int k) {
+		if (useStart == null)
+			internVariables();
+		return useVars[useStart[id] + k];
+	}
+
 	private CFG traverse(final CFGNode cfgNode, final Expression root) {
 		final CFG graph = new CFG();
 		switch (root.getKind()) {
@@ -852,6 +1098,12 @@ public class CFG {
 	}
 
 	public CFGNode[] reverseSortNodes() {
+		if (nodeIndex != null) {
+			final CFGNode[] results = new CFGNode[nodeIndex.length];
+			for (int i = 0; i < nodeIndex.length; i++)
+				results[nodeIndex.length - 1 - i] = nodeIndex[i];
+			return results;
+		}
 		try {
 			final CFGNode[] results = new CFGNode[nodes.size()];
 			for (final CFGNode node : nodes) {
@@ -865,6 +1117,8 @@ public class CFG {
 	}
 
 	public CFGNode[] sortNodes() {
+		if (nodeIndex != null)
+			return nodeIndex.clone();
 		try {
 			final CFGNode[] results = new CFGNode[nodes.size()];
 			for (final CFGNode node : nodes) {
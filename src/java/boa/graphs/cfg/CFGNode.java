@@ -19,8 +19,10 @@ package boa.graphs.cfg;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 import boa.graphs.Node;
+import boa.graphs.ReadOnlyHashSet;
 import boa.types.Ast.Expression.ExpressionKind;
 import boa.types.Control.Node.NodeType;
 
@@ -43,6 +45,8 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 	private HashSet<String> useVariables;
 	private String defVariables;
 
+	private CFG graph;
+
 	public CFGNode() {
 		super();
 	}
@@ -77,7 +81,8 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 		this.numOfParameters = numOfParameters;
 	}
 
-	public static int convertLabel(final String label) {
+	// the labels are shared by every thread building graphs
+	public static synchronized int convertLabel(final String label) {
 		if (!CFGNode.idOfLabel.containsKey(label)) {
 			final int index = CFGNode.idOfLabel.size() + 1;
 			CFGNode.idOfLabel.put(label, index);
@@ -87,11 +92,47 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 		return CFGNode.idOfLabel.get(label);
 	}
 
+	private static synchronized String getLabel(final int id) {
+		return CFGNode.labelOfID.get(id);
+	}
+
+	void setGraph(final CFG graph) {
+		this.graph = graph;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<CFGNode> getSuccessors() {
+		if (this.graph == null)
+			return super.getSuccessors();
+		return this.graph.getSuccessors(this.id);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<CFGNode> getPredecessors() {
+		if (this.graph == null)
+			return super.getPredecessors();
+		return this.graph.getPredecessors(this.id);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void seal() {
+		// the def and use variables are computed lazily, so compute them before sealing
+		getDefVariables();
+		this.useVariables = new ReadOnlyHashSet<String>(getUseVariables());
+		if (this.parameters != null)
+			this.parameters = new ReadOnlyHashSet<Integer>(this.parameters);
+		super.seal();
+	}
+
 	public int getNumOfParameters() {
 		return this.numOfParameters;
 	}
 
 	public void setParameters(final HashSet<Integer> parameters) {
+		checkNotSealed();
 		this.parameters = parameters;
 	}
 
@@ -108,11 +149,11 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 	}
 
 	public String getObjectName() {
-		return labelOfID.get(this.objectNameId);
+		return getLabel(this.objectNameId);
 	}
 
 	public String getClassName() {
-		return labelOfID.get(this.classNameId);
+		return getLabel(this.classNameId);
 	}
 
 	public HashSet<String> getUseVariables() {
@@ -140,7 +181,7 @@ public class CFGNode extends Node<CFGNode, CFGEdge> {
 	}
 
 	public String getMethod() {
-		return CFGNode.labelOfID.get(this.methodId);
+		return getLabel(this.methodId);
 	}
 
 	public String getName() {
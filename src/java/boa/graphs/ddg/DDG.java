@@ -16,6 +16,7 @@
  */
 package boa.graphs.ddg;
 
+import boa.graphs.ReadOnlyHashSet;
 import boa.graphs.cfg.CFG;
 import boa.graphs.cfg.CFGNode;
 import boa.types.Ast.*;
@@ -31,8 +32,10 @@ import java.util.*;
 public class DDG {
     private Method md;
     private DDGNode entryNode;
-    private final HashSet<DDGNode> nodes = new HashSet<DDGNode>();
+    private HashSet<DDGNode> nodes = new HashSet<DDGNode>();
+    private DDGNode[] index = new DDGNode[0];
     private final HashMap<DDGNode, Set<DDGNode>> defUseChain = new HashMap<DDGNode, Set<DDGNode>>();
+    private boolean sealed = false;
     //private HashMap<DDGNode, Set<DDGNode>> useDefChain; //TODO: needs reaching-def analysis
 
     /**
@@ -44,9 +47,15 @@ public class DDG {
     public DDG(final CFG cfg) throws Exception {
         if (cfg != null && cfg.getNodes().size() > 0) {
             this.md = cfg.getMd();
-            final Map<Integer, InOut> liveVars = getLiveVariables(cfg);
-            formDefUseChains(liveVars, cfg);
-            constructDDG(liveVars.keySet());
+            int maxId = 0;
+            for (final CFGNode n : cfg.getNodes())
+                maxId = Math.max(maxId, n.getNodeId());
+            this.index = new DDGNode[maxId + 1];
+            final int entryId = cfg.getEntryNode() == null ? 0 : cfg.getEntryNode().getNodeId();
+            // graphs whose ids are not dense are never frozen
+            final Map<Integer, InOut> liveVars = cfg.isFrozen() ? getLiveVariables(cfg) : getLiveVariablesFromNodes(cfg);
+            formDefUseChains(liveVars, cfg, entryId);
+            constructDDG(liveVars.keySet(), entryId);
         }
     }
 
@@ -96,16 +105,13 @@ public class DDG {
     public HashSet<DDGNode> getNodes() { return nodes; }
 
     public DDGNode[] sortNodes() {
-        try {
-            final DDGNode[] results = new DDGNode[nodes.size()];
-            for (final DDGNode node : nodes) {
-                results[node.getNodeId()] = node;
-            }
-            return results;
-        } catch (final Exception e) {
-            e.printStackTrace();
-        }
-        return null;
+        // in order of their ids, which need not be dense
+        final DDGNode[] results = new DDGNode[nodes.size()];
+        int i = 0;
+        for (final DDGNode node : index)
+            if (node != null)
+                results[i++] = node;
+        return results;
     }
 
     /**
@@ -114,9 +120,26 @@ public class DDG {
      * @return the map of definiton-use chains
      */
     public HashMap<DDGNode, Set<DDGNode>> getDefUseChain() {
+        // the chains themselves were made read-only when sealed
+        if (sealed)
+            return new HashMap<DDGNode, Set<DDGNode>>(defUseChain);
         return defUseChain;
     }
 
+    /**
+     * Makes the graph and its nodes read-only, as the graph is shared (e.g.
+     * by the graph cache).  Any later change throws an
+     * {@link UnsupportedOperationException}.
+     */
+    public void seal() {
+        for (final DDGNode node : nodes)
+            node.seal();
+        nodes = new ReadOnlyHashSet<DDGNode>(nodes);
+        for (final Map.Entry<DDGNode, Set<DDGNode>> entry : defUseChain.entrySet())
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        sealed = true;
+    }
+
     /**
      * Gives back all the def nodes for the given variable
      *
@@ -140,11 +163,9 @@ public class DDG {
      * @return DDGNode
      */
     public DDGNode getNode(final int id) {
-        for (final DDGNode n : nodes)
-            if (n.getNodeId() == id)
-                return n;
-
-        return null;
+        if (id < 0 || id >= index.length)
+            return null;
+        return index[id];
     }
 
     /**
@@ -155,85 +176,148 @@ public class DDG {
      * @throws Exception
      */
     private Map<Integer, InOut> getLiveVariables(final CFG cfg) {
-        Map<Integer, BitSet> liveVarsIn = new HashMap<Integer, BitSet>();
-        Map<Integer, BitSet> currentLiveVarsIn = new HashMap<Integer, BitSet>();
-        Map<Integer, BitSet> liveVarsOut = new HashMap<Integer, BitSet>();
-        Map<Integer, BitSet> currentLiveVarsOut = new HashMap<Integer, BitSet>();
+        final int size = cfg.getNodes().size();
+        final BitSet[] liveVarsIn = new BitSet[size];
+        final BitSet[] liveVarsOut = new BitSet[size];
+
+        // cache Pair's of use variables for every node, and for every variable the Pair's it kills
+        final BitSet[] nodeUsePairs = new BitSet[size];
+        final BitSet[] varPairs = new BitSet[cfg.getVariableCount()];
+        final List<Pair> pairMap = new ArrayList<Pair>();
+
+        for (int id = size - 1; id >= 0; id--) {
+            liveVarsIn[id] = new BitSet();
+            liveVarsOut[id] = new BitSet();
+
+            final BitSet l = new BitSet();
+            for (int k = 0; k < cfg.getUseVariableCount(id); k++) {
+                final int var = cfg.getUseVariableId(id, k);
+                if (varPairs[var] == null)
+                    varPairs[var] = new BitSet();
+                varPairs[var].set(pairMap.size());
+                l.set(pairMap.size());
+                pairMap.add(new Pair(cfg.getVariable(var), cfg.getNode(id)));
+            }
+            nodeUsePairs[id] = l;
+        }
+
+        boolean changed = true;
+        while (changed) { // fix point iteration
+            changed = false;
+
+            for (int id = size - 1; id >= 0; id--) {
+                // out = Union in[node.successor]
+                final BitSet nodeLiveVarsOut = new BitSet();
+                for (int k = 0; k < cfg.getSuccessorCount(id); k++)
+                    nodeLiveVarsOut.or(liveVarsIn[cfg.getSuccessorId(id, k)]);
+
+                // in = use Union (out - def)
+                final BitSet nodeLiveVarsIn = (BitSet)nodeLiveVarsOut.clone();
+                final int def = cfg.getDefVariableId(id);
+                if (def != -1 && varPairs[def] != null)
+                    nodeLiveVarsIn.andNot(varPairs[def]);
+                nodeLiveVarsIn.or(nodeUsePairs[id]);
+
+                // check if node's "in" or "out" have changed
+                if (!nodeLiveVarsIn.equals(liveVarsIn[id]) || !nodeLiveVarsOut.equals(liveVarsOut[id])) {
+                    changed = true;
+                    liveVarsIn[id] = nodeLiveVarsIn;
+                    liveVarsOut[id] = nodeLiveVarsOut;
+                }
+            }
+        }
 
-        final CFGNode[] cfgNodes = cfg.reverseSortNodes();
-        final Map<CFGNode, List<CFGNode>> successors = new HashMap<CFGNode, List<CFGNode>>();
+        // the exit node has no live variables
+        final Map<Integer, InOut> liveVars = new HashMap<Integer, InOut>();
+        for (int i = 0; i < size - 1; i++) {
+            final Set<Pair> ins = new LinkedHashSet<Pair>();
+            final Set<Pair> outs = new LinkedHashSet<Pair>();
+            for (int j = liveVarsIn[i].nextSetBit(0); j >= 0; j = liveVarsIn[i].nextSetBit(j + 1))
+                ins.add(pairMap.get(j));
+            for (int j = liveVarsOut[i].nextSetBit(0); j >= 0; j = liveVarsOut[i].nextSetBit(j + 1))
+                outs.add(pairMap.get(j));
+            liveVars.put(i, new InOut(ins, outs));
+        }
+
+        return liveVars;
+    }
+
+    /**
+     * Computes and returns a map of in and out variables for each node, the
+     * same as {@link #getLiveVariables(CFG)} but from the nodes' own edges and
+     * variables, so for graphs that are not frozen
+     *
+     * @param cfg control flow graph
+     * @return map of in and out variables for each node
+     */
+    private Map<Integer, InOut> getLiveVariablesFromNodes(final CFG cfg) {
+        // Node sorts in reverse order of ids
+        final List<CFGNode> cfgNodes = new ArrayList<CFGNode>(cfg.getNodes());
+        Collections.sort(cfgNodes);
+
+        final Map<Integer, BitSet> liveVarsIn = new HashMap<Integer, BitSet>();
+        final Map<Integer, BitSet> liveVarsOut = new HashMap<Integer, BitSet>();
+
+        // cache Pair's of use variables for every node, and for every variable the Pair's it kills
         final Map<Integer, BitSet> nodeUsePairs = new HashMap<Integer, BitSet>();
-        final Map<Integer, Pair> pairMap = new HashMap<Integer, Pair>();
+        final Map<String, BitSet> varPairs = new HashMap<String, BitSet>();
+        final List<Pair> pairMap = new ArrayList<Pair>();
 
         for (final CFGNode n : cfgNodes) {
             liveVarsIn.put(n.getNodeId(), new BitSet());
             liveVarsOut.put(n.getNodeId(), new BitSet());
-            successors.put(n, n.getSuccessors());
 
-            // cache Pair's of use variables for every node
             final BitSet l = new BitSet();
             for (final String var : n.getUseVariables()) {
-                final Pair p = new Pair(var, n);
+                if (!varPairs.containsKey(var))
+                    varPairs.put(var, new BitSet());
+                varPairs.get(var).set(pairMap.size());
                 l.set(pairMap.size());
-                pairMap.put(pairMap.size(), p);
+                pairMap.add(new Pair(var, n));
             }
             nodeUsePairs.put(n.getNodeId(), l);
         }
 
-        while (true) { // fix point iteration
-            boolean changed = false;
-
-            for (final CFGNode node : cfgNodes) {
-                final BitSet nodeLiveVarsIn = (BitSet)liveVarsIn.get(node.getNodeId()).clone();
-                final BitSet nodeLiveVarsOut = (BitSet)liveVarsOut.get(node.getNodeId()).clone();
+        boolean changed = true;
+        while (changed) { // fix point iteration
+            changed = false;
 
+            for (final CFGNode n : cfgNodes) {
                 // out = Union in[node.successor]
-                for (final CFGNode s : successors.get(node))
-                    nodeLiveVarsOut.or(liveVarsIn.get(s.getNodeId()));
-
-                // out - def
-                final BitSet diff = (BitSet)nodeLiveVarsOut.clone();
-                if (!node.getDefVariables().equals(""))
-                    for (int p = 0; p < nodeLiveVarsOut.size(); p++)
-                        if (nodeLiveVarsOut.get(p))
-                            if (pairMap.get(p).var.equals(node.getDefVariables()))
-                                diff.clear(p);
+                final BitSet nodeLiveVarsOut = new BitSet();
+                for (final CFGNode succ : n.getSuccessors())
+                    nodeLiveVarsOut.or(liveVarsIn.get(succ.getNodeId()));
 
                 // in = use Union (out - def)
-                nodeLiveVarsIn.or(nodeUsePairs.get(node.getNodeId()));
-                nodeLiveVarsIn.or(diff);
+                final BitSet nodeLiveVarsIn = (BitSet)nodeLiveVarsOut.clone();
+                final String def = n.getDefVariables();
+                if (!def.equals("") && varPairs.containsKey(def))
+                    nodeLiveVarsIn.andNot(varPairs.get(def));
+                nodeLiveVarsIn.or(nodeUsePairs.get(n.getNodeId()));
 
                 // check if node's "in" or "out" have changed
-                if (!nodeLiveVarsIn.equals(liveVarsIn.get(node.getNodeId())) || !nodeLiveVarsOut.equals(liveVarsOut.get(node.getNodeId())))
+                if (!nodeLiveVarsIn.equals(liveVarsIn.get(n.getNodeId())) || !nodeLiveVarsOut.equals(liveVarsOut.get(n.getNodeId()))) {
                     changed = true;
-
-                currentLiveVarsIn.put(node.getNodeId(), nodeLiveVarsIn);
-                currentLiveVarsOut.put(node.getNodeId(), nodeLiveVarsOut);
+                    liveVarsIn.put(n.getNodeId(), nodeLiveVarsIn);
+                    liveVarsOut.put(n.getNodeId(), nodeLiveVarsOut);
+                }
             }
-
-            if (!changed)
-                break;
-
-            liveVarsIn = currentLiveVarsIn;
-            currentLiveVarsIn = new HashMap<Integer, BitSet>();
-            liveVarsOut = currentLiveVarsOut;
-            currentLiveVarsOut = new HashMap<Integer, BitSet>();
         }
 
-        liveVarsIn.remove(cfg.getNodes().size() - 1);
-        liveVarsOut.remove(cfg.getNodes().size() - 1);
-
+        // the exit node has no live variables
         final Map<Integer, InOut> liveVars = new HashMap<Integer, InOut>();
-        for (final Integer i : liveVarsIn.keySet()) {
+        for (final CFGNode n : cfgNodes) {
+            if (n == cfg.getExitNode())
+                continue;
+            final BitSet in = liveVarsIn.get(n.getNodeId());
+            final BitSet out = liveVarsOut.get(n.getNodeId());
             final Set<Pair> ins = new LinkedHashSet<Pair>();
             final Set<Pair> outs = new LinkedHashSet<Pair>();
-            for (int j = 0; j < liveVarsIn.get(i).size(); j++)
-                if (liveVarsIn.get(i).get(j))
-                    ins.add(pairMap.get(j));
-            for (int j = 0; j < liveVarsOut.get(i).size(); j++)
-                if (liveVarsOut.get(i).get(j))
-                    outs.add(pairMap.get(j));
-            liveVars.put(i, new InOut(ins, outs));
+            for (int j = in.nextSetBit(0); j >= 0; j = in.nextSetBit(j + 1))
+                ins.add(pairMap.get(j));
+            for (int j = out.nextSetBit(0); j >= 0; j = out.nextSetBit(j + 1))
+                outs.add(pairMap.get(j));
+            liveVars.put(n.getNodeId(), new InOut(ins, outs));
         }
 
         return liveVars;
@@ -243,13 +327,14 @@ public class DDG {
      * Forms def-use chains to establish data flow between nodes
      *
      * @param liveVar map of nodes and their in and out variables
+     * @param entryId id of the entry node
      */
-    private void formDefUseChains(final Map<Integer, InOut> liveVar, CFG cfg) {
+    private void formDefUseChains(final Map<Integer, InOut> liveVar, CFG cfg, final int entryId) {
         // match def variable of the node with the out variable. If the match occurs form a def-use mapping
         for (final Map.Entry<Integer, InOut> entry: liveVar.entrySet()) {
             final CFGNode n = cfg.getNode(entry.getKey());
             final DDGNode defNode = getNode(n);
-            if (entry.getKey() != 0) {
+            if (entry.getKey() != entryId) {
                 for (final Pair p : entry.getValue().out) {
                     if (!n.getDefVariables().equals("")) {
                         if (n.getDefVariables().equals(p.var)) {
@@ -270,12 +355,13 @@ public class DDG {
      * Connects the disconnected nodes to form the DDG graph
      *
      * @param nodeids set of all node ids of the graph
+     * @param entryId id of the entry node
      */
-    private void constructDDG(final Set<Integer> nodeids) {
+    private void constructDDG(final Set<Integer> nodeids, final int entryId) {
         // any node without parent is connected to entryNode
-        entryNode = getNode(0);
+        entryNode = getNode(entryId);
         for (final int i : nodeids) {
-            if (i != 0) {
+            if (i != entryId) {
                 final DDGNode dest = getNode(i);
                 if (dest.getPredecessors().size() == 0 ||
                         (dest.getPredecessors().size() == 1 && dest.getPredecessors().get(0).equals(dest))) {
@@ -298,6 +384,7 @@ public class DDG {
 
         final DDGNode newNode = new DDGNode(cfgNode);
         nodes.add(newNode);
+        index[newNode.getNodeId()] = newNode;
         return newNode;
     }
 
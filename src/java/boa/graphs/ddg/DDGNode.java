@@ -16,6 +16,7 @@
  */
 package boa.graphs.ddg;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -43,7 +44,7 @@ public class DDGNode extends Node<DDGNode, DDGEdge> {
         this.expr = node.getExpr();
         this.kind = node.getKind();
         this.defVariable = node.getDefVariables();
-        this.useVariables = node.getUseVariables();
+        this.useVariables = new HashSet<String>(node.getUseVariables());
     }
 
     /**
@@ -56,14 +57,17 @@ public class DDGNode extends Node<DDGNode, DDGEdge> {
     }
 
     public void setDefVariable(final String defVariables) {
+        checkNotSealed();
         this.defVariable = defVariables;
     }
 
     public void setUseVariables(final HashSet<String> useVariables) {
+        checkNotSealed();
         this.useVariables = useVariables;
     }
 
     public void addUseVariable(final String useVariables) {
+        checkNotSealed();
         this.useVariables.add(useVariables);
     }
 
@@ -72,7 +76,7 @@ public class DDGNode extends Node<DDGNode, DDGEdge> {
     }
 
     public Set<String> getUseVariables() {
-        return this.useVariables;
+        return isSealed() ? Collections.unmodifiableSet(this.useVariables) : this.useVariables;
     }
 
     @Override
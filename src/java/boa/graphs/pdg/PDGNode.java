@@ -45,7 +45,7 @@ public class PDGNode extends Node<PDGNode, PDGEdge> {
         this.expr = node.getExpr();
         this.kind = node.getKind();
         this.defVariable = node.getDefVariable();
-        this.useVariables = node.getUseVariables();
+        this.useVariables = new HashSet<String>(node.getUseVariables());
     }
 
     public void setDefVariable(final String defVariables) {
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import boa.functions.GraphCache;
 import boa.graphs.cfg.CFG;
 import boa.graphs.cfg.CFGEdge;
 import boa.graphs.cfg.CFGNode;
@@ -48,7 +49,7 @@ public class CFGSlicer {
 
     public CFGSlicer(final Method m, final CFGNode n) throws Exception {
         if (n != null) {
-            final CFG cfg = new CFG(m, true).get();
+            final CFG cfg = GraphCache.getCFG(m, true);
             if (cfg == null) return;
 
             final List<CFGNode> entrynodes = new ArrayList<CFGNode>();
@@ -58,7 +59,7 @@ public class CFGSlicer {
     }
 
     public CFGSlicer(final Method m, final CFGNode[] n) throws Exception {
-        final CFG cfg = new CFG(m, true).get();
+        final CFG cfg = GraphCache.getCFG(m, true);
         if (cfg == null) return;
 
         final List<CFGNode> entrynodes = new ArrayList<CFGNode>(Arrays.asList(n));
@@ -66,7 +67,7 @@ public class CFGSlicer {
     }
 
     public CFGSlicer(final Method m, final int nid) throws Exception {
-        final CFG cfg = new CFG(m, true).get();
+        final CFG cfg = GraphCache.getCFG(m, true);
         if (cfg == null) return;
 
         final List<CFGNode> entrynodes = new ArrayList<CFGNode>();
@@ -79,7 +80,7 @@ public class CFGSlicer {
     }
 
     public CFGSlicer(final Method m, final Integer[] nids) throws Exception {
-        final CFG cfg = new CFG(m, true).get();
+        final CFG cfg = GraphCache.getCFG(m, true);
         if (cfg == null) return;
 
         final List<CFGNode> entrynodes = new ArrayList<CFGNode>();
@@ -110,7 +111,7 @@ public class CFGSlicer {
 
         final Set<CFGNode> inSlice = new HashSet<CFGNode>(slicingNodes);
         final Set<CFGNode> controlInflNodes = new HashSet<CFGNode>();
-        final Map<Integer, Set<CFGNode>> infl = getInfluence(new PDTree(cfg), cfg);
+        final Map<Integer, Set<CFGNode>> infl = getInfluence(GraphCache.getPDTree(cfg), cfg);
 
         final BoaAbstractTraversal<Set<String>> slicer = new BoaAbstractTraversal<Set<String>>(true, true) {
             protected Set<String> preTraverse(final CFGNode node) throws Exception {
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.slicers;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+import boa.graphs.pdg.PDGNode;
+
+/**
+ * The nodes reachable from each node of a PDG, shared by all the slices taken
+ * of it.
+ *
+ * The graph is condensed into its strongly connected components, which all
+ * reach the same nodes.  What a component reaches is found the first time it
+ * is asked for, from what its successors reach, and kept as a bit set over
+ * node ids.  The bit sets are shared, so they must not be changed.
+ *
+ * @author agent
+ */
+final class PDGReachability {
+	// the component of each node
+	private final int[] component;
+	// the nodes and the successor components of each component
+	private final int[][] members;
+	private final int[][] successors;
+	// what each component reaches, once known
+	private final BitSet[] closures;
+
+	/**
+	 * Condenses the graph.
+	 *
+	 * @param nodes the nodes of the graph, by id
+	 */
+	PDGReachability(final PDGNode[] nodes) {
+		final int n = nodes.length;
+		final int[][] succs = new int[n][];
+		for (int i = 0; i < n; i++) {
+			if (nodes[i] == null) {
+				succs[i] = new int[0];
+				continue;
+			}
+			int count = 0;
+			final int[] s = new int[nodes[i].getOutEdges().size()];
+			for (final PDGNode succ : nodes[i].getSuccessors())
+				s[count++] = succ.getNodeId();
+			succs[i] = Arrays.copyOf(s, count);
+		}
+
+		this.component = new int[n];
+		final int count = this.condense(succs);
+
+		// group the nodes and successors by component
+		final int[] sizes = new int[count];
+		for (int i = 0; i < n; i++)
+			sizes[this.component[i]]++;
+		this.members = new int[count][];
+		for (int c = 0; c < count; c++)
+			this.members[c] = new int[sizes[c]];
+		Arrays.fill(sizes, 0);
+		for (int i = 0; i < n; i++)
+			this.members[this.component[i]][sizes[this.component[i]]++] = i;
+
+		this.successors = new int[count][];
+		final int[] seen = new int[count];
+		Arrays.fill(seen, -1);
+		final int[] buffer = new int[count];
+		for (int c = 0; c < count; c++) {
+			int found = 0;
+			for (final int i : this.members[c])
+				for (final int j : succs[i]) {
+					final int d = this.component[j];
+					if (d != c && seen[d] != c) {
+						seen[d] = c;
+						buffer[found++] = d;
+					}
+				}
+			this.successors[c] = Arrays.copyOf(buffer, found);
+		}
+
+		this.closures = new BitSet[count];
+	}
+
+	/**
+	 * Returns the ids of the nodes reachable from a node, including itself.
+	 *
+	 * @param node the id of the node
+	 * @return the ids of the reachable nodes, which must not be changed
+	 */
+	BitSet reach(final int node) {
+		final int start = this.component[node];
+		if (this.closures[start] != null)
+			return this.closures[start];
+
+		// a component is done once all of its successors are
+		final Deque<Integer> stack = new ArrayDeque<Integer>();
+		stack.push(start);
+		while (!stack.isEmpty()) {
+			final int c = stack.peek();
+			if (this.closures[c] != null) {
+				stack.pop();
+				continue;
+			}
+
+			boolean ready = true;
+			for (final int d : this.successors[c])
+				if (this.closures[d] == null) {
+					stack.push(d);
+					ready = false;
+				}
+			if (!ready)
+				continue;
+
+			stack.pop();
+			final BitSet closure = new BitSet(this.component.length);
+			for (final int i : this.members[c])
+				closure.set(i);
+			for (final int d : this.successors[c])
+				closure.or(this.closures[d]);
+			this.closures[c] = closure;
+		}
+
+		return this.closures[start];
+	}
+
+	// Tarjan's algorithm without recursion, returning the number of components
+	private int condense(final int[][] succs) {
+		final int n = succs.length;
+		final int[] index = new int[n];
+		final int[] low = new int[n];
+		final int[] next = new int[n];
+		final boolean[] onStack = new boolean[n];
+		final int[] stack = new int[n];
+		final int[] calls = new int[n];
+		Arrays.fill(index, -1);
+
+		int depth = 0;
+		int counter = 0;
+		int count = 0;
+		for (int root = 0; root < n; root++) {
+			if (index[root] != -1)
+				continue;
+
+			int top = 0;
+			calls[top++] = root;
+			index[root] = low[root] = counter++;
+			stack[depth++] = root;
+			onStack[root] = true;
+
+			while (top > 0) {
+				final int v = calls[top - 1];
+				if (next[v] < succs[v].length) {
+					final int w = succs[v][next[v]++];
+					if (index[w] == -1) {
+						index[w] = low[w] = counter++;
+						stack[depth++] = w;
+						onStack[w] = true;
+						calls[top++] = w;
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+
+				top--;
+				if (top > 0)
+					low[calls[top - 1]] = Math.min(low[calls[top - 1]], low[v]);
+
+				if (low[v] == index[v]) {
+					int w;
+					do {
+						w = stack[--depth];
+						onStack[w] = false;
+						this.component[w] = count;
+					} while (w != v);
+					count++;
+				}
+			}
+		}
+
+		return count;
+	}
+}
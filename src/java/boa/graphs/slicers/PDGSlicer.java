@@ -22,6 +22,7 @@ import static boa.functions.BoaNormalFormIntrinsics.normalizeStatement;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -30,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
+import boa.functions.GraphCache;
 import boa.graphs.pdg.PDG;
 import boa.graphs.pdg.PDGEdge;
 import boa.graphs.pdg.PDGNode;
@@ -45,9 +47,14 @@ import boa.types.Control;
 public class PDGSlicer {
     private final Method md;
     private final ArrayList<PDGNode> entryNodes = new ArrayList<PDGNode>();
-    private final HashSet<PDGNode> slice = new HashSet<PDGNode>();
+    private HashSet<PDGNode> slice = new HashSet<PDGNode>();
     private boolean normalize = false;
     private int hashcode = 0;
+    // for slices taken together, the graph's nodes by id and the ids of the
+    // nodes in the slice; the set of nodes and the hash are only made if used
+    private PDGNode[] nodes;
+    private BitSet members;
+    private boolean hashed = true;
 
     /**
      * Constructs a PDGSlicer instance for the given PDGNode
@@ -92,7 +99,7 @@ public class PDGSlicer {
     public PDGSlicer(final Method md, final int nid, final boolean normalize) throws Exception {
         this.md = md;
         this.normalize = normalize;
-        final PDG pdg = new PDG(md, false);
+        final PDG pdg = GraphCache.getPDG(GraphCache.getCFG(md, false));
         final PDGNode node = pdg.getNode(nid);
         if (node != null) {
             entryNodes.add(node);
@@ -111,7 +118,7 @@ public class PDGSlicer {
     public PDGSlicer(final Method md, final Integer[] nids, final boolean normalize) throws Exception {
         this.md = md;
         this.normalize = normalize;
-        final PDG pdg = new PDG(md, false);
+        final PDG pdg = GraphCache.getPDG(GraphCache.getCFG(md, false));
         for (final Integer i: nids) {
             final PDGNode node = pdg.getNode(i);
             if (node != null)
@@ -161,6 +168,50 @@ public class PDGSlicer {
         }
     }
 
+    // a slice whose nodes are already known, as one of many taken together
+    private PDGSlicer(final Method md, final PDGNode[] nodes, final PDGNode node, final BitSet members) {
+        this.md = md;
+        this.nodes = nodes;
+        this.members = members;
+        this.slice = null;
+        this.hashed = false;
+        entryNodes.add(node);
+    }
+
+    /**
+     * Slices the PDG from each of the given node ids.  Unless normalizing, the
+     * nodes reachable from each node are found once and shared by all the
+     * slices, and each slice only keeps the ids of its nodes.  Normalizing
+     * changes the nodes in place, so then each slice is taken on its own, the
+     * same as taking them one after another.
+     *
+     * @param pdg PDG graph
+     * @param nids array of PDGNode ids
+     * @param normalize if true expression of each node is normalized
+     * @return a slice for each id, empty if the PDG has no node with that id
+     * @throws Exception
+     */
+    public static PDGSlicer[] slices(final PDG pdg, final long[] nids, final boolean normalize) throws Exception {
+        final PDGSlicer[] slices = new PDGSlicer[nids.length];
+        final PDGNode[] nodes = pdg.sortNodes();
+
+        if (normalize || nodes == null) {
+            for (int i = 0; i < nids.length; i++)
+                slices[i] = new PDGSlicer(pdg, (int) nids[i], normalize);
+            return slices;
+        }
+
+        final PDGReachability reachability = new PDGReachability(nodes);
+        for (int i = 0; i < nids.length; i++) {
+            final long id = nids[i];
+            if (id >= 0 && id < nodes.length && nodes[(int) id] != null)
+                slices[i] = new PDGSlicer(pdg.getMethod(), nodes, nodes[(int) id], reachability.reach((int) id));
+            else
+                slices[i] = new PDGSlicer(pdg.getMethod(), (PDGNode) null, false);
+        }
+        return slices;
+    }
+
     /**
      * Returns the method whose PDG is built
      *
@@ -185,6 +236,11 @@ public class PDGSlicer {
      * @return all the nodes in the slice
      */
     public HashSet<PDGNode> getSlice() {
+        if (slice == null) {
+            slice = new HashSet<PDGNode>(members.cardinality() * 2);
+            for (int i = members.nextSetBit(0); i >= 0; i = members.nextSetBit(i + 1))
+                slice.add(nodes[i]);
+        }
         return slice;
     }
 
@@ -194,6 +250,8 @@ public class PDGSlicer {
      * @return the total nodes in the slice
      */
     public int getTotalNodes() {
+        if (slice == null)
+            return members.cardinality();
         return slice.size();
     }
 
@@ -204,7 +262,7 @@ public class PDGSlicer {
      */
     public int getTotalControlNodes() {
         int totalControlNodes = 0;
-        for (final PDGNode node: slice)
+        for (final PDGNode node: getSlice())
             if (node.getKind() == Control.Node.NodeType.CONTROL)
                 totalControlNodes = totalControlNodes + 1;
         return totalControlNodes;
@@ -217,7 +275,7 @@ public class PDGSlicer {
      */
     public int getTotalEdges() {
         int totalEdges = 0;
-        for (final PDGNode node: slice)
+        for (final PDGNode node: getSlice())
             totalEdges = totalEdges + node.getOutEdges().size();
         return totalEdges;
     }
@@ -228,7 +286,7 @@ public class PDGSlicer {
      * @return the set of slice nodes sorted by node ids
      */
     public List<PDGNode> getSortedSlice() {
-        final List<PDGNode> sorted = new ArrayList<PDGNode>(slice);
+        final List<PDGNode> sorted = new ArrayList<PDGNode>(getSlice());
         Collections.sort(sorted);
         return sorted;
     }
@@ -312,6 +370,12 @@ public class PDGSlicer {
         if (!(o instanceof PDGSlicer)) return false;
         final PDGSlicer pdgSlicer = (PDGSlicer) o;
 
+        // slices taken together from the same nodes are the same
+        if (nodes != null && nodes == pdgSlicer.nodes && entryNodes.equals(pdgSlicer.entryNodes))
+            return true;
+        if (hashCode() != pdgSlicer.hashCode())
+            return false;
+
         final Stack<PDGNode> nodes1 = new Stack<PDGNode>();
         final Stack<PDGNode> nodes2 = new Stack<PDGNode>();
         final Set<PDGNode> visited1 = new HashSet<PDGNode>();
@@ -370,6 +434,30 @@ public class PDGSlicer {
 
     @Override
     public int hashCode() {
+        if (!hashed) {
+            hashcode = hash();
+            hashed = true;
+        }
         return hashcode;
     }
+
+    // the hash traverse() would have computed for the slice
+    private int hash() {
+        final Stack<PDGNode> stack = new Stack<PDGNode>();
+        stack.addAll(entryNodes);
+        final Set<PDGNode> visited = new HashSet<PDGNode>();
+        final StringBuilder sb = new StringBuilder();
+        while (stack.size() != 0) {
+            final PDGNode node = stack.pop();
+            if (visited.add(node)) {
+                if (node.hasExpr())
+                    sb.append(node.getExpr());
+                if (node.hasStmt())
+                    sb.append(node.getStmt());
+                for (final PDGNode succ : node.getSuccessors())
+                    stack.push(succ);
+            }
+        }
+        return sb.toString().hashCode();
+    }
 }
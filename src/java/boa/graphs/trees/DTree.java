@@ -33,6 +33,7 @@ public class DTree {
     private Method md;
     private TreeNode rootNode;
     private final HashSet<TreeNode> nodes = new HashSet<TreeNode>();
+    private TreeNode[] index = new TreeNode[0];
     private boolean isEntryNode = false; // as specified in ferrante-1987 paper on PDG
 
     /**
@@ -44,9 +45,8 @@ public class DTree {
     public DTree(final CFG cfg) throws Exception {
         if (cfg != null && cfg.getNodes().size() > 0) {
             this.md = cfg.getMd();
-            final Map<CFGNode, Set<CFGNode>> dom = computeDominators(cfg);
-            final Map<CFGNode, CFGNode> idom = computeImmediateDominator(dom, cfg);
-            buildDomTree(idom);
+            this.index = new TreeNode[cfg.getNodes().size() + 1];
+            buildDomTree(computeImmediateDominator(cfg));
         }
     }
 
@@ -81,6 +81,8 @@ public class DTree {
             entry.setParent(rootNode);
             rootNode.addChild(entry);
             nodes.add(entry);
+            if (entry.getNodeId() < index.length)
+                index[entry.getNodeId()] = entry;
             isEntryNode = true;
         }
     }
@@ -117,10 +119,7 @@ public class DTree {
      * @return the immediate dominator of the given node
      */
     public TreeNode getImmediateDominator(final TreeNode node) {
-        for (final TreeNode n : nodes)
-            if (n.equals(node))
-                return n.getParent();
-        return null;
+        return getImmediateDominator(node.getNodeId());
     }
 
     /**
@@ -130,9 +129,9 @@ public class DTree {
      * @return the immediate dominator for the given node id
      */
     public TreeNode getImmediateDominator(final int nodeid) {
-        for (final TreeNode n : nodes)
-            if (n.getNodeId() == nodeid)
-                return n.getParent();
+        final TreeNode n = getNode(nodeid);
+        if (n != null)
+            return n.getParent();
         return null;
     }
 
@@ -143,107 +142,27 @@ public class DTree {
      * @return the tree node for the given node id. If not found then returns null
      */
     public TreeNode getNode(final int id) {
-        for (final TreeNode node : nodes) {
-            if (node.getNodeId() == id)
-                return node;
-        }
-        return null;
+        if (id < 0 || id >= index.length)
+            return null;
+        return index[id];
     }
 
     /**
-     * Computes and returns map of dominators for each node in the control flow graph
+     * Computes and returns a map of nodes and corresponding immediate dominators.
+     * Nodes that can not be reached from the entry have no immediate dominator.
      *
      * @param cfg control flow graph
-     * @return map of nodes and corresponding set of dominator nodes
-     * @throws Exception
-     */
-    private Map<CFGNode, Set<CFGNode>> computeDominators(final CFG cfg) {
-        final Map<CFGNode, Set<CFGNode>> pDomMap = new HashMap<CFGNode, Set<CFGNode>>();
-
-        // initialize
-        if (cfg.getNodes().size() > 2) {
-            for (final CFGNode n : cfg.getNodes()) {
-                if (n.getNodeId() == 0)
-                    pDomMap.put(n, new HashSet<CFGNode>(Collections.singletonList(n)));
-                else
-                    pDomMap.put(n, cfg.getNodes());
-            }
-        } else {
-            final CFGNode startNode = cfg.getNode(0);
-            pDomMap.put(startNode, new HashSet<CFGNode>(Collections.singletonList(startNode)));
-            pDomMap.put(cfg.getNode(1), new HashSet<CFGNode>(cfg.getNodes()));
-        }
-
-        final Map<CFGNode, Set<CFGNode>> currentPDomMap = new HashMap<CFGNode, Set<CFGNode>>();
-        boolean saturated = false;
-        while (!saturated) { // fix point iteration
-            int changeCount = 0;
-            for (final CFGNode n : cfg.getNodes()) {
-                final Set<CFGNode> currentPDom = new HashSet<CFGNode>();
-
-                // Intersection[pred(node)]
-                boolean first = true;
-                for (final CFGNode pred : n.getPredecessors()) {
-                    if (first) {
-                        currentPDom.addAll(pDomMap.get(pred));
-                        first = false;
-                        continue;
-                    }
-                    currentPDom.retainAll(pDomMap.get(pred));
-                }
-                // D[n] = {n} Union (Intersection[pred[node]])
-                currentPDom.add(n);
-
-                final Set<CFGNode> diff = new HashSet<CFGNode>(pDomMap.get(n));
-                diff.removeAll(currentPDom);
-                if (diff.size() > 0)
-                    changeCount++;
-                currentPDomMap.put(n, currentPDom);
-            }
-
-            if (changeCount == 0) {
-                saturated = true;
-            } else {
-                pDomMap.clear();
-                pDomMap.putAll(currentPDomMap);
-                currentPDomMap.clear();
-            }
-        }
-
-        // strict dominance
-        for (final CFGNode n : pDomMap.keySet())
-            pDomMap.get(n).remove(n);
-
-        return pDomMap;
-    }
-
-    /**
-     * Computes and returns map of nodes and corresponding immediate dominators
-     *
-     * @param dom map of nodes and corresponding dominators
      * @return map of nodes and corresponding immediate dominators
      */
-    private Map<CFGNode, CFGNode> computeImmediateDominator(final Map<CFGNode, Set<CFGNode>> dom, final CFG cfg) {
-        /*
-         * To find idom, we check each dom of a node to see if it is dominating any other
-         * node. Each node should have atmost one i-dom (first node has no immediate dominator)
-         */
+    private Map<CFGNode, CFGNode> computeImmediateDominator(final CFG cfg) {
         final Map<CFGNode, CFGNode> idom = new HashMap<CFGNode, CFGNode>();
-        for (final Map.Entry<CFGNode, Set<CFGNode>> entry : dom.entrySet()) {
-            for (final CFGNode pd1 : entry.getValue()) {
-                boolean isIPDom = true;
-                for (final CFGNode pd2 : entry.getValue()) {
-                    if (pd1.getNodeId() != pd2.getNodeId())
-                        if ((dom.get(pd2)).contains(pd1)) {
-                            isIPDom = false;
-                            break;
-                        }
-                }
-                if (isIPDom) {
-                    idom.put(entry.getKey(), pd1);
-                    break;
-                }
-            }
+        final CFGNode[] cfgNodes = cfg.sortNodes();
+        final Dominators dom = Dominators.dominators(cfg);
+
+        for (int id = 0; id < cfgNodes.length; id++) {
+            final int d = dom.getImmediateDominator(id);
+            if (d != -1)
+                idom.put(cfgNodes[id], cfgNodes[d]);
         }
 
         return idom;
@@ -289,6 +208,7 @@ public class DTree {
 
         final TreeNode newNode = new TreeNode(cfgNode);
         nodes.add(newNode);
+        index[newNode.getNodeId()] = newNode;
         return newNode;
     }
 }
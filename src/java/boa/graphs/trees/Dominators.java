@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.graphs.trees;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGNode;
+
+/**
+ * Computes the (post-)dominators of a control flow graph, using the iterative
+ * algorithm of Cooper, Harvey and Kennedy ("A Simple, Fast Dominance
+ * Algorithm").  The graph is viewed as arrays of node ids, and post-dominators
+ * are the dominators of the reversed graph, rooted at the exit.
+ *
+ * Nodes that can not be reached from the root have no immediate dominator.
+ *
+ * @author agent
+ */
+public class Dominators {
+    private final int root;
+    private final int[][] preds;
+    private final int[] idom;
+    private final int[] postorder;
+
+    /**
+     * Computes the dominators of a CFG, rooted at its entry.
+     *
+     * @param cfg control flow graph
+     * @return the dominators
+     */
+    public static Dominators dominators(final CFG cfg) {
+        return new Dominators(edges(cfg, true), 0);
+    }
+
+    /**
+     * Computes the post-dominators of a CFG, rooted at its exit.
+     *
+     * @param cfg control flow graph
+     * @return the post-dominators
+     */
+    public static Dominators postDominators(final CFG cfg) {
+        final int[][] preds = edges(cfg, false);
+        return new Dominators(preds, preds.length - 1);
+    }
+
+    private static int[][] edges(final CFG cfg, final boolean forward) {
+        final int n = cfg.getNodes().size();
+        final int[][] edges = new int[n][];
+
+        if (cfg.isFrozen()) {
+            for (int i = 0; i < n; i++) {
+                edges[i] = new int[forward ? cfg.getSuccessorCount(i) : cfg.getPredecessorCount(i)];
+                for (int k = 0; k < edges[i].length; k++)
+                    edges[i][k] = forward ? cfg.getSuccessorId(i, k) : cfg.getPredecessorId(i, k);
+            }
+        } else {
+            final CFGNode[] nodes = cfg.sortNodes();
+            for (int i = 0; i < n; i++) {
+                final List<CFGNode> l = forward ? nodes[i].getSuccessors() : nodes[i].getPredecessors();
+                edges[i] = new int[l.size()];
+                for (int k = 0; k < edges[i].length; k++)
+                    edges[i][k] = l.get(k).getNodeId();
+            }
+        }
+
+        return edges;
+    }
+
+    /**
+     * Computes the dominators of a graph.
+     *
+     * @param succs the successors of each node, by id
+     * @param root the id of the root
+     */
+    public Dominators(final int[][] succs, final int root) {
+        final int n = succs.length;
+        this.root = root;
+        this.idom = new int[n];
+        this.postorder = new int[n];
+        Arrays.fill(this.idom, -1);
+        Arrays.fill(this.postorder, -1);
+
+        // predecessors, as arrays
+        final int[] counts = new int[n];
+        for (final int[] ss : succs)
+            for (final int s : ss)
+                counts[s]++;
+        this.preds = new int[n][];
+        for (int i = 0; i < n; i++)
+            this.preds[i] = new int[counts[i]];
+        for (int i = 0; i < n; i++)
+            for (final int s : succs[i])
+                this.preds[s][--counts[s]] = i;
+
+        if (root < 0 || root >= n)
+            return;
+
+        // number the nodes reachable from the root in postorder
+        final int[] byPostorder = new int[n];
+        final int[] stack = new int[n];
+        final int[] next = new int[n];
+        final boolean[] seen = new boolean[n];
+        int count = 0, top = 0;
+        stack[top++] = root;
+        seen[root] = true;
+        while (top > 0) {
+            final int v = stack[top - 1];
+            if (next[v] < succs[v].length) {
+                final int w = succs[v][next[v]++];
+                if (!seen[w]) {
+                    seen[w] = true;
+                    stack[top++] = w;
+                }
+            } else {
+                top--;
+                this.postorder[v] = count;
+                byPostorder[count++] = v;
+            }
+        }
+
+        // iterate to a fixpoint, in reverse postorder
+        this.idom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = count - 2; k >= 0; k--) {
+                final int b = byPostorder[k];
+                int newIdom = -1;
+                for (final int p : this.preds[b])
+                    if (this.idom[p] != -1)
+                        newIdom = newIdom == -1 ? p : intersect(p, newIdom);
+                if (this.idom[b] != newIdom) {
+                    this.idom[b] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int a, int b) {
+        while (a != b) {
+            while (this.postorder[a] < this.postorder[b])
+                a = this.idom[a];
+            while (this.postorder[b] < this.postorder[a])
+                b = this.idom[b];
+        }
+        return a;
+    }
+
+    /**
+     * Returns the id of the root.
+     *
+     * @return the root's id
+     */
+    public int getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.idom.length;
+    }
+
+    /**
+     * Returns the immediate dominator of a node.
+     *
+     * @param id the node's id
+     * @return the id of the immediate dominator, or -1 for the root and
+     *         nodes that can not be reached
+     */
+    public int getImmediateDominator(final int id) {
+        if (id == this.root)
+            return -1;
+        return this.idom[id];
+    }
+
+    /**
+     * Returns <code>true</code> if a node can be reached from the root.
+     *
+     * @param id the node's id
+     * @return if the node is reachable
+     */
+    public boolean isReachable(final int id) {
+        return this.idom[id] != -1;
+    }
+
+    /**
+     * Computes the dominance frontier of every node: the nodes where its
+     * dominance ends, i.e. that it does not strictly dominate but that have a
+     * predecessor it dominates.
+     *
+     * @return the dominance frontier of each node, by id
+     */
+    public BitSet[] getFrontiers() {
+        final BitSet[] frontiers = new BitSet[this.idom.length];
+        for (int i = 0; i < frontiers.length; i++)
+            frontiers[i] = new BitSet();
+
+        for (int b = 0; b < this.idom.length; b++) {
+            if (this.idom[b] == -1 || this.preds[b].length < 2)
+                continue;
+            for (final int p : this.preds[b]) {
+                if (this.idom[p] == -1)
+                    continue;
+                for (int runner = p; runner != this.idom[b]; runner = this.idom[runner]) {
+                    frontiers[runner].set(b);
+                    if (runner == this.root)
+                        break;
+                }
+            }
+        }
+
+        return frontiers;
+    }
+}
@@ -19,6 +19,7 @@ package boa.graphs.trees;
 import java.util.*;
 
 import boa.functions.BoaAstIntrinsics;
+import boa.graphs.ReadOnlyHashSet;
 import boa.types.Ast.Method;
 import boa.graphs.cfg.CFG;
 import boa.graphs.cfg.CFGNode;
@@ -32,8 +33,10 @@ import boa.graphs.cfg.CFGNode;
 public class PDTree {
     private Method md;
     private TreeNode rootNode;
-    private final HashSet<TreeNode> nodes = new HashSet<TreeNode>();
+    private HashSet<TreeNode> nodes = new HashSet<TreeNode>();
+    private TreeNode[] index = new TreeNode[0];
     private boolean hasEntryNode = false; // as specified in ferrante-1987 paper on PDG
+    private boolean sealed = false;
 
     /**
      * Constructs a post-dominator tree
@@ -44,9 +47,8 @@ public class PDTree {
     public PDTree(final CFG cfg) throws Exception {
         if (cfg != null && cfg.getNodes().size() > 0) {
             this.md = cfg.getMd();
-            final Map<CFGNode, BitSet> pdom = computePostDomonitors(cfg);
-            final Map<CFGNode, CFGNode> ipdom = computeImmediatePostDominator(pdom, cfg);
-            buildPDomTree(ipdom);
+            this.index = new TreeNode[cfg.getNodes().size() + 1];
+            buildPDomTree(computeImmediatePostDominator(cfg));
         }
     }
 
@@ -72,19 +74,62 @@ public class PDTree {
         this(new CFG(md).get());
     }
 
+    /**
+     * Constructs a copy of a post-dominator tree, which is not sealed even if
+     * the tree copied is (e.g. so a shared tree can get an entry node)
+     *
+     * @param tree post-dominator tree to copy
+     */
+    public PDTree(final PDTree tree) {
+        this.md = tree.md;
+        this.index = new TreeNode[tree.index.length];
+        this.hasEntryNode = tree.hasEntryNode;
+
+        for (final TreeNode node : tree.nodes) {
+            final TreeNode copy = new TreeNode(node);
+            nodes.add(copy);
+            index[copy.getNodeId()] = copy;
+        }
+        for (final TreeNode node : tree.nodes) {
+            final TreeNode copy = getNode(node.getNodeId());
+            if (node.getParent() != null)
+                copy.setParent(getNode(node.getParent().getNodeId()));
+            for (final TreeNode child : node.getChildren())
+                copy.addChild(getNode(child.getNodeId()));
+        }
+        if (tree.rootNode != null)
+            rootNode = getNode(tree.rootNode.getNodeId());
+    }
+
     /**
      * Augments tree with entry node
      */
     public void addEntryNode() {
         if (!hasEntryNode) {
+            if (sealed)
+                throw new UnsupportedOperationException("the post-dominator tree is shared, so can not be changed");
             final TreeNode entry = new TreeNode(nodes.size());
             entry.setParent(rootNode);
             rootNode.addChild(entry);
             nodes.add(entry);
+            if (entry.getNodeId() < index.length)
+                index[entry.getNodeId()] = entry;
             hasEntryNode = true;
         }
     }
 
+    /**
+     * Makes the tree and its nodes read-only, as the tree is shared (e.g. by
+     * the graph cache).  Any later change throws an
+     * {@link UnsupportedOperationException}.
+     */
+    public void seal() {
+        for (final TreeNode node : nodes)
+            node.seal();
+        nodes = new ReadOnlyHashSet<TreeNode>(nodes);
+        sealed = true;
+    }
+
     /**
      * Returns the method whose post-dominator tree is built
      *
@@ -132,10 +177,7 @@ public class PDTree {
      * @return the immediate post-dominator of the given node
      */
     public TreeNode getImmediatePostDominator(final TreeNode node) {
-        for (final TreeNode n : nodes)
-            if (n.equals(node))
-                return n.getParent();
-        return null;
+        return getImmediatePostDominator(node.getNodeId());
     }
 
     /**
@@ -145,9 +187,9 @@ public class PDTree {
      * @return the immediate post-dominator of the given node
      */
     public TreeNode getImmediatePostDominator(final int nodeid) {
-        for (final TreeNode n : nodes)
-            if (n.getNodeId() == nodeid)
-                return n.getParent();
+        final TreeNode n = getNode(nodeid);
+        if (n != null)
+            return n.getParent();
         return null;
     }
 
@@ -158,126 +200,29 @@ public class PDTree {
      * @return the tree node for the given node id. If not found then returns null
      */
     public TreeNode getNode(final int id) {
-        for (final TreeNode node : nodes) {
-            if (node.getNodeId() == id)
-                return node;
-        }
-        return null;
+        if (id < 0 || id >= index.length)
+            return null;
+        return index[id];
     }
 
     /**
-     * Computes and returns map of post-dominators for each node in the control flow graph
+     * Computes and returns a map of nodes and corresponding immediate post-dominators.
+     * Nodes that can not reach the exit (e.g., infinite loops) are post-dominated by the exit.
      *
      * @param cfg control flow graph
-     * @return map of nodes and corresponding set of post-dominator nodes
-     * @throws Exception
-     */
-    private Map<CFGNode, BitSet> computePostDomonitors(final CFG cfg) {
-        final CFGNode[] cfgNodes = cfg.reverseSortNodes();
-        final Map<CFGNode, List<CFGNode>> successors = new HashMap<CFGNode, List<CFGNode>>();
-
-        Map<CFGNode, BitSet> pDomMap = new HashMap<CFGNode, BitSet>();
-        Map<CFGNode, BitSet> currentPDomMap = new HashMap<CFGNode, BitSet>();
-
-        // initialize
-        final BitSet allBits = new BitSet();
-        for (final CFGNode n : cfg.getNodes()) {
-            allBits.set(n.getNodeId());
-        }
-
-        if (cfg.getNodes().size() > 2) {
-            final int stopid = cfg.getNodes().size() - 1;
-
-            for (final CFGNode n : cfg.getNodes()) {
-                if (n.getNodeId() == stopid) {
-                    pDomMap.put(n, new BitSet());
-                    pDomMap.get(n).set(n.getNodeId());
-                } else {
-                    pDomMap.put(n, (BitSet)allBits.clone());
-                }
-
-                successors.put(n, n.getSuccessors());
-            }
-        } else {
-            pDomMap.put(cfg.getNode(0), (BitSet)allBits.clone());
-
-            final CFGNode stopNode = cfg.getNode(1);
-            pDomMap.put(stopNode, new BitSet());
-            pDomMap.get(stopNode).set(stopNode.getNodeId());
-
-            successors.put(cfg.getNode(0), cfg.getNode(0).getSuccessors());
-            successors.put(stopNode, stopNode.getSuccessors());
-        }
-
-        while (true) { // fix point iteration
-            boolean changed = false;
-
-            for (final CFGNode n : cfgNodes) {
-                BitSet currentPDom = null;
-
-                // Intersection[succ(node)]
-                for (final CFGNode succ : successors.get(n)) {
-                    if (currentPDom == null) {
-                        currentPDom = (BitSet)pDomMap.get(succ).clone();
-                        continue;
-                    }
-                    currentPDom.and(pDomMap.get(succ));
-                    if (currentPDom.isEmpty())
-                        break;
-                }
-                // D[n] = {n} Union (Intersection[succ[node]])
-                if (currentPDom == null) currentPDom = new BitSet();
-                currentPDom.set(n.getNodeId());
-
-                if (!pDomMap.get(n).equals(currentPDom))
-                    changed = true;
-                currentPDomMap.put(n, currentPDom);
-            }
-
-            if (!changed)
-                break;
-
-            pDomMap = currentPDomMap;
-            currentPDomMap = new HashMap<CFGNode, BitSet>();
-        }
-
-        // ensure strict post-dominance
-        for (final CFGNode n : cfgNodes) {
-            final BitSet curMap = pDomMap.get(n);
-            curMap.clear(n.getNodeId());
-        }
-
-        return pDomMap;
-    }
-
-    /**
-     * Computes and returns a map of nodes and corresponding immediate post-dominators
-     *
-     * @param pdom map of nodes and corresponding post-dominators
      * @return map of nodes and corresponding immediate post-dominators
      */
-    private Map<CFGNode, CFGNode> computeImmediatePostDominator(final Map<CFGNode, BitSet> pdom, final CFG cfg) {
+    private Map<CFGNode, CFGNode> computeImmediatePostDominator(final CFG cfg) {
         final Map<CFGNode, CFGNode> ipdom = new HashMap<CFGNode, CFGNode>();
-
-        // To find ipdom, we check each pdom of a node to see if it is post dominating any other
-        // node. Each node should have at most one ip-dom (last node has no immediate post dominator)
-        for (final Map.Entry<CFGNode, BitSet> entry : pdom.entrySet()) {
-            BitSet bs1 = entry.getValue();
-            for (int pd1 = 0; pd1 < bs1.size(); pd1++) {
-                if (!bs1.get(pd1)) continue;
-                boolean isIPDom = true;
-                for (int pd2 = 0; pd2 < bs1.size(); pd2++) {
-                    if (!bs1.get(pd2) || pd1 == pd2) continue;
-                    if (pdom.containsKey(pd2) && pdom.get(pd2).get(pd1)) {
-                        isIPDom = false;
-                        break;
-                    }
-                }
-                if (isIPDom) {
-                    ipdom.put(entry.getKey(), cfg.getNode(pd1));
-                    break;
-                }
-            }
+        final CFGNode[] cfgNodes = cfg.sortNodes();
+        final Dominators pdom = Dominators.postDominators(cfg);
+        final CFGNode exit = cfgNodes[pdom.getRoot()];
+
+        for (int id = 0; id < cfgNodes.length; id++) {
+            if (id == pdom.getRoot())
+                continue;
+            final int ipd = pdom.getImmediateDominator(id);
+            ipdom.put(cfgNodes[id], ipd == -1 ? exit : cfgNodes[ipd]);
         }
 
         return ipdom;
@@ -322,6 +267,7 @@ public class PDTree {
 
         final TreeNode newNode = new TreeNode(cfgNode);
         nodes.add(newNode);
+        index[newNode.getNodeId()] = newNode;
         return newNode;
     }
 }
@@ -17,6 +17,7 @@
 package boa.graphs.trees;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -50,7 +51,22 @@ public class TreeNode extends Node<TreeNode, TreeEdge> {
         this.expr = node.getExpr();
         this.kind = node.getKind();
         this.defVariable = node.getDefVariables();
-        this.useVariables = node.getUseVariables();
+        this.useVariables = new HashSet<String>(node.getUseVariables());
+    }
+
+    /**
+     * Constructs a copy of a tree node, without its parent or children.
+     *
+     * @param node tree node to copy
+     */
+    public TreeNode(final TreeNode node) {
+        this.cfgnode = node.cfgnode;
+        this.id = node.id;
+        this.stmt = node.stmt;
+        this.expr = node.expr;
+        this.kind = node.kind;
+        this.defVariable = node.defVariable;
+        this.useVariables = new HashSet<String>(node.useVariables);
     }
 
     /**
@@ -69,6 +85,7 @@ public class TreeNode extends Node<TreeNode, TreeEdge> {
     }
 
     public void setParent(final TreeNode parent) {
+        checkNotSealed();
         this.parent = parent;
     }
 
@@ -81,28 +98,32 @@ public class TreeNode extends Node<TreeNode, TreeEdge> {
     }
 
     public Set<String> getUseVariables() {
-        return useVariables;
+        return isSealed() ? Collections.unmodifiableSet(useVariables) : useVariables;
     }
 
     public void setDefVariable(final String defVariables) {
+        checkNotSealed();
         this.defVariable = defVariables;
     }
 
     public void setUseVariables(final HashSet<String> useVariables) {
+        checkNotSealed();
         this.useVariables = useVariables;
     }
 
     public void addUseVariable(final String useVariables) {
+        checkNotSealed();
         this.useVariables.add(useVariables);
     }
 
     public void addChild(final TreeNode node) {
+        checkNotSealed();
         if (!children.contains(node))
             children.add(node);
     }
 
     public List<TreeNode> getChildren() {
-        return children;
+        return isSealed() ? Collections.unmodifiableList(children) : children;
     }
 
     @Override
@@ -17,9 +17,14 @@
  */
 package boa.io;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.util.PriorityQueue;
 
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -34,6 +39,8 @@ import org.apache.hadoop.mapreduce.JobStatus;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
 
+import boa.runtime.BoaPartitioner;
+
 /**
  * A {@link FileOutputCommitter} that stores the job results into a database.
  *
@@ -56,6 +63,9 @@ public class BoaOutputCommitter extends FileOutputCommitter {
 	public void commitJob(final JobContext context) throws java.io.IOException {
 		super.commitJob(context);
 
+		if (isStitched(context))
+			stitchOutput(context);
+
 		final int boaJobId = context.getConfiguration().getInt("boa.hadoop.jobid", 0);
 		storeOutput(context, boaJobId);
 		updateStatus(null, boaJobId);
@@ -145,13 +155,8 @@ public class BoaOutputCommitter extends FileOutputCommitter {
 			int length = 0;
 			String output = "";
 
-			// ensure the reducer class is initialized in the cleanup task
-			try {
-				context.getReducerClass().getConstructor().newInstance();
-			} catch (final ReflectiveOperationException e) { }
-
 			while (true) {
-				final Path path = new Path(outputPath, "part-r-" + String.format("%05d", partNum));
+				final Path path = getPartPath(outputPath, partNum);
 				if (!fileSystem.exists(path))
 					break;
 
@@ -197,6 +202,140 @@ public class BoaOutputCommitter extends FileOutputCommitter {
 		}
 	}
 
+	/**
+	 * Returns if the job spreads some output variable across several reducers,
+	 * so its part files get merged when the job is committed.
+	 * 
+	 * @param context
+	 *            The {@link JobContext} of the job or one of its tasks
+	 * @return if the part files will be merged
+	 */
+	static boolean isStitched(final JobContext context) {
+		// ensure the reducer class is initialized, which sets the output variables
+		try {
+			Class.forName(context.getReducerClass().getName(), true, context.getReducerClass().getClassLoader());
+		} catch (final ClassNotFoundException e) { }
+
+		final int[] offsets = BoaPartitioner.getOffsets(BoaPartitioner.getReducersPerVariable(context.getConfiguration()));
+		final int vars = offsets.length - 1;
+		return offsets[vars] != vars && context.getNumReduceTasks() == offsets[vars];
+	}
+
+	/**
+	 * Output variables spread across several reducers leave one (ordered) part
+	 * file per reducer.  Merge those back together, so that part {@code i}
+	 * holds all of output variable {@code i}, in order, as if each variable
+	 * had been given a single reducer.
+	 */
+	private void stitchOutput(final JobContext context) throws java.io.IOException {
+		final int[] offsets = BoaPartitioner.getOffsets(BoaPartitioner.getReducersPerVariable(context.getConfiguration()));
+		final int vars = offsets.length - 1;
+		final FileSystem fileSystem = outputPath.getFileSystem(context.getConfiguration());
+		final Path stitchPath = new Path(outputPath, "_stitch");
+
+		for (int i = 0; i < vars; i++)
+			mergeParts(fileSystem, offsets[i], offsets[i + 1], getPartPath(stitchPath, i));
+
+		for (int partNum = 0; partNum < offsets[vars]; partNum++)
+			fileSystem.delete(getPartPath(outputPath, partNum), false);
+		for (int i = 0; i < vars; i++)
+			fileSystem.rename(getPartPath(stitchPath, i), getPartPath(outputPath, i));
+		fileSystem.delete(stitchPath, true);
+	}
+
+	private void mergeParts(final FileSystem fileSystem, final int first, final int last, final Path out) throws java.io.IOException {
+		final PriorityQueue<PartReader> readers = new PriorityQueue<PartReader>();
+		final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fileSystem.create(out), "UTF-8"));
+		try {
+			for (int partNum = first; partNum < last; partNum++) {
+				final Path path = getPartPath(outputPath, partNum);
+				if (!fileSystem.exists(path))
+					continue;
+
+				final PartReader reader = new PartReader(new BufferedReader(new InputStreamReader(fileSystem.open(path), "UTF-8")));
+				if (reader.next())
+					readers.add(reader);
+				else
+					reader.close();
+			}
+
+			while (!readers.isEmpty()) {
+				final PartReader reader = readers.poll();
+				writer.write(reader.record);
+
+				if (reader.next())
+					readers.add(reader);
+				else
+					reader.close();
+
+				this.context.progress();
+			}
+		} finally {
+			for (final PartReader reader : readers)
+				try { reader.close(); } catch (final Exception e) { e.printStackTrace(); }
+			writer.close();
+		}
+	}
+
+	private static Path getPartPath(final Path dir, final int partNum) {
+		return new Path(dir, "part-r-" + String.format("%05d", partNum));
+	}
+
+	/**
+	 * Reads the output records of one part file, ordered by their index.
+	 * Each record comes after a header line giving the length of its index
+	 * and of its text, as framed by {@link BoaOutputFormat}.
+	 */
+	private static class PartReader implements Comparable<PartReader> {
+		private final BufferedReader in;
+
+		String record;
+		String index;
+
+		PartReader(final BufferedReader in) {
+			this.in = in;
+		}
+
+		boolean next() throws java.io.IOException {
+			final String header = this.in.readLine();
+			if (header == null)
+				return false;
+
+			final int space = header.indexOf(' ');
+			if (space == -1)
+				throw new java.io.IOException("malformed output record header: " + header);
+
+			try {
+				this.index = read(Integer.parseInt(header.substring(0, space)));
+				this.record = read(Integer.parseInt(header.substring(space + 1)));
+			} catch (final NumberFormatException e) {
+				throw new java.io.IOException("malformed output record header: " + header, e);
+			}
+			return true;
+		}
+
+		private String read(final int length) throws java.io.IOException {
+			final char[] buf = new char[length];
+			for (int off = 0; off < length; ) {
+				final int n = this.in.read(buf, off, length - off);
+				if (n == -1)
+					throw new java.io.EOFException("truncated output record");
+				off += n;
+			}
+			return new String(buf);
+		}
+
+		void close() throws java.io.IOException {
+			this.in.close();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int compareTo(final PartReader that) {
+			return EmitKey.compareIndices(this.index, that.index);
+		}
+	}
+
 	public static void setJobID(final String id, final int jobId) {
 		if (jobId == 0)
 			return;
@@ -16,7 +16,14 @@
  */
 package boa.io;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
@@ -24,6 +31,12 @@ import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 /**
  * Uses our custom output committer.
  * 
+ * Each record is the key's text on its own line.  The value is the index the
+ * record was emitted to, and is only written when the output committer will
+ * merge part files (see {@link BoaOutputCommitter#isStitched}).  Records are
+ * then framed by a header line holding the lengths of the index and of the
+ * record, so they are read back exactly as written whatever text they hold.
+ * 
  * @author rdyer
  *
  * @param <K> the type of keys
@@ -38,4 +51,43 @@ public class BoaOutputFormat<K, V> extends TextOutputFormat<K, V> {
 			committer = new BoaOutputCommitter(getOutputPath(context), context);
 		return committer;
 	}
+
+	@Override
+	public RecordWriter<K, V> getRecordWriter(final TaskAttemptContext context) throws IOException, InterruptedException {
+		final Path file = getDefaultWorkFile(context, "");
+		final Writer out = new BufferedWriter(new OutputStreamWriter(file.getFileSystem(context.getConfiguration()).create(file, false), "UTF-8"));
+		return new BoaRecordWriter<K, V>(out, BoaOutputCommitter.isStitched(context));
+	}
+
+	/**
+	 * Writes one line per record, each preceded by its frame if the part
+	 * files will be merged.
+	 */
+	protected static class BoaRecordWriter<K, V> extends RecordWriter<K, V> {
+		private final Writer out;
+		private final boolean framed;
+
+		protected BoaRecordWriter(final Writer out, final boolean framed) {
+			this.out = out;
+			this.framed = framed;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public synchronized void write(final K key, final V value) throws IOException {
+			final String record = key + "\n";
+			if (this.framed) {
+				final String index = value == null ? "" : value.toString();
+				this.out.write(index.length() + " " + record.length() + "\n");
+				this.out.write(index);
+			}
+			this.out.write(record);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public synchronized void close(final TaskAttemptContext context) throws IOException {
+			this.out.close();
+		}
+	}
 }
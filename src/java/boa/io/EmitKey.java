@@ -20,23 +20,39 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.hadoop.io.RawComparator;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 
 /**
  * A {@link WritableComparable} that contains a low resolution key which is the
  * name of the table this value is being emitted to, and a high resolution key
  * which is an index into that table.
  * 
+ * Names of the program's output variables are interned: a key is serialized
+ * as a small number (the position of its name in the sorted list of output
+ * variables) followed by the index, and only names not known to the program
+ * are written out in full.
+ * 
  * @author anthonyu
  * @author rdyer
  */
 public class EmitKey implements WritableComparable<EmitKey>, RawComparator<EmitKey>, Serializable {
 	private static final long serialVersionUID = -6302400030199718829L;
 
+	private static String[] variableNames = new String[0];
+	private static Map<String, Integer> variableIds = new HashMap<String, Integer>();
+
+	static {
+		WritableComparator.define(EmitKey.class, new Comparator());
+	}
+
 	private String index;
 	private String name;
 
@@ -77,24 +93,55 @@ public class EmitKey implements WritableComparable<EmitKey>, RawComparator<EmitK
 		this.name = name;
 	}
 
+	/**
+	 * Set the names of the output variables, which are then serialized as
+	 * their position in the (sorted) list.
+	 * 
+	 * @param names
+	 *            An array of {@link String} containing the output variable
+	 *            names
+	 */
+	public static void setVariableNames(final String[] names) {
+		final String[] sorted = names.clone();
+		Arrays.sort(sorted);
+
+		final Map<String, Integer> ids = new HashMap<String, Integer>();
+		for (int i = 0; i < sorted.length; i++)
+			ids.put(sorted[i], i + 1);
+
+		variableNames = sorted;
+		variableIds = ids;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void readFields(final DataInput in) throws IOException {
+		final int id = WritableUtils.readVInt(in);
+		if (id == 0)
+			this.name = Text.readString(in);
+		else
+			this.name = variableNames[id - 1];
 		this.index = Text.readString(in);
-		this.name = Text.readString(in);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void write(final DataOutput out) throws IOException {
+		// 0 means the name is not interned and follows in full
+		final Integer id = variableIds.get(this.name);
+		if (id == null) {
+			WritableUtils.writeVInt(out, 0);
+			Text.writeString(out, this.name);
+		} else {
+			WritableUtils.writeVInt(out, id);
+		}
 		Text.writeString(out, this.index);
-		Text.writeString(out, this.name);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public int compare(final byte[] b1, final int s1, final int l1, final byte[] b2, final int s2, final int l2) {
-		return WritableComparator.compareBytes(b1, s1, l1, b2, s2, l2);
+		return Comparator.compareKeys(b1, s1, b2, s2);
 	}
 
 	/** {@inheritDoc} */
@@ -112,7 +159,96 @@ public class EmitKey implements WritableComparable<EmitKey>, RawComparator<EmitK
 			return c;
 
 		// compare the indices
-		return this.index.compareTo(that.index);
+		return compareIndices(this.index, that.index);
+	}
+
+	/**
+	 * Compare two indices by code point, which matches the order of their
+	 * serialized (UTF-8) bytes.
+	 */
+	static int compareIndices(final String a, final String b) {
+		final int len = Math.min(a.length(), b.length());
+		for (int i = 0; i < len; i++) {
+			final char c1 = a.charAt(i);
+			final char c2 = b.charAt(i);
+			if (c1 != c2) {
+				if (Character.isSurrogate(c1) || Character.isSurrogate(c2))
+					return Integer.compare(a.codePointAt(i), b.codePointAt(i));
+				return c1 - c2;
+			}
+		}
+		return a.length() - b.length();
+	}
+
+	/**
+	 * A {@link WritableComparator} that orders serialized {@link EmitKey}s
+	 * the same as {@link EmitKey#compareTo(EmitKey)}, by name and then by
+	 * index, without deserializing them.
+	 * 
+	 * @author agent
+	 */
+	public static class Comparator extends WritableComparator {
+		public Comparator() {
+			super(EmitKey.class);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int compare(final byte[] b1, final int s1, final int l1, final byte[] b2, final int s2, final int l2) {
+			return compareKeys(b1, s1, b2, s2);
+		}
+
+		static int compareKeys(final byte[] b1, final int s1, final byte[] b2, final int s2) {
+			try {
+				int p1 = s1;
+				int p2 = s2;
+
+				final int id1 = readVInt(b1, p1);
+				final int id2 = readVInt(b2, p2);
+				p1 += WritableUtils.decodeVIntSize(b1[p1]);
+				p2 += WritableUtils.decodeVIntSize(b2[p2]);
+
+				// compare the names
+				if (id1 != 0 && id2 != 0) {
+					// ids follow the sorted order of the names
+					if (id1 != id2)
+						return id1 < id2 ? -1 : 1;
+				} else {
+					final String name1;
+					if (id1 == 0) {
+						final int len = readVInt(b1, p1);
+						p1 += WritableUtils.decodeVIntSize(b1[p1]);
+						name1 = Text.decode(b1, p1, len);
+						p1 += len;
+					} else {
+						name1 = variableNames[id1 - 1];
+					}
+
+					final String name2;
+					if (id2 == 0) {
+						final int len = readVInt(b2, p2);
+						p2 += WritableUtils.decodeVIntSize(b2[p2]);
+						name2 = Text.decode(b2, p2, len);
+						p2 += len;
+					} else {
+						name2 = variableNames[id2 - 1];
+					}
+
+					final int c = name1.compareTo(name2);
+					if (c != 0)
+						return c;
+				}
+
+				// compare the indices
+				final int len1 = readVInt(b1, p1);
+				final int len2 = readVInt(b2, p2);
+				p1 += WritableUtils.decodeVIntSize(b1[p1]);
+				p2 += WritableUtils.decodeVIntSize(b2[p2]);
+				return compareBytes(b1, p1, len1, b2, p2, len2);
+			} catch (final IOException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
 	}
 
 	/** {@inheritDoc} */
@@ -24,6 +24,7 @@ import java.util.Arrays;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
 import boa.functions.BoaCasts;
 
@@ -31,12 +32,34 @@ import boa.functions.BoaCasts;
  * A {@link Writable} that contains a datum and an optional metadatum to be
  * emitted to a Boa table.
  * 
+ * Ints and floats are kept (and serialized) in their native form, as a
+ * variable-length long or a raw double, so aggregators can consume them
+ * without a round-trip through {@link String}.  Only real strings (and
+ * tuples, which are emitted as their string form) are written as
+ * length-prefixed UTF-8.
+ * 
  * @author anthonyu
  * @author rdyer
  */
 public class EmitValue implements Writable {
+	/**
+	 * The kinds of values an {@link EmitValue} can hold.
+	 */
+	public enum Kind {
+		NONE, STRING, LONG, DOUBLE
+	}
+
+	private static final Kind[] kinds = Kind.values();
+
+	private Kind dataKind;
 	private String[] data;
+	private long longData;
+	private double doubleData;
+
+	private Kind metadataKind;
 	private String metadata;
+	private long longMetadata;
+	private double doubleMetadata;
 
 	/**
 	 * Construct an EmitValue.
@@ -54,8 +77,8 @@ public class EmitValue implements Writable {
 	 *            A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final String[] data, final String metadata) {
-		this.data = data;
-		this.metadata = metadata;
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -82,20 +105,70 @@ public class EmitValue implements Writable {
 		for (int i = 0; i < data.length; i++)
 			strings[i] = data[i].toString();
 
-		this.data = strings;
-		this.metadata = metadata;
+		this.setData(strings);
+		this.setMetadata(metadata);
 	}
 
 	/**
 	 * Construct an EmitValue.
 	 * 
 	 * @param data
-	 *            An array of {@link String} containing the data to be emitted
+	 *            An array of {@link Object} containing the data to be emitted
 	 */
 	public EmitValue(final Object[] data) {
 		this(data, null);
 	}
 
+	/**
+	 * Construct an EmitValue.
+	 * 
+	 * @param data
+	 *            An {@link Object} (such as a tuple) whose string form is the
+	 *            data to be emitted
+	 */
+	public EmitValue(final Object data) {
+		this(data.toString(), null);
+	}
+
+	/**
+	 * Construct an EmitValue.
+	 * 
+	 * @param data
+	 *            An {@link Object} (such as a tuple) whose string form is the
+	 *            data to be emitted
+	 * @param metadata
+	 *            A {@link String} containing the metadata to be emitted
+	 */
+	public EmitValue(final Object data, final String metadata) {
+		this(data.toString(), metadata);
+	}
+
+	/**
+	 * Construct an EmitValue.
+	 * 
+	 * @param data
+	 *            An {@link Object} (such as a tuple) whose string form is the
+	 *            data to be emitted
+	 * @param metadata
+	 *            A long representing the metadata to be emitted
+	 */
+	public EmitValue(final Object data, final long metadata) {
+		this(data.toString(), metadata);
+	}
+
+	/**
+	 * Construct an EmitValue.
+	 * 
+	 * @param data
+	 *            An {@link Object} (such as a tuple) whose string form is the
+	 *            data to be emitted
+	 * @param metadata
+	 *            A double representing the metadata to be emitted
+	 */
+	public EmitValue(final Object data, final double metadata) {
+		this(data.toString(), metadata);
+	}
+
 	/**
 	 * Construct an EmitValue.
 	 * 
@@ -127,7 +200,8 @@ public class EmitValue implements Writable {
 	 *            A long representing the metadata to be emitted
 	 */
 	public EmitValue(final String data, final long metadata) {
-		this(new String[] { data }, BoaCasts.longToString(metadata));
+		this.setData(new String[] { data });
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -139,7 +213,8 @@ public class EmitValue implements Writable {
 	 *            A double representing the metadata to be emitted
 	 */
 	public EmitValue(final String data, final double metadata) {
-		this(new String[] { data }, BoaCasts.doubleToString(metadata));
+		this.setData(new String[] { data });
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -149,7 +224,7 @@ public class EmitValue implements Writable {
 	 *            A long representing the data to be emitted
 	 */
 	public EmitValue(final long data) {
-		this(new String[] { BoaCasts.longToString(data) }, null);
+		this(data, null);
 	}
 
 	/**
@@ -161,7 +236,8 @@ public class EmitValue implements Writable {
 	 *            A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final long data, final String metadata) {
-		this(new String[] { BoaCasts.longToString(data) }, metadata);
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -173,7 +249,8 @@ public class EmitValue implements Writable {
 	 *            A long representing the metadata to be emitted
 	 */
 	public EmitValue(final long data, final long metadata) {
-		this(new String[] { BoaCasts.longToString(data) }, BoaCasts.longToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -185,7 +262,8 @@ public class EmitValue implements Writable {
 	 *            A double representing the metadata to be emitted
 	 */
 	public EmitValue(final long data, final double metadata) {
-		this(new String[] { BoaCasts.longToString(data) }, BoaCasts.doubleToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -195,7 +273,7 @@ public class EmitValue implements Writable {
 	 *            A double representing the data to be emitted
 	 */
 	public EmitValue(final double data) {
-		this(new String[] { BoaCasts.doubleToString(data) }, null);
+		this(data, null);
 	}
 
 	/**
@@ -207,7 +285,8 @@ public class EmitValue implements Writable {
 	 *            A {@link String} containing the metadata to be emitted
 	 */
 	public EmitValue(final double data, final String metadata) {
-		this(new String[] { BoaCasts.doubleToString(data) }, metadata);
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -219,7 +298,8 @@ public class EmitValue implements Writable {
 	 *            A long representing the metadata to be emitted
 	 */
 	public EmitValue(final double data, final long metadata) {
-		this(new String[] { BoaCasts.doubleToString(data) }, BoaCasts.longToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -231,7 +311,8 @@ public class EmitValue implements Writable {
 	 *            A double representing the metadata to be emitted
 	 */
 	public EmitValue(final double data, final double metadata) {
-		this(new String[] { BoaCasts.doubleToString(data) }, BoaCasts.doubleToString(metadata));
+		this.setData(data);
+		this.setMetadata(metadata);
 	}
 
 	/**
@@ -265,7 +346,7 @@ public class EmitValue implements Writable {
 	 *            A long representing the metadata to be emitted
 	 */
 	public EmitValue(final boolean data, final long metadata) {
-		this(new String[] { BoaCasts.booleanToString(data) }, BoaCasts.longToString(metadata));
+		this(BoaCasts.booleanToString(data), metadata);
 	}
 
 	/**
@@ -277,44 +358,115 @@ public class EmitValue implements Writable {
 	 *            A double representing the metadata to be emitted
 	 */
 	public EmitValue(final boolean data, final double metadata) {
-		this(new String[] { BoaCasts.booleanToString(data) }, BoaCasts.doubleToString(metadata));
+		this(BoaCasts.booleanToString(data), metadata);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void readFields(final DataInput in) throws IOException {
-		final int count = in.readInt();
-
-		this.data = new String[count];
-		for (int i = 0; i < count; i++)
-			this.data[i] = Text.readString(in);
-
-		final String metadata = Text.readString(in);
-		if (metadata.equals(""))
-			this.metadata = null;
-		else
-			this.metadata = metadata;
+		// the low nibble holds the kind of the data, the high nibble the kind of the metadata
+		final byte kinds = in.readByte();
+
+		this.dataKind = EmitValue.kinds[kinds & 0x0f];
+		switch (this.dataKind) {
+			case LONG:
+				this.longData = WritableUtils.readVLong(in);
+				break;
+			case DOUBLE:
+				this.doubleData = in.readDouble();
+				break;
+			default:
+				final int count = WritableUtils.readVInt(in);
+				this.data = new String[count];
+				for (int i = 0; i < count; i++)
+					this.data[i] = Text.readString(in);
+				break;
+		}
+
+		this.metadataKind = EmitValue.kinds[(kinds >> 4) & 0x0f];
+		this.metadata = null;
+		switch (this.metadataKind) {
+			case STRING:
+				this.metadata = Text.readString(in);
+				break;
+			case LONG:
+				this.longMetadata = WritableUtils.readVLong(in);
+				break;
+			case DOUBLE:
+				this.doubleMetadata = in.readDouble();
+				break;
+			default:
+				break;
+		}
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void write(final DataOutput out) throws IOException {
-		out.writeInt(this.data.length);
-
-		for (final String d : this.data)
-			Text.writeString(out, d);
+		out.writeByte(this.dataKind.ordinal() | this.metadataKind.ordinal() << 4);
+
+		switch (this.dataKind) {
+			case LONG:
+				WritableUtils.writeVLong(out, this.longData);
+				break;
+			case DOUBLE:
+				out.writeDouble(this.doubleData);
+				break;
+			default:
+				WritableUtils.writeVInt(out, this.data.length);
+				for (final String d : this.data)
+					Text.writeString(out, d);
+				break;
+		}
+
+		switch (this.metadataKind) {
+			case STRING:
+				Text.writeString(out, this.metadata);
+				break;
+			case LONG:
+				WritableUtils.writeVLong(out, this.longMetadata);
+				break;
+			case DOUBLE:
+				out.writeDouble(this.doubleMetadata);
+				break;
+			default:
+				break;
+		}
+	}
 
-		if (this.metadata == null)
-			Text.writeString(out, "");
-		else
-			Text.writeString(out, this.metadata);
+	/**
+	 * @return the kind of the data
+	 */
+	public Kind getDataKind() {
+		return this.dataKind;
 	}
 
 	/**
-	 * @return the data
+	 * @return the data, converted to strings if it is not already
 	 */
 	public String[] getData() {
-		return this.data;
+		switch (this.dataKind) {
+			case LONG:
+				return new String[] { BoaCasts.longToString(this.longData) };
+			case DOUBLE:
+				return new String[] { BoaCasts.doubleToString(this.doubleData) };
+			default:
+				return this.data;
+		}
+	}
+
+	/**
+	 * @return the data, if it is a long
+	 */
+	public long getLongData() {
+		return this.longData;
+	}
+
+	/**
+	 * @return the data, if it is a double
+	 */
+	public double getDoubleData() {
+		return this.doubleData;
 	}
 
 	/**
@@ -322,14 +474,63 @@ public class EmitValue implements Writable {
 	 *            the data to set
 	 */
 	public void setData(final String[] data) {
+		this.dataKind = Kind.STRING;
 		this.data = data;
 	}
 
 	/**
-	 * @return the metadata
+	 * @param data
+	 *            the data to set
+	 */
+	public void setData(final long data) {
+		this.dataKind = Kind.LONG;
+		this.data = null;
+		this.longData = data;
+	}
+
+	/**
+	 * @param data
+	 *            the data to set
+	 */
+	public void setData(final double data) {
+		this.dataKind = Kind.DOUBLE;
+		this.data = null;
+		this.doubleData = data;
+	}
+
+	/**
+	 * @return the kind of the metadata
+	 */
+	public Kind getMetadataKind() {
+		return this.metadataKind;
+	}
+
+	/**
+	 * @return the metadata, converted to a string if it is not already
 	 */
 	public String getMetadata() {
-		return this.metadata;
+		switch (this.metadataKind) {
+			case LONG:
+				return BoaCasts.longToString(this.longMetadata);
+			case DOUBLE:
+				return BoaCasts.doubleToString(this.doubleMetadata);
+			default:
+				return this.metadata;
+		}
+	}
+
+	/**
+	 * @return the metadata, if it is a long
+	 */
+	public long getLongMetadata() {
+		return this.longMetadata;
+	}
+
+	/**
+	 * @return the metadata, if it is a double
+	 */
+	public double getDoubleMetadata() {
+		return this.doubleMetadata;
 	}
 
 	/**
@@ -337,15 +538,58 @@ public class EmitValue implements Writable {
 	 *            the metadatum to set
 	 */
 	public void setMetadata(final String metadata) {
+		this.metadataKind = metadata == null ? Kind.NONE : Kind.STRING;
 		this.metadata = metadata;
 	}
 
+	/**
+	 * @param metadata
+	 *            the metadatum to set
+	 */
+	public void setMetadata(final long metadata) {
+		this.metadataKind = Kind.LONG;
+		this.metadata = null;
+		this.longMetadata = metadata;
+	}
+
+	/**
+	 * @param metadata
+	 *            the metadatum to set
+	 */
+	public void setMetadata(final double metadata) {
+		this.metadataKind = Kind.DOUBLE;
+		this.metadata = null;
+		this.doubleMetadata = metadata;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(this.data);
-		result = prime * result + (this.metadata == null ? 0 : this.metadata.hashCode());
+		result = prime * result + this.dataKind.hashCode();
+		switch (this.dataKind) {
+			case LONG:
+				result = prime * result + Long.hashCode(this.longData);
+				break;
+			case DOUBLE:
+				result = prime * result + Double.hashCode(this.doubleData);
+				break;
+			default:
+				result = prime * result + Arrays.hashCode(this.data);
+				break;
+		}
+		result = prime * result + this.metadataKind.hashCode();
+		switch (this.metadataKind) {
+			case LONG:
+				result = prime * result + Long.hashCode(this.longMetadata);
+				break;
+			case DOUBLE:
+				result = prime * result + Double.hashCode(this.doubleMetadata);
+				break;
+			default:
+				result = prime * result + (this.metadata == null ? 0 : this.metadata.hashCode());
+				break;
+		}
 		return result;
 	}
 
@@ -358,19 +602,37 @@ public class EmitValue implements Writable {
 		if (this.getClass() != obj.getClass())
 			return false;
 		final EmitValue other = (EmitValue) obj;
-		if (!Arrays.equals(this.data, other.data))
-			return false;
-		if (this.metadata == null) {
-			if (other.metadata != null)
-				return false;
-		} else if (!this.metadata.equals(other.metadata))
+		if (this.dataKind != other.dataKind || this.metadataKind != other.metadataKind)
 			return false;
-		return true;
+		switch (this.dataKind) {
+			case LONG:
+				if (this.longData != other.longData)
+					return false;
+				break;
+			case DOUBLE:
+				if (Double.compare(this.doubleData, other.doubleData) != 0)
+					return false;
+				break;
+			default:
+				if (!Arrays.equals(this.data, other.data))
+					return false;
+				break;
+		}
+		switch (this.metadataKind) {
+			case LONG:
+				return this.longMetadata == other.longMetadata;
+			case DOUBLE:
+				return Double.compare(this.doubleMetadata, other.doubleMetadata) == 0;
+			default:
+				if (this.metadata == null)
+					return other.metadata == null;
+				return this.metadata.equals(other.metadata);
+		}
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public String toString() {
-		return Arrays.toString(this.data) + ":" + this.metadata;
+		return Arrays.toString(this.getData()) + ":" + this.getMetadata();
 	}
 }
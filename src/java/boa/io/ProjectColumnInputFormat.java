@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.io;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileRecordReader;
+
+import com.google.protobuf.CodedInputStream;
+
+import boa.types.Toplevel.Project;
+
+/**
+ * Reads projects from a column-split dataset (see {@link ProjectColumns}).
+ * The meta column is split as usual, and for each project the columns named
+ * in {@link #COLUMNS} are looked up by the project's position and merged in.
+ * Records are keyed by project id, just like <code>projects.seq</code>.
+ *
+ * @author agent
+ */
+public class ProjectColumnInputFormat extends SequenceFileInputFormat<Text, BytesWritable> {
+	public static final String COLUMNS = "boa.input.columns";
+
+	/** {@inheritDoc} */
+	@Override
+	public RecordReader<Text, BytesWritable> createRecordReader(final InputSplit split, final TaskAttemptContext context) throws IOException {
+		return new ProjectColumnRecordReader();
+	}
+
+	static class ProjectColumnRecordReader extends RecordReader<Text, BytesWritable> {
+		private final SequenceFileRecordReader<LongWritable, BytesWritable> meta = new SequenceFileRecordReader<LongWritable, BytesWritable>();
+		private MapFile.Reader[] readers;
+		private BytesWritable[] columns;
+		private boolean[] found;
+
+		private final Text key = new Text();
+		private final BytesWritable value = new BytesWritable();
+
+		/** {@inheritDoc} */
+		@Override
+		public void initialize(final InputSplit split, final TaskAttemptContext context) throws IOException, InterruptedException {
+			this.meta.initialize(split, context);
+
+			final Configuration conf = context.getConfiguration();
+			final Path dir = ((FileSplit) split).getPath().getParent();
+			final FileSystem fs = dir.getFileSystem(conf);
+			String[] names = conf.getStrings(COLUMNS);
+			if (names == null)
+				names = new String[0];
+
+			this.readers = new MapFile.Reader[names.length];
+			this.columns = new BytesWritable[names.length];
+			this.found = new boolean[names.length];
+			for (int i = 0; i < names.length; i++) {
+				this.readers[i] = new MapFile.Reader(fs, new Path(dir, names[i]).toString(), conf);
+				this.columns[i] = new BytesWritable();
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean nextKeyValue() throws IOException, InterruptedException {
+			if (!this.meta.nextKeyValue())
+				return false;
+
+			final LongWritable ordinal = this.meta.getCurrentKey();
+			final BytesWritable m = this.meta.getCurrentValue();
+			this.key.set(ProjectColumns.readId(m.getBytes(), m.getLength()));
+
+			// projects are in order, so the lookups only ever move forward
+			boolean nested = false;
+			for (int i = 0; i < this.readers.length; i++) {
+				this.found[i] = this.readers[i].get(ordinal, this.columns[i]) != null;
+				nested |= i > 0 && this.found[i];
+			}
+
+			if (!nested) {
+				// meta has no repositories, so appending them is a merge
+				this.value.setSize(0);
+				append(m);
+				if (this.readers.length > 0 && this.found[0])
+					append(this.columns[0]);
+			} else {
+				final Project[] parts = new Project[ProjectColumns.COLUMNS.length];
+				for (int i = 0; i < this.readers.length; i++)
+					if (this.found[i])
+						parts[i] = parse(this.columns[i]);
+				final byte[] bytes = ProjectColumns.merge(parse(m), parts[0], parts[1], parts[2]).toByteArray();
+				this.value.set(bytes, 0, bytes.length);
+			}
+
+			return true;
+		}
+
+		private void append(final BytesWritable b) {
+			final int size = this.value.getLength();
+			this.value.setSize(size + b.getLength());
+			System.arraycopy(b.getBytes(), 0, this.value.getBytes(), size, b.getLength());
+		}
+
+		private static Project parse(final BytesWritable b) throws IOException {
+			return Project.newBuilder().mergeFrom(CodedInputStream.newInstance(b.getBytes(), 0, b.getLength())).buildPartial();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Text getCurrentKey() {
+			return this.key;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public BytesWritable getCurrentValue() {
+			return this.value;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public float getProgress() throws IOException {
+			return this.meta.getProgress();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void close() throws IOException {
+			this.meta.close();
+			if (this.readers != null)
+				for (final MapFile.Reader r : this.readers)
+					r.close();
+		}
+	}
+}
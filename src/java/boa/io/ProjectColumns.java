@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.StringUtils;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+import boa.types.Code.CodeRepository;
+import boa.types.Code.Revision;
+import boa.types.Toplevel.Project;
+
+/**
+ * The column-split layout of a dataset.  Each project is split into four
+ * columns, stored separately so a query only reads what it looks at:
+ *
+ * <ul>
+ * <li>meta: the project without its code repositories</li>
+ * <li>repos: the code repositories, without revisions or snapshots</li>
+ * <li>revisions: the revisions, without their changed files</li>
+ * <li>files: the changed files of each revision and head snapshot</li>
+ * </ul>
+ *
+ * Every column but meta is itself a (partial) project, where the repositories
+ * and revisions that hold nothing are kept empty so their indices line up.
+ * The header of meta records the <code>projects.seq</code> the columns were
+ * split from, so columns left over from an older dataset are not read.
+ *
+ * @author agent
+ */
+public class ProjectColumns {
+	public static final String DIR = "columns";
+
+	public static final String META = "meta";
+	public static final String REPOS = "repos";
+	public static final String REVISIONS = "revisions";
+	public static final String FILES = "files";
+
+	/** The columns after meta, each needing the ones before it. */
+	public static final String[] COLUMNS = { REPOS, REVISIONS, FILES };
+
+	/** The file the columns are split from, in the dataset's directory. */
+	public static final String SOURCE = "projects.seq";
+
+	// the entries of meta's header describing the source
+	private static final Text SOURCE_LENGTH = new Text("boa.columns.source.length");
+	private static final Text SOURCE_CHECKSUM = new Text("boa.columns.source.checksum");
+
+	/**
+	 * Describes a dataset's <code>projects.seq</code>, for the header of the
+	 * meta column split from it.
+	 *
+	 * @param fs
+	 *            The {@link FileSystem} holding the dataset
+	 * @param dataset
+	 *            The dataset's directory
+	 * @return its length, and its checksum if the file system has one
+	 * @throws IOException
+	 */
+	public static SequenceFile.Metadata describe(final FileSystem fs, final Path dataset) throws IOException {
+		final Path source = new Path(dataset, SOURCE);
+		final SequenceFile.Metadata m = new SequenceFile.Metadata();
+		m.set(SOURCE_LENGTH, new Text(Long.toString(fs.getFileStatus(source).getLen())));
+		final FileChecksum checksum = fs.getFileChecksum(source);
+		if (checksum != null)
+			m.set(SOURCE_CHECKSUM, new Text(checksum.getAlgorithmName() + ":" + StringUtils.byteToHexString(checksum.getBytes())));
+		return m;
+	}
+
+	/**
+	 * Returns true if the dataset has a column-split layout, and it was split
+	 * from the dataset's current <code>projects.seq</code>.
+	 *
+	 * @param fs
+	 *            The {@link FileSystem} holding the dataset
+	 * @param dataset
+	 *            The dataset's directory
+	 * @param conf
+	 *            The {@link Configuration} to read meta with
+	 * @return if the columns can be read in place of <code>projects.seq</code>
+	 * @throws IOException
+	 */
+	public static boolean isCurrent(final FileSystem fs, final Path dataset, final Configuration conf) throws IOException {
+		final Path meta = new Path(new Path(dataset, DIR), META);
+		if (!fs.exists(meta))
+			return false;
+		// with no projects.seq left, the columns are all there is
+		if (!fs.exists(new Path(dataset, SOURCE)))
+			return true;
+
+		final SequenceFile.Metadata recorded;
+		final SequenceFile.Reader r = new SequenceFile.Reader(fs, meta, conf);
+		try {
+			recorded = r.getMetadata();
+		} finally {
+			r.close();
+		}
+
+		final SequenceFile.Metadata current = describe(fs, dataset);
+		return current.get(SOURCE_LENGTH).equals(recorded.get(SOURCE_LENGTH))
+				&& (current.get(SOURCE_CHECKSUM) == null || current.get(SOURCE_CHECKSUM).equals(recorded.get(SOURCE_CHECKSUM)));
+	}
+
+	/**
+	 * Split a project into its columns.
+	 *
+	 * @param p
+	 *            The {@link Project} to split
+	 * @return the meta, repos, revisions and files columns, where columns
+	 *         with nothing in them are <code>null</code>
+	 */
+	public static Project[] split(final Project p) {
+		final Project meta = p.toBuilder().clearCodeRepositories().build();
+		if (p.getCodeRepositoriesCount() == 0)
+			return new Project[] { meta, null, null, null };
+
+		final Project.Builder repos = Project.newBuilder();
+		final Project.Builder revisions = Project.newBuilder();
+		final Project.Builder files = Project.newBuilder();
+		boolean hasRevisions = false, hasFiles = false;
+
+		for (final CodeRepository cr : p.getCodeRepositoriesList()) {
+			repos.addCodeRepositories(cr.toBuilder().clearRevisions().clearHeadSnapshot().build());
+
+			final CodeRepository.Builder revs = CodeRepository.newBuilder();
+			final CodeRepository.Builder fs = CodeRepository.newBuilder();
+			for (final Revision r : cr.getRevisionsList()) {
+				revs.addRevisions(r.toBuilder().clearFiles().build());
+				fs.addRevisions(Revision.newBuilder().addAllFiles(r.getFilesList()).buildPartial());
+				hasFiles |= r.getFilesCount() > 0;
+			}
+			fs.addAllHeadSnapshot(cr.getHeadSnapshotList());
+			hasRevisions |= cr.getRevisionsCount() > 0;
+			hasFiles |= cr.getHeadSnapshotCount() > 0;
+
+			revisions.addCodeRepositories(revs.buildPartial());
+			files.addCodeRepositories(fs.buildPartial());
+		}
+
+		return new Project[] {
+			meta,
+			repos.buildPartial(),
+			hasRevisions ? revisions.buildPartial() : null,
+			hasFiles ? files.buildPartial() : null
+		};
+	}
+
+	/**
+	 * Merge the columns of a project back together.
+	 *
+	 * @param meta
+	 *            The meta column
+	 * @param repos
+	 *            The repos column, or <code>null</code>
+	 * @param revisions
+	 *            The revisions column, or <code>null</code>
+	 * @param files
+	 *            The files column, or <code>null</code>
+	 * @return the merged {@link Project}
+	 */
+	public static Project merge(final Project meta, final Project repos, final Project revisions, final Project files) {
+		final Project.Builder pb = meta.toBuilder();
+		if (repos != null)
+			pb.addAllCodeRepositories(repos.getCodeRepositoriesList());
+
+		if (revisions != null)
+			for (int i = 0; i < revisions.getCodeRepositoriesCount() && i < pb.getCodeRepositoriesCount(); i++)
+				pb.getCodeRepositoriesBuilder(i).addAllRevisions(revisions.getCodeRepositories(i).getRevisionsList());
+
+		if (files != null)
+			for (int i = 0; i < files.getCodeRepositoriesCount() && i < pb.getCodeRepositoriesCount(); i++) {
+				final CodeRepository fs = files.getCodeRepositories(i);
+				final CodeRepository.Builder crb = pb.getCodeRepositoriesBuilder(i);
+				crb.addAllHeadSnapshot(fs.getHeadSnapshotList());
+				for (int j = 0; j < fs.getRevisionsCount() && j < crb.getRevisionsCount(); j++)
+					crb.getRevisionsBuilder(j).addAllFiles(fs.getRevisions(j).getFilesList());
+			}
+
+		return pb.buildPartial();
+	}
+
+	/**
+	 * Returns the columns needed to read the given project fields.  Meta is
+	 * always read and is not listed.
+	 *
+	 * @param fields
+	 *            The fields used, named "Type.field"
+	 * @return the columns needed, in the order they must be merged
+	 */
+	public static List<String> columnsFor(final Collection<String> fields) {
+		int last = -1;
+		if (fields.contains("Project.code_repositories"))
+			last = 0;
+		if (fields.contains("CodeRepository.revisions"))
+			last = 1;
+		if (fields.contains("Revision.files") || fields.contains("CodeRepository.head_snapshot"))
+			last = 2;
+
+		final List<String> columns = new ArrayList<String>();
+		for (int i = 0; i <= last; i++)
+			columns.add(COLUMNS[i]);
+		return columns;
+	}
+
+	/**
+	 * Reads the id of a serialized project, without parsing the rest.
+	 *
+	 * @param bytes
+	 *            The serialized {@link Project}
+	 * @param length
+	 *            The number of bytes used
+	 * @return the project's id
+	 * @throws IOException
+	 */
+	public static String readId(final byte[] bytes, final int length) throws IOException {
+		final CodedInputStream in = CodedInputStream.newInstance(bytes, 0, length);
+		while (true) {
+			final int tag = in.readTag();
+			if (tag == 0)
+				throw new IOException("project has no id");
+			if (WireFormat.getTagFieldNumber(tag) == Project.ID_FIELD_NUMBER)
+				return in.readString();
+			in.skipField(tag);
+		}
+	}
+}
@@ -22,6 +22,26 @@ package boa.runtime;
  * @author rramu
  */
 public abstract class BoaAbstractFixP {
+	private final boolean isReusable;
+
+	public BoaAbstractFixP() {
+		this(false);
+	}
+
+	/**
+	 * Creates a fixpoint function.
+	 *
+	 * @param isReusable if the function only looks at its arguments, so
+	 *            traversals using it may reuse their results
+	 */
+	public BoaAbstractFixP(final boolean isReusable) {
+		this.isReusable = isReusable;
+	}
+
+	public boolean isReusable() {
+		return isReusable;
+	}
+
 	public boolean invoke(Object curr, Object prev) throws Exception {
 		return true;
 	}
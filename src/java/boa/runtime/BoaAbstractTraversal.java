@@ -16,12 +16,21 @@
  */
 package boa.runtime;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Stack;
 
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import boa.functions.GraphCache;
+import boa.graphs.callgraph.CallGraph;
+import boa.graphs.callgraph.CallGraphNode;
 import boa.graphs.ddg.DDG;
 import boa.graphs.ddg.DDGNode;
 import boa.graphs.pdg.PDG;
@@ -39,34 +48,147 @@ import boa.graphs.cdg.*;
  * @author rramu
  */
 public abstract class BoaAbstractTraversal<T1> {
-	public java.util.HashMap<Long, T1> outputMapObj;
-	public java.util.HashMap<Long, T1> prevOutputMapObj;
+	/**
+	 * The configuration property holding how many times, on average, a
+	 * worklist traversal may visit each node before giving up.
+	 */
+	public static final String WORKLIST_BUDGET = "boa.traversal.worklist.budget";
+
+	private static final int DEFAULT_WORKLIST_BUDGET = 100;
+
+	public static enum TRAVERSALCOUNTER {
+		WORKLIST_BUDGET_EXCEEDED,
+		// in incremental mode, traversals of CFGs answered with saved results (or not)
+		RESULTS_REUSED,
+		RESULTS_COMPUTED,
+	};
+
+	// one traversal of a CFG, starting with no results
+	private static final class Run {
+		final CFG cfg;
+		final Traversal.TraversalDirection direction;
+		final Traversal.TraversalKind kind;
+		final BoaAbstractFixP fixp;
+
+		Run(final CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) {
+			this.cfg = cfg;
+			this.direction = direction;
+			this.kind = kind;
+			this.fixp = fixp;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(this.cfg) * 31 + this.direction.ordinal()) * 31 + this.kind.ordinal();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Run))
+				return false;
+			final Run r = (Run) o;
+			return r.cfg == this.cfg && r.direction == this.direction && r.kind == this.kind && r.fixp == this.fixp;
+		}
+	}
+
+	// the results of a run, and the results of other traversals it read
+	private static final class Saved<T> {
+		final TraversalResults<T> values;
+		final Map<BoaAbstractTraversal<?>, Saved<?>> read;
+
+		Saved(final TraversalResults<T> values, final Map<BoaAbstractTraversal<?>, Saved<?>> read) {
+			this.values = values;
+			this.read = read;
+		}
+	}
+
+	private static TaskInputOutputContext<?, ?, ?, ?> context;
+	private static int worklistBudget = DEFAULT_WORKLIST_BUDGET;
+
+	// the traversal whose results are being computed to be saved, if any, per
+	// thread as a project's files may be analyzed in parallel
+	private static final ThreadLocal<BoaAbstractTraversal<?>> computing = new ThreadLocal<BoaAbstractTraversal<?>>();
+
+	public TraversalResults<T1> outputMapObj;
+	public TraversalResults<T1> prevOutputMapObj;
 	public T1 currentResult;
 
 	boolean isLoopSensitive = false;
 	boolean isFlowSensitive = false;
+	final boolean isReusable;
+
+	// saved results of runs, most recently used last
+	private Map<Run, Saved<T1>> saved;
+	// the saved results outputMapObj holds, while its mod count is resultsModCount
+	private Saved<T1> results;
+	private int resultsModCount;
+	// while computing, the results of other traversals read so far, or null if
+	// one of them was not a saved result
+	private Map<BoaAbstractTraversal<?>, Saved<?>> read;
+
+	/**
+	 * Reads the traversal settings of a task.
+	 *
+	 * @param context the task's context, used for configuration and counters
+	 */
+	public static void setup(final TaskInputOutputContext<?, ?, ?, ?> context) {
+		BoaAbstractTraversal.context = context;
+		worklistBudget = context.getConfiguration().getInt(WORKLIST_BUDGET, DEFAULT_WORKLIST_BUDGET);
+	}
 
 	public BoaAbstractTraversal(boolean isFlowSensitive, boolean isLoopSensitive) {
+		this(isFlowSensitive, isLoopSensitive, false);
+	}
+
+	/**
+	 * Creates a traversal.
+	 *
+	 * @param isFlowSensitive if results flow between nodes
+	 * @param isLoopSensitive if results flow around loops
+	 * @param isReusable if the results only depend on the graph, and the
+	 *            results of other traversals, so in incremental mode a CFG
+	 *            traversed before is not traversed again
+	 */
+	public BoaAbstractTraversal(final boolean isFlowSensitive, final boolean isLoopSensitive, final boolean isReusable) {
 		this.isFlowSensitive = isFlowSensitive;
 		this.isLoopSensitive = isLoopSensitive;
+		this.isReusable = isReusable;
 	}
 
 	public T1 getValue(final CFGNode node) throws Exception {
+		noteRead();
 		return (T1)outputMapObj.get(node.getId());
 	}
 
 	public T1 getValue(final CDGNode node) throws Exception {
+		noteRead();
 		return (T1)outputMapObj.get(node.getId());
 	}
 
 	public T1 getValue(final DDGNode node) throws Exception {
+		noteRead();
 		return (T1)outputMapObj.get(node.getId());
 	}
 
 	public T1 getValue(final PDGNode node) throws Exception {
+		noteRead();
+		return (T1)outputMapObj.get(node.getId());
+	}
+
+	public T1 getValue(final CallGraphNode node) throws Exception {
+		noteRead();
 		return (T1)outputMapObj.get(node.getId());
 	}
 
+	// lets the traversal being computed know it read this traversal's results
+	private void noteRead() {
+		final BoaAbstractTraversal<?> c = computing.get();
+		if (c != null && c != this)
+			c.readFrom(this);
+	}
+
 	public void clear() {
 		if (outputMapObj != null)
 			outputMapObj.clear();
@@ -116,6 +238,10 @@ public abstract class BoaAbstractTraversal<T1> {
 		return defaultPreTraverse();
 	}
 
+	protected boolean preTraverse(final CallGraph cg) throws Exception {
+		return defaultPreTraverse();
+	}
+
 	public final void traverse(final CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final String str) throws Exception {
 		traverse(cfg, direction, kind);
 	}
@@ -273,56 +399,6 @@ public abstract class BoaAbstractTraversal<T1> {
 		stack.push(node);
 	}
 
-	public final void worklistReversePostorderForward(final Stack<CFGNode> stack, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		int nodeCount = 0;
-		while (!stack.isEmpty()) {
-			final CFGNode node = stack.pop();
-			traverse(node, true);
-			nodeCount++;
-			// FIXME why is this here?
-			if (nodeCount > 3500) {
-				return;
-			}
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
-			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
-			if (!fixpFlag) {
-				for (final CFGNode succ : node.getSuccessors()) {
-					if (!stack.contains(succ))
-						stack.push(succ);
-				}
-			}
-			prevOutputMapObj.put(node.getId(), currentResult);
-		}
-	}
-
-	public final void worklistReversePostorderBackward(final Stack<CFGNode> stack, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		while (!stack.isEmpty()) {
-			final CFGNode node = stack.pop();
-			traverse(node, true);
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
-			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
-			if (!fixpFlag) {
-				for (final CFGNode succ : node.getPredecessors()) {
-					if (!stack.contains(succ))
-						stack.push(succ);
-				}
-			}
-			prevOutputMapObj.put(node.getId(), currentResult);
-		}
-	}
-
 	public final void worklistReversePostorderWithoutFixp(final Stack<CFGNode> stack, final Traversal.TraversalKind kind) throws Exception {
 		while (!stack.isEmpty()) {
 			final CFGNode node = stack.pop();
@@ -351,55 +427,205 @@ public abstract class BoaAbstractTraversal<T1> {
 		}
 	}
 
-	public final void worklistPostorderBackward(final Queue<CFGNode> queue, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		while (!queue.isEmpty()) {
-			final CFGNode node = queue.remove();
+	/**
+	 * Solves a dataflow problem over a CFG with a worklist.  Pending nodes are
+	 * kept in a bit set ordered by their position in <code>order</code>, so the
+	 * earliest pending node is always visited next and each node is pending at
+	 * most once.  After a node is visited, its successors (or predecessors)
+	 * become pending unless <code>fixp</code> says its result did not change.
+	 *
+	 * Each node may be visited {@link #WORKLIST_BUDGET} times on average; if the
+	 * solver runs out of visits it stops and counts it in
+	 * {@link TRAVERSALCOUNTER#WORKLIST_BUDGET_EXCEEDED}.
+	 *
+	 * @param cfg the graph
+	 * @param order the nodes in the order to visit them first
+	 * @param forward if true, changes flow to successors, otherwise to predecessors
+	 * @param fixp decides if a node's result changed
+	 */
+	public final void worklist(final CFG cfg, final List<CFGNode> order, final boolean forward, final BoaAbstractFixP fixp) throws Exception {
+		final int n = cfg.getNodes().size();
+		final int[] positions = new int[n];
+		final CFGNode[] nodes = new CFGNode[n];
+		java.util.Arrays.fill(positions, -1);
+
+		int count = 0;
+		for (final CFGNode node : order) {
+			positions[node.getNodeId()] = count;
+			nodes[count++] = node;
+		}
+
+		final java.util.BitSet pending = new java.util.BitSet(n);
+		pending.set(0, count);
+
+		long visits = (long)worklistBudget * n;
+		for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(0)) {
+			if (visits-- == 0) {
+				if (context != null)
+					context.getCounter(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXCEEDED).increment(1);
+				return;
+			}
+			pending.clear(i);
+
+			final CFGNode node = nodes[i];
 			traverse(node, true);
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
+
 			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
+			if (outputMapObj.containsKey(node.getId()) && prevOutputMapObj.containsKey(node.getId()))
+				fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
 			if (!fixpFlag) {
-				for (final CFGNode pred : node.getPredecessors()) {
-					if (!queue.contains(pred))
-						queue.add(pred);
+				for (final CFGNode next : forward ? node.getSuccessors() : node.getPredecessors()) {
+					// nodes the initial order missed (e.g., unreachable ones) go last
+					if (positions[next.getNodeId()] == -1) {
+						positions[next.getNodeId()] = count;
+						nodes[count++] = next;
+					}
+					pending.set(positions[next.getNodeId()]);
 				}
 			}
 			prevOutputMapObj.put(node.getId(), currentResult);
 		}
 	}
 
-	public final void worklistPostorderForward(final Queue<CFGNode> queue, final BoaAbstractFixP fixp, final Traversal.TraversalKind kind) throws Exception {
-		while (!queue.isEmpty()) {
-			final CFGNode node = queue.remove();
-			traverse(node, true);
-			final boolean curFlag = outputMapObj.containsKey(node.getId());
-			boolean fixpFlag = false;
-			if (curFlag) {
-				final boolean prevFlag = prevOutputMapObj.containsKey(node.getId());
-				if (curFlag && prevFlag) {
-					fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
-				}
-			}
-			if (!fixpFlag) {
-				for (final CFGNode pred : node.getSuccessors()) {
-					if (!queue.contains(pred))
-						queue.add(pred);
+	private List<CFGNode> postorder(final CFG cfg) throws Exception {
+		final Queue<CFGNode> queue = new LinkedList<CFGNode>();
+		populateWithPostorder(cfg.getEntryNode(), new java.util.HashSet<Long>(), queue);
+		return new ArrayList<CFGNode>(queue);
+	}
+
+	private List<CFGNode> reversePostorder(final CFG cfg) throws Exception {
+		final List<CFGNode> order = postorder(cfg);
+		Collections.reverse(order);
+		return order;
+	}
+
+	/**
+	 * Returns a deep copy of a result, so saved results share no containers
+	 * with the program.  Traversals whose results can not be deep copied are
+	 * never reusable.
+	 *
+	 * @param value the result
+	 * @return a copy of the result
+	 */
+	protected T1 copyResult(final T1 value) {
+		return value;
+	}
+
+	// the run a traversal of a CFG would be, if its results may be saved or reused
+	private Run reusableRun(final CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) {
+		if (!isReusable || computing.get() == this || cfg == null || cfg.getNodes() == null)
+			return null;
+		if (fixp != null && !fixp.isReusable())
+			return null;
+		if (outputMapObj != null && !outputMapObj.isEmpty())
+			return null;
+		if (!GraphCache.isIncremental())
+			return null;
+		return new Run(cfg, direction, kind, fixp);
+	}
+
+	// the saved results the current results are, or null
+	private Saved<T1> currentResults() {
+		if (results == null || outputMapObj == null || outputMapObj.getModCount() != resultsModCount)
+			return null;
+		return results;
+	}
+
+	private void readFrom(final BoaAbstractTraversal<?> traversal) {
+		if (read == null)
+			return;
+		final Saved<?> r = traversal.currentResults();
+		if (r == null)
+			read = null;
+		else if (!read.containsKey(traversal))
+			read.put(traversal, r);
+	}
+
+	private boolean restore(final Run run) {
+		final Saved<T1> s = saved == null ? null : saved.get(run);
+		if (s == null)
+			return false;
+		for (final Map.Entry<BoaAbstractTraversal<?>, Saved<?>> e : s.read.entrySet())
+			if (e.getKey().currentResults() != e.getValue())
+				return false;
+
+		if (outputMapObj == null)
+			outputMapObj = new TraversalResults<T1>();
+		copyResults(s.values, outputMapObj);
+		results = s;
+		resultsModCount = outputMapObj.getModCount();
+		count(TRAVERSALCOUNTER.RESULTS_REUSED);
+		return true;
+	}
+
+	private BoaAbstractTraversal<?> startComputing() {
+		final BoaAbstractTraversal<?> outer = computing.get();
+		computing.set(this);
+		read = new IdentityHashMap<BoaAbstractTraversal<?>, Saved<?>>();
+		count(TRAVERSALCOUNTER.RESULTS_COMPUTED);
+		return outer;
+	}
+
+	private void save(final Run run) {
+		if (read == null || outputMapObj == null)
+			return;
+
+		if (saved == null) {
+			final int size = GraphCache.getSize();
+			saved = new LinkedHashMap<Run, Saved<T1>>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<Run, Saved<T1>> eldest) {
+					return size() > size;
 				}
-			}
-			prevOutputMapObj.put(node.getId(), currentResult);
+			};
 		}
+
+		final Saved<T1> s = new Saved<T1>(new TraversalResults<T1>(), read);
+		copyResults(outputMapObj, s.values);
+		saved.put(run, s);
+		results = s;
+		resultsModCount = outputMapObj.getModCount();
+		read = null;
+	}
+
+	private void copyResults(final TraversalResults<T1> from, final TraversalResults<T1> to) {
+		for (int i = from.nextKey(0); i >= 0; i = from.nextKey(i + 1)) {
+			final T1 value = from.get(i);
+			to.put(i, value == null ? null : copyResult(value));
+		}
+	}
+
+	private static void count(final TRAVERSALCOUNTER counter) {
+		if (context != null)
+			context.getCounter(counter).increment(1);
 	}
 
 	public final void traverse(final boa.graphs.cfg.CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) throws Exception {
-		if (cfg == null || cfg.getNodes() == null) return;
+		final Run run = reusableRun(cfg, direction, kind, fixp);
+		if (run == null) {
+			traverseCFG(cfg, direction, kind, fixp);
+		} else if (!restore(run)) {
+			final BoaAbstractTraversal<?> outer = startComputing();
+			try {
+				if (traverseCFG(cfg, direction, kind, fixp))
+					save(run);
+			} finally {
+				computing.set(outer);
+			}
+		}
+	}
+
+	private boolean traverseCFG(final CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) throws Exception {
+		if (cfg == null || cfg.getNodes() == null) return false;
+		boolean complete = true;
 		try {
 			if (outputMapObj == null) {
-				outputMapObj = new java.util.HashMap<Long, T1>();
+				outputMapObj = new TraversalResults<T1>();
+			}
+			if (prevOutputMapObj == null) {
+				prevOutputMapObj = new TraversalResults<T1>();
 			}
 			switch (kind) {
 				case DFS:
@@ -409,8 +635,8 @@ public abstract class BoaAbstractTraversal<T1> {
 				case RANDOM:
 					boolean fixpFlag;
 					do {
-						prevOutputMapObj = new java.util.HashMap<Long, T1>(outputMapObj);
-						traverse(cfg, direction, kind);
+						prevOutputMapObj.copyFrom(outputMapObj);
+						complete &= traverseCFG(cfg, direction, kind);
 						fixpFlag = true;
 						final java.util.HashSet<CFGNode> nl = cfg.getNodes();
 						for (final CFGNode node : nl) {
@@ -428,11 +654,11 @@ public abstract class BoaAbstractTraversal<T1> {
 					break;
 				case WORKLIST_POSTORDER:
 				case WORKLIST_REVERSEPOSTORDER:
-					prevOutputMapObj = new java.util.HashMap<Long, T1>();
+					prevOutputMapObj.clear();
 					traverseWithFixp(cfg, direction, kind, fixp);
 					break;
 				case HYBRID:
-					prevOutputMapObj = new java.util.HashMap<Long, T1>();
+					prevOutputMapObj.clear();
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
 					final CFGNode[] nl = cfg.sortNodes();
 					if (nl.length != 0) {
@@ -441,9 +667,7 @@ public abstract class BoaAbstractTraversal<T1> {
 								switch (direction) {
 									case BACKWARD:
 										if (cfg.getIsLoopPresent()) {
-											final Queue<CFGNode> queue = new LinkedList<CFGNode>();
-											populateWithPostorder(cfg.getEntryNode(), visitedNodes, queue);
-											worklistPostorderBackward(queue, fixp, kind);
+											worklist(cfg, postorder(cfg), false, fixp);
 										} else if (cfg.getIsBranchPresent()) {
 											postorderBackward(cfg.getEntryNode(), visitedNodes);
 										} else {
@@ -454,9 +678,7 @@ public abstract class BoaAbstractTraversal<T1> {
 										break;
 									case FORWARD:
 										if (cfg.getIsLoopPresent()) {
-											final Stack<CFGNode> stack = new Stack<CFGNode>();
-											populateWithReversePostorder(cfg.getEntryNode(), visitedNodes, stack);
-											worklistReversePostorderForward(stack, fixp, kind);
+											worklist(cfg, reversePostorder(cfg), true, fixp);
 										} else if (cfg.getIsBranchPresent()) {
 											postorderForward(cfg.getExitNode(), visitedNodes);
 										} else {
@@ -511,45 +733,24 @@ public abstract class BoaAbstractTraversal<T1> {
 					break;
 			}
 		} catch (final java.lang.StackOverflowError e) {
-			return;
+			return false;
 		}
+		return complete;
 	}
 
 	public final void traverseWithFixp(final CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) throws Exception {
 		if (preTraverse(cfg)) {
 			if (outputMapObj==null) {
-				outputMapObj = new java.util.HashMap<Long, T1>();
+				outputMapObj = new TraversalResults<T1>();
 			}
 			if (cfg.getNodes().size() != 0) {
-				final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
+				final boolean forward = direction == Traversal.TraversalDirection.FORWARD;
 				switch (kind) {
 					case WORKLIST_POSTORDER:
-						Queue<CFGNode> queue = new LinkedList<CFGNode>();
-						populateWithPostorder(cfg.getEntryNode(), visitedNodes, queue);
-						switch (direction) {
-							case BACKWARD:
-								worklistPostorderBackward(queue, fixp, kind);
-								break;
-
-							case FORWARD:
-								worklistPostorderForward(queue, fixp, kind);
-								break;
-							default : break;
-						}
+						worklist(cfg, postorder(cfg), forward, fixp);
 						break;
 					case WORKLIST_REVERSEPOSTORDER:
-						Stack<CFGNode> stack = new Stack<CFGNode>();
-						populateWithReversePostorder(cfg.getEntryNode(), visitedNodes, stack);
-						switch (direction) {
-							case BACKWARD:
-								worklistReversePostorderBackward(stack, fixp, kind);
-								break;
-
-							case FORWARD:
-								worklistReversePostorderForward(stack, fixp, kind);
-								break;
-							default : break;
-						}
+						worklist(cfg, reversePostorder(cfg), forward, fixp);
 						break;
 					default : break;
 				}
@@ -558,11 +759,26 @@ public abstract class BoaAbstractTraversal<T1> {
 	}
 
 	public final void traverse(final boa.graphs.cfg.CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind) throws Exception {
-		if (cfg == null || cfg.getNodes() == null) return;
+		final Run run = reusableRun(cfg, direction, kind, null);
+		if (run == null) {
+			traverseCFG(cfg, direction, kind);
+		} else if (!restore(run)) {
+			final BoaAbstractTraversal<?> outer = startComputing();
+			try {
+				if (traverseCFG(cfg, direction, kind))
+					save(run);
+			} finally {
+				computing.set(outer);
+			}
+		}
+	}
+
+	private boolean traverseCFG(final CFG cfg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind) throws Exception {
+		if (cfg == null || cfg.getNodes() == null) return false;
 		try {
 			if (preTraverse(cfg)) {
 				if (outputMapObj == null) {
-					outputMapObj = new java.util.HashMap<Long, T1>();
+					outputMapObj = new TraversalResults<T1>();
 				}
 				if (cfg.getNodes().size() != 0) {
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
@@ -646,8 +862,9 @@ public abstract class BoaAbstractTraversal<T1> {
 				}
 			}
 		} catch (final java.lang.StackOverflowError e) {
-			return;
+			return false;
 		}
+		return true;
 	}
 
 	public void traverse(final CFGNode node, boolean flag) throws Exception {
@@ -658,7 +875,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		try {
 			if (preTraverse(cdg)) {
 				if (outputMapObj == null) {
-					outputMapObj = new java.util.HashMap<Long, T1>();
+					outputMapObj = new TraversalResults<T1>();
 				}
 				if (cdg.getNodes().size() != 0) {
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
@@ -756,7 +973,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		try {
 			if (preTraverse(ddg)) {
 				if (outputMapObj == null) {
-					outputMapObj = new java.util.HashMap<Long, T1>();
+					outputMapObj = new TraversalResults<T1>();
 				}
 				if (ddg.getNodes().size() != 0) {
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
@@ -854,7 +1071,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		try {
 			if (preTraverse(pdg)) {
 				if (outputMapObj == null) {
-					outputMapObj = new java.util.HashMap<Long, T1>();
+					outputMapObj = new TraversalResults<T1>();
 				}
 				if (pdg.getNodes().size() != 0) {
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
@@ -952,7 +1169,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		try {
 			if (preTraverse(pdgslicer)) {
 				if (outputMapObj == null) {
-					outputMapObj = new java.util.HashMap<Long, T1>();
+					outputMapObj = new TraversalResults<T1>();
 				}
 				if (pdgslicer.getSlice().size() != 0) {
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
@@ -1047,7 +1264,7 @@ public abstract class BoaAbstractTraversal<T1> {
 		try {
 			if (preTraverse(tree)) {
 				if (outputMapObj == null) {
-					outputMapObj = new java.util.HashMap<Long, T1>();
+					outputMapObj = new TraversalResults<T1>();
 				}
 				if (tree.getNodes().size() != 0) {
 					final java.util.Set<Long> visitedNodes = new java.util.HashSet<Long>();
@@ -1139,4 +1356,174 @@ public abstract class BoaAbstractTraversal<T1> {
 
 	public void traverse(final TreeNode node, boolean flag) throws Exception {
 	}
+
+	public final void traverse(final CallGraph cg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind) throws Exception {
+		if (cg == null) return;
+		if (preTraverse(cg)) {
+			if (outputMapObj == null) {
+				outputMapObj = new TraversalResults<T1>();
+			}
+			if (!cg.isEmpty()) {
+				final boolean forward = direction != Traversal.TraversalDirection.BACKWARD;
+				switch (kind) {
+					case DFS:
+						dfs(cg, forward);
+						break;
+					case POSTORDER:
+					case WORKLIST_POSTORDER:
+						for (final CallGraphNode n : cg.postorder()) {
+							traverse(n, false);
+						}
+						break;
+					case REVERSEPOSTORDER:
+					case WORKLIST_REVERSEPOSTORDER:
+						for (final CallGraphNode n : cg.reversePostorder()) {
+							traverse(n, false);
+						}
+						break;
+					case ITERATIVE:
+						if (forward) {
+							for (int i = 0; i < cg.size(); i++) {
+								traverse(cg.getNode(i), false);
+							}
+						} else {
+							for (int i = cg.size() - 1; i >= 0; i--) {
+								traverse(cg.getNode(i), false);
+							}
+						}
+						break;
+					case RANDOM:
+						for (final CallGraphNode n : cg.getNodes()) {
+							traverse(n, false);
+						}
+						break;
+					case HYBRID:
+						for (final CallGraphNode n : forward ? cg.reversePostorder() : cg.postorder()) {
+							traverse(n, false);
+						}
+						break;
+					default:
+						break;
+				}
+			}
+		}
+	}
+
+	public final void traverse(final CallGraph cg, final Traversal.TraversalDirection direction, final Traversal.TraversalKind kind, final BoaAbstractFixP fixp) throws Exception {
+		if (cg == null) return;
+		if (outputMapObj == null) {
+			outputMapObj = new TraversalResults<T1>();
+		}
+		if (prevOutputMapObj == null) {
+			prevOutputMapObj = new TraversalResults<T1>();
+		}
+		final boolean forward = direction != Traversal.TraversalDirection.BACKWARD;
+		switch (kind) {
+			case DFS:
+			case POSTORDER:
+			case REVERSEPOSTORDER:
+			case ITERATIVE:
+			case RANDOM:
+				boolean fixpFlag;
+				do {
+					prevOutputMapObj.copyFrom(outputMapObj);
+					traverse(cg, direction, kind);
+					fixpFlag = true;
+					for (final CallGraphNode node : cg.getNodes()) {
+						if (outputMapObj.containsKey(node.getId())) {
+							if (prevOutputMapObj.containsKey(node.getId())) {
+								fixpFlag = fixpFlag && fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
+							} else {
+								fixpFlag = false;
+								break;
+							}
+						}
+					}
+				} while (!fixpFlag);
+				break;
+			case WORKLIST_POSTORDER:
+			case WORKLIST_REVERSEPOSTORDER:
+			case HYBRID:
+				prevOutputMapObj.clear();
+				if (preTraverse(cg) && !cg.isEmpty()) {
+					final boolean postorder = kind == Traversal.TraversalKind.WORKLIST_POSTORDER
+						|| (kind == Traversal.TraversalKind.HYBRID && !forward);
+					worklist(cg, postorder ? cg.postorder() : cg.reversePostorder(), forward, fixp);
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void dfs(final CallGraph cg, final boolean forward) throws Exception {
+		final java.util.BitSet visited = new java.util.BitSet(cg.size());
+		final Stack<CallGraphNode> s = new Stack<CallGraphNode>();
+		for (int root = 0; root < cg.size(); root++) {
+			s.push(cg.getNode(root));
+			while (!s.isEmpty()) {
+				final CallGraphNode n = s.pop();
+				if (!visited.get(n.getNodeId())) {
+					traverse(n, false);
+					visited.set(n.getNodeId());
+					final List<CallGraphNode> next = forward ? n.getSuccessors() : n.getPredecessors();
+					for (int i = next.size() - 1; i >= 0; i--) {
+						s.push(next.get(i));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solves a dataflow problem over a call graph with a worklist, the same
+	 * way as {@link #worklist(CFG, List, boolean, BoaAbstractFixP)}.  For
+	 * bottom-up summaries, go backward in postorder: a method is visited
+	 * after its callees and is visited again when one of them changes.
+	 *
+	 * @param cg the graph
+	 * @param order the nodes in the order to visit them first
+	 * @param forward if true, changes flow to callees, otherwise to callers
+	 * @param fixp decides if a node's result changed
+	 */
+	public final void worklist(final CallGraph cg, final CallGraphNode[] order, final boolean forward, final BoaAbstractFixP fixp) throws Exception {
+		final int n = cg.size();
+		final int[] positions = new int[n];
+		for (int i = 0; i < order.length; i++)
+			positions[order[i].getNodeId()] = i;
+
+		final java.util.BitSet pending = new java.util.BitSet(n);
+		pending.set(0, order.length);
+
+		long visits = (long)worklistBudget * n;
+		for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(0)) {
+			if (visits-- == 0) {
+				if (context != null)
+					context.getCounter(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXCEEDED).increment(1);
+				return;
+			}
+			pending.clear(i);
+
+			final CallGraphNode node = order[i];
+			traverse(node, true);
+
+			boolean fixpFlag = false;
+			if (outputMapObj.containsKey(node.getId()) && prevOutputMapObj.containsKey(node.getId()))
+				fixpFlag = fixp.invoke((T1)outputMapObj.get(node.getId()), (T1)prevOutputMapObj.get(node.getId()));
+			if (!fixpFlag) {
+				final int id = node.getNodeId();
+				if (forward) {
+					for (int k = 0; k < cg.getSuccessorCount(id); k++)
+						pending.set(positions[cg.getSuccessorId(id, k)]);
+				} else {
+					for (int k = 0; k < cg.getPredecessorCount(id); k++)
+						pending.set(positions[cg.getPredecessorId(id, k)]);
+				}
+			}
+			prevOutputMapObj.put(node.getId(), currentResult);
+		}
+	}
+
+	public void traverse(final CallGraphNode node, boolean flag) throws Exception {
+	}
 }
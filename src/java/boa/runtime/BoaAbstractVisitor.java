@@ -39,6 +39,22 @@ import boa.types.Toplevel.Project;
  * @author rdyer
  */
 public abstract class BoaAbstractVisitor {
+	private final boolean partitioned;
+
+	public BoaAbstractVisitor() {
+		this(false);
+	}
+
+	/**
+	 * Creates a visitor.
+	 * 
+	 * @param partitioned if true and a {@link BoaMapper} is analyzing a project's
+	 *            files in parallel, each thread only visits the files it claimed
+	 */
+	public BoaAbstractVisitor(final boolean partitioned) {
+		this.partitioned = partitioned;
+	}
+
 	/**
 	 * Initializes any visitor-specific data before starting a visit.
 	 * 
@@ -189,6 +205,7 @@ public abstract class BoaAbstractVisitor {
 		if (preVisit(node)) {
 			final List<ChangedFile> filesList = node.getFilesList();
 			final int filesSize = filesList.size();
+			BoaAstIntrinsics.prefetch(filesList);
 			for (int i = 0; i < filesSize; i++)
 				visit(filesList.get(i));
 
@@ -202,10 +219,19 @@ public abstract class BoaAbstractVisitor {
 		}
 	}
 	public final void visit(final ChangedFile node) throws Exception {
-		if (preVisit(node)) {
-			visit(BoaAstIntrinsics.getast(node));
-
-			postVisit(node);
+		final FilePartition partition = partitioned ? FilePartition.get() : null;
+		if (partition != null && !partition.enter())
+			return;
+
+		try {
+			if (preVisit(node)) {
+				visit(BoaAstIntrinsics.getast(node));
+
+				postVisit(node);
+			}
+		} finally {
+			if (partition != null)
+				partition.exit();
 		}
 	}
 	public final void visit(final ASTRoot node) throws Exception {
@@ -93,8 +93,7 @@ public abstract class BoaCombiner extends Reducer<EmitKey, EmitValue, EmitKey, E
 
 		for (final EmitValue value : values)
 			try {
-				for (final String s : value.getData())
-					a.aggregate(s, value.getMetadata());
+				a.aggregate(value);
 			} catch (final FinishedException e) {
 				// we are done
 				return;
@@ -17,6 +17,19 @@
 package boa.runtime;
 
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
@@ -25,20 +38,95 @@ import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.log4j.Logger;
 
+import com.google.protobuf.CodedInputStream;
+
+import boa.aggregators.Aggregator;
+import boa.aggregators.FinishedException;
 import boa.io.EmitKey;
 import boa.io.EmitValue;
+import boa.types.Toplevel.Project;
 
 /**
  * A {@link Mapper} that performs the brunt of all Boa work.
  * 
+ * Values emitted to output variables that can combine are aggregated in the
+ * mapper, in a bounded table of live {@link Aggregator}s (one per
+ * {@link EmitKey}), and only their partial results are written out when the
+ * table fills, memory runs low, or the mapper finishes.
+ * 
+ * If the compiler found the program safe to run in parallel, the files of a
+ * project can be analyzed by several threads ({@link #THREADS}).  Each thread
+ * runs the program in its own copy of the mapper, visiting only the files it
+ * claims (see {@link FilePartition}), and keeps what it emits.  A thread
+ * hands what it kept over every {@link #EMIT_BATCH} values, so threads hold
+ * few values and the table still flushes as it fills.  Values handed over
+ * are aggregated in the order a single thread would have emitted them: only
+ * those before every thread's low mark go to the table, the rest wait until
+ * the threads have moved past them or are done with the project.
+ * 
  * @author anthonyu
+ * @author agent
  */
 public abstract class BoaMapper extends Mapper<Text, BytesWritable, EmitKey, EmitValue> implements Configurable {
 	protected static final Logger LOG = Logger.getLogger(BoaMapper.class);
 
+	/**
+	 * The configuration property holding the most keys to aggregate in the
+	 * mapper before flushing, or 0 to disable aggregating in the mapper.
+	 */
+	public static final String COMBINE_BUFFER_SIZE = "boa.mapper.combine.keys";
+
+	/**
+	 * The configuration property holding the number of threads that analyze
+	 * each project's files, or 1 to analyze them in the mapper's thread.
+	 */
+	public static final String THREADS = "boa.mapper.threads";
+
+	// the most values a thread keeps before aggregating them
+	private static final int EMIT_BATCH = 1024;
+
+	// how often (in new keys) to check for memory pressure
+	private static final int MEMORY_CHECK_INTERVAL = 1024;
+
+	// fraction of the heap in use that forces a flush
+	private static final double MEMORY_THRESHOLD = 0.7;
+
 	private Configuration conf;
 	protected Context context;
 
+	private final Map<EmitKey, Aggregator> buffer = new HashMap<EmitKey, Aggregator>();
+	private final Set<EmitKey> finished = new HashSet<EmitKey>();
+	private int bufferSize = 16 * 1024;
+	private int newKeys = 0;
+	private int threads = 1;
+
+	// a value emitted by a thread, and where it falls in the project's emits
+	private static final class Emit {
+		final long position;
+		final EmitKey key;
+		final EmitValue value;
+
+		Emit(final long position, final EmitKey key, final EmitValue value) {
+			this.position = position;
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	private static final Comparator<Emit> byPosition = new Comparator<Emit>() {
+		@Override
+		public int compare(final Emit a, final Emit b) {
+			return Long.compare(a.position, b.position);
+		}
+	};
+
+	// in a copy analyzing some of a project's files, the values it emitted
+	// and the mapper aggregating them
+	private List<Emit> emits;
+	private BoaMapper parent;
+	// values handed over that other threads may still emit values before
+	private final List<Emit> pending = new ArrayList<Emit>();
+
 	/** {@inheritDoc} */
 	@Override
 	public Configuration getConf() {
@@ -49,6 +137,158 @@ public abstract class BoaMapper extends Mapper<Text, BytesWritable, EmitKey, Emi
 	@Override
 	public void setConf(final Configuration conf) {
 		this.conf = conf;
+		this.bufferSize = conf.getInt(COMBINE_BUFFER_SIZE, this.bufferSize);
+		this.threads = conf.getInt(THREADS, this.threads);
+	}
+
+	/**
+	 * Returns true if the compiler found the program safe to run over a
+	 * project's files in parallel: the code that runs for one file (and the
+	 * functions it calls) changes no state outside it, except by emitting.
+	 * 
+	 * @return if the files of a project may be split between threads
+	 */
+	protected boolean isParallel() {
+		return false;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void run(final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException, InterruptedException {
+		if (this.threads <= 1 || !this.isParallel()) {
+			super.run(context);
+			return;
+		}
+
+		this.setup(context);
+
+		final BoaMapper[] workers = new BoaMapper[this.threads];
+		for (int i = 0; i < workers.length; i++)
+			workers[i] = this.newWorker(context);
+
+		final ForkJoinPool pool = new ForkJoinPool(this.threads);
+		try {
+			while (context.nextKeyValue())
+				this.mapInParallel(pool, workers, context.getCurrentKey(), context.getCurrentValue(), context);
+		} finally {
+			pool.shutdown();
+		}
+
+		this.cleanup(context);
+	}
+
+	// a copy of this mapper that keeps what it emits
+	private BoaMapper newWorker(final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException {
+		final BoaMapper worker;
+		try {
+			final Constructor<? extends BoaMapper> c = this.getClass().getDeclaredConstructor();
+			c.setAccessible(true);
+			worker = c.newInstance();
+		} catch (final Exception e) {
+			throw new IOException("can not create a copy of " + this.getClass().getName(), e);
+		}
+
+		worker.setConf(this.conf);
+		worker.context = context;
+		worker.emits = new ArrayList<Emit>();
+		worker.parent = this;
+		return worker;
+	}
+
+	private void mapInParallel(final ForkJoinPool pool, final BoaMapper[] workers, final Text key, final BytesWritable value, final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException, InterruptedException {
+		final FilePartition.Project project = new FilePartition.Project(workers.length);
+
+		// every thread's partition is known before any reads the watermark
+		final FilePartition[] partitions = new FilePartition[workers.length];
+		for (int i = 0; i < workers.length; i++)
+			partitions[i] = new FilePartition(project, i);
+
+		final List<Future<Void>> tasks = new ArrayList<Future<Void>>(workers.length);
+		for (int i = 0; i < workers.length; i++) {
+			final BoaMapper worker = workers[i];
+			final FilePartition partition = partitions[i];
+			tasks.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					FilePartition.set(partition);
+					try {
+						worker.map(key, value, context);
+					} finally {
+						FilePartition.set(null);
+					}
+					return null;
+				}
+			}));
+		}
+
+		// wait for every thread, so none is still using the key or value
+		Throwable failure = null;
+		for (final Future<Void> task : tasks)
+			try {
+				task.get();
+			} catch (final ExecutionException e) {
+				if (failure == null)
+					failure = e.getCause();
+			}
+
+		final List<Emit> all = new ArrayList<Emit>();
+		for (final BoaMapper worker : workers) {
+			all.addAll(worker.emits);
+			worker.emits.clear();
+		}
+
+		if (failure != null) {
+			this.pending.clear();
+			if (failure instanceof IOException)
+				throw (IOException) failure;
+			throw new IOException("map failure for key '" + key.toString() + "'", failure);
+		}
+
+		this.combine(all, null);
+	}
+
+	// hands over values kept by a thread, and aggregates those no thread can
+	// emit values before anymore, in the order of the project
+	private void combine(final List<Emit> emits, final FilePartition partition) throws IOException, InterruptedException {
+		synchronized (this) {
+			this.pending.addAll(emits);
+			emits.clear();
+
+			// with no partition every thread is done
+			long below = Long.MAX_VALUE;
+			if (partition != null) {
+				partition.release();
+				below = partition.watermark();
+			}
+
+			// the sort is stable, so each thread's emits stay in order
+			Collections.sort(this.pending, byPosition);
+			int n = 0;
+			while (n < this.pending.size() && this.pending.get(n).position < below)
+				n++;
+
+			final List<Emit> ready = this.pending.subList(0, n);
+			for (final Emit e : ready)
+				this.emit(e.key, e.value);
+			ready.clear();
+		}
+	}
+
+	/**
+	 * Parses the project to map.  When its files are split between threads,
+	 * it is parsed once for all of them.
+	 * 
+	 * @param value
+	 *            The serialized {@link Project}
+	 * @return the project
+	 */
+	protected static Project parseProject(final BytesWritable value) {
+		return FilePartition.shared(value, "project", new Callable<Project>() {
+			@Override
+			public Project call() throws IOException {
+				return Project.parseFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength()));
+			}
+		});
 	}
 
 	/** {@inheritDoc} */
@@ -57,5 +297,106 @@ public abstract class BoaMapper extends Mapper<Text, BytesWritable, EmitKey, Emi
 		super.setup(context);
 
 		this.context = context;
+		BoaAbstractTraversal.setup(context);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void cleanup(final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException, InterruptedException {
+		this.flush();
+
+		super.cleanup(context);
+	}
+
+	/**
+	 * Create a new {@link Aggregator} for the named output variable, used to
+	 * combine its values in the mapper.
+	 * 
+	 * @param name
+	 *            The name of the output variable
+	 * @return a new {@link Aggregator}, or null if the output variable can not
+	 *         combine
+	 */
+	protected Aggregator newAggregator(final String name) {
+		return null;
+	}
+
+	/**
+	 * Emit a value to an output variable, aggregating it in the mapper when
+	 * the output variable can combine.
+	 * 
+	 * @param key
+	 *            The {@link EmitKey} to emit to
+	 * @param value
+	 *            The {@link EmitValue} to emit
+	 */
+	protected void emit(final EmitKey key, final EmitValue value) throws IOException, InterruptedException {
+		if (this.emits != null) {
+			final FilePartition partition = FilePartition.get();
+			final long position = partition.position();
+			if (position >= 0) {
+				if (this.emits.isEmpty())
+					partition.hold();
+				this.emits.add(new Emit(position, key, value));
+				// so threads keep few values, and the table flushes as usual
+				if (this.emits.size() >= EMIT_BATCH)
+					this.parent.combine(this.emits, partition);
+			}
+			return;
+		}
+
+		Aggregator a = this.buffer.get(key);
+
+		if (a == null) {
+			if (this.finished.contains(key))
+				return;
+
+			if (this.bufferSize > 0)
+				a = this.newAggregator(key.getName());
+
+			if (a == null) {
+				this.context.write(key, value);
+				return;
+			}
+
+			if (this.buffer.size() >= this.bufferSize || this.isMemoryLow())
+				this.flush();
+
+			a.setCombining(true);
+			a.start(key);
+			a.setContext(this.context);
+			this.buffer.put(key, a);
+		}
+
+		try {
+			a.aggregate(value);
+		} catch (final FinishedException e) {
+			// this key takes no more values; the reducer must see the value
+			// that finished it too, or it would take the partial result as
+			// all there was
+			this.buffer.remove(key);
+			this.finished.add(key);
+			a.finish();
+			this.context.write(key, value);
+		}
+	}
+
+	/**
+	 * Write out the partial results of all aggregators in the mapper.
+	 */
+	protected void flush() throws IOException, InterruptedException {
+		for (final Aggregator a : this.buffer.values())
+			a.finish();
+
+		this.buffer.clear();
+		this.finished.clear();
+	}
+
+	private boolean isMemoryLow() {
+		if (++this.newKeys % MEMORY_CHECK_INTERVAL != 0)
+			return false;
+
+		final Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory() > MEMORY_THRESHOLD * runtime.maxMemory();
 	}
 }
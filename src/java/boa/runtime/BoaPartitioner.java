@@ -16,6 +16,11 @@
  */
 package boa.runtime;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.Partitioner;
 
 import boa.io.EmitKey;
@@ -23,20 +28,85 @@ import boa.io.EmitValue;
 
 /**
  * A {@link Partitioner} that assigns each
- * output variable to its own reducer.
+ * output variable to its own range of reducers.
+ * 
+ * Variables that can be spread (output variables with indices) get
+ * as many reducers as the job's reducer budget allows, and their keys
+ * are hashed by index across those reducers.  All other variables get
+ * a single reducer.  With a budget of 1, every output variable has
+ * exactly one reducer.
  *
  * @author rdyer
  * @author hungc
  */
-public class BoaPartitioner extends Partitioner<EmitKey, EmitValue> {
+public class BoaPartitioner extends Partitioner<EmitKey, EmitValue> implements Configurable {
+	/**
+	 * The configuration property holding the number of reducers each
+	 * spreadable output variable may use.
+	 */
+	public static final String REDUCERS_PER_VARIABLE = "boa.reducers.per.variable";
+
 	private static String[] outputVariableNames = new String[0];
+	private static boolean[] outputVariableSpreads = new boolean[0];
+	private static Map<String, Integer> outputVariableIds = new HashMap<String, Integer>();
+
+	private Configuration conf;
+	private int[] offsets = new int[1];
+	private int reducers = 1;
 
 	public int getPartition(final EmitKey key, final EmitValue value, final int num) {
-		return getPartitionForVariable(key.getName());
+		final Integer var = outputVariableIds.get(key.getName());
+		if (var == null)
+			return 0;
+
+		// too few reducers (e.g., when running locally) to give each variable its own
+		if (num < this.offsets[this.offsets.length - 1])
+			return var % num;
+
+		final int count = this.offsets[var + 1] - this.offsets[var];
+		if (count == 1)
+			return this.offsets[var];
+		return this.offsets[var] + (key.getIndex().hashCode() & Integer.MAX_VALUE) % count;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setConf(final Configuration conf) {
+		this.conf = conf;
+		this.reducers = getReducersPerVariable(conf);
+		this.offsets = getOffsets(this.reducers);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Configuration getConf() {
+		return this.conf;
 	}
 
 	public static void setVariableNames(final String[] names) {
+		setVariableNames(names, new boolean[names.length]);
+	}
+
+	/**
+	 * Set the names of the output variables and whether each of them may be
+	 * spread across more than one reducer.
+	 * 
+	 * @param names
+	 *            An array of {@link String} containing the output variable
+	 *            names
+	 * @param spreads
+	 *            For each output variable, if its keys may be hashed across
+	 *            several reducers
+	 */
+	public static void setVariableNames(final String[] names, final boolean[] spreads) {
+		final Map<String, Integer> ids = new HashMap<String, Integer>();
+		for (int i = 0; i < names.length; i++)
+			ids.put(names[i], i);
+
 		outputVariableNames = names;
+		outputVariableSpreads = spreads;
+		outputVariableIds = ids;
+		EmitKey.setVariableNames(names);
 	}
 
 	public static String getVariableFromPartition(final int pIndex) {
@@ -46,11 +116,47 @@ public class BoaPartitioner extends Partitioner<EmitKey, EmitValue> {
 	}
 
 	public static int getPartitionForVariable(final String s) {
-		for (int i = 0; i < outputVariableNames.length; i++) {
-			if (outputVariableNames[i].equals(s)) {
-				return i;
-			}
-		}
-		return 0;
+		final Integer var = outputVariableIds.get(s);
+		return var == null ? 0 : var;
+	}
+
+	/**
+	 * Returns the number of reducers each spreadable output variable may use,
+	 * as set in the given configuration.
+	 * 
+	 * @param conf
+	 *            The job's {@link Configuration}
+	 * @return the reducer budget for each spreadable variable
+	 */
+	public static int getReducersPerVariable(final Configuration conf) {
+		return Math.max(1, conf.getInt(REDUCERS_PER_VARIABLE, 1));
+	}
+
+	/**
+	 * Returns the total number of partitions (reduce tasks) needed for all
+	 * output variables.
+	 * 
+	 * @param reducers
+	 *            The number of reducers each spreadable variable may use
+	 * @return the number of partitions
+	 */
+	public static int getNumPartitions(final int reducers) {
+		return getOffsets(reducers)[outputVariableNames.length];
+	}
+
+	/**
+	 * Returns the first partition of each output variable, followed by the
+	 * total number of partitions.  Output variable {@code i} owns partitions
+	 * {@code offsets[i]} up to (but not including) {@code offsets[i + 1]}.
+	 * 
+	 * @param reducers
+	 *            The number of reducers each spreadable variable may use
+	 * @return the partition offsets of the output variables
+	 */
+	public static int[] getOffsets(final int reducers) {
+		final int[] offsets = new int[outputVariableNames.length + 1];
+		for (int i = 0; i < outputVariableNames.length; i++)
+			offsets[i + 1] = offsets[i] + (outputVariableSpreads[i] ? Math.max(1, reducers) : 1);
+		return offsets;
 	}
 }
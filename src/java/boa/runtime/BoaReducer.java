@@ -22,7 +22,6 @@ import java.util.Map;
 
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.log4j.Logger;
@@ -39,7 +38,7 @@ import boa.io.EmitValue;
  * @author anthonyu
  * @author rdyer
  */
-public abstract class BoaReducer extends Reducer<EmitKey, EmitValue, Text, NullWritable> implements Configurable {
+public abstract class BoaReducer extends Reducer<EmitKey, EmitValue, Text, Text> implements Configurable {
 	/**
 	 * A {@link Logger} that log entries can be written to.
 	 * 
@@ -85,8 +84,7 @@ public abstract class BoaReducer extends Reducer<EmitKey, EmitValue, Text, NullW
 
 		for (final EmitValue value : values)
 			try {
-				for (final String s : value.getData())
-					a.aggregate(s, value.getMetadata());
+				a.aggregate(value);
 			} catch (final FinishedException e) {
 				// we are done
 				return;
@@ -30,10 +30,10 @@ import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.SnappyCodec;
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.util.Tool;
@@ -41,6 +41,8 @@ import org.apache.hadoop.util.Tool;
 import boa.io.BoaOutputFormat;
 import boa.io.EmitKey;
 import boa.io.EmitValue;
+import boa.io.ProjectColumnInputFormat;
+import boa.io.ProjectColumns;
 
 /**
  * @author anthonyu
@@ -90,10 +92,11 @@ public abstract class BoaRunner extends Configured implements Tool {
 
 		job.setMapOutputKeyClass(EmitKey.class);
 		job.setMapOutputValueClass(EmitValue.class);
+		job.setSortComparatorClass(EmitKey.Comparator.class);
 
 		job.setOutputFormatClass(BoaOutputFormat.class);
 		job.setOutputKeyClass(Text.class);
-		job.setOutputValueClass(NullWritable.class);
+		job.setOutputValueClass(Text.class);
 
 		job.setPartitionerClass(BoaPartitioner.class);
 
@@ -120,10 +123,84 @@ public abstract class BoaRunner extends Configured implements Tool {
 										.hasArg()
 										.withArgName("INPUT")
 										.create("c"));
+		options.addOption(org.apache.commons.cli.OptionBuilder.withLongOpt("reducers")
+										.withDescription("how many reducers each indexed output variable may use")
+										.hasArg()
+										.withArgName("NUM")
+										.create("r"));
 	}
 
 	protected static Options getOptions() { return options; }
 
+	/**
+	 * Set the number of reduce tasks for a Boa job.  Each indexed output
+	 * variable may be spread across {@code reducers} reduce tasks, unless
+	 * overridden on the command line, and every other output variable gets
+	 * exactly one.
+	 * 
+	 * @param job
+	 *            The {@link Job} to configure
+	 * @param line
+	 *            The parsed {@link CommandLine}
+	 * @param reducers
+	 *            The number of reducers chosen by the compiler
+	 * @throws IOException
+	 */
+	public static void setNumReduceTasks(final Job job, final CommandLine line, final int reducers) throws IOException {
+		// the output variables are set when the reducer class is initialized
+		try {
+			Class.forName(job.getReducerClass().getName(), true, job.getReducerClass().getClassLoader());
+		} catch (final ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+
+		final int n;
+		if (line.hasOption("reducers"))
+			n = Integer.parseInt(line.getOptionValue("reducers"));
+		else
+			n = reducers;
+
+		job.getConfiguration().setInt(BoaPartitioner.REDUCERS_PER_VARIABLE, n);
+		job.setNumReduceTasks(BoaPartitioner.getNumPartitions(n));
+	}
+
+	/**
+	 * Set the input format for a Boa job reading a dataset's
+	 * <code>projects.seq</code>.
+	 * 
+	 * @param job
+	 *            The {@link Job} to configure
+	 * @throws IOException
+	 */
+	public static void setInputFormat(final Job job) throws IOException {
+		job.setInputFormatClass(SequenceFileInputFormat.class);
+	}
+
+	/**
+	 * Set the input format for a Boa job reading a dataset.  If the dataset
+	 * has a column-split layout, split from its current
+	 * <code>projects.seq</code>, only the given columns are read.
+	 * 
+	 * @param job
+	 *            The {@link Job} to configure
+	 * @param input
+	 *            The dataset's directory
+	 * @param columns
+	 *            The columns of each project the job needs (besides meta)
+	 * @throws IOException
+	 */
+	public static void setInputFormat(final Job job, final String input, final String[] columns) throws IOException {
+		final Path dataset = new Path(input);
+		if (!ProjectColumns.isCurrent(dataset.getFileSystem(job.getConfiguration()), dataset, job.getConfiguration())) {
+			setInputFormat(job);
+			return;
+		}
+
+		FileInputFormat.setInputPaths(job, new Path(new Path(dataset, ProjectColumns.DIR), ProjectColumns.META));
+		job.getConfiguration().setStrings(ProjectColumnInputFormat.COLUMNS, columns);
+		job.setInputFormatClass(ProjectColumnInputFormat.class);
+	}
+
 	public static CommandLine parseArgs(String[] args, String usage) {
 		CommandLine line = null;
 
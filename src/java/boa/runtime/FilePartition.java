@@ -0,0 +1,260 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.runtime;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Splits the files of one project between the threads of a {@link BoaMapper}.
+ *
+ * Every thread runs the program over the project, but only visits the files
+ * it claims.  Threads see the files in the same order, so a file is known by
+ * its position in that order, and the first thread to reach a file claims it.
+ * Files visited while inside a file are not split.
+ *
+ * As the code outside of files runs the same in every thread, the costly
+ * parts of it (parsing the project, reading revisions, building snapshots)
+ * are done once by whichever thread gets there first, and then handed to the
+ * others (see {@link #shared}).
+ *
+ * Each thread also keeps a low mark: no value it emits later, or emitted and
+ * still holds, comes before it in the project's order.  Values before the
+ * lowest mark of all threads can be aggregated in that order while the
+ * threads go on (see {@link #watermark()}).
+ *
+ * @author agent
+ */
+public final class FilePartition {
+	private static final ThreadLocal<FilePartition> current = new ThreadLocal<FilePartition>();
+
+	/**
+	 * What the threads analyzing one project share.
+	 */
+	static final class Project {
+		// the thread that claimed each file
+		private final ConcurrentMap<Integer, Integer> owners = new ConcurrentHashMap<Integer, Integer>();
+		// values computed by one thread for all, by what they were computed from
+		private final Map<Object, Map<String, Result>> results = new IdentityHashMap<Object, Map<String, Result>>();
+		private final int workers;
+		private final FilePartition[] partitions;
+
+		Project(final int workers) {
+			this.workers = workers;
+			this.partitions = new FilePartition[workers];
+		}
+	}
+
+	// a shared value, and how many threads have yet to take it
+	private static final class Result {
+		final FutureTask<Object> task;
+		int waiting;
+
+		Result(final FutureTask<Object> task, final int waiting) {
+			this.task = task;
+			this.waiting = waiting;
+		}
+	}
+
+	private final Project project;
+	private final int worker;
+	// the number of files reached so far
+	private int files;
+	// how many file visits deep the thread is
+	private int depth;
+	// computing a shared value, which may need other values
+	private boolean computing;
+	// if the thread holds values it emitted, so its low mark must stay put
+	private boolean holding;
+	// read by the other threads, see watermark()
+	private volatile long low;
+
+	FilePartition(final Project project, final int worker) {
+		this.project = project;
+		this.worker = worker;
+		project.partitions[worker] = this;
+	}
+
+	/**
+	 * Returns the partition of the current thread.
+	 *
+	 * @return the partition, or null if files are not split
+	 */
+	static FilePartition get() {
+		return current.get();
+	}
+
+	static void set(final FilePartition partition) {
+		if (partition == null)
+			current.remove();
+		else
+			current.set(partition);
+	}
+
+	/**
+	 * Computes a value the code outside of files needs, once for all threads
+	 * analyzing the project.  Every thread asks for the same values in the same
+	 * order, so a value is dropped once each thread has taken it.  Values asked
+	 * for inside a file, or when files are not split, are just computed.
+	 *
+	 * The value must not be changed by the caller, as other threads get the
+	 * same instance.
+	 *
+	 * @param source what the value is computed from, compared by identity
+	 * @param what names the value, among those computed from the source
+	 * @param compute computes the value
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T shared(final Object source, final String what, final Callable<T> compute) {
+		final FilePartition partition = current.get();
+		try {
+			if (partition == null || partition.depth > 0 || partition.computing)
+				return compute.call();
+
+			final Project project = partition.project;
+			final Result result;
+			boolean first = false;
+			synchronized (project) {
+				Map<String, Result> values = project.results.get(source);
+				if (values == null) {
+					values = new HashMap<String, Result>();
+					project.results.put(source, values);
+				}
+				Result r = values.get(what);
+				if (r == null) {
+					r = new Result(new FutureTask<Object>((Callable<Object>) compute), project.workers);
+					values.put(what, r);
+					first = true;
+				}
+				if (--r.waiting == 0) {
+					values.remove(what);
+					if (values.isEmpty())
+						project.results.remove(source);
+				}
+				result = r;
+			}
+
+			if (first) {
+				partition.computing = true;
+				try {
+					result.task.run();
+				} finally {
+					partition.computing = false;
+				}
+			}
+			return (T) result.task.get();
+		} catch (final ExecutionException e) {
+			throw rethrow(e.getCause());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final Exception e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static RuntimeException rethrow(final Throwable t) {
+		if (t instanceof RuntimeException)
+			return (RuntimeException) t;
+		if (t instanceof Error)
+			throw (Error) t;
+		return new RuntimeException(t);
+	}
+
+	/**
+	 * Starts visiting a file, if the thread owns it.  Each call that returns
+	 * true must be matched by a call to {@link #exit()}.
+	 *
+	 * @return true if the file should be visited
+	 */
+	boolean enter() {
+		if (this.depth == 0) {
+			final Integer owner = this.project.owners.putIfAbsent(this.files++, this.worker);
+			if (owner != null && owner != this.worker) {
+				this.advance();
+				return false;
+			}
+		}
+		this.depth++;
+		this.advance();
+		return true;
+	}
+
+	void exit() {
+		this.depth--;
+		this.advance();
+	}
+
+	// the thread moved on, so unless it holds values its low mark can follow
+	private void advance() {
+		if (!this.holding)
+			this.low = this.next();
+	}
+
+	// no emit from now on comes before this
+	private long next() {
+		return this.depth > 0 ? 2L * this.files - 1 : 2L * this.files;
+	}
+
+	/**
+	 * Notes that the thread started holding values it emitted, which it must
+	 * do before holding the first of them.
+	 */
+	void hold() {
+		this.holding = true;
+	}
+
+	/**
+	 * Notes that the thread handed over all values it held.
+	 */
+	void release() {
+		this.holding = false;
+		this.low = this.next();
+	}
+
+	/**
+	 * Returns the lowest mark of all threads analyzing the project.  Every
+	 * value emitted before it has already been handed over.
+	 *
+	 * @return the position all threads have passed
+	 */
+	long watermark() {
+		long min = Long.MAX_VALUE;
+		for (final FilePartition p : this.project.partitions)
+			min = Math.min(min, p.low);
+		return min;
+	}
+
+	/**
+	 * Returns where an emit happening now falls in the order of the whole
+	 * project: emits inside the n-th file come after everything before it,
+	 * and emits outside files are kept by only one thread.
+	 *
+	 * @return the emit's position, or -1 if the emit should be dropped
+	 */
+	long position() {
+		if (this.depth > 0)
+			return 2L * this.files - 1;
+		return this.worker == 0 ? 2L * this.files : -1;
+	}
+}
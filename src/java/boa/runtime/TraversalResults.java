@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.runtime;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The results of a traversal, one slot per graph node.  Node ids are dense, so
+ * results are kept in an array indexed by id rather than a map keyed by boxed
+ * ids.
+ *
+ * A copy made with {@link #copyFrom(TraversalResults)} is kept in sync
+ * incrementally: the source remembers which slots changed since, and the next
+ * copy between the same two only moves those slots.
+ *
+ * @author agent
+ */
+public class TraversalResults<T> {
+	private Object[] values = new Object[16];
+	private final BitSet present = new BitSet();
+	private final BitSet changed = new BitSet();
+
+	// the results last copied from this, and the results this was last copied from
+	private TraversalResults<T> mirror;
+	private TraversalResults<T> mirrorOf;
+
+	// counts changes, so a caller can tell if the results changed since it last looked
+	private int modCount;
+
+	/**
+	 * Returns the result for a node.
+	 *
+	 * @param id the node's id
+	 * @return the node's result, or <code>null</code> if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(final long id) {
+		if (id >= values.length)
+			return null;
+		return (T)values[(int)id];
+	}
+
+	/**
+	 * Returns <code>true</code> if there is a result for a node.
+	 *
+	 * @param id the node's id
+	 * @return if the node has a result
+	 */
+	public boolean containsKey(final long id) {
+		return present.get((int)id);
+	}
+
+	/**
+	 * Returns <code>true</code> if there are no results.
+	 *
+	 * @return if no node has a result
+	 */
+	public boolean isEmpty() {
+		return present.isEmpty();
+	}
+
+	/**
+	 * Returns the smallest id, no smaller than a given id, of a node with a
+	 * result.
+	 *
+	 * @param from the id to start at
+	 * @return the node's id, or -1 if there is none
+	 */
+	public int nextKey(final int from) {
+		return present.nextSetBit(from);
+	}
+
+	/**
+	 * Returns the number of times the results were changed.
+	 *
+	 * @return the count of changes
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Sets the result for a node.
+	 *
+	 * @param id the node's id
+	 * @param value the node's result
+	 */
+	public void put(final long id, final T value) {
+		final int i = (int)id;
+		if (i >= values.length)
+			values = Arrays.copyOf(values, Math.max(i + 1, values.length * 2));
+		values[i] = value;
+		present.set(i);
+		changed.set(i);
+		mirrorOf = null;
+		modCount++;
+	}
+
+	/**
+	 * Removes all results.
+	 */
+	public void clear() {
+		Arrays.fill(values, 0, Math.min(values.length, present.length()), null);
+		changed.or(present);
+		present.clear();
+		mirrorOf = null;
+		modCount++;
+	}
+
+	/**
+	 * Makes these results a copy of others.
+	 *
+	 * @param from the results to copy
+	 */
+	public void copyFrom(final TraversalResults<T> from) {
+		if (values.length < from.values.length)
+			values = Arrays.copyOf(values, from.values.length);
+
+		if (mirrorOf == from && from.mirror == this) {
+			for (int i = from.changed.nextSetBit(0); i >= 0; i = from.changed.nextSetBit(i + 1)) {
+				values[i] = from.values[i];
+				present.set(i, from.present.get(i));
+			}
+		} else {
+			System.arraycopy(from.values, 0, values, 0, from.values.length);
+			Arrays.fill(values, from.values.length, values.length, null);
+			present.clear();
+			present.or(from.present);
+		}
+
+		changed.clear();
+		mirror = null;
+		from.changed.clear();
+		from.mirror = this;
+		mirrorOf = from;
+		modCount++;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import boa.aggregators.ApproxClonesAggregator;
+import boa.io.EmitKey;
+
+/**
+ * Checks which values approxclones groups by their sketches.
+ *
+ * @author agent
+ */
+public class TestApproxClones {
+	// keeps what is output, in place of the task's context
+	private static class Clones extends ApproxClonesAggregator {
+		final List<String> out = new ArrayList<String>();
+
+		Clones(final long n) {
+			super(n);
+			this.start(new EmitKey("c"));
+		}
+
+		@Override
+		protected void collect(final String data, final String metadata) {
+			this.out.add(data);
+		}
+	}
+
+	@Test
+	public void sharedBand() throws Exception {
+		final Clones c = new Clones(4);
+		c.aggregate("a", "11112222");
+		c.aggregate("b", "33332222");
+		c.aggregate("c", "55556666");
+		c.aggregate("d", "77778888");
+		c.finish();
+
+		assertEquals(Arrays.asList("a, b"), c.out);
+	}
+
+	@Test
+	public void transitive() throws Exception {
+		final Clones c = new Clones(2);
+		c.aggregate("z", "aaaabbbb");
+		c.aggregate("y", "ccccbbbb");
+		c.aggregate("x", "ccccdddd");
+		c.aggregate("w", "eeeeffff");
+		c.aggregate("v", "eeeegggg");
+		c.finish();
+
+		assertEquals(Arrays.asList("v, w", "x, y, z"), c.out);
+	}
+
+	@Test
+	public void noSketch() throws Exception {
+		// values without a sketch, such as of empty graphs, have no clones
+		final Clones c = new Clones(2);
+		c.aggregate("a", "");
+		c.aggregate("b", "");
+		c.aggregate("c", null);
+		c.finish();
+
+		assertTrue(c.out.isEmpty());
+	}
+
+	@Test
+	public void repeatedValue() throws Exception {
+		final Clones c = new Clones(2);
+		c.aggregate("a", "aaaabbbb");
+		c.aggregate("a", "aaaabbbb");
+		c.finish();
+
+		assertTrue(c.out.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sketchShorterThanBands() throws Exception {
+		final Clones c = new Clones(8);
+		c.aggregate("a", "1234");
+	}
+}
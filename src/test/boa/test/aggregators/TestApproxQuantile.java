@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import boa.aggregators.ApproxMedianAggregator;
+import boa.aggregators.IntApproxQuantileAggregator;
+import boa.io.EmitKey;
+
+/**
+ * Checks the approximate quantiles are within their rank error, whether or
+ * not the values went through combiners first.
+ *
+ * @author agent
+ */
+public class TestApproxQuantile {
+	private static final int N = 100000;
+	private static final double ERROR = 0.01;
+
+	// keeps what is output, in place of the task's context
+	private static class Quantiles extends IntApproxQuantileAggregator {
+		final List<String> out = new ArrayList<String>();
+
+		Quantiles(final long n, final double error) {
+			super(n, error);
+		}
+
+		@Override
+		protected void collect(final String data, final String metadata) {
+			this.out.add(data);
+		}
+	}
+
+	private static class Median extends ApproxMedianAggregator {
+		final List<String> out = new ArrayList<String>();
+
+		Median(final double error) {
+			super(error);
+		}
+
+		@Override
+		protected void collect(final String data, final String metadata) {
+			this.out.add(data);
+		}
+	}
+
+	private static List<Long> shuffled() {
+		final List<Long> values = new ArrayList<Long>();
+		for (long i = 1; i <= N; i++)
+			values.add(i);
+		Collections.shuffle(values, new Random(42));
+		return values;
+	}
+
+	private static void assertDeciles(final String output) {
+		final String[] parts = output.substring(1, output.length() - 1).split(", ");
+		assertEquals(9, parts.length);
+		// as with quantile, the nine values are at ranks N/9, 2N/9, ..., N;
+		// the value of rank r is r itself, so the rank error bounds the value
+		for (int i = 0; i < parts.length; i++)
+			assertEquals((i + 1) * N / 9.0, Long.parseLong(parts[i]), ERROR * N);
+	}
+
+	@Test
+	public void accuracy() throws Exception {
+		final Quantiles q = new Quantiles(10, ERROR);
+		q.start(new EmitKey("q"));
+		for (final long v : shuffled())
+			q.aggregate(v);
+		q.finish();
+
+		assertEquals(1, q.out.size());
+		assertDeciles(q.out.get(0));
+	}
+
+	@Test
+	public void accuracyCombined() throws Exception {
+		final List<Long> values = shuffled();
+
+		final Quantiles q = new Quantiles(10, ERROR);
+		q.start(new EmitKey("q"));
+		for (int c = 0; c < 4; c++) {
+			final Quantiles combiner = new Quantiles(10, ERROR);
+			combiner.setCombining(true);
+			combiner.start(new EmitKey("q"));
+			for (final long v : values.subList(c * N / 4, (c + 1) * N / 4))
+				combiner.aggregate(v);
+			combiner.finish();
+
+			assertEquals(1, combiner.out.size());
+			q.aggregate(combiner.out.get(0), null);
+		}
+		q.finish();
+
+		assertEquals(1, q.out.size());
+		assertDeciles(q.out.get(0));
+	}
+
+	@Test
+	public void weighted() throws Exception {
+		final Quantiles q = new Quantiles(4, ERROR);
+		q.start(new EmitKey("q"));
+		q.aggregate(1, 1L);
+		q.aggregate(2, 6L);
+		q.aggregate(3, 1L);
+		q.finish();
+
+		// ranks 8/3, 16/3 and 8
+		assertEquals("[2, 2, 3]", q.out.get(0));
+	}
+
+	@Test
+	public void empty() throws Exception {
+		final Quantiles q = new Quantiles(10, ERROR);
+		q.start(new EmitKey("q"));
+		q.finish();
+		assertTrue(q.out.isEmpty());
+
+		// values with no cardinality count for nothing
+		q.start(new EmitKey("q"));
+		q.aggregate(5, 0L);
+		q.finish();
+		assertTrue(q.out.isEmpty());
+
+		final Median m = new Median(ERROR);
+		m.start(new EmitKey("m"));
+		m.finish();
+		assertTrue(m.out.isEmpty());
+	}
+
+	@Test
+	public void emptyCombined() throws Exception {
+		final Quantiles combiner = new Quantiles(10, ERROR);
+		combiner.setCombining(true);
+		combiner.start(new EmitKey("q"));
+		combiner.finish();
+
+		final Quantiles q = new Quantiles(10, ERROR);
+		q.start(new EmitKey("q"));
+		q.aggregate(combiner.out.get(0), null);
+		q.finish();
+		assertTrue(q.out.isEmpty());
+	}
+
+	@Test
+	public void median() throws Exception {
+		final Median odd = new Median(ERROR);
+		odd.start(new EmitKey("m"));
+		for (final long v : new long[] { 5, 1, 4, 2, 3 })
+			odd.aggregate(v);
+		odd.finish();
+		assertEquals(3.0, Double.parseDouble(odd.out.get(0)), 0);
+
+		final Median even = new Median(ERROR);
+		even.start(new EmitKey("m"));
+		for (final long v : new long[] { 4, 1, 3, 2 })
+			even.aggregate(v);
+		even.finish();
+		assertEquals(2.5, Double.parseDouble(even.out.get(0)), 0);
+
+		final Median large = new Median(ERROR);
+		large.start(new EmitKey("m"));
+		for (final long v : shuffled())
+			large.aggregate(v);
+		large.finish();
+		assertEquals(N / 2.0, Double.parseDouble(large.out.get(0)), ERROR * N);
+	}
+}
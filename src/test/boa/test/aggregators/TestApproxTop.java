@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import boa.aggregators.ApproxTopAggregator;
+import boa.io.EmitKey;
+
+/**
+ * Checks the estimates of approxtop are within their errors, whether or not
+ * the values went through combiners first, and that the summaries combiners
+ * output read back as written.
+ *
+ * @author agent
+ */
+public class TestApproxTop {
+	private static final int N = 100000;
+	private static final int TOP = 10;
+	private static final int COUNTERS = 50;
+
+	// keeps what is output, in place of the task's context
+	private static class Top extends ApproxTopAggregator {
+		final List<String> out = new ArrayList<String>();
+		final List<String> metadata = new ArrayList<String>();
+
+		Top(final long n, final long counters, final boolean combining) {
+			super(n, counters);
+			setCombining(combining);
+			start(new EmitKey("t"));
+		}
+
+		@Override
+		protected void collect(final String data, final String metadata) {
+			this.out.add(data);
+			this.metadata.add(metadata);
+		}
+	}
+
+	// a skewed stream, with a few values much more common than the rest
+	private static List<String> stream(final long seed) {
+		final Random random = new Random(seed);
+		final List<String> values = new ArrayList<String>();
+		for (int i = 0; i < N; i++)
+			values.add("v" + (int) (Math.pow(random.nextDouble(), 3) * 1000));
+		return values;
+	}
+
+	private static Map<String, Integer> counts(final List<String> values) {
+		final Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (final String v : values) {
+			final Integer c = counts.get(v);
+			counts.put(v, c == null ? 1 : c + 1);
+		}
+		return counts;
+	}
+
+	// each line is "value, count, error"
+	private static void assertWithinError(final Map<String, Integer> counts, final List<String> out) {
+		assertEquals(TOP, out.size());
+		double last = Double.MAX_VALUE;
+		for (final String line : out) {
+			final String[] parts = line.split(", ");
+			assertEquals(line, 3, parts.length);
+			final int actual = counts.get(parts[0]);
+			final double count = Double.parseDouble(parts[1]);
+			final double error = Double.parseDouble(parts[2]);
+			assertTrue(line + " under " + actual, count >= actual);
+			assertTrue(line + " over " + actual, count - error <= actual);
+			assertTrue(line, count <= last);
+			last = count;
+		}
+		// the heaviest values are always found
+		for (final String v : new String[] { "v0", "v1", "v2" })
+			assertTrue(v, out.get(0).startsWith(v + ", ") || out.get(1).startsWith(v + ", ") || out.get(2).startsWith(v + ", "));
+	}
+
+	@Test
+	public void exact() throws Exception {
+		final Top t = new Top(3, 10, false);
+		for (final String v : new String[] { "a", "b", "c", "a", "d", "c" })
+			t.aggregate(v, null);
+		t.aggregate("b", 2L);
+		t.aggregate("d", 0.5);
+		t.finish();
+
+		// heaviest first, then by value
+		assertEquals(Arrays.asList("b, 3.0, 0.0", "a, 2.0, 0.0", "c, 2.0, 0.0"), t.out);
+	}
+
+	@Test
+	public void estimate() throws Exception {
+		final List<String> values = stream(1);
+		final Top t = new Top(TOP, COUNTERS, false);
+		for (final String v : values)
+			t.aggregate(v, null);
+		t.finish();
+
+		assertWithinError(counts(values), t.out);
+	}
+
+	@Test
+	public void estimateCombined() throws Exception {
+		final List<String> values = stream(2);
+		final Top t = new Top(TOP, COUNTERS, false);
+		for (int c = 0; c < 4; c++) {
+			final Top combiner = new Top(TOP, COUNTERS, true);
+			for (final String v : values.subList(c * N / 4, (c + 1) * N / 4))
+				combiner.aggregate(v, null);
+			combiner.finish();
+			assertEquals(1, combiner.out.size());
+			t.aggregate(combiner.out.get(0), combiner.metadata.get(0));
+		}
+		t.finish();
+
+		assertWithinError(counts(values), t.out);
+	}
+
+	@Test
+	public void mergeExact() throws Exception {
+		// with enough counters, merged counts are exact
+		final Top t = new Top(3, 10, false);
+		for (final String[] part : new String[][] { { "a", "b", "a" }, { "b", "c" }, { "a", "c", "c", "c" } }) {
+			final Top combiner = new Top(3, 10, true);
+			for (final String v : part)
+				combiner.aggregate(v, null);
+			combiner.finish();
+			t.aggregate(combiner.out.get(0), combiner.metadata.get(0));
+		}
+		t.finish();
+
+		assertEquals(Arrays.asList("c, 4.0, 0.0", "a, 3.0, 0.0", "b, 2.0, 0.0"), t.out);
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		// values that look like the summary's own separators and numbers
+		final String[] odd = { "", ";", ":", ",", "1;2:3,4", "3:abc", "1.0E10", "a, b", "\u00E9\u0800", "\uD83D\uDE00" };
+		final Top combiner = new Top(odd.length, odd.length, true);
+		for (int i = 0; i < odd.length; i++)
+			for (int j = 0; j <= i; j++)
+				combiner.aggregate(odd[i], null);
+		combiner.finish();
+		final String summary = combiner.out.get(0);
+
+		// a summary read and written again is read back the same
+		final Top again = new Top(odd.length, odd.length, true);
+		again.aggregate(summary, combiner.metadata.get(0));
+		again.finish();
+
+		final Top once = new Top(odd.length, odd.length, false);
+		once.aggregate(summary, combiner.metadata.get(0));
+		once.finish();
+		final Top twice = new Top(odd.length, odd.length, false);
+		twice.aggregate(again.out.get(0), again.metadata.get(0));
+		twice.finish();
+
+		final List<String> expected = new ArrayList<String>();
+		for (int i = odd.length - 1; i >= 0; i--)
+			expected.add(odd[i] + ", " + (i + 1) + ".0, 0.0");
+		assertEquals(expected, once.out);
+		assertEquals(expected, twice.out);
+	}
+}
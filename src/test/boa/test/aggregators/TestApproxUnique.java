@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.aggregators;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import boa.aggregators.ApproxUniqueAggregator;
+import boa.io.EmitKey;
+
+/**
+ * Checks the estimates of approxunique, for values of every length modulo
+ * the hash's block size.
+ *
+ * @author agent
+ */
+public class TestApproxUnique {
+	// keeps what is output, in place of the task's context
+	private static class Unique extends ApproxUniqueAggregator {
+		final List<String> out = new ArrayList<String>();
+		final List<String> metadata = new ArrayList<String>();
+
+		Unique(final long precision) {
+			super(precision);
+		}
+
+		@Override
+		protected void collect(final String data, final String metadata) {
+			this.out.add(data);
+			this.metadata.add(metadata);
+		}
+	}
+
+	private static String value(final int i) {
+		// lengths cycle through every tail length of the hash's 8 byte blocks
+		final StringBuilder sb = new StringBuilder(Integer.toString(i));
+		for (int j = 0; j < i % 16; j++)
+			sb.append('x');
+		return sb.toString();
+	}
+
+	@Test
+	public void estimate() throws Exception {
+		final int n = 50000;
+		final Unique u = new Unique(ApproxUniqueAggregator.DEFAULT_PRECISION);
+		u.start(new EmitKey("u"));
+		for (int i = 0; i < n; i++) {
+			u.aggregate(value(i));
+			u.aggregate(value(i));
+		}
+		u.finish();
+
+		assertEquals(n, Long.parseLong(u.out.get(0)), 0.03 * n);
+	}
+
+	@Test
+	public void estimateCombined() throws Exception {
+		final int n = 50000;
+		final Unique u = new Unique(ApproxUniqueAggregator.DEFAULT_PRECISION);
+		u.start(new EmitKey("u"));
+		for (int c = 0; c < 4; c++) {
+			final Unique combiner = new Unique(ApproxUniqueAggregator.DEFAULT_PRECISION);
+			combiner.setCombining(true);
+			combiner.start(new EmitKey("u"));
+			// the combiners overlap by half
+			for (int i = c * n / 8; i < c * n / 8 + n / 2 && i < n; i++)
+				combiner.aggregate(value(i));
+			combiner.finish();
+			u.aggregate(combiner.out.get(0), combiner.metadata.get(0));
+		}
+		u.finish();
+
+		final long expected = Math.min(n, 3 * n / 8 + n / 2);
+		assertEquals(expected, Long.parseLong(u.out.get(0)), 0.03 * expected);
+	}
+
+	@Test
+	public void small() throws Exception {
+		final Unique u = new Unique(ApproxUniqueAggregator.DEFAULT_PRECISION);
+		u.start(new EmitKey("u"));
+		for (final String s : new String[] { "a", "b", "c", "a", "b" })
+			u.aggregate(s);
+		u.finish();
+
+		assertEquals("3", u.out.get(0));
+	}
+}
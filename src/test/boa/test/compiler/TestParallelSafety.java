@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.compiler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import boa.compiler.ast.Start;
+import boa.compiler.transforms.InheritedAttributeTransformer;
+import boa.compiler.transforms.LocalAggregationTransformer;
+import boa.compiler.transforms.VariableDeclRenameTransformer;
+import boa.compiler.transforms.VisitorOptimizingTransformer;
+import boa.compiler.visitors.analysis.ParallelSafetyAnalysis;
+
+/**
+ * Test which programs may analyze the files of a project in parallel.
+ *
+ * @author agent
+ */
+public class TestParallelSafety extends BaseTest {
+	private static final String HEADER = "counts: output sum of int;\n";
+
+	private boolean isParallel(final String input) throws IOException {
+		final Start p = typecheck(HEADER + input).ast;
+		new VariableDeclRenameTransformer().start(p);
+		new InheritedAttributeTransformer().start(p);
+		new LocalAggregationTransformer().start(p);
+		new VisitorOptimizingTransformer().start(p);
+
+		final ParallelSafetyAnalysis analysis = new ParallelSafetyAnalysis();
+		analysis.start(p);
+		return analysis.isParallel();
+	}
+
+	private void assertParallel(final String input) throws IOException {
+		assertTrue("not parallel:\n" + input, isParallel(input));
+	}
+
+	private void assertNotParallel(final String input) throws IOException {
+		assertFalse("parallel:\n" + input, isParallel(input));
+	}
+
+	@Test
+	public void emitsOnly() throws IOException {
+		assertParallel(
+			"visit(input, visitor {\n" +
+			"	before node: Method -> counts << 1;\n" +
+			"});\n");
+	}
+
+	@Test
+	public void stateStartingOverInEachFile() throws IOException {
+		assertParallel(
+			"n := 0;\n" +
+			"names: set of string;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: CodeRepository -> {\n" +
+			"		snapshot := getsnapshot(node);\n" +
+			"		foreach (i: int; def(snapshot[i]))\n" +
+			"			visit(snapshot[i]);\n" +
+			"		stop;\n" +
+			"	}\n" +
+			"	before node: ChangedFile -> {\n" +
+			"		n = 0;\n" +
+			"		clear(names);\n" +
+			"	}\n" +
+			"	before node: Method -> {\n" +
+			"		n++;\n" +
+			"		add(names, node.name);\n" +
+			"	}\n" +
+			"	after node: ChangedFile -> counts << n + len(names);\n" +
+			"});\n");
+	}
+
+	@Test
+	public void stateKeptBetweenFiles() throws IOException {
+		// not reset for each file
+		assertNotParallel(
+			"n := 0;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: Method -> n++;\n" +
+			"	after node: ChangedFile -> counts << n;\n" +
+			"});\n");
+		// used outside of files
+		assertNotParallel(
+			"n := 0;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: ChangedFile -> n = 0;\n" +
+			"	before node: Method -> n++;\n" +
+			"	after node: Project -> counts << n;\n" +
+			"});\n");
+	}
+
+	@Test
+	public void staticReads() throws IOException {
+		assertParallel(
+			"static limit := 10;\n" +
+			"static names: set of string;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: Method ->\n" +
+			"		if (contains(names, node.name) && len(node.statements) > limit)\n" +
+			"			counts << 1;\n" +
+			"});\n");
+	}
+
+	@Test
+	public void staticWrites() throws IOException {
+		// each thread would change the one variable
+		assertNotParallel(
+			"static total := 0;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: Method -> total++;\n" +
+			"	after node: ChangedFile -> counts << total;\n" +
+			"});\n");
+		// even if reset at the start of each file, as a plain variable may be
+		assertNotParallel(
+			"static n := 0;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: ChangedFile -> n = 0;\n" +
+			"	before node: Method -> n = n + 1;\n" +
+			"	after node: ChangedFile -> counts << n;\n" +
+			"});\n");
+		assertNotParallel(
+			"static names: set of string;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: Method -> add(names, node.name);\n" +
+			"	after node: Project -> counts << len(names);\n" +
+			"});\n");
+		// or changed outside of files, as every thread runs that code too
+		assertNotParallel(
+			"static projects := 0;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: Project -> projects = projects + 1;\n" +
+			"	before node: Method -> counts << projects;\n" +
+			"});\n");
+	}
+
+	@Test
+	public void staticReferences() throws IOException {
+		// the container may then be changed through the other reference
+		assertNotParallel(
+			"static names: set of string;\n" +
+			"visit(input, visitor {\n" +
+			"	before node: Method -> {\n" +
+			"		s := names;\n" +
+			"		add(s, node.name);\n" +
+			"		counts << 1;\n" +
+			"	}\n" +
+			"});\n");
+	}
+
+	@Test
+	public void randomNumbers() throws IOException {
+		assertNotParallel(
+			"visit(input, visitor {\n" +
+			"	before node: Method -> if (rand() < 0.5) counts << 1;\n" +
+			"});\n");
+	}
+
+	@Test
+	public void resetByAnotherVisitor() throws IOException {
+		// the second visitor does not run the first's clause for the file
+		assertNotParallel(
+			"n := 0;\n" +
+			"v1 := visitor {\n" +
+			"	before node: ChangedFile -> n = 0;\n" +
+			"};\n" +
+			"v2 := visitor {\n" +
+			"	before node: Method -> n++;\n" +
+			"	after node: ChangedFile -> counts << n;\n" +
+			"};\n" +
+			"visit(input, v1);\n" +
+			"visit(input, v2);\n");
+	}
+
+	@Test
+	public void noFiles() throws IOException {
+		assertNotParallel("counts << 1;\n");
+	}
+}
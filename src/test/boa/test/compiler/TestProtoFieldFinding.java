@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.compiler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import boa.compiler.ast.Start;
+import boa.compiler.transforms.InheritedAttributeTransformer;
+import boa.compiler.transforms.LocalAggregationTransformer;
+import boa.compiler.transforms.VariableDeclRenameTransformer;
+import boa.compiler.transforms.VisitorOptimizingTransformer;
+import boa.compiler.visitors.ProtoFieldFindingVisitor;
+import boa.types.Ast.ASTRoot;
+import boa.types.proto.ASTRootProtoTuple;
+
+/**
+ * Test which parts of the AST a program is found to need, and that every
+ * way a message can escape the program's sight makes all of it needed.
+ *
+ * @author agent
+ */
+public class TestProtoFieldFinding extends BaseTest {
+	// a method's arguments are read, but not looked inside
+	private static final String ARGUMENTS =
+		"counts: output sum of int;\n" +
+		"visit(input, visitor {\n" +
+		"	before m: Method -> { counts << len(m.arguments); stop; }\n" +
+		"	before v: Variable -> stop;\n" +
+		"});\n";
+
+	private ProtoFieldFindingVisitor find(final String input) throws IOException {
+		final Start p = typecheck(input).ast;
+		new VariableDeclRenameTransformer().start(p);
+		new InheritedAttributeTransformer().start(p);
+		new LocalAggregationTransformer().start(p);
+		new VisitorOptimizingTransformer().start(p);
+
+		final ProtoFieldFindingVisitor v = new ProtoFieldFindingVisitor(ASTRoot.getDescriptor(), new ASTRootProtoTuple());
+		v.start(p);
+		return v;
+	}
+
+	private void assertNeeded(final ProtoFieldFindingVisitor v, final String... fields) {
+		assertFalse("uses all fields", v.usesAll());
+		for (final String f : fields)
+			assertTrue(f + " not in " + v.getFieldNames(), v.getFieldNames().contains(f));
+	}
+
+	private void assertNotNeeded(final ProtoFieldFindingVisitor v, final String... fields) {
+		assertFalse("uses all fields", v.usesAll());
+		for (final String f : fields)
+			assertFalse(f + " in " + v.getFieldNames(), v.getFieldNames().contains(f));
+	}
+
+	@Test
+	public void opaqueFunctions() throws IOException {
+		final ProtoFieldFindingVisitor v = find(ARGUMENTS);
+		assertNeeded(v, "ASTRoot.namespaces", "Namespace.declarations", "Declaration.methods", "Method.arguments");
+		// len only counts the arguments, so nothing inside them is needed
+		assertNotNeeded(v, "Variable.initializer", "Variable.variable_type", "Method.statements", "Declaration.fields");
+	}
+
+	@Test
+	public void userFunctions() throws IOException {
+		// a function can look at anything in the argument it is given, which
+		// through anonymous classes in initializers is the whole AST
+		final ProtoFieldFindingVisitor v = find(
+			"counts: output sum of int;\n" +
+			"f := function(v: Variable): int { return 1; };\n" +
+			"visit(input, visitor {\n" +
+			"	before m: Method -> { counts << f(m.arguments[0]); stop; }\n" +
+			"	before v: Variable -> stop;\n" +
+			"});\n");
+		assertNeeded(v, "Method.arguments", "Variable.initializer", "Variable.variable_type");
+	}
+
+	@Test
+	public void compares() throws IOException {
+		// comparing messages compares everything in them
+		final ProtoFieldFindingVisitor v = find(
+			"counts: output sum of int;\n" +
+			"visit(input, visitor {\n" +
+			"	before m: Method -> { if (m.arguments[0] == m.arguments[1]) counts << 1; stop; }\n" +
+			"	before v: Variable -> stop;\n" +
+			"});\n");
+		assertNeeded(v, "Method.arguments", "Variable.initializer", "Variable.variable_type");
+	}
+
+	@Test
+	public void emits() throws IOException {
+		// an emitted message is written out whole
+		final ProtoFieldFindingVisitor v = find(
+			"vars: output collection of Variable;\n" +
+			"visit(input, visitor {\n" +
+			"	before m: Method -> { vars << m.arguments[0]; stop; }\n" +
+			"	before v: Variable -> stop;\n" +
+			"});\n");
+		assertNeeded(v, "Method.arguments", "Variable.initializer", "Variable.variable_type");
+	}
+
+	@Test
+	public void hashes() throws IOException {
+		// the hash of a message depends on everything in it
+		final ProtoFieldFindingVisitor v = find(
+			"counts: output sum of int;\n" +
+			"s: set of Variable;\n" +
+			"visit(input, visitor {\n" +
+			"	before m: Method -> { add(s, m.arguments[0]); counts << len(s); stop; }\n" +
+			"	before v: Variable -> stop;\n" +
+			"});\n");
+		assertNeeded(v, "Method.arguments", "Variable.initializer", "Variable.variable_type");
+	}
+
+	@Test
+	public void clauses() throws IOException {
+		// stopping at methods and fields leaves only the nested declarations
+		final ProtoFieldFindingVisitor stopped = find(
+			"counts: output sum of int;\n" +
+			"visit(input, visitor {\n" +
+			"	before d: Declaration -> counts << 1;\n" +
+			"	before m: Method -> stop;\n" +
+			"	before v: Variable -> stop;\n" +
+			"});\n");
+		assertNeeded(stopped, "Namespace.declarations", "Declaration.nested_declarations");
+		assertNotNeeded(stopped, "Declaration.methods", "Declaration.fields", "Method.statements", "Variable.initializer");
+
+		// otherwise declarations can be nested anywhere, even in expressions
+		final ProtoFieldFindingVisitor all = find(
+			"counts: output sum of int;\n" +
+			"visit(input, visitor {\n" +
+			"	before d: Declaration -> counts << 1;\n" +
+			"});\n");
+		assertNeeded(all, "Declaration.methods", "Method.statements", "Statement.expressions", "Expression.anon_declaration");
+	}
+
+	@Test
+	public void usesAll() throws IOException {
+		// a wildcard clause sees every node
+		assertTrue(find(
+			"counts: output sum of int;\n" +
+			"visit(input, visitor {\n" +
+			"	before _ -> counts << 1;\n" +
+			"});\n").usesAll());
+
+		// the call graph is built from the whole AST
+		assertTrue(find(
+			"counts: output sum of int;\n" +
+			"visit(input, visitor {\n" +
+			"	before n: ChangedFile -> { g := getcallgraph(getast(n)); counts << 1; }\n" +
+			"});\n").usesAll());
+	}
+}
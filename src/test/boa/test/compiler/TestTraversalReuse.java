@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.compiler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import boa.compiler.ast.Start;
+import boa.compiler.transforms.InheritedAttributeTransformer;
+import boa.compiler.transforms.LocalAggregationTransformer;
+import boa.compiler.transforms.VariableDeclRenameTransformer;
+import boa.compiler.transforms.VisitorOptimizingTransformer;
+import boa.compiler.visitors.CodeGeneratingVisitor;
+
+/**
+ * Test which traversals may reuse their saved results, and that the
+ * results of those are deep copied.
+ *
+ * @author agent
+ */
+public class TestTraversalReuse extends BaseTest {
+	private static final String HEADER = "m: output collection of int;\n";
+	private static final Pattern TRAVERSAL = Pattern.compile("new boa\\.runtime\\.BoaAbstractTraversal<.*>\\(\\w+, \\w+, (\\w+)\\)");
+
+	private String generate(final String input) throws IOException {
+		final Start p = typecheck(input).ast;
+		new VariableDeclRenameTransformer().start(p);
+		new InheritedAttributeTransformer().start(p);
+		new LocalAggregationTransformer().start(p);
+		new VisitorOptimizingTransformer().start(p);
+
+		final CodeGeneratingVisitor cg = new CodeGeneratingVisitor("Test", 64 * 1024 * 1024, 0, false);
+		cg.start(p);
+		return cg.getCode();
+	}
+
+	// if the program's traversal is created as reusable
+	private static boolean isReusable(final String code) {
+		final Matcher m = TRAVERSAL.matcher(code);
+		assertTrue("no traversal in:\n" + code, m.find());
+		return Boolean.parseBoolean(m.group(1));
+	}
+
+	private void assertReusable(final String input) throws IOException {
+		final String code = generate(HEADER + input + "m << 1;\n");
+		assertTrue("not reusable:\n" + code, isReusable(code));
+		// and the results can be copied
+		codegen(HEADER + input + "m << 1;\n");
+	}
+
+	private void assertNotReusable(final String input) throws IOException {
+		final String code = generate(HEADER + input + "m << 1;\n");
+		assertFalse("reusable:\n" + code, isReusable(code));
+		codegen(HEADER + input + "m << 1;\n");
+	}
+
+	@Test
+	public void scalarResults() throws IOException {
+		assertReusable(
+			"t := traversal(node: CFGNode) : string {\n" +
+			"	return string(node.id);\n" +
+			"};\n");
+	}
+
+	@Test
+	public void nestedResults() throws IOException {
+		final String input = HEADER +
+			"t := traversal(node: CFGNode) : map[string] of set of string {\n" +
+			"	s: set of string;\n" +
+			"	add(s, string(node.id));\n" +
+			"	r: map[string] of set of string;\n" +
+			"	r[\"ids\"] = s;\n" +
+			"	return r;\n" +
+			"};\n" +
+			"m << 1;\n";
+		final String code = generate(input);
+		assertTrue(isReusable(code));
+		// the sets in the map are copied too, not just the map
+		assertTrue(code, code.contains("copy.put(e.getKey(), new java.util.HashSet<String>(e.getValue()));"));
+		codegen(input);
+	}
+
+	@Test
+	public void stackResults() throws IOException {
+		final String input = HEADER +
+			"t := traversal(node: CFGNode) : map[string] of stack of string {\n" +
+			"	s: stack of string;\n" +
+			"	push(s, string(node.id));\n" +
+			"	r: map[string] of stack of string;\n" +
+			"	r[\"ids\"] = s;\n" +
+			"	return r;\n" +
+			"};\n" +
+			"m << 1;\n";
+		final String code = generate(input);
+		assertTrue(isReusable(code));
+		// stacks have no copy constructor, so are copied element by element
+		assertTrue(code, code.contains("copy.put(e.getKey(), copyResult1(e.getValue()));"));
+		codegen(input);
+	}
+
+	@Test
+	public void tupleResults() throws IOException {
+		final String input = HEADER +
+			"type T = {vars: set of string, nested: queue of set of string, n: int};\n" +
+			"t := traversal(node: CFGNode) : T {\n" +
+			"	s: set of string;\n" +
+			"	k: queue of set of string;\n" +
+			"	offer(k, s);\n" +
+			"	r: T = {s, k, node.id};\n" +
+			"	return r;\n" +
+			"};\n" +
+			"m << 1;\n";
+		final String code = generate(input);
+		assertTrue(isReusable(code));
+		assertTrue(code, code.contains("copy.___nested = copyResult1(value.___nested);"));
+		codegen(input);
+	}
+
+	@Test
+	public void impureClauses() throws IOException {
+		// reads the input, which changes between calls
+		assertNotReusable(
+			"t := traversal(node: CFGNode) : string {\n" +
+			"	return input.id;\n" +
+			"};\n");
+		// emits
+		assertNotReusable(
+			"t := traversal(node: CFGNode) : string {\n" +
+			"	m << 1;\n" +
+			"	return string(node.id);\n" +
+			"};\n");
+		// keeps state between calls
+		assertNotReusable(
+			"seen: set of string;\n" +
+			"t := traversal(node: CFGNode) : int {\n" +
+			"	add(seen, string(node.id));\n" +
+			"	return len(seen);\n" +
+			"};\n");
+	}
+}
@@ -125,4 +125,19 @@ public class TestTypecheckBad extends BaseTest {
 	public void stopInAfter() throws IOException {
 		typecheck(load(badDir + "stop-in-after.boa"), "Stop statement not allowed inside 'after' visits");
 	}
+
+	@Test
+	public void aggregatorArgType() throws IOException {
+		typecheck(load(badDir + "aggregator-arg-type.boa"), "invalid type for argument 1 of output aggregator 'approxmedian', found: string expected: float");
+	}
+
+	@Test
+	public void aggregatorTooManyArgs() throws IOException {
+		typecheck(load(badDir + "aggregator-too-many-args.boa"), "output aggregator 'approxunique' takes at most 1 arguments");
+	}
+
+	@Test
+	public void approxuniquePrecision() throws IOException {
+		typecheck(load(badDir + "approxunique-precision.boa"), "precision of output aggregator 'approxunique' must be between 4 and 18, found: 30");
+	}
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boa.datagen.scm.BlobIndex;
+import boa.datagen.scm.GitConnector;
+import boa.datagen.util.FileIO;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * Checks that a file blob seen again is not parsed again, and its changed
+ * file points at the AST written the first time.
+ *
+ * @author agent
+ */
+public class TestBlobIndex {
+	private static final String V1 = "class A {\n\tint f() { return 1; }\n}\n";
+	private static final String V2 = "class A {\n\tint f() { return 2; }\n}\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Configuration conf = new Configuration();
+
+	@Test
+	public void keyByExtension() {
+		assertEquals(BlobIndex.key("abc", "src/A.java"), BlobIndex.key("abc", "lib/B.JAVA"));
+		assertNotEquals(BlobIndex.key("abc", "src/A.java"), BlobIndex.key("abc", "src/A.js"));
+		assertEquals("abc", BlobIndex.key("abc", "dir.d/Makefile"));
+	}
+
+	@Test
+	public void applyRemembered() {
+		final BlobIndex index = new BlobIndex(10);
+
+		final ChangedFile.Builder first = changedFile("A.java");
+		assertFalse(index.apply("abc.java", first));
+		first.setKind(FileKind.SOURCE_JAVA_JLS8).setKey(42).setAst(true);
+		index.put("abc.java", first);
+
+		final ChangedFile.Builder again = changedFile("B.java");
+		assertTrue(index.apply("abc.java", again));
+		assertEquals(FileKind.SOURCE_JAVA_JLS8, again.getKind());
+		assertEquals(42, again.getKey());
+		assertTrue(again.getAst());
+
+		// a blob without an AST only gets its kind
+		final ChangedFile.Builder text = changedFile("README").setKind(FileKind.TEXT);
+		index.put("def", text);
+		final ChangedFile.Builder textAgain = changedFile("README");
+		assertTrue(index.apply("def", textAgain));
+		assertEquals(FileKind.TEXT, textAgain.getKind());
+		assertFalse(textAgain.getAst());
+
+		assertEquals(2, index.getHits());
+		assertEquals(1, index.getMisses());
+	}
+
+	@Test
+	public void forgetsLeastRecentlyUsed() {
+		final BlobIndex index = new BlobIndex(2);
+		index.put("a", changedFile("a").setKind(FileKind.TEXT));
+		index.put("b", changedFile("b").setKind(FileKind.TEXT));
+		assertTrue(index.apply("a", changedFile("a")));
+		index.put("c", changedFile("c").setKind(FileKind.TEXT));
+
+		assertTrue(index.contains("a"));
+		assertFalse(index.contains("b"));
+		assertTrue(index.contains("c"));
+	}
+
+	@Test
+	public void revertedAndDuplicatedBlobs() throws Exception {
+		final File repo = folder.newFolder("repo");
+		try (final Git git = Git.init().setDirectory(repo).call()) {
+			commit(git, "A.java", V1, "add");
+			commit(git, "A.java", V2, "change");
+			commit(git, "A.java", V1, "revert");
+			commit(git, "B.java", V2, "copy");
+		}
+
+		final Writers w = new Writers(folder.newFolder("seq"));
+		final List<Revision> revs = revisions(repo, "repo", w, new BlobIndex(100));
+		w.close();
+
+		assertEquals(4, revs.size());
+		final ChangedFile added = file(revs.get(0), "A.java");
+		final ChangedFile changed = file(revs.get(1), "A.java");
+		final ChangedFile reverted = file(revs.get(2), "A.java");
+		final ChangedFile copied = file(revs.get(3), "B.java");
+
+		assertTrue(added.getAst());
+		assertTrue(changed.getAst());
+		assertNotEquals(added.getKey(), changed.getKey());
+
+		assertTrue(reverted.getAst());
+		assertEquals(added.getKey(), reverted.getKey());
+		assertEquals(added.getKind(), reverted.getKind());
+
+		assertTrue(copied.getAst());
+		assertEquals(changed.getKey(), copied.getKey());
+		assertEquals(changed.getKind(), copied.getKind());
+
+		// only the two distinct blobs were written
+		assertEquals(2, countAsts(w.ast));
+	}
+
+	@Test
+	public void sharedAcrossProjects() throws Exception {
+		final File repo1 = folder.newFolder("repo1");
+		try (final Git git = Git.init().setDirectory(repo1).call()) {
+			commit(git, "A.java", V1, "add");
+		}
+		final File repo2 = folder.newFolder("repo2");
+		try (final Git git = Git.init().setDirectory(repo2).call()) {
+			commit(git, "src/C.java", V2, "add");
+			commit(git, "src/C.java", V1, "change");
+		}
+
+		// as with -sharedasts, both projects write to the same AST file and index
+		final BlobIndex index = new BlobIndex(100);
+		final Writers w = new Writers(folder.newFolder("seq"));
+		final List<Revision> revs1 = revisions(repo1, "repo1", w, index);
+		final List<Revision> revs2 = revisions(repo2, "repo2", w, index);
+		w.close();
+
+		final ChangedFile first = file(revs1.get(0), "A.java");
+		final ChangedFile fresh = file(revs2.get(0), "src/C.java");
+		final ChangedFile shared = file(revs2.get(1), "src/C.java");
+
+		assertTrue(shared.getAst());
+		assertEquals(first.getKey(), shared.getKey());
+		assertEquals(first.getKind(), shared.getKind());
+		assertNotEquals(first.getKey(), fresh.getKey());
+
+		assertEquals(2, countAsts(w.ast));
+	}
+
+	private static ChangedFile.Builder changedFile(final String name) {
+		final ChangedFile.Builder fb = ChangedFile.newBuilder();
+		fb.setName(name);
+		fb.setKind(FileKind.OTHER);
+		fb.setChange(boa.types.Shared.ChangeKind.ADDED);
+		return fb;
+	}
+
+	private static void commit(final Git git, final String path, final String content, final String message) throws Exception {
+		final File f = new File(git.getRepository().getWorkTree(), path);
+		f.getParentFile().mkdirs();
+		FileIO.writeFileContents(f, content);
+		git.add().addFilepattern(path).call();
+		git.commit().setMessage(message).setAuthor("a", "a@example.com").setCommitter("a", "a@example.com").call();
+	}
+
+	private static List<Revision> revisions(final File repo, final String name, final Writers w, final BlobIndex index) {
+		final GitConnector conn = new GitConnector(repo.getAbsolutePath(), name, w.astWriter, w.astLen, w.commitWriter, w.commitLen, w.contentWriter, w.contentLen);
+		conn.setBlobIndex(index);
+		final List<Revision> revs = new ArrayList<Revision>();
+		for (final Object rev : conn.getRevisions(name))
+			revs.add((Revision) rev);
+		w.astLen = conn.getAstWriterLen();
+		w.commitLen = conn.getCommitWriterLen();
+		w.contentLen = conn.getContentWriterLen();
+		conn.close();
+		return revs;
+	}
+
+	private static ChangedFile file(final Revision rev, final String name) {
+		for (final ChangedFile cf : rev.getFilesList())
+			if (cf.getName().equals(name))
+				return cf;
+		throw new AssertionError("no changed file " + name + " in " + rev.getLog());
+	}
+
+	private int countAsts(final Path path) throws IOException {
+		final FileSystem fs = FileSystem.getLocal(conf);
+		final SequenceFile.Reader r = new SequenceFile.Reader(fs, path, conf);
+		try {
+			final LongWritable key = new LongWritable();
+			final BytesWritable value = new BytesWritable();
+			int n = 0;
+			while (r.next(key, value))
+				n++;
+			return n;
+		} finally {
+			r.close();
+		}
+	}
+
+	private class Writers {
+		final Path ast;
+		final SequenceFile.Writer astWriter, commitWriter, contentWriter;
+		long astLen = 1, commitLen = 1, contentLen = 1;
+
+		Writers(final File dir) throws IOException {
+			final FileSystem fs = FileSystem.getLocal(conf);
+			ast = new Path(dir.getAbsolutePath(), "ast");
+			astWriter = SequenceFile.createWriter(fs, conf, ast, LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+			commitWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "commit"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+			contentWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "content"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		}
+
+		void close() throws IOException {
+			astWriter.close();
+			commitWriter.close();
+			contentWriter.close();
+		}
+	}
+}
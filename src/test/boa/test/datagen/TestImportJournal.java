@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boa.datagen.ImportJournal;
+
+/**
+ * Checks an {@link ImportJournal} reads back what was written to it, and
+ * copes with being cut off by a crash.
+ *
+ * @author agent
+ */
+public class TestImportJournal {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void reopened() throws Exception {
+		final File file = new File(folder.getRoot(), "logs/journal.log");
+		final ImportJournal journal = new ImportJournal(file);
+		journal.opened("0.seq");
+		journal.started("a", "0.seq", 1, 1, 1);
+		journal.finished("a", "0.seq", 10, 20, 30);
+		journal.started("b", "0.seq", 10, 20, 30);
+		journal.finished("b", "0.seq", 40, 50, 60);
+		journal.closed("0.seq");
+		journal.opened("1.seq");
+		journal.started("c", "1.seq", 1, 1, 1);
+		journal.close();
+
+		final ImportJournal again = new ImportJournal(file);
+		assertEquals(Arrays.asList("0.seq", "1.seq"), Arrays.asList(again.getSegments().keySet().toArray()));
+
+		final ImportJournal.Segment closed = again.getSegments().get("0.seq");
+		assertTrue(closed.isClosed());
+		assertEquals(Arrays.asList("a", "b"), closed.getProjects());
+		assertArrayEquals(new long[] { 10, 20, 30 }, closed.getEnd(0));
+		assertArrayEquals(new long[] { 40, 50, 60 }, closed.getEnd(1));
+
+		// a started project is not done
+		final ImportJournal.Segment open = again.getSegments().get("1.seq");
+		assertFalse(open.isClosed());
+		assertEquals(Collections.emptyList(), open.getProjects());
+		again.close();
+	}
+
+	@Test
+	public void tornLastLine() throws Exception {
+		final File file = new File(folder.getRoot(), "journal.log");
+		final ImportJournal journal = new ImportJournal(file);
+		journal.opened("0.seq");
+		journal.finished("a", "0.seq", 10, 20, 30);
+		journal.close();
+
+		// a crash while writing a line leaves it without its newline
+		append(file, "finished\tb\t0.seq\t40\t5");
+
+		final ImportJournal again = new ImportJournal(file);
+		assertEquals(Arrays.asList("a"), again.getSegments().get("0.seq").getProjects());
+
+		// later lines do not run into the torn one
+		again.finished("c", "0.seq", 70, 80, 90);
+		again.close();
+
+		final ImportJournal last = new ImportJournal(file);
+		assertEquals(Arrays.asList("a", "c"), last.getSegments().get("0.seq").getProjects());
+		assertArrayEquals(new long[] { 70, 80, 90 }, last.getSegments().get("0.seq").getEnd(1));
+		last.close();
+	}
+
+	@Test
+	public void unreadableLines() throws Exception {
+		final File file = new File(folder.getRoot(), "journal.log");
+		append(file, "opened\t0.seq\n" +
+				"finished\ta\t0.seq\t10\t20\t30\n" +
+				"finished\tb\t0.seq\tx\t20\t30\n" +
+				"finished\tc\t0.seq\n" +
+				"something else\n");
+
+		final ImportJournal journal = new ImportJournal(file);
+		assertEquals(Arrays.asList("a"), journal.getSegments().get("0.seq").getProjects());
+		journal.close();
+	}
+
+	@Test
+	public void recovered() throws Exception {
+		final File file = new File(folder.getRoot(), "journal.log");
+		final ImportJournal journal = new ImportJournal(file);
+		journal.opened("0.seq");
+		journal.finished("a", "0.seq", 10, 20, 30);
+		journal.finished("b", "0.seq", 40, 50, 60);
+		journal.finished("c", "0.seq", 70, 80, 90);
+
+		// only the first projects made it to disk
+		journal.recovered("0.seq", 1);
+		assertEquals(Arrays.asList("a"), journal.getSegments().get("0.seq").getProjects());
+		assertTrue(journal.getSegments().get("0.seq").isClosed());
+		journal.close();
+
+		final ImportJournal again = new ImportJournal(file);
+		assertEquals(Arrays.asList("a"), again.getSegments().get("0.seq").getProjects());
+		assertTrue(again.getSegments().get("0.seq").isClosed());
+		again.close();
+
+		assertTrue(new String(Files.readAllBytes(file.toPath()), "UTF-8").endsWith("recovered\t0.seq\t1\n"));
+	}
+
+	private static void append(final File file, final String s) throws IOException {
+		final FileOutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write(s.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Parser;
+import org.mozilla.javascript.ast.AstRoot;
+
+import boa.datagen.scm.GitConnector;
+import boa.datagen.util.FileIO;
+import boa.datagen.util.JavaScriptErrorCheckVisitor;
+import boa.datagen.util.JavaScriptVisitor;
+import boa.types.Ast.ASTRoot;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * Checks that JavaScript files get the kind and tree of the oldest dialect
+ * they parse in, the same as trying every dialect in turn, whatever files
+ * were parsed before them.
+ *
+ * @author agent
+ */
+public class TestJavaScriptDialect {
+	// every dialect, in the order they used to be tried
+	private static final int[] VERSIONS = { Context.VERSION_1_1, Context.VERSION_1_2, Context.VERSION_1_3, Context.VERSION_1_5, Context.VERSION_1_6, Context.VERSION_1_7, Context.VERSION_1_8 };
+	private static final FileKind[] KINDS = { FileKind.SOURCE_JS_ES1, FileKind.SOURCE_JS_ES2, FileKind.SOURCE_JS_ES3, FileKind.SOURCE_JS_ES5, FileKind.SOURCE_JS_ES6, FileKind.SOURCE_JS_ES7, FileKind.SOURCE_JS_ES8 };
+
+	// in the order they are parsed in a commit
+	private static final Map<String, String> FILES = new LinkedHashMap<String, String>();
+	static {
+		FILES.put("a_let.js", "function f(a) {\n\tlet b = a + 1;\n\treturn b;\n}\n");
+		FILES.put("b_plain.js", "var x = 1;\nfunction g(y) { return { v: x + y }; }\n");
+		FILES.put("c_closure.js", "var sq = function(n) n * n;\nvar o = { sq: sq };\n");
+		FILES.put("d_plain.js", "var let = 2, yield = 3;\nfunction h() { return let * yield; }\n");
+		FILES.put("e_bad.js", "var = ;\n");
+		FILES.put("f_yield.js", "function gen() {\n\tfor (var i = 0; i < 3; i++)\n\t\tyield i;\n}\n");
+		FILES.put("g_plain.js", "for (var k in this) { k = k + '!'; }\n");
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Configuration conf = new Configuration();
+
+	@Test
+	public void sameAsEveryDialect() throws Exception {
+		// all files in one commit, so each is parsed after the others
+		final File together = folder.newFolder("together");
+		try (final Git git = Git.init().setDirectory(together).call()) {
+			for (final Map.Entry<String, String> e : FILES.entrySet())
+				add(git, e.getKey(), e.getValue());
+			commit(git);
+		}
+		final Map<String, ChangedFile> files = new HashMap<String, ChangedFile>();
+		final Map<Long, byte[]> asts = revisions(together, files);
+
+		// and in the reverse order, one commit each
+		final File apart = folder.newFolder("apart");
+		try (final Git git = Git.init().setDirectory(apart).call()) {
+			final String[] names = FILES.keySet().toArray(new String[0]);
+			for (int i = names.length - 1; i >= 0; i--) {
+				add(git, names[i], FILES.get(names[i]));
+				commit(git);
+			}
+		}
+		final Map<String, ChangedFile> apartFiles = new HashMap<String, ChangedFile>();
+		final Map<Long, byte[]> apartAsts = revisions(apart, apartFiles);
+
+		for (final Map.Entry<String, String> e : FILES.entrySet()) {
+			final String name = e.getKey();
+			final FileKind kind = files.get(name).getKind();
+			final byte[] expected = everyDialect(e.getValue(), kind);
+			if (expected == null) {
+				assertEquals(name, FileKind.SOURCE_JS_ERROR, kind);
+				assertFalse(name, files.get(name).getAst());
+			} else {
+				assertTrue(name, files.get(name).getAst());
+				assertArrayEquals(name, expected, asts.get(files.get(name).getKey()));
+			}
+
+			assertEquals(name, kind, apartFiles.get(name).getKind());
+			if (expected != null)
+				assertArrayEquals(name, expected, apartAsts.get(apartFiles.get(name).getKey()));
+		}
+
+		assertEquals(FileKind.SOURCE_JS_ES7, files.get("a_let.js").getKind());
+		assertEquals(FileKind.SOURCE_JS_ES1, files.get("b_plain.js").getKind());
+		assertEquals(FileKind.SOURCE_JS_ES8, files.get("c_closure.js").getKind());
+		assertEquals(FileKind.SOURCE_JS_ES1, files.get("d_plain.js").getKind());
+		assertEquals(FileKind.SOURCE_JS_ERROR, files.get("e_bad.js").getKind());
+		assertEquals(FileKind.SOURCE_JS_ES7, files.get("f_yield.js").getKind());
+		assertEquals(FileKind.SOURCE_JS_ES1, files.get("g_plain.js").getKind());
+	}
+
+	// the tree from the first dialect the file parses in, checking its kind, or null if none
+	private static byte[] everyDialect(final String content, final FileKind kind) {
+		for (int i = 0; i < VERSIONS.length; i++) {
+			final CompilerEnvirons cp = new CompilerEnvirons();
+			cp.setLanguageVersion(VERSIONS[i]);
+			final AstRoot cu;
+			try {
+				cu = new Parser(cp).parse(content, null, 0);
+			} catch (final IllegalArgumentException | EvaluatorException e) {
+				continue;
+			}
+			final JavaScriptErrorCheckVisitor errorCheck = new JavaScriptErrorCheckVisitor();
+			cu.visit(errorCheck);
+			if (errorCheck.hasError)
+				continue;
+
+			assertEquals(KINDS[i], kind);
+			final ASTRoot.Builder ast = ASTRoot.newBuilder();
+			ast.addNamespaces(new JavaScriptVisitor(content).getNamespaces(cu));
+			return ast.build().toByteArray();
+		}
+		return null;
+	}
+
+	private static void add(final Git git, final String path, final String content) throws Exception {
+		FileIO.writeFileContents(new File(git.getRepository().getWorkTree(), path), content);
+		git.add().addFilepattern(path).call();
+	}
+
+	private static void commit(final Git git) throws Exception {
+		git.commit().setMessage("commit").setAuthor("a", "a@example.com").setCommitter("a", "a@example.com").call();
+	}
+
+	// the last version of each changed file, and the ASTs written by their keys
+	private Map<Long, byte[]> revisions(final File repo, final Map<String, ChangedFile> files) throws IOException {
+		final FileSystem fs = FileSystem.getLocal(conf);
+		final String dir = folder.newFolder().getAbsolutePath();
+		final Path astPath = new Path(dir, "ast");
+		final SequenceFile.Writer astWriter = SequenceFile.createWriter(fs, conf, astPath, LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer commitWriter = SequenceFile.createWriter(fs, conf, new Path(dir, "commit"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer contentWriter = SequenceFile.createWriter(fs, conf, new Path(dir, "content"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+
+		final GitConnector conn = new GitConnector(repo.getAbsolutePath(), repo.getName(), astWriter, 1, commitWriter, 1, contentWriter, 1);
+		for (final Object rev : conn.getRevisions(repo.getName()))
+			for (final ChangedFile cf : ((Revision) rev).getFilesList())
+				files.put(cf.getName(), cf);
+		conn.close();
+		astWriter.close();
+		commitWriter.close();
+		contentWriter.close();
+
+		final Map<Long, byte[]> asts = new HashMap<Long, byte[]>();
+		final SequenceFile.Reader r = new SequenceFile.Reader(fs, astPath, conf);
+		try {
+			final LongWritable key = new LongWritable();
+			final BytesWritable value = new BytesWritable();
+			while (r.next(key, value)) {
+				asts.put(key.get(), Arrays.copyOf(value.getBytes(), value.getLength()));
+			}
+		} finally {
+			r.close();
+		}
+		return asts;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.eclipse.jgit.api.Git;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boa.datagen.scm.BlobIndex;
+import boa.datagen.scm.GitConnector;
+import boa.datagen.util.FileIO;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+
+/**
+ * Checks that files over the size limit are not read, and are marked as
+ * not parsed.
+ *
+ * @author agent
+ */
+public class TestMaxBlobSize {
+	private static final int MAX = 1000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Configuration conf = new Configuration();
+	private File repo;
+
+	// a class of exactly the given size, in bytes
+	private static String source(final String name, final int size) {
+		final StringBuilder sb = new StringBuilder("class " + name + " {\n");
+		for (int i = 0; sb.length() < size - 40; i++)
+			sb.append("\tint f").append(i).append(";\n");
+		sb.append("}\n//");
+		while (sb.length() < size - 1)
+			sb.append('x');
+		return sb.append('\n').toString();
+	}
+
+	@Before
+	public void createRepository() throws Exception {
+		repo = folder.newFolder("repo");
+		final StringBuilder js = new StringBuilder();
+		while (js.length() < 2 * MAX)
+			js.append("var x = 1;\n");
+		try (final Git git = Git.init().setDirectory(repo).call()) {
+			write(git, "Small.java", source("Small", MAX / 2));
+			write(git, "Large.java", source("Large", 3 * MAX));
+			write(git, "Exact.java", source("Exact", MAX));
+			write(git, "Over.java", source("Over", MAX + 1));
+			write(git, "large.js", js.toString());
+			write(git, "small.js", "var y = 2;\n");
+			git.commit().setMessage("add").setAuthor("a", "a@example.com").setCommitter("a", "a@example.com").call();
+		}
+	}
+
+	private static void write(final Git git, final String path, final String content) throws Exception {
+		final File f = new File(git.getRepository().getWorkTree(), path);
+		f.getParentFile().mkdirs();
+		FileIO.writeFileContents(f, content);
+		git.add().addFilepattern(path).call();
+	}
+
+	// the changed files of the only commit, by name
+	private Map<String, ChangedFile> files(final int max) throws IOException {
+		final File dir = folder.newFolder();
+		final FileSystem fs = FileSystem.getLocal(conf);
+		final SequenceFile.Writer astWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "ast"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer commitWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "commit"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer contentWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "content"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+
+		final GitConnector conn = new GitConnector(repo.getAbsolutePath(), "repo", astWriter, 1, commitWriter, 1, contentWriter, 1);
+		conn.setBlobIndex(new BlobIndex(100));
+		if (max > 0)
+			conn.setMaxBlobSize(max);
+		final Map<String, ChangedFile> files = new HashMap<String, ChangedFile>();
+		for (final Object rev : conn.getRevisions("repo"))
+			for (final ChangedFile cf : ((Revision) rev).getFilesList())
+				files.put(cf.getName(), cf);
+		conn.close();
+		astWriter.close();
+		commitWriter.close();
+		contentWriter.close();
+		return files;
+	}
+
+	@Test
+	public void skipped() throws Exception {
+		final Map<String, ChangedFile> files = files(MAX);
+
+		assertEquals(FileKind.SOURCE_JAVA_ERROR, files.get("Large.java").getKind());
+		assertFalse(files.get("Large.java").getAst());
+		assertEquals(FileKind.SOURCE_JAVA_ERROR, files.get("Over.java").getKind());
+		assertFalse(files.get("Over.java").getAst());
+		assertEquals(FileKind.SOURCE_JS_ERROR, files.get("large.js").getKind());
+		assertFalse(files.get("large.js").getAst());
+
+		// files up to the limit are still parsed
+		assertTrue(files.get("Exact.java").getAst());
+		assertNotEquals(FileKind.SOURCE_JAVA_ERROR, files.get("Small.java").getKind());
+		assertTrue(files.get("Small.java").getAst());
+		assertNotEquals(FileKind.SOURCE_JS_ERROR, files.get("small.js").getKind());
+		assertTrue(files.get("small.js").getAst());
+	}
+
+	@Test
+	public void configuredLimit() throws Exception {
+		// the same files are parsed when the limit is not lowered
+		final Map<String, ChangedFile> files = files(0);
+
+		assertNotEquals(FileKind.SOURCE_JAVA_ERROR, files.get("Large.java").getKind());
+		assertTrue(files.get("Large.java").getAst());
+		assertNotEquals(FileKind.SOURCE_JS_ERROR, files.get("large.js").getKind());
+		assertTrue(files.get("large.js").getAst());
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.eclipse.jgit.api.Git;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boa.datagen.scm.BlobIndex;
+import boa.datagen.scm.GitConnector;
+import boa.datagen.util.FileIO;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+
+/**
+ * Checks that parsing a project's changed files on several threads writes
+ * the same ASTs at the same offsets, and reuses the same blobs, as parsing
+ * them on one.
+ *
+ * @author agent
+ */
+public class TestParseThreads {
+	private static final int COMMITS = 40;
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	private static final Configuration conf = new Configuration();
+	private static File repo;
+	private static Output single;
+
+	// a file's contents, with only a few versions so blobs come back
+	private static String version(final int v) {
+		final StringBuilder sb = new StringBuilder("class A" + v + " {\n");
+		for (int i = 0; i <= v; i++)
+			sb.append("\tint f").append(i).append("(int x) { return x * ").append(i).append("; }\n");
+		return sb.append("}\n").toString();
+	}
+
+	@BeforeClass
+	public static void createRepository() throws Exception {
+		repo = folder.newFolder("repo");
+		try (final Git git = Git.init().setDirectory(repo).call()) {
+			for (int c = 0; c < COMMITS; c++) {
+				write(git, "src/F" + (c % 5) + ".java", version(c % 7));
+				// copies of blobs changed in other commits
+				if (c % 4 == 3)
+					write(git, "copy/G" + c + ".java", version(c % 3));
+				write(git, "README", "commit " + c + "\n");
+				git.commit().setMessage("commit " + c).setAuthor("a", "a@example.com").setCommitter("a", "a@example.com").call();
+			}
+		}
+		single = run(1);
+	}
+
+	private static void write(final Git git, final String path, final String content) throws Exception {
+		final File f = new File(git.getRepository().getWorkTree(), path);
+		f.getParentFile().mkdirs();
+		FileIO.writeFileContents(f, content);
+		git.add().addFilepattern(path).call();
+	}
+
+	// what one run of the connector returned and wrote
+	private static class Output {
+		final List<Revision> revisions = new ArrayList<Revision>();
+		final List<Long> keys = new ArrayList<Long>();
+		final List<byte[]> asts = new ArrayList<byte[]>();
+		long astLen;
+	}
+
+	private static Output run(final int threads) throws Exception {
+		final File dir = folder.newFolder("seq" + threads + "-" + System.nanoTime());
+		final FileSystem fs = FileSystem.getLocal(conf);
+		final Path ast = new Path(dir.getAbsolutePath(), "ast");
+		final SequenceFile.Writer astWriter = SequenceFile.createWriter(fs, conf, ast, LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer commitWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "commit"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		final SequenceFile.Writer contentWriter = SequenceFile.createWriter(fs, conf, new Path(dir.getAbsolutePath(), "content"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+
+		final Output out = new Output();
+		final GitConnector conn = new GitConnector(repo.getAbsolutePath(), "repo", astWriter, 1, commitWriter, 1, contentWriter, 1);
+		conn.setBlobIndex(new BlobIndex(100));
+		conn.setParseThreads(threads);
+		for (final Object rev : conn.getRevisions("repo"))
+			out.revisions.add((Revision) rev);
+		out.astLen = conn.getAstWriterLen();
+		conn.close();
+		astWriter.close();
+		commitWriter.close();
+		contentWriter.close();
+
+		final SequenceFile.Reader r = new SequenceFile.Reader(fs, ast, conf);
+		try {
+			final LongWritable key = new LongWritable();
+			final BytesWritable value = new BytesWritable();
+			while (r.next(key, value)) {
+				out.keys.add(key.get());
+				final byte[] bytes = new byte[value.getLength()];
+				System.arraycopy(value.getBytes(), 0, bytes, 0, bytes.length);
+				out.asts.add(bytes);
+			}
+		} finally {
+			r.close();
+		}
+		return out;
+	}
+
+	@Test
+	public void singleThreaded() {
+		assertEquals(COMMITS, single.revisions.size());
+
+		// only the distinct Java blobs were parsed and written
+		final Set<Long> keys = new HashSet<Long>();
+		int javaFiles = 0;
+		for (final Revision rev : single.revisions)
+			for (final ChangedFile cf : rev.getFilesList())
+				if (cf.getName().endsWith(".java")) {
+					assertTrue(cf.getName(), cf.getAst());
+					keys.add(cf.getKey());
+					javaFiles++;
+				}
+		assertEquals(7, single.keys.size());
+		assertEquals(new HashSet<Long>(single.keys), keys);
+		assertTrue(javaFiles > keys.size());
+	}
+
+	private static void assertSameAsSingle(final Output out) {
+		assertEquals(single.revisions, out.revisions);
+		assertEquals(single.keys, out.keys);
+		assertEquals(single.asts.size(), out.asts.size());
+		for (int i = 0; i < single.asts.size(); i++)
+			assertArrayEquals(single.asts.get(i), out.asts.get(i));
+		assertEquals(single.astLen, out.astLen);
+	}
+
+	@Test
+	public void twoThreads() throws Exception {
+		assertSameAsSingle(run(2));
+	}
+
+	@Test
+	public void fourThreads() throws Exception {
+		for (int i = 0; i < 3; i++)
+			assertSameAsSingle(run(4));
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.protobuf.CodedInputStream;
+
+import boa.datagen.DefaultProperties;
+import boa.datagen.SeqColumnSplitter;
+import boa.io.ProjectColumnInputFormat;
+import boa.io.ProjectColumns;
+import boa.runtime.BoaRunner;
+import boa.types.Code.CodeRepository;
+import boa.types.Code.CodeRepository.RepositoryKind;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+import boa.types.Shared.ChangeKind;
+import boa.types.Shared.Person;
+import boa.types.Toplevel.Project;
+import boa.types.Toplevel.Project.ForgeKind;
+
+/**
+ * Checks the column-split layout written by {@link SeqColumnSplitter} merges
+ * back into the projects it was split from.
+ *
+ * @author agent
+ */
+public class TestSeqColumnSplitter {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Configuration conf = new Configuration();
+	private FileSystem fs;
+	private String base;
+
+	@Before
+	public void setUp() throws IOException {
+		fs = FileSystem.getLocal(conf);
+		base = folder.getRoot().getAbsolutePath();
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		final List<Project> projects = Arrays.asList(
+				project("noRepos"),
+				project("empty").toBuilder().addCodeRepositories(repo("empty")).build(),
+				project("full").toBuilder()
+						.addCodeRepositories(repo("one").toBuilder()
+								.addRevisions(revision("r1", file("A.java"), file("B.java")))
+								.addRevisions(revision("r2"))
+								.addHeadSnapshot(file("A.java")))
+						.addCodeRepositories(repo("two").toBuilder()
+								.addRevisions(revision("r3", file("C.js"))))
+						.build(),
+				project("noFiles").toBuilder()
+						.addCodeRepositories(repo("three").toBuilder().addRevisions(revision("r4")))
+						.build());
+		write(projects);
+
+		SeqColumnSplitter.main(new String[] { base });
+
+		final List<Project> meta = readMeta();
+		assertEquals(projects.size(), meta.size());
+		for (int i = 0; i < projects.size(); i++) {
+			final Project[] columns = new Project[ProjectColumns.COLUMNS.length];
+			for (int j = 0; j < columns.length; j++)
+				columns[j] = get(ProjectColumns.COLUMNS[j], i);
+			assertEquals(projects.get(i), ProjectColumns.merge(meta.get(i), columns[0], columns[1], columns[2]));
+		}
+
+		// columns with nothing in them are not stored
+		assertNull(get(ProjectColumns.REPOS, 0));
+		assertNull(get(ProjectColumns.REVISIONS, 1));
+		assertNull(get(ProjectColumns.FILES, 1));
+		assertNull(get(ProjectColumns.FILES, 3));
+		assertEquals(0, meta.get(2).getCodeRepositoriesCount());
+	}
+
+	@Test
+	public void replacesOldColumns() throws Exception {
+		write(Arrays.asList(project("a").toBuilder().addCodeRepositories(repo("a").toBuilder().addRevisions(revision("r1", file("A.java")))).build()));
+		SeqColumnSplitter.main(new String[] { base });
+
+		write(Arrays.asList(project("b")));
+		SeqColumnSplitter.main(new String[] { base });
+
+		assertEquals(Collections.singletonList(project("b")), readMeta());
+		assertNull(get(ProjectColumns.FILES, 0));
+	}
+
+	@Test
+	public void stale() throws Exception {
+		final Path dataset = new Path(base);
+		assertFalse(ProjectColumns.isCurrent(fs, dataset, conf));
+		assertEquals(SequenceFileInputFormat.class, inputFormat());
+
+		write(Arrays.asList(project("a")));
+		SeqColumnSplitter.main(new String[] { base });
+		assertTrue(ProjectColumns.isCurrent(fs, dataset, conf));
+		assertEquals(ProjectColumnInputFormat.class, inputFormat());
+
+		// projects.seq written again without splitting it
+		write(Arrays.asList(project("a"), project("b")));
+		assertFalse(ProjectColumns.isCurrent(fs, dataset, conf));
+		assertEquals(SequenceFileInputFormat.class, inputFormat());
+
+		// columns written before their source was recorded
+		fs.delete(new Path(new Path(base, ProjectColumns.DIR), ProjectColumns.META), true);
+		SequenceFile.createWriter(fs, conf, new Path(new Path(base, ProjectColumns.DIR), ProjectColumns.META), LongWritable.class, BytesWritable.class).close();
+		assertFalse(ProjectColumns.isCurrent(fs, dataset, conf));
+
+		// with projects.seq gone, the columns are used
+		SeqColumnSplitter.main(new String[] { base });
+		fs.delete(new Path(base, ProjectColumns.SOURCE), true);
+		assertTrue(ProjectColumns.isCurrent(fs, dataset, conf));
+	}
+
+	private Class<?> inputFormat() throws Exception {
+		final Job job = new Job(conf);
+		BoaRunner.setInputFormat(job, base, ProjectColumns.COLUMNS);
+		return job.getInputFormatClass();
+	}
+
+	@Test
+	public void columnsFor() {
+		assertEquals(Collections.emptyList(), ProjectColumns.columnsFor(Arrays.asList("Project.name")));
+		assertEquals(Arrays.asList(ProjectColumns.REPOS), ProjectColumns.columnsFor(Arrays.asList("Project.code_repositories", "CodeRepository.url")));
+		assertEquals(Arrays.asList(ProjectColumns.REPOS, ProjectColumns.REVISIONS), ProjectColumns.columnsFor(Arrays.asList("CodeRepository.revisions")));
+		assertEquals(Arrays.asList(ProjectColumns.COLUMNS), ProjectColumns.columnsFor(Arrays.asList("CodeRepository.head_snapshot")));
+	}
+
+	@Test
+	public void readId() throws Exception {
+		final byte[] bytes = project("someId").toBuilder().addCodeRepositories(repo("x")).build().toByteArray();
+		assertEquals("someId", ProjectColumns.readId(bytes, bytes.length));
+	}
+
+	private static Project project(final String id) {
+		return Project.newBuilder().setId(id).setName(id).setProjectUrl("http://example.com/" + id).setKind(ForgeKind.GITHUB).build();
+	}
+
+	private static CodeRepository repo(final String name) {
+		return CodeRepository.newBuilder().setUrl("http://example.com/" + name + ".git").setKind(RepositoryKind.GIT).setHead(0).build();
+	}
+
+	private static Revision revision(final String id, final ChangedFile... files) {
+		return Revision.newBuilder().setId(id).setCommitter(Person.newBuilder().setUsername("a")).setCommitDate(1).setLog(id).addAllFiles(Arrays.asList(files)).build();
+	}
+
+	private static ChangedFile file(final String name) {
+		return ChangedFile.newBuilder().setChange(ChangeKind.ADDED).setKind(FileKind.OTHER).setName(name).setKey(0).setAst(false).build();
+	}
+
+	private void write(final List<Project> projects) throws IOException {
+		final SequenceFile.Writer w = SequenceFile.createWriter(fs, conf, new Path(base, DefaultProperties.SEQ_PROJECTS_PATH), Text.class, BytesWritable.class, CompressionType.BLOCK);
+		try {
+			for (final Project p : projects)
+				w.append(new Text(p.getId()), new BytesWritable(p.toByteArray()));
+		} finally {
+			w.close();
+		}
+	}
+
+	private List<Project> readMeta() throws IOException {
+		final List<Project> meta = new ArrayList<Project>();
+		final SequenceFile.Reader r = new SequenceFile.Reader(fs, new Path(new Path(base, ProjectColumns.DIR), ProjectColumns.META), conf);
+		try {
+			final LongWritable key = new LongWritable();
+			final BytesWritable value = new BytesWritable();
+			while (r.next(key, value)) {
+				assertEquals(meta.size(), key.get());
+				meta.add(parse(value));
+			}
+		} finally {
+			r.close();
+		}
+		return meta;
+	}
+
+	private Project get(final String column, final long ordinal) throws IOException {
+		final MapFile.Reader r = new MapFile.Reader(fs, new Path(new Path(base, ProjectColumns.DIR), column).toString(), conf);
+		try {
+			final BytesWritable value = new BytesWritable();
+			return r.get(new LongWritable(ordinal), value) == null ? null : parse(value);
+		} finally {
+			r.close();
+		}
+	}
+
+	// columns other than meta lack required fields, so are read as partial projects
+	private static Project parse(final BytesWritable value) throws IOException {
+		return Project.newBuilder().mergeFrom(CodedInputStream.newInstance(value.getBytes(), 0, value.getLength())).buildPartial();
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.datagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boa.datagen.ImportJournal;
+import boa.datagen.SeqRepoImporter;
+
+/**
+ * Checks a restarted {@link SeqRepoImporter} cuts the files a crash left
+ * open back to the projects that made it to disk, and skips the projects
+ * finished before.
+ *
+ * @author agent
+ */
+public class TestSeqRepoImporter {
+	private static final String[] DIRS = { "ast", "commit", "source" };
+	private static final int RECORD = 10;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Configuration conf = new Configuration();
+	private FileSystem fs;
+
+	@Before
+	public void setUp() throws IOException {
+		fs = FileSystem.getLocal(conf);
+	}
+
+	// writes one set of sequence files the way an import task does
+	private final class Segment {
+		private final String base;
+		private final String suffix;
+		private final ImportJournal journal;
+		private final SequenceFile.Writer projects;
+		private final SequenceFile.Writer[] writers = new SequenceFile.Writer[DIRS.length];
+		private final long[] len = { 1, 1, 1 };
+
+		Segment(final String base, final String suffix, final ImportJournal journal) throws IOException {
+			this.base = base;
+			this.suffix = suffix;
+			this.journal = journal;
+			projects = SequenceFile.createWriter(fs, conf, path(base, "project", suffix), Text.class, BytesWritable.class, CompressionType.BLOCK);
+			for (int i = 0; i < DIRS.length; i++)
+				writers[i] = SequenceFile.createWriter(fs, conf, path(base, DIRS[i], suffix), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+			journal.opened(suffix);
+		}
+
+		// a project with some records in each file, unless the file is lost
+		void add(final String id, final int records, final String... lost) throws IOException {
+			journal.started(id, suffix, len[0], len[1], len[2]);
+			for (int i = 0; i < DIRS.length; i++)
+				for (int j = 0; j < records; j++) {
+					if (!Arrays.asList(lost).contains(DIRS[i]))
+						writers[i].append(new LongWritable(len[i]), new BytesWritable(new byte[RECORD]));
+					len[i] += RECORD;
+				}
+			projects.append(new Text(id), new BytesWritable(id.getBytes("UTF-8")));
+			for (final SequenceFile.Writer w : all()) {
+				w.sync();
+				w.syncFs();
+			}
+			journal.finished(id, suffix, len[0], len[1], len[2]);
+		}
+
+		// the files are left as they were, but the journal never hears of it
+		void crash() throws IOException {
+			for (final SequenceFile.Writer w : all())
+				w.close();
+		}
+
+		void close() throws IOException {
+			crash();
+			journal.closed(suffix);
+		}
+
+		private List<SequenceFile.Writer> all() {
+			final List<SequenceFile.Writer> all = new ArrayList<SequenceFile.Writer>(Arrays.asList(writers));
+			all.add(projects);
+			return all;
+		}
+	}
+
+	private static Path path(final String base, final String dir, final String suffix) {
+		return new Path(base + "/" + dir + "/" + suffix);
+	}
+
+	private ImportJournal journal(final String base) throws IOException {
+		return new ImportJournal(new File(base, "journal.log"));
+	}
+
+	// the keys in each of the files, by file
+	private Map<String, List<String>> contents(final String base) throws IOException {
+		final Map<String, List<String>> contents = new TreeMap<String, List<String>>();
+		for (final String dir : new String[] { "project", "ast", "commit", "source" })
+			for (final File f : new File(base, dir).listFiles())
+				if (!f.getName().endsWith(".crc")) {
+					final List<String> keys = new ArrayList<String>();
+					final SequenceFile.Reader r = new SequenceFile.Reader(fs, new Path(f.getPath()), conf);
+					try {
+						final Writable key = (Writable) r.getKeyClass().newInstance();
+						while (r.next(key))
+							keys.add(key.toString());
+					} catch (final Exception e) {
+						throw new IOException(e);
+					} finally {
+						r.close();
+					}
+					contents.put(dir + "/" + f.getName(), keys);
+				}
+		return contents;
+	}
+
+	// an import that finished one set of files, and crashed writing another
+	private String crashed(final String name) throws IOException {
+		final String base = folder.newFolder(name).getAbsolutePath();
+		final ImportJournal journal = journal(base);
+
+		final Segment done = new Segment(base, "0.seq", journal);
+		done.add("a", 2);
+		done.add("b", 1);
+		done.close();
+
+		final Segment open = new Segment(base, "1.seq", journal);
+		open.add("c", 3);
+		open.add("d", 2);
+		// marked finished, but its commits never made it to disk
+		open.add("e", 2, "commit");
+		open.crash();
+		journal.close();
+		return base;
+	}
+
+	@Test
+	public void recover() throws Exception {
+		final String base = crashed("base");
+		final ImportJournal journal = journal(base);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c", "d")), SeqRepoImporter.resume(base, journal));
+		journal.close();
+
+		final Map<String, List<String>> contents = contents(base);
+		assertEquals(Arrays.asList("a", "b"), contents.get("project/0.seq"));
+		assertEquals(Arrays.asList("c", "d"), contents.get("project/1.seq"));
+		// the records of the projects dropped are gone too
+		assertEquals(Arrays.asList("1", "11", "21", "31", "41"), contents.get("ast/1.seq"));
+		assertEquals(Arrays.asList("1", "11", "21", "31", "41"), contents.get("commit/1.seq"));
+		assertEquals(3, contents.get("source/0.seq").size());
+
+		final ImportJournal again = journal(base);
+		assertTrue(again.getSegments().get("1.seq").isClosed());
+		assertEquals(Arrays.asList("c", "d"), again.getSegments().get("1.seq").getProjects());
+		again.close();
+	}
+
+	@Test
+	public void restart() throws Exception {
+		final String base = crashed("base");
+		ImportJournal journal = journal(base);
+		SeqRepoImporter.resume(base, journal);
+		journal.close();
+		final Map<String, List<String>> recovered = contents(base);
+
+		// a later crash after more projects were finished in new files
+		journal = journal(base);
+		final Segment more = new Segment(base, "2.seq", journal);
+		more.add("e", 1);
+		more.add("g", 1);
+		more.crash();
+		journal.close();
+
+		// the files recovered before are left alone, and only the new ones cut
+		journal = journal(base);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c", "d", "e", "g")), SeqRepoImporter.resume(base, journal));
+		journal.close();
+		final Map<String, List<String>> contents = contents(base);
+		assertEquals(Arrays.asList("e", "g"), contents.remove("project/2.seq"));
+		for (final String dir : DIRS)
+			assertEquals(2, contents.remove(dir + "/2.seq").size());
+		assertEquals(recovered, contents);
+	}
+
+	@Test
+	public void projectsWithoutJournal() throws Exception {
+		final String base = crashed("base");
+
+		// files written before there was a journal still count
+		final SequenceFile.Writer w = SequenceFile.createWriter(fs, conf, path(base, "project", "old.seq"), Text.class, BytesWritable.class, CompressionType.BLOCK);
+		w.append(new Text("x"), new BytesWritable(new byte[0]));
+		w.close();
+
+		final ImportJournal journal = journal(base);
+		assertTrue(SeqRepoImporter.resume(base, journal).contains("x"));
+		journal.close();
+	}
+
+	@Test
+	public void interruptedRecovery() throws Exception {
+		final String expected = crashed("expected");
+		ImportJournal journal = journal(expected);
+		SeqRepoImporter.resume(expected, journal);
+		journal.close();
+
+		final String base = crashed("base");
+		// stopped after deleting the AST file, before the copy took its place
+		final Path ast = path(base, "ast", "1.seq");
+		FileUtil.copy(fs, ast, fs, new Path(ast + ".recovered"), false, conf);
+		fs.delete(ast, false);
+		// and while copying the commit file
+		final Path commit = path(base, "commit", "1.seq");
+		final SequenceFile.Writer w = SequenceFile.createWriter(fs, conf, new Path(commit + ".recovered"), LongWritable.class, BytesWritable.class, CompressionType.BLOCK);
+		w.append(new LongWritable(1), new BytesWritable(new byte[RECORD]));
+		w.close();
+
+		journal = journal(base);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c", "d")), SeqRepoImporter.resume(base, journal));
+		journal.close();
+		assertEquals(contents(expected), contents(base));
+		assertFalse(fs.exists(new Path(ast + ".recovered")));
+		assertFalse(fs.exists(new Path(commit + ".recovered")));
+	}
+
+	@Test
+	public void tornFile() throws Exception {
+		final String base = folder.newFolder("base").getAbsolutePath();
+		final ImportJournal journal = journal(base);
+		final Segment open = new Segment(base, "0.seq", journal);
+		open.add("a", 2);
+		open.add("b", 2);
+		open.crash();
+		journal.close();
+
+		// the last block of sources was cut off part way
+		final File source = new File(path(base, "source", "0.seq").toUri().getPath());
+		final RandomAccessFile f = new RandomAccessFile(source, "rw");
+		try {
+			f.setLength(f.length() - 5);
+		} finally {
+			f.close();
+		}
+		new File(source.getParentFile(), "." + source.getName() + ".crc").delete();
+
+		final ImportJournal again = journal(base);
+		assertEquals(new HashSet<String>(Arrays.asList("a")), SeqRepoImporter.resume(base, again));
+		again.close();
+		assertEquals(Arrays.asList("1", "11"), contents(base).get("source/0.seq"));
+		assertEquals(Arrays.asList("a"), contents(base).get("project/0.seq"));
+		assertEquals(Arrays.asList("1", "11"), contents(base).get("ast/0.seq"));
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static boa.functions.BoaAstIntrinsics.parse;
+import static boa.functions.BoaGraphIntrinsics.getcallgraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Stack;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import boa.graphs.callgraph.CallGraph;
+import boa.graphs.callgraph.CallGraphNode;
+import boa.runtime.BoaAbstractFixP;
+import boa.runtime.BoaAbstractTraversal;
+import boa.types.Graph.Traversal.TraversalDirection;
+import boa.types.Graph.Traversal.TraversalKind;
+
+/**
+ * Test that calls are resolved to the methods they may reach, and that
+ * call graphs can be traversed bottom-up.
+ *
+ * @author agent
+ */
+public class TestCallGraph {
+	private static final CallGraph GRAPH = graph(
+			"package p;\n" +
+			"class A {\n" +
+			"	A() {}\n" +
+			"	A(int x) { this(); }\n" +
+			"	static void s() {}\n" +
+			"	void m() {}\n" +
+			"	void n(int... xs) {}\n" +
+			"	void n2(String s, int... xs) {}\n" +
+			"}\n" +
+			"class B extends A {\n" +
+			"	B() { super(1); }\n" +
+			"	void m() { super.m(); }\n" +
+			"}\n" +
+			"class C extends B {\n" +
+			"	void m() { r1(); }\n" +
+			"	void r1() { r2(); }\n" +
+			"	void r2() { r1(); }\n" +
+			"}\n" +
+			"class E {\n" +
+			"	void m() {}\n" +
+			"	void m(int x) {}\n" +
+			"	B b() { return null; }\n" +
+			"}\n",
+			"package p;\n" +
+			"class D {\n" +
+			"	A a;\n" +
+			"	void overriding(B b) { a.m(); b.m(); }\n" +
+			"	void constructors() { new B(); new A(2); }\n" +
+			"	void statics() { A.s(); }\n" +
+			"	void fields(D other) { other.a.m(); }\n" +
+			"	void varargs() { a.n(); a.n(1, 2, 3); a.n2(); }\n" +
+			"	void varargs2() { a.n2(\"\"); a.n2(\"\", 1, 2); }\n" +
+			"	void unknown(E e) { e.b().m(); e.b().m(1); }\n" +
+			"	void unknownLibrary(Object o) { o.m(); }\n" +
+			"	void helper() {}\n" +
+			"	class I {\n" +
+			"		void outer() { helper(); }\n" +
+			"	}\n" +
+			"}\n");
+
+	private static CallGraph graph(final String... sources) {
+		try {
+			final boa.types.Ast.ASTRoot[] roots = new boa.types.Ast.ASTRoot[sources.length];
+			for (int i = 0; i < sources.length; i++)
+				roots[i] = parse(sources[i]);
+			return getcallgraph(roots);
+		} catch (final Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static CallGraphNode node(final String signature) {
+		for (final CallGraphNode n : GRAPH.getNodes())
+			if (n.getSignature().equals(signature))
+				return n;
+		throw new AssertionError("no method " + signature);
+	}
+
+	private static void assertCalls(final String caller, final String... callees) {
+		final TreeSet<String> actual = new TreeSet<String>();
+		for (final CallGraphNode n : node(caller).getSuccessors())
+			actual.add(n.getSignature());
+		assertEquals(caller, new TreeSet<String>(Arrays.asList(callees)), actual);
+	}
+
+	@Test
+	public void overriding() {
+		// declared type A, plus overriding methods in its subtypes
+		assertCalls("p.D.overriding(B)", "p.A.m()", "p.B.m()", "p.C.m()");
+		assertCalls("p.D.fields(D)", "p.A.m()", "p.B.m()", "p.C.m()");
+	}
+
+	@Test
+	public void superCalls() {
+		// not dispatched to the overriding method in C
+		assertCalls("p.B.m()", "p.A.m()");
+	}
+
+	@Test
+	public void constructors() {
+		assertCalls("p.A.<init>(int)", "p.A.<init>()");
+		assertCalls("p.B.<init>()", "p.A.<init>(int)");
+		assertCalls("p.D.constructors()", "p.B.<init>()", "p.A.<init>(int)");
+	}
+
+	@Test
+	public void statics() {
+		assertCalls("p.D.statics()", "p.A.s()");
+		assertCalls("p.D.I.outer()", "p.D.helper()");
+	}
+
+	@Test
+	public void varargs() {
+		// n2 needs its first argument
+		assertCalls("p.D.varargs()", "p.A.n(int...)");
+		assertCalls("p.D.varargs2()", "p.A.n2(String, int...)");
+	}
+
+	@Test
+	public void unknownReceivers() {
+		// without bindings the type returned is not known, so any method fits
+		assertCalls("p.D.unknown(E)", "p.E.b()", "p.A.m()", "p.B.m()", "p.C.m()", "p.E.m()", "p.E.m(int)");
+		// a type outside the graph has no methods in it
+		assertCalls("p.D.unknownLibrary(Object)");
+	}
+
+	@Test
+	public void callers() {
+		final TreeSet<String> callers = new TreeSet<String>();
+		for (final CallGraphNode n : node("p.A.m()").getPredecessors())
+			callers.add(n.getSignature());
+		assertEquals(new TreeSet<String>(Arrays.asList("p.B.m()", "p.D.overriding(B)", "p.D.fields(D)", "p.D.unknown(E)")), callers);
+	}
+
+	// the methods each method may reach, bottom-up
+	private static class Reachable extends BoaAbstractTraversal<TreeSet<String>> {
+		Reachable() {
+			super(true, true);
+		}
+
+		@Override
+		public void traverse(final CallGraphNode node, final boolean flag) throws Exception {
+			final TreeSet<String> reached = new TreeSet<String>();
+			reached.add(node.getSignature());
+			for (final CallGraphNode callee : node.getSuccessors()) {
+				final TreeSet<String> v = getValue(callee);
+				if (v != null)
+					reached.addAll(v);
+			}
+			if (flag)
+				currentResult = new TreeSet<String>(reached);
+			outputMapObj.put(node.getId(), reached);
+		}
+	}
+
+	private static final BoaAbstractFixP EQUAL = new BoaAbstractFixP() {
+		@Override
+		public boolean invoke(final Object curr, final Object prev) {
+			return curr.equals(prev);
+		}
+	};
+
+	private static Map<String, TreeSet<String>> reachable(final TraversalKind kind) throws Exception {
+		final Reachable t = new Reachable();
+		t.traverse(GRAPH, TraversalDirection.BACKWARD, kind, EQUAL);
+		final Map<String, TreeSet<String>> results = new HashMap<String, TreeSet<String>>();
+		for (final CallGraphNode n : GRAPH.getNodes())
+			results.put(n.getSignature(), t.getValue(n));
+		return results;
+	}
+
+	@Test
+	public void bottomUp() throws Exception {
+		final Map<String, TreeSet<String>> expected = new HashMap<String, TreeSet<String>>();
+		for (final CallGraphNode n : GRAPH.getNodes()) {
+			final TreeSet<String> reached = new TreeSet<String>();
+			final Stack<CallGraphNode> pending = new Stack<CallGraphNode>();
+			pending.push(n);
+			while (!pending.isEmpty()) {
+				final CallGraphNode next = pending.pop();
+				if (reached.add(next.getSignature()))
+					pending.addAll(next.getSuccessors());
+			}
+			expected.put(n.getSignature(), reached);
+		}
+		assertNotNull(expected.get("p.C.r2()"));
+		assertEquals(new TreeSet<String>(Arrays.asList("p.C.r1()", "p.C.r2()")), expected.get("p.C.r2()"));
+
+		assertEquals(expected, reachable(TraversalKind.WORKLIST_POSTORDER));
+		assertEquals(expected, reachable(TraversalKind.ITERATIVE));
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static boa.functions.BoaAstIntrinsics.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGNode;
+import boa.graphs.ddg.DDG;
+import boa.graphs.ddg.DDGEdge;
+import boa.graphs.ddg.DDGNode;
+import boa.types.Ast.Method;
+
+/**
+ * Test DDG generation from CFGs that are not frozen, including ones whose
+ * node ids are not dense.
+ *
+ * @author agent
+ */
+public class TestDdgUnfrozen {
+	final private static File srcRootDir = new File("test/ddg/src");
+
+	private static final String BRANCHES =
+			"class C {\n" +
+			"	int f(int a, int b) {\n" +
+			"		int x = a;\n" +
+			"		int y = 0;\n" +
+			"		while (x > b) {\n" +
+			"			if (x % 2 == 0)\n" +
+			"				y = y + x;\n" +
+			"			else\n" +
+			"				y = y - b;\n" +
+			"			x = x - 1;\n" +
+			"		}\n" +
+			"		return x + y;\n" +
+			"	}\n" +
+			"}\n";
+
+	// a CFG left unfrozen, with its node ids multiplied by spread
+	private static class UnfrozenCFG extends CFG {
+		private final int spread;
+
+		UnfrozenCFG(final Method md, final int spread) {
+			super(md);
+			this.spread = spread;
+		}
+
+		@Override
+		protected void freeze() {
+			final List<CFGNode> l = new ArrayList<CFGNode>(nodes);
+			nodes.clear();
+			for (final CFGNode n : l)
+				n.setId(n.getNodeId() * spread);
+			nodes.addAll(l);
+		}
+	}
+
+	@Test
+	public void dense() throws Exception {
+		for (final Method m : methods())
+			assertSame(m, 1);
+	}
+
+	@Test
+	public void sparse() throws Exception {
+		for (final Method m : methods())
+			assertSame(m, 3);
+	}
+
+	private static void assertSame(final Method m, final int spread) throws Exception {
+		final CFG frozen = new CFG(m).get();
+		assertTrue(frozen.isFrozen());
+		final DDG expected = new DDG(frozen);
+
+		final CFG unfrozen = new UnfrozenCFG(m, spread).get();
+		assertFalse(unfrozen.isFrozen());
+		final DDG ddg = new DDG(unfrozen);
+		assertEquals(m.getName(), edges(expected, 1), edges(ddg, spread));
+		assertEquals(unfrozen.getEntryNode().getNodeId(), ddg.getEntryNode().getNodeId());
+		assertEquals(expected.getNodes().size(), ddg.getNodes().size());
+	}
+
+	// the graph's edges, with ids divided by spread
+	private static String edges(final DDG ddg, final int spread) {
+		final StringBuilder sb = new StringBuilder();
+		for (final DDGNode n : ddg.sortNodes()) {
+			final List<DDGEdge> edges = new ArrayList<DDGEdge>(n.getOutEdges());
+			final List<String> l = new ArrayList<String>();
+			for (final DDGEdge e : edges)
+				l.add(e.getDest().getNodeId() / spread + ":" + e.getLabel());
+			Collections.sort(l);
+			sb.append(n.getNodeId() / spread).append(" -> ").append(l).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static List<Method> methods() throws IOException {
+		final List<Method> methods = new ArrayList<Method>();
+		methods.addAll(parse(BRANCHES).getNamespaces(0).getDeclarations(0).getMethodsList());
+		for (final File f : srcRootDir.listFiles())
+			if (!f.isDirectory())
+				methods.addAll(parse(new String(Files.readAllBytes(f.toPath()))).getNamespaces(0).getDeclarations(0).getMethodsList());
+		return methods;
+	}
+}
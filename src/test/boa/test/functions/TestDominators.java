@@ -0,0 +1,378 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static boa.functions.BoaAstIntrinsics.parse;
+import static boa.functions.BoaGraphIntrinsics.getcfg;
+import static boa.functions.BoaGraphIntrinsics.getdominancefrontier;
+import static boa.functions.BoaGraphIntrinsics.getpostdominancefrontier;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.functions.GraphCache;
+import boa.graphs.cdg.CDG;
+import boa.graphs.cdg.CDGNode;
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGEdge;
+import boa.graphs.cfg.CFGNode;
+import boa.graphs.trees.DTree;
+import boa.graphs.trees.Dominators;
+import boa.graphs.trees.PDTree;
+import boa.types.Ast.Method;
+
+/**
+ * Test the dominator and post-dominator trees, the dominance frontiers and
+ * the control dependences built from them against the definitions, on
+ * methods with several exits and with nodes that the entry can not reach or
+ * that can not reach the exit.
+ *
+ * @author agent
+ */
+public class TestDominators {
+	private static final List<Method> METHODS = parse(
+			"class C {\n" +
+			"	int exits(int x) {\n" +
+			"		if (x < 0)\n" +
+			"			return -1;\n" +
+			"		while (x > 10) {\n" +
+			"			if (x == 42)\n" +
+			"				return 0;\n" +
+			"			x--;\n" +
+			"		}\n" +
+			"		if (x == 7)\n" +
+			"			throw new RuntimeException();\n" +
+			"		return x;\n" +
+			"	}\n" +
+			"	int cases(int x) {\n" +
+			"		switch (x) {\n" +
+			"		case 1:\n" +
+			"			return 1;\n" +
+			"		case 2:\n" +
+			"			x++;\n" +
+			"		case 3:\n" +
+			"			break;\n" +
+			"		default:\n" +
+			"			return 0;\n" +
+			"		}\n" +
+			"		return x;\n" +
+			"	}\n" +
+			"	int dead(int x) {\n" +
+			"		while (x > 0) {\n" +
+			"			x--;\n" +
+			"			continue;\n" +
+			"			x++;\n" +
+			"		}\n" +
+			"		return x;\n" +
+			"		x = 2;\n" +
+			"	}\n" +
+			"	void forever(int x) {\n" +
+			"		if (x > 0) {\n" +
+			"			while (true) {\n" +
+			"				x++;\n" +
+			"				if (x == 3)\n" +
+			"					x = 0;\n" +
+			"			}\n" +
+			"		}\n" +
+			"		x--;\n" +
+			"	}\n" +
+			"	void never(int x) {\n" +
+			"		while (true)\n" +
+			"			x++;\n" +
+			"	}\n" +
+			"}\n").getNamespaces(0).getDeclarations(0).getMethodsList();
+
+	@Before
+	public void clear() {
+		GraphCache.clear();
+	}
+
+	private static int[][] successors(final CFG cfg) {
+		final CFGNode[] nodes = cfg.sortNodes();
+		final int[][] succs = new int[nodes.length][];
+		for (int i = 0; i < nodes.length; i++) {
+			final List<CFGNode> l = nodes[i].getSuccessors();
+			succs[i] = new int[l.size()];
+			for (int k = 0; k < succs[i].length; k++)
+				succs[i][k] = l.get(k).getNodeId();
+		}
+		return succs;
+	}
+
+	private static int[][] reverse(final int[][] succs) {
+		final List<Integer>[] preds = predecessors(succs);
+		final int[][] r = new int[succs.length][];
+		for (int i = 0; i < succs.length; i++) {
+			r[i] = new int[preds[i].size()];
+			for (int k = 0; k < r[i].length; k++)
+				r[i][k] = preds[i].get(k);
+		}
+		return r;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Integer>[] predecessors(final int[][] succs) {
+		final List<Integer>[] preds = new List[succs.length];
+		for (int i = 0; i < succs.length; i++)
+			preds[i] = new ArrayList<Integer>();
+		for (int i = 0; i < succs.length; i++)
+			for (final int s : succs[i])
+				preds[s].add(i);
+		return preds;
+	}
+
+	// the nodes reachable from the root without passing through a removed node
+	private static boolean[] reachable(final int[][] succs, final int root, final int removed) {
+		final boolean[] seen = new boolean[succs.length];
+		if (root == removed)
+			return seen;
+		final Deque<Integer> work = new ArrayDeque<Integer>();
+		seen[root] = true;
+		work.add(root);
+		while (!work.isEmpty())
+			for (final int s : succs[work.remove()])
+				if (s != removed && !seen[s]) {
+					seen[s] = true;
+					work.add(s);
+				}
+		return seen;
+	}
+
+	// d dominates v if every path from the root to v passes through d
+	private static boolean[][] dominates(final int[][] succs, final int root) {
+		final int n = succs.length;
+		final boolean[] all = reachable(succs, root, -1);
+		final boolean[][] dom = new boolean[n][n];
+		for (int d = 0; d < n; d++) {
+			final boolean[] without = reachable(succs, root, d);
+			for (int v = 0; v < n; v++)
+				dom[d][v] = all[v] && all[d] && !without[v];
+		}
+		return dom;
+	}
+
+	// the strict dominator of v that all its other strict dominators dominate
+	private static int idom(final boolean[][] dom, final int v) {
+		int idom = -1;
+		for (int d = 0; d < dom.length; d++)
+			if (d != v && dom[d][v] && (idom == -1 || dom[idom][d]))
+				idom = d;
+		return idom;
+	}
+
+	// the nodes with a predecessor x dominates that x does not strictly dominate
+	private static HashMap<Long, HashSet<Long>> frontiers(final int[][] succs, final int root) {
+		final boolean[] all = reachable(succs, root, -1);
+		final boolean[][] dom = dominates(succs, root);
+		final List<Integer>[] preds = predecessors(succs);
+		final HashMap<Long, HashSet<Long>> frontiers = new HashMap<Long, HashSet<Long>>();
+		for (int x = 0; x < succs.length; x++) {
+			if (!all[x])
+				continue;
+			final HashSet<Long> frontier = new HashSet<Long>();
+			for (int y = 0; y < succs.length; y++)
+				for (final int p : preds[y])
+					if (dom[x][p] && !(dom[x][y] && x != y))
+						frontier.add((long) y);
+			frontiers.put((long) x, frontier);
+		}
+		return frontiers;
+	}
+
+	private static void assertDominators(final String name, final int[][] succs, final int root, final Dominators d) {
+		final boolean[] all = reachable(succs, root, -1);
+		final boolean[][] dom = dominates(succs, root);
+		for (int v = 0; v < succs.length; v++) {
+			assertEquals(name + " node " + v, all[v], d.isReachable(v));
+			assertEquals(name + " node " + v, v == root || !all[v] ? -1 : idom(dom, v), d.getImmediateDominator(v));
+		}
+	}
+
+	// the method's CFG, frozen and not, and with any endless loops made
+	// endless by dropping their way out
+	private static List<CFG> cfgs() {
+		final List<CFG> cfgs = new ArrayList<CFG>();
+		for (final Method m : METHODS) {
+			cfgs.add(getcfg(m));
+
+			final CFG cfg = new CFG(m) {
+				@Override
+				protected void freeze() {
+				}
+			}.get();
+			assertFalse(cfg.isFrozen());
+			cfgs.add(cfg);
+
+			final CFG endless = new CFG(m) {
+				@Override
+				protected void freeze() {
+				}
+			}.get();
+			for (final CFGNode n : endless.sortNodes())
+				if (n.hasExpr() && "true".equals(n.getExpr().getLiteral()))
+					for (final CFGEdge e : new ArrayList<CFGEdge>(n.getOutEdges()))
+						if (!e.getLabel().equals("T"))
+							e.delete();
+			cfgs.add(endless);
+		}
+		return cfgs;
+	}
+
+	@Test
+	public void dominators() throws Exception {
+		for (final CFG cfg : cfgs()) {
+			final int[][] succs = successors(cfg);
+			final String name = cfg.getMd().getName();
+			assertDominators(name, succs, 0, Dominators.dominators(cfg));
+			assertDominators(name, reverse(succs), succs.length - 1, Dominators.postDominators(cfg));
+		}
+	}
+
+	@Test
+	public void trees() throws Exception {
+		boolean unreachable = false, stuck = false;
+		for (final CFG cfg : cfgs()) {
+			final int[][] succs = successors(cfg);
+			final int exit = succs.length - 1;
+			final String name = cfg.getMd().getName();
+
+			final boolean[] fromEntry = reachable(succs, 0, -1);
+			final boolean[][] dom = dominates(succs, 0);
+			final DTree dtree = new DTree(cfg);
+			assertEquals(0, dtree.getRootNode().getNodeId());
+			for (int v = 1; v < succs.length; v++) {
+				if (fromEntry[v]) {
+					assertEquals(name + " node " + v, idom(dom, v), dtree.getImmediateDominator(v).getNodeId());
+				} else {
+					// nodes the entry can not reach are left out of the tree
+					assertNull(name + " node " + v, dtree.getNode(v));
+					unreachable = true;
+				}
+			}
+
+			final int[][] preds = reverse(succs);
+			final boolean[] toExit = reachable(preds, exit, -1);
+			final boolean[][] pdom = dominates(preds, exit);
+			final PDTree pdtree = new PDTree(cfg);
+			assertEquals(exit, pdtree.getRootNode().getNodeId());
+			for (int v = 0; v < exit; v++) {
+				// nodes that can not reach the exit hang off the exit
+				final int expected = toExit[v] ? idom(pdom, v) : exit;
+				assertEquals(name + " node " + v, expected, pdtree.getImmediatePostDominator(v).getNodeId());
+				stuck |= !toExit[v];
+			}
+		}
+		// make sure the methods cover both kinds of nodes
+		assertTrue(unreachable);
+		assertTrue(stuck);
+	}
+
+	@Test
+	public void frontiers() throws Exception {
+		for (final CFG cfg : cfgs()) {
+			final int[][] succs = successors(cfg);
+			final String name = cfg.getMd().getName();
+			assertEquals(name, frontiers(succs, 0), getdominancefrontier(cfg));
+			assertEquals(name, frontiers(reverse(succs), succs.length - 1), getpostdominancefrontier(cfg));
+		}
+	}
+
+	@Test
+	public void controlDependences() throws Exception {
+		for (final CFG cfg : cfgs()) {
+			final int[][] succs = successors(cfg);
+			final int[][] preds = reverse(succs);
+			final boolean[] toExit = reachable(preds, succs.length - 1, -1);
+			final boolean[][] pdom = dominates(preds, succs.length - 1);
+			final HashMap<Long, HashSet<Long>> pdf = getpostdominancefrontier(cfg);
+			final String name = cfg.getMd().getName();
+			// building it walks up the post-dominator tree, even from endless loops
+			final CDG cdg = new CDG(cfg);
+			assertNotNull(name, cdg.getEntryNode());
+
+			// a node is control dependent on the nodes in its post-dominance
+			// frontier, and on the entry if it is always run
+			for (final CDGNode n : cdg.getNodes()) {
+				final int v = n.getNodeId();
+				if (v == 0)
+					continue;
+				// endless loops depend on the branches into them
+				if (!toExit[v]) {
+					for (final int u : preds[v])
+						if (toExit[u] && succs[u].length > 1)
+							assertTrue(name + " node " + v, n.getPredecessors().contains(cdg.getNode(u)));
+					continue;
+				}
+				final Set<Long> expected = new HashSet<Long>(pdf.get((long) v));
+				if (pdom[v][0])
+					expected.add(0L);
+				final Set<Long> actual = new HashSet<Long>();
+				for (final CDGNode p : n.getPredecessors())
+					actual.add((long) p.getNodeId());
+				assertEquals(name + " node " + v, expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void graphs() {
+		// an irreducible loop entered at 2 and 3, and an unreachable node 5
+		// that jumps into it
+		final int[][] succs = {
+			{ 1 },
+			{ 2, 3 },
+			{ 3, 4 },
+			{ 2 },
+			{ },
+			{ 3 },
+		};
+		final Dominators d = new Dominators(succs, 0);
+		assertDominators("graph", succs, 0, d);
+		assertFalse(d.isReachable(5));
+		assertEquals(1, d.getImmediateDominator(2));
+		assertEquals(1, d.getImmediateDominator(3));
+		assertEquals(2, d.getImmediateDominator(4));
+
+		// a second exit, 5, is not post-dominated by the exit at 4
+		final int[][] twoExits = {
+			{ 1, 5 },
+			{ 2 },
+			{ 3, 4 },
+			{ 1 },
+			{ },
+			{ },
+		};
+		final Dominators pd = new Dominators(reverse(twoExits), 4);
+		assertDominators("two exits", reverse(twoExits), 4, pd);
+		assertTrue(pd.isReachable(0));
+		assertFalse(pd.isReachable(5));
+		assertEquals(2, pd.getImmediateDominator(1));
+		assertEquals(1, pd.getImmediateDominator(0));
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static boa.functions.BoaAstIntrinsics.parse;
+import static boa.functions.BoaGraphIntrinsics.cdgToDot;
+import static boa.functions.BoaGraphIntrinsics.cfgToDot;
+import static boa.functions.BoaGraphIntrinsics.ddgToDot;
+import static boa.functions.BoaGraphIntrinsics.getcdg;
+import static boa.functions.BoaGraphIntrinsics.getcfg;
+import static boa.functions.BoaGraphIntrinsics.getddg;
+import static boa.functions.BoaGraphIntrinsics.getpdg;
+import static boa.functions.BoaGraphIntrinsics.getpdgslice;
+import static boa.functions.BoaGraphIntrinsics.getpdtree;
+import static boa.functions.BoaGraphIntrinsics.pdgToDot;
+import static boa.functions.BoaGraphIntrinsics.pdtreeToDot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.functions.GraphCache;
+import boa.graphs.cdg.CDG;
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGEdge;
+import boa.graphs.cfg.CFGNode;
+import boa.graphs.ddg.DDG;
+import boa.graphs.ddg.DDGNode;
+import boa.graphs.pdg.PDG;
+import boa.graphs.pdg.PDGNode;
+import boa.graphs.trees.PDTree;
+import boa.graphs.trees.TreeNode;
+import boa.types.Ast.Method;
+
+/**
+ * Test that graphs handed out by the graph cache can not be changed, so
+ * later lookups always see the graphs as built.
+ *
+ * @author agent
+ */
+public class TestGraphCache {
+	private static final Method METHOD = parse(
+			"class C {\n" +
+			"	int sum(int[] a) {\n" +
+			"		int s = 0;\n" +
+			"		for (int i = 0; i < a.length; i++)\n" +
+			"			if (a[i] > 0)\n" +
+			"				s += a[i];\n" +
+			"		return s;\n" +
+			"	}\n" +
+			"}\n").getNamespaces(0).getDeclarations(0).getMethods(0);
+
+	private interface Change {
+		void run() throws Exception;
+	}
+
+	private static void assertRejected(final Change change) throws Exception {
+		try {
+			change.run();
+			fail("a shared graph was changed");
+		} catch (final UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Before
+	public void clear() {
+		GraphCache.clear();
+	}
+
+	@Test
+	public void cfg() throws Exception {
+		final CFG cfg = getcfg(METHOD);
+		final String dot = cfgToDot(cfg);
+		final CFGNode node = cfg.getNode(1);
+
+		assertRejected(new Change() { public void run() { cfg.getNodes().clear(); } });
+		assertRejected(new Change() { public void run() { cfg.getOuts().add(node); } });
+		assertRejected(new Change() { public void run() { node.setStmt(null); } });
+		assertRejected(new Change() { public void run() { node.setExpr(null); } });
+		assertRejected(new Change() { public void run() { node.setId(42); } });
+		assertRejected(new Change() { public void run() { node.getUseVariables().add("x"); } });
+		assertRejected(new Change() { public void run() { node.getOutEdges().clear(); } });
+		final CFGEdge edge = node.getOutEdges().iterator().next();
+		assertRejected(new Change() { public void run() { edge.delete(); } });
+		assertRejected(new Change() { public void run() { edge.setLabel("T"); } });
+		assertRejected(new Change() { public void run() { new CFGEdge(node, cfg.getEntryNode()); } });
+
+		final CFG again = getcfg(METHOD);
+		assertSame(cfg, again);
+		assertEquals(dot, cfgToDot(again));
+	}
+
+	@Test
+	public void pdtree() throws Exception {
+		final PDTree tree = getpdtree(METHOD);
+		final String dot = pdtreeToDot(tree);
+		final TreeNode node = tree.getRootNode();
+
+		assertRejected(new Change() { public void run() { tree.addEntryNode(); } });
+		assertRejected(new Change() { public void run() { tree.getNodes().clear(); } });
+		assertRejected(new Change() { public void run() { node.getChildren().clear(); } });
+		assertRejected(new Change() { public void run() { node.addChild(new TreeNode(42)); } });
+		assertRejected(new Change() { public void run() { node.setParent(null); } });
+
+		final PDTree again = getpdtree(METHOD);
+		assertSame(tree, again);
+		assertEquals(dot, pdtreeToDot(again));
+	}
+
+	@Test
+	public void cdgAndDdg() throws Exception {
+		final CDG cdg = getcdg(METHOD);
+		final DDG ddg = getddg(METHOD);
+		final String cdgDot = cdgToDot(cdg);
+		final String ddgDot = ddgToDot(ddg);
+		final DDGNode def = ddg.getDefUseChain().keySet().iterator().next();
+
+		assertRejected(new Change() { public void run() { cdg.getNodes().clear(); } });
+		assertRejected(new Change() { public void run() { cdg.getEntryNode().setDefVariable("x"); } });
+		assertRejected(new Change() { public void run() { ddg.getNodes().clear(); } });
+		assertRejected(new Change() { public void run() { def.addUseVariable("x"); } });
+		assertRejected(new Change() { public void run() { ddg.getDefUseChain().get(def).clear(); } });
+		// the map of chains handed out is a copy, so changing it changes nothing
+		ddg.getDefUseChain().clear();
+
+		assertEquals(cdgDot, cdgToDot(getcdg(METHOD)));
+		assertEquals(ddgDot, ddgToDot(getddg(METHOD)));
+	}
+
+	@Test
+	public void cdgFromCachedTree() throws Exception {
+		final PDTree tree = getpdtree(METHOD);
+		final String dot = pdtreeToDot(tree);
+
+		// the CDG's entry node goes into a copy of the shared tree
+		final CDG cdg = getcdg(METHOD);
+		assertEquals(cdgToDot(new CDG(new CFG(METHOD).get())), cdgToDot(cdg));
+		assertSame(tree, getpdtree(METHOD));
+		assertEquals(dot, pdtreeToDot(tree));
+		assertEquals(tree.getNodes().size(), getcfg(METHOD).getNodes().size());
+
+		final PDTree copy = new PDTree(tree);
+		assertEquals(dot, pdtreeToDot(copy));
+		copy.addEntryNode();
+		assertEquals(tree.getNodes().size() + 1, copy.getNodes().size());
+		assertEquals(tree.getRootNode().getChildren().size() + 1, copy.getRootNode().getChildren().size());
+	}
+
+	@Test
+	public void pdg() throws Exception {
+		final PDG pdg = getpdg(METHOD);
+		final String dot = pdgToDot(pdg);
+
+		// each lookup gets its own PDG, which may be changed
+		pdg.normalize();
+		for (final PDGNode node : pdg.getNodes())
+			node.addUseVariable("x");
+		pdg.getNodes().clear();
+
+		final PDG again = getpdg(METHOD);
+		assertNotSame(pdg, again);
+		assertEquals(dot, pdgToDot(again));
+
+		// normalizing a slice does not change the graphs it came from
+		getpdgslice(METHOD, 1L, true);
+		assertEquals(dot, pdgToDot(getpdg(METHOD)));
+	}
+}
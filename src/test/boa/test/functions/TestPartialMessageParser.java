@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static boa.functions.BoaAstIntrinsics.parse;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+
+import boa.functions.PartialMessageParser;
+import boa.types.Ast.ASTRoot;
+import boa.types.Ast.Document;
+import boa.types.Ast.Element;
+import boa.types.Ast.Element.ElementKind;
+
+/**
+ * Test that a partly parsed message is the fully parsed message with just
+ * the fields that are not needed left out.
+ *
+ * @author agent
+ */
+public class TestPartialMessageParser {
+	private static final ASTRoot JAVA = parse(
+			"class C {\n" +
+			"	int f = 1;\n" +
+			"	int sum(int[] a) {\n" +
+			"		int s = 0;\n" +
+			"		for (int i = 0; i < a.length; i++)\n" +
+			"			s += new Object() { int g(int x) { return x; } }.g(a[i]);\n" +
+			"		return s;\n" +
+			"	}\n" +
+			"	class D {\n" +
+			"		void h(String t) { }\n" +
+			"	}\n" +
+			"}\n");
+
+	// the Java AST along with a document of nested elements
+	private static final ASTRoot HTML = ASTRoot.newBuilder(JAVA)
+			.setDocument(Document.newBuilder()
+				.setTitle("t")
+				.addElements(element("html")
+					.addElements(element("body")
+						.addElements(element("p").addText("text"))
+						.setScript(JAVA.getNamespaces(0)))))
+			.build();
+
+	private static Element.Builder element(final String tag) {
+		return Element.newBuilder().setTag(tag).setKind(ElementKind.BLOCK);
+	}
+
+	// every message-typed field reachable from the root, except those given
+	private static Set<String> allBut(final String... excluded) {
+		final Set<String> fields = new HashSet<String>();
+		for (final Descriptor d : ASTRoot.getDescriptor().getFile().getMessageTypes())
+			for (final FieldDescriptor fd : d.getFields())
+				if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE)
+					fields.add(d.getName() + "." + fd.getName());
+		fields.removeAll(Arrays.asList(excluded));
+		return fields;
+	}
+
+	// the message with the sub-messages not in the fields cleared
+	private static Message prune(final Message m, final Set<String> fields) {
+		final Message.Builder b = m.toBuilder();
+		for (final Map.Entry<FieldDescriptor, Object> e : m.getAllFields().entrySet()) {
+			final FieldDescriptor fd = e.getKey();
+			if (fd.getJavaType() != FieldDescriptor.JavaType.MESSAGE)
+				continue;
+			if (!fields.contains(fd.getContainingType().getName() + "." + fd.getName())) {
+				b.clearField(fd);
+			} else if (fd.isRepeated()) {
+				b.clearField(fd);
+				for (final Object o : (List<?>) e.getValue())
+					b.addRepeatedField(fd, prune((Message) o, fields));
+			} else {
+				b.setField(fd, prune((Message) e.getValue(), fields));
+			}
+		}
+		return b.build();
+	}
+
+	private static void assertParsed(final ASTRoot root, final Set<String> fields) throws Exception {
+		final PartialMessageParser p = new PartialMessageParser(ASTRoot.getDescriptor(), fields);
+		assertEquals(prune(root, fields), p.parse(root.toByteArray(), ASTRoot.newBuilder()));
+	}
+
+	@Test
+	public void full() throws Exception {
+		final PartialMessageParser p = new PartialMessageParser(ASTRoot.getDescriptor(), allBut());
+		assertTrue(p.isFull());
+		assertEquals(HTML, p.parse(HTML.toByteArray(), ASTRoot.newBuilder()));
+
+		assertFalse(new PartialMessageParser(ASTRoot.getDescriptor(), allBut("Method.statements")).isFull());
+	}
+
+	@Test
+	public void skipped() throws Exception {
+		// nothing below the root
+		assertParsed(JAVA, new HashSet<String>());
+		// only the declarations at the top
+		assertParsed(JAVA, new HashSet<String>(Arrays.asList("ASTRoot.namespaces", "Namespace.declarations")));
+	}
+
+	@Test
+	public void filtered() throws Exception {
+		// the schema is cyclic, so every type must be looked inside
+		assertParsed(JAVA, allBut("Method.statements"));
+		assertParsed(JAVA, allBut("Declaration.nested_declarations", "Expression.anon_declaration"));
+		assertParsed(JAVA, allBut("Variable.initializer", "Statement.expressions"));
+		assertParsed(HTML, allBut("Method.statements"));
+	}
+
+	@Test
+	public void copied() throws Exception {
+		// nothing in a namespace is left out, so the Java AST, the namespace
+		// in the document included, is copied, while elements are filtered
+		final Set<String> fields = allBut("Element.elements");
+		final Message parsed = new PartialMessageParser(ASTRoot.getDescriptor(), fields).parse(HTML.toByteArray(), ASTRoot.newBuilder());
+		assertEquals(prune(HTML, fields), parsed);
+		assertEquals(JAVA.getNamespacesList(), ((ASTRoot) parsed).getNamespacesList());
+		assertEquals(0, ((ASTRoot) parsed).getDocument().getElements(0).getElementsCount());
+	}
+
+	@Test
+	public void givenUp() throws Exception {
+		// the Java ASTs have no documents, so nothing is left out of them
+		final Set<String> fields = allBut("Element.elements");
+		final PartialMessageParser p = new PartialMessageParser(ASTRoot.getDescriptor(), fields);
+
+		assertEquals(prune(HTML, fields), p.parse(HTML.toByteArray(), ASTRoot.newBuilder()));
+		for (int i = 1; i < 64; i++)
+			assertEquals(JAVA, p.parse(JAVA.toByteArray(), ASTRoot.newBuilder()));
+
+		// after that filtering is not worth it, and messages are parsed whole
+		assertNotEquals(prune(HTML, fields), HTML);
+		assertEquals(HTML, p.parse(HTML.toByteArray(), ASTRoot.newBuilder()));
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static boa.functions.BoaAstIntrinsics.parse;
+import static boa.functions.BoaGraphIntrinsics.getpdg;
+import static boa.functions.BoaGraphIntrinsics.getpdgslice;
+import static boa.functions.BoaGraphIntrinsics.getpdgslices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import boa.graphs.pdg.PDG;
+import boa.graphs.pdg.PDGNode;
+import boa.graphs.slicers.PDGSlicer;
+import boa.types.Ast.Method;
+
+/**
+ * Test that slices taken together are the same as slices taken one after
+ * another.
+ *
+ * @author agent
+ */
+public class TestPdgSlices {
+	// loops make cycles of nodes that reach each other
+	private static final Method METHOD = parse(
+			"class C {\n" +
+			"	int f(int[] a, int n) {\n" +
+			"		int s = 0, t = 1;\n" +
+			"		while (n > 0) {\n" +
+			"			for (int i = 0; i < a.length; i++) {\n" +
+			"				if (a[i] > t)\n" +
+			"					t = s + a[i];\n" +
+			"				s += t;\n" +
+			"			}\n" +
+			"			n = n - s;\n" +
+			"		}\n" +
+			"		int u = s * 2;\n" +
+			"		System.out.println(u);\n" +
+			"		return t;\n" +
+			"	}\n" +
+			"}\n").getNamespaces(0).getDeclarations(0).getMethods(0);
+
+	private static List<Integer> ids(final PDGSlicer slice) {
+		final List<Integer> ids = new ArrayList<Integer>();
+		for (final PDGNode node : slice.getSortedSlice())
+			ids.add(node.getNodeId());
+		return ids;
+	}
+
+	private static void assertSameSlice(final PDGSlicer expected, final PDGSlicer actual) {
+		assertEquals(expected.getSlice(), actual.getSlice());
+		assertEquals(ids(expected), ids(actual));
+		assertEquals(expected.getTotalNodes(), actual.getTotalNodes());
+		assertEquals(expected.getTotalEdges(), actual.getTotalEdges());
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+	}
+
+	@Test
+	public void sameAsOneByOne() throws Exception {
+		final PDG pdg = getpdg(METHOD);
+		final int n = pdg.getNodes().size();
+		final long[] ids = new long[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = n - 1 - i;
+
+		final PDGSlicer[] slices = getpdgslices(pdg, ids, false);
+		assertEquals(n, slices.length);
+		for (int i = 0; i < n; i++)
+			assertSameSlice(getpdgslice(pdg, ids[i], false), slices[i]);
+	}
+
+	@Test
+	public void cycles() throws Exception {
+		final PDG pdg = getpdg(METHOD);
+		final int n = pdg.getNodes().size();
+		final long[] ids = new long[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = i;
+		final PDGSlicer[] slices = getpdgslices(pdg, ids, false);
+
+		// the nodes of a cycle reach each other, so each's slice has the others
+		int cyclic = 0;
+		for (int i = 0; i < n; i++)
+			for (int j = i + 1; j < n; j++)
+				if (slices[i].getSlice().contains(pdg.getNode(j)) && slices[j].getSlice().contains(pdg.getNode(i))) {
+					assertEquals(slices[i].getSlice(), slices[j].getSlice());
+					cyclic++;
+				}
+		assertTrue(cyclic > 0);
+	}
+
+	@Test
+	public void missingIds() throws Exception {
+		final PDG pdg = getpdg(METHOD);
+		final int n = pdg.getNodes().size();
+		final long[] ids = { -1, n, n + 100, 0 };
+
+		final PDGSlicer[] slices = getpdgslices(pdg, ids, false);
+		for (int i = 0; i < ids.length; i++)
+			assertSameSlice(getpdgslice(pdg, ids[i], false), slices[i]);
+		assertTrue(slices[0].getSlice().isEmpty());
+		assertTrue(slices[1].getSlice().isEmpty());
+		assertTrue(slices[2].getSlice().isEmpty());
+		assertTrue(!slices[3].getSlice().isEmpty());
+	}
+
+	@Test
+	public void sameBatch() throws Exception {
+		final PDG pdg = getpdg(METHOD);
+		final int last = pdg.getNodes().size() - 1;
+		final PDGSlicer[] slices = getpdgslices(pdg, new long[] { 1, last, 1 }, false);
+
+		// the same node, found to be equal without comparing nodes
+		assertEquals(slices[0], slices[2]);
+		assertEquals(slices[0].hashCode(), slices[2].hashCode());
+		assertNotEquals(slices[0], slices[1]);
+
+		// and a slice of the same node from another batch
+		final PDGSlicer other = getpdgslices(pdg, new long[] { 1 }, false)[0];
+		assertSameSlice(slices[0], other);
+		assertNotEquals(slices[1], other);
+	}
+}
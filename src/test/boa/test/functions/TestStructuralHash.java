@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static boa.functions.BoaAstIntrinsics.parse;
+import static boa.functions.BoaGraphIntrinsics.getpdg;
+import static boa.functions.BoaGraphIntrinsics.getpdgslice;
+import static boa.functions.BoaNormalFormIntrinsics.getStructHash;
+import static boa.functions.BoaNormalFormIntrinsics.getStructSketch;
+
+import org.junit.Test;
+
+import boa.graphs.pdg.PDG;
+import boa.graphs.pdg.PDGNode;
+import boa.types.Ast.Method;
+import boa.types.Ast.Statement.StatementKind;
+
+/**
+ * Test the structural hashes and sketches of PDGs and slices.
+ *
+ * @author agent
+ */
+public class TestStructuralHash {
+	private static final String SUM =
+			"int sum(int[] a) {\n" +
+			"	int s = 0;\n" +
+			"	for (int i = 0; i < a.length; i++)\n" +
+			"		s += a[i];\n" +
+			"	return s;\n" +
+			"}\n";
+
+	// SUM, with its variables renamed
+	private static final String TOTAL =
+			"int total(int[] xs) {\n" +
+			"	int t = 0;\n" +
+			"	for (int j = 0; j < xs.length; j++)\n" +
+			"		t += xs[j];\n" +
+			"	return t;\n" +
+			"}\n";
+
+	// SUM, with one statement added
+	private static final String SUM_LOGGED =
+			"int sum(int[] a) {\n" +
+			"	int s = 0;\n" +
+			"	for (int i = 0; i < a.length; i++)\n" +
+			"		s += a[i];\n" +
+			"	System.out.println(s);\n" +
+			"	return s;\n" +
+			"}\n";
+
+	private static final String MAX =
+			"String max(java.util.List<String> l) {\n" +
+			"	String m = null;\n" +
+			"	for (String e : l)\n" +
+			"		if (m == null || e.compareTo(m) > 0)\n" +
+			"			m = e;\n" +
+			"	if (m == null)\n" +
+			"		throw new IllegalStateException(\"empty\");\n" +
+			"	return m;\n" +
+			"}\n";
+
+	private static Method method(final String body) {
+		return parse("class C {\n" + body + "}\n").getNamespaces(0).getDeclarations(0).getMethods(0);
+	}
+
+	// the id of the method's return statement
+	private static long returnId(final PDG pdg) {
+		for (final PDGNode n : pdg.getNodes())
+			if (n.hasStmt() && n.getStmt().getKind() == StatementKind.RETURN)
+				return n.getId();
+		throw new AssertionError("no return statement");
+	}
+
+	private static int agreements(final String a, final String b) {
+		// each minimum is 8 hex digits
+		int n = 0;
+		for (int i = 0; i < a.length(); i += 8)
+			if (a.regionMatches(i, b, i, 8))
+				n++;
+		return n;
+	}
+
+	@Test
+	public void hashIgnoresNames() throws Exception {
+		final String sum = getStructHash(getpdg(method(SUM)));
+		assertEquals(32, sum.length());
+		assertTrue(sum.matches("[0-9a-f]+"));
+
+		assertEquals(sum, getStructHash(getpdg(method(TOTAL))));
+		assertNotEquals(sum, getStructHash(getpdg(method(SUM_LOGGED))));
+		assertNotEquals(sum, getStructHash(getpdg(method(MAX))));
+	}
+
+	@Test
+	public void hashIsStable() throws Exception {
+		// the hash depends on the code, not on the objects built from it
+		assertEquals(getStructHash(getpdg(method(MAX))), getStructHash(getpdg(method(MAX))));
+	}
+
+	@Test
+	public void sliceHashIgnoresNames() throws Exception {
+		final PDG sumPdg = getpdg(method(SUM));
+		final PDG totalPdg = getpdg(method(TOTAL));
+		final PDG maxPdg = getpdg(method(MAX));
+		final long entry = sumPdg.getEntryNode().getId();
+		final String sum = getStructHash(getpdgslice(sumPdg, entry, false));
+		assertEquals(sum, getStructHash(getpdgslice(totalPdg, totalPdg.getEntryNode().getId(), false)));
+		assertNotEquals(sum, getStructHash(getpdgslice(maxPdg, maxPdg.getEntryNode().getId(), false)));
+
+		// slices forward from the return statements only hash what they reach
+		final String sumReturn = getStructHash(getpdgslice(sumPdg, returnId(sumPdg), false));
+		assertNotEquals(sum, sumReturn);
+		assertEquals(sumReturn, getStructHash(getpdgslice(maxPdg, returnId(maxPdg), false)));
+	}
+
+	@Test
+	public void sketchSimilarity() throws Exception {
+		final String sum = getStructSketch(getpdg(method(SUM)));
+		assertEquals(32 * 8, sum.length());
+		assertTrue(sum.matches("[0-9a-f]+"));
+
+		assertEquals(sum, getStructSketch(getpdg(method(TOTAL))));
+
+		// one more statement changes a few minimums, not most of them
+		final int logged = agreements(sum, getStructSketch(getpdg(method(SUM_LOGGED))));
+		final int unrelated = agreements(sum, getStructSketch(getpdg(method(MAX))));
+		assertTrue("logged: " + logged, logged >= 16);
+		assertTrue("unrelated: " + unrelated, unrelated < logged);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.After;
+import org.junit.Test;
+
+import boa.io.EmitKey;
+
+/**
+ * Test that serialized {@link EmitKey}s compare the same as the keys they
+ * were serialized from, whether their names are interned or not.
+ *
+ * @author agent
+ */
+public class TestEmitKey {
+	private static final String[] NAMES = { "a", "b", "counts", "counts2", "z", "\u00E9t\u00E9", "\uD83D\uDE00", "\uFFFF" };
+	// characters whose UTF-16 and UTF-8 orders differ, and others
+	private static final String[] CHARACTERS = { "", "a", "b", "[", "]", ",", " ", "\u00E9", "\u0800", "\uFB01", "\uFFFF", "\uD83D\uDE00", "\uD800\uDC00" };
+
+	private final Random random = new Random(42);
+
+	@After
+	public void reset() {
+		EmitKey.setVariableNames(new String[0]);
+	}
+
+	private String index() {
+		final StringBuilder sb = new StringBuilder("[");
+		final int n = random.nextInt(5);
+		for (int i = 0; i < n; i++)
+			sb.append(CHARACTERS[random.nextInt(CHARACTERS.length)]);
+		return sb.append(']').toString();
+	}
+
+	private EmitKey key() {
+		return new EmitKey(index(), NAMES[random.nextInt(NAMES.length)]);
+	}
+
+	// the serialized key, after some bytes that are not part of it
+	private static byte[] bytes(final EmitKey key, final int offset) throws IOException {
+		final DataOutputBuffer out = new DataOutputBuffer();
+		for (int i = 0; i < offset; i++)
+			out.writeByte(0xff);
+		key.write(out);
+		final byte[] bytes = new byte[out.getLength()];
+		System.arraycopy(out.getData(), 0, bytes, 0, bytes.length);
+		return bytes;
+	}
+
+	private void assertSameOrder(final int keys) throws IOException {
+		final EmitKey.Comparator comparator = new EmitKey.Comparator();
+		for (int i = 0; i < keys; i++) {
+			final EmitKey k1 = key();
+			final EmitKey k2 = random.nextInt(10) == 0 ? new EmitKey(k1.getIndex(), k1.getName()) : key();
+			final int s1 = random.nextInt(3);
+			final int s2 = random.nextInt(3);
+			final byte[] b1 = bytes(k1, s1);
+			final byte[] b2 = bytes(k2, s2);
+
+			final String message = k1 + " and " + k2;
+			assertEquals(message, Integer.signum(k1.compareTo(k2)), Integer.signum(comparator.compare(b1, s1, b1.length - s1, b2, s2, b2.length - s2)));
+			assertEquals(message, Integer.signum(k1.compareTo(k2)), Integer.signum(k1.compare(b1, s1, b1.length - s1, b2, s2, b2.length - s2)));
+		}
+	}
+
+	@Test
+	public void notInterned() throws IOException {
+		assertSameOrder(20000);
+	}
+
+	@Test
+	public void interned() throws IOException {
+		EmitKey.setVariableNames(NAMES);
+		assertSameOrder(20000);
+	}
+
+	@Test
+	public void someInterned() throws IOException {
+		// the other names are written out in full, after an id of 0
+		EmitKey.setVariableNames(new String[] { "z", "counts", "\uD83D\uDE00", "a" });
+		assertSameOrder(20000);
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boa.io.BoaOutputFormat;
+import boa.runtime.BoaPartitioner;
+
+/**
+ * Test that the part files of an output variable spread across several
+ * reducers are merged back into the records as written, in index order.
+ *
+ * @author agent
+ */
+public class TestOutputStitching {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		// the scalar a has one reducer, the table m may use two
+		BoaPartitioner.setVariableNames(new String[] { "a", "m" }, new boolean[] { false, true });
+		this.dir = new File(this.folder.getRoot(), "out");
+	}
+
+	@After
+	public void tearDown() {
+		BoaPartitioner.setVariableNames(new String[0]);
+	}
+
+	private Configuration conf(final int reducersPerVariable, final int reduceTasks) {
+		final Configuration conf = new Configuration();
+		conf.set("fs.default.name", "file:///");
+		conf.set("mapred.output.dir", this.dir.toURI().toString());
+		conf.setInt(BoaPartitioner.REDUCERS_PER_VARIABLE, reducersPerVariable);
+		conf.setInt("mapred.reduce.tasks", reduceTasks);
+		return conf;
+	}
+
+	// runs one reduce task, which writes the given lines and their indices
+	private void reduce(final Configuration conf, final int partition, final String... records) throws Exception {
+		final TaskAttemptContext context = new TaskAttemptContext(conf, new TaskAttemptID("test", 1, false, partition, 0));
+		final BoaOutputFormat<Text, Text> format = new BoaOutputFormat<Text, Text>();
+		final RecordWriter<Text, Text> writer = format.getRecordWriter(context);
+		for (int i = 0; i < records.length; i += 2)
+			writer.write(new Text(records[i + 1]), new Text(records[i]));
+		writer.close(context);
+		format.getOutputCommitter(context).commitTask(context);
+	}
+
+	private OutputCommitter commit(final Configuration conf) throws Exception {
+		final TaskAttemptContext context = new TaskAttemptContext(conf, new TaskAttemptID("test", 1, false, 0, 0));
+		final OutputCommitter committer = new BoaOutputFormat<Text, Text>().getOutputCommitter(context);
+		committer.commitJob(new JobContext(conf, new JobID("test", 1)));
+		return committer;
+	}
+
+	private String part(final int partition) throws IOException {
+		return new String(Files.readAllBytes(new File(this.dir, "part-r-" + String.format("%05d", partition)).toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void merged() throws Exception {
+		final Configuration conf = conf(2, 3);
+
+		reduce(conf, 0,
+			"", "a = 1");
+		// values holding " = ", several lines, and lines that look like records
+		reduce(conf, 1,
+			"[a]", "m[a] = x = y",
+			"[c]", "m[c] = first\nm[b] = not a record\nlast");
+		reduce(conf, 2,
+			"[b = c]", "m[b = c] = z",
+			"[b]", "m[b] = one\n\ntwo",
+			"[d]", "m[d] = p = q\n m[e] = r");
+		commit(conf);
+
+		assertEquals("a = 1\n", part(0));
+		assertEquals(
+			"m[a] = x = y\n" +
+			"m[b = c] = z\n" +
+			"m[b] = one\n\ntwo\n" +
+			"m[c] = first\nm[b] = not a record\nlast\n" +
+			"m[d] = p = q\n m[e] = r\n",
+			part(1));
+		assertFalse(new File(this.dir, "part-r-00002").exists());
+	}
+
+	@Test
+	public void notMerged() throws Exception {
+		// a variable per reducer, so the parts are written as is
+		final Configuration conf = conf(1, 2);
+
+		reduce(conf, 0,
+			"", "a = 1");
+		reduce(conf, 1,
+			"[a]", "m[a] = x = y",
+			"[b]", "m[b] = one\ntwo");
+		commit(conf);
+
+		assertEquals("a = 1\n", part(0));
+		assertEquals("m[a] = x = y\nm[b] = one\ntwo\n", part(1));
+	}
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.Test;
+
+import boa.aggregators.Aggregator;
+import boa.aggregators.ApproxTopAggregator;
+import boa.aggregators.FinishedException;
+import boa.aggregators.IntSumAggregator;
+import boa.aggregators.SetAggregator;
+import boa.io.EmitKey;
+import boa.io.EmitValue;
+import boa.runtime.BoaAbstractVisitor;
+import boa.runtime.BoaMapper;
+import boa.types.Code.CodeRepository;
+import boa.types.Code.CodeRepository.RepositoryKind;
+import boa.types.Code.Revision;
+import boa.types.Diff.ChangedFile;
+import boa.types.Diff.ChangedFile.FileKind;
+import boa.types.Shared.ChangeKind;
+import boa.types.Shared.Person;
+import boa.types.Toplevel.Project;
+import boa.types.Toplevel.Project.ForgeKind;
+
+/**
+ * Test that the output of a mapper, as the reducers see it, does not change
+ * when its projects' files are split between threads.
+ *
+ * @author agent
+ */
+public class TestBoaMapper {
+	private static final int REVISIONS = 3;
+	private static final int FILES = 2000;
+	private static final int SET_SIZE = 2 * REVISIONS * FILES / 400;
+
+	// keeps every value in the order given, so any change of order shows
+	static class Concat extends Aggregator {
+		private StringBuilder values;
+
+		@Override
+		public void start(final EmitKey key) {
+			super.start(key);
+			this.values = new StringBuilder();
+		}
+
+		@Override
+		public void aggregate(final String data, final String metadata) {
+			this.values.append(data).append(',');
+		}
+
+		@Override
+		public void finish() throws IOException, InterruptedException {
+			this.collect(this.values.toString());
+		}
+	}
+
+	// as a generated mapper would be, for a program emitting in each file and
+	// after each revision
+	static class TestMapper extends BoaMapper {
+		@Override
+		protected void map(final Text key, final BytesWritable value, final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException {
+			try {
+				new BoaAbstractVisitor(true) {
+					@Override
+					protected boolean preVisit(final ChangedFile node) throws Exception {
+						final String name = node.getName();
+						emit(new EmitKey("order"), new EmitValue(name));
+						emit(new EmitKey("[" + (node.getKey() % 5) + "]", "grouped"), new EmitValue(name));
+						emit(new EmitKey("top"), new EmitValue("v" + (node.getKey() * node.getKey() % 31)));
+						emit(new EmitKey("plain"), new EmitValue(name));
+						return false;
+					}
+
+					@Override
+					protected void postVisit(final Revision node) throws Exception {
+						emit(new EmitKey("order"), new EmitValue("revision " + node.getId()));
+					}
+				}.visit(parseProject(value));
+			} catch (final Exception e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		protected boolean isParallel() {
+			return true;
+		}
+
+		@Override
+		protected Aggregator newAggregator(final String name) {
+			if (name.equals("order") || name.equals("grouped"))
+				return new Concat();
+			if (name.equals("top"))
+				return new ApproxTopAggregator(2, 4);
+			return null;
+		}
+	}
+
+	// a program with outputs that combine, one of which finishes some keys
+	// early
+	static class CombiningMapper extends BoaMapper {
+		@Override
+		protected void map(final Text key, final BytesWritable value, final Mapper<Text, BytesWritable, EmitKey, EmitValue>.Context context) throws IOException {
+			try {
+				new BoaAbstractVisitor() {
+					@Override
+					protected boolean preVisit(final ChangedFile node) throws Exception {
+						final long k = node.getKey();
+						emit(new EmitKey("[" + (k % 40) + "]", "sum"), new EmitValue(k));
+						emit(new EmitKey("[" + (k % 400) + "]", "set"), new EmitValue(node.getName()));
+						// more values than the set takes
+						if (k % 400 < 20)
+							emit(new EmitKey("[" + (k % 400) + "]", "set"), new EmitValue(node.getName() + "'"));
+						emit(new EmitKey("plain"), new EmitValue(node.getName()));
+						return false;
+					}
+				}.visit(parseProject(value));
+			} catch (final Exception e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		protected Aggregator newAggregator(final String name) {
+			if (name.equals("sum"))
+				return new IntSumAggregator();
+			if (name.equals("set"))
+				return new SetAggregator(SET_SIZE);
+			return null;
+		}
+
+		Aggregator aggregator(final String name) {
+			return this.newAggregator(name);
+		}
+	}
+
+	private static Project project(final String id) {
+		final CodeRepository.Builder repo = CodeRepository.newBuilder()
+				.setUrl("https://example.com/" + id)
+				.setKind(RepositoryKind.GIT)
+				.setHead(REVISIONS - 1);
+		for (int r = 0; r < REVISIONS; r++) {
+			final Revision.Builder revision = Revision.newBuilder()
+					.setId(id + "-" + r)
+					.setCommitter(Person.newBuilder().setUsername("u"))
+					.setCommitDate(r)
+					.setLog("");
+			for (int f = 0; f < FILES; f++)
+				revision.addFiles(ChangedFile.newBuilder()
+						.setChange(ChangeKind.MODIFIED)
+						.setKind(FileKind.SOURCE_JAVA_JLS8)
+						.setName(id + "/" + r + "/" + f)
+						.setKey(r * FILES + f)
+						.setAst(false));
+			repo.addRevisions(revision);
+		}
+		return Project.newBuilder()
+				.setId(id)
+				.setName(id)
+				.setProjectUrl("https://example.com/" + id)
+				.setKind(ForgeKind.GITHUB)
+				.addCodeRepositories(repo)
+				.build();
+	}
+
+	// runs the mapper over the projects, and returns the values written for
+	// each key, in the order they were written
+	static Map<EmitKey, List<EmitValue>> run(final Configuration conf, final BoaMapper mapper, final Project... projects) throws Exception {
+		final Map<EmitKey, List<EmitValue>> output = new TreeMap<EmitKey, List<EmitValue>>();
+		final List<Project> input = new ArrayList<Project>();
+		for (final Project p : projects)
+			input.add(p);
+
+		final RecordReader<Text, BytesWritable> reader = new RecordReader<Text, BytesWritable>() {
+			private int next = -1;
+
+			@Override
+			public void initialize(final InputSplit split, final TaskAttemptContext context) {
+			}
+
+			@Override
+			public boolean nextKeyValue() {
+				return ++this.next < input.size();
+			}
+
+			@Override
+			public Text getCurrentKey() {
+				return new Text(input.get(this.next).getId());
+			}
+
+			@Override
+			public BytesWritable getCurrentValue() {
+				return new BytesWritable(input.get(this.next).toByteArray());
+			}
+
+			@Override
+			public float getProgress() {
+				return 0;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		final RecordWriter<EmitKey, EmitValue> writer = new RecordWriter<EmitKey, EmitValue>() {
+			@Override
+			public synchronized void write(final EmitKey key, final EmitValue value) {
+				List<EmitValue> values = output.get(key);
+				if (values == null) {
+					values = new ArrayList<EmitValue>();
+					output.put(key, values);
+				}
+				values.add(value);
+			}
+
+			@Override
+			public void close(final TaskAttemptContext context) {
+			}
+		};
+
+		final Counters counters = new Counters();
+		final StatusReporter reporter = new StatusReporter() {
+			@Override
+			public Counter getCounter(final Enum<?> name) {
+				return counters.findCounter(name);
+			}
+
+			@Override
+			public Counter getCounter(final String group, final String name) {
+				return counters.findCounter(group, name);
+			}
+
+			@Override
+			public void progress() {
+			}
+
+			@Override
+			public void setStatus(final String status) {
+			}
+		};
+
+		mapper.setConf(conf);
+		mapper.run(mapper.new Context(conf, new TaskAttemptID(), reader, writer, null, reporter, null));
+		return output;
+	}
+
+	// what the reducers would write for the mapper's output, as the
+	// BoaReducer does it
+	static List<String> reduce(final Map<EmitKey, List<EmitValue>> input, final CombiningMapper mapper) throws Exception {
+		final List<String> output = new ArrayList<String>();
+		final RecordWriter<Object, Object> writer = new RecordWriter<Object, Object>() {
+			@Override
+			public void write(final Object key, final Object value) {
+				output.add(key + " " + value);
+			}
+
+			@Override
+			public void close(final TaskAttemptContext context) {
+			}
+		};
+		final Mapper<Object, Object, Object, Object>.Context context =
+				new Mapper<Object, Object, Object, Object>().new Context(new Configuration(), new TaskAttemptID(), null, writer, null, null, null);
+
+		for (final Map.Entry<EmitKey, List<EmitValue>> e : input.entrySet()) {
+			final Aggregator a = mapper.aggregator(e.getKey().getName());
+			if (a == null) {
+				for (final EmitValue v : e.getValue())
+					output.add(e.getKey() + " = " + v);
+				continue;
+			}
+
+			a.setCombining(false);
+			a.start(e.getKey());
+			a.setContext(context);
+			try {
+				for (final EmitValue v : e.getValue())
+					a.aggregate(v);
+				a.finish();
+			} catch (final FinishedException f) {
+				// the reducer writes nothing for the key
+			}
+		}
+
+		// the order sets are written in is not fixed
+		Collections.sort(output);
+		return output;
+	}
+
+	static Configuration conf(final int threads) {
+		final Configuration conf = new Configuration();
+		conf.setInt(BoaMapper.THREADS, threads);
+		return conf;
+	}
+
+	@Test
+	public void threads() throws Exception {
+		final Project[] projects = { project("a"), project("b") };
+		final Map<EmitKey, List<EmitValue>> expected = run(conf(1), new TestMapper(), projects);
+		assertTrue(expected.get(new EmitKey("plain")).size() == 2 * REVISIONS * FILES);
+
+		for (int i = 0; i < 5; i++)
+			for (final int threads : new int[] { 2, 4, 7 })
+				assertEquals(threads + " threads", expected, run(conf(threads), new TestMapper(), projects));
+	}
+
+	@Test
+	public void threadsFlushing() throws Exception {
+		// flushing the table in the middle of projects does not change the order
+		final Configuration one = conf(1);
+		one.setInt(BoaMapper.COMBINE_BUFFER_SIZE, 2);
+		final Map<EmitKey, List<EmitValue>> expected = run(one, new TestMapper(), project("a"));
+
+		final Configuration four = conf(4);
+		four.setInt(BoaMapper.COMBINE_BUFFER_SIZE, 2);
+		for (int i = 0; i < 5; i++)
+			assertEquals(expected, run(four, new TestMapper(), project("a")));
+	}
+
+	@Test
+	public void combining() throws Exception {
+		final Project[] projects = { project("a"), project("b") };
+		final Configuration none = conf(1);
+		none.setInt(BoaMapper.COMBINE_BUFFER_SIZE, 0);
+		final Map<EmitKey, List<EmitValue>> uncombined = run(none, new CombiningMapper(), projects);
+		final List<String> expected = reduce(uncombined, new CombiningMapper());
+		assertEquals(2 * REVISIONS * FILES, uncombined.get(new EmitKey("[0]", "sum")).size() * 40);
+		// some sets take every value, others too many
+		assertTrue(expected.contains("set[20] = a/0/20 [20]"));
+		assertFalse(expected.toString().contains("set[19] = "));
+
+		// flushing at cleanup only, when the key cap is hit over and over,
+		// and now and then
+		for (final int keys : new int[] { 16 * 1024, 1, 2, 50, 439 }) {
+			final Configuration conf = conf(1);
+			conf.setInt(BoaMapper.COMBINE_BUFFER_SIZE, keys);
+			final Map<EmitKey, List<EmitValue>> combined = run(conf, new CombiningMapper(), projects);
+			assertEquals(keys + " keys", expected, reduce(combined, new CombiningMapper()));
+			if (keys > 1000)
+				assertEquals(1, combined.get(new EmitKey("[0]", "sum")).size());
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static boa.functions.BoaAstIntrinsics.parse;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import boa.functions.BoaAstIntrinsics;
+import boa.functions.GraphCache;
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGNode;
+import boa.runtime.BoaAbstractTraversal;
+import boa.runtime.BoaAbstractTraversal.TRAVERSALCOUNTER;
+import boa.types.Ast.Method;
+import boa.types.Graph.Traversal.TraversalDirection;
+import boa.types.Graph.Traversal.TraversalKind;
+
+/**
+ * Test that in incremental mode a reusable traversal restores its saved
+ * results, which the program can not change, and that other traversals
+ * always run.
+ *
+ * @author agent
+ */
+public class TestTraversalResultReuse {
+	private static final Method METHOD = parse(
+			"class C {\n" +
+			"	int f(int a) {\n" +
+			"		int b = a + 1;\n" +
+			"		return b;\n" +
+			"	}\n" +
+			"}\n").getNamespaces(0).getDeclarations(0).getMethods(0);
+
+	private final Counters counters = new Counters();
+
+	// maps each node to its ids, as a traversal with nested results would
+	private static class Ids extends BoaAbstractTraversal<HashMap<String, HashSet<String>>> {
+		int calls = 0;
+
+		Ids(final boolean isReusable) {
+			super(false, false, isReusable);
+		}
+
+		protected HashMap<String, HashSet<String>> preTraverse(final CFGNode node) throws Exception {
+			calls++;
+			final HashSet<String> ids = new HashSet<String>();
+			ids.add(String.valueOf(node.getId()));
+			final HashMap<String, HashSet<String>> r = new HashMap<String, HashSet<String>>();
+			r.put("ids", ids);
+			return r;
+		}
+
+		@Override
+		public void traverse(final CFGNode node, final boolean flag) throws Exception {
+			outputMapObj.put(node.getId(), new HashMap<String, HashSet<String>>(preTraverse(node)));
+		}
+
+		// as generated for the result type
+		@Override
+		protected HashMap<String, HashSet<String>> copyResult(final HashMap<String, HashSet<String>> value) {
+			final HashMap<String, HashSet<String>> copy = new HashMap<String, HashSet<String>>();
+			for (final Map.Entry<String, HashSet<String>> e : value.entrySet())
+				copy.put(e.getKey(), new HashSet<String>(e.getValue()));
+			return copy;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		final Configuration conf = new Configuration();
+		conf.setBoolean(GraphCache.GRAPH_INCREMENTAL, true);
+		final StatusReporter reporter = new StatusReporter() {
+			@Override
+			public Counter getCounter(final Enum<?> name) {
+				return counters.findCounter(name);
+			}
+
+			@Override
+			public Counter getCounter(final String group, final String name) {
+				return counters.findCounter(group, name);
+			}
+
+			@Override
+			public void progress() {
+			}
+
+			@Override
+			public void setStatus(final String status) {
+			}
+		};
+		final Mapper<Text, Text, Text, Text>.Context context =
+				new Mapper<Text, Text, Text, Text>().new Context(conf, new TaskAttemptID(), null, null, null, reporter, null);
+		BoaAstIntrinsics.setup(context);
+		BoaAbstractTraversal.setup(context);
+	}
+
+	@After
+	public void tearDown() {
+		BoaAstIntrinsics.setup(null);
+	}
+
+	private static void traverse(final Ids t) throws Exception {
+		t.clear();
+		t.traverse(GraphCache.getCFG(METHOD, false), TraversalDirection.FORWARD, TraversalKind.DFS);
+	}
+
+	private static String ids(final Ids t, final CFG cfg) throws Exception {
+		final StringBuilder sb = new StringBuilder();
+		for (final CFGNode n : cfg.sortNodes())
+			sb.append(t.getValue(n)).append('\n');
+		return sb.toString();
+	}
+
+	@Test
+	public void reused() throws Exception {
+		final Ids t = new Ids(true);
+		traverse(t);
+		final CFG cfg = GraphCache.getCFG(METHOD, false);
+		final int calls = t.calls;
+		final String expected = ids(t, cfg);
+
+		// the program changes the sets inside its results
+		for (final CFGNode n : cfg.sortNodes())
+			t.getValue(n).get("ids").add("changed");
+
+		traverse(t);
+		assertEquals(calls, t.calls);
+		assertEquals(expected, ids(t, cfg));
+		assertEquals(1, counters.findCounter(TRAVERSALCOUNTER.RESULTS_COMPUTED).getValue());
+		assertEquals(1, counters.findCounter(TRAVERSALCOUNTER.RESULTS_REUSED).getValue());
+
+		// and changing the restored results does not change them either
+		for (final CFGNode n : cfg.sortNodes())
+			t.getValue(n).get("ids").clear();
+		traverse(t);
+		assertEquals(expected, ids(t, cfg));
+		assertEquals(2, counters.findCounter(TRAVERSALCOUNTER.RESULTS_REUSED).getValue());
+	}
+
+	@Test
+	public void notReusable() throws Exception {
+		final Ids t = new Ids(false);
+		traverse(t);
+		final int calls = t.calls;
+
+		traverse(t);
+		assertEquals(2 * calls, t.calls);
+		assertEquals(0, counters.findCounter(TRAVERSALCOUNTER.RESULTS_COMPUTED).getValue());
+		assertEquals(0, counters.findCounter(TRAVERSALCOUNTER.RESULTS_REUSED).getValue());
+	}
+}
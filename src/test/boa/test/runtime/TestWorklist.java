@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boa.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static boa.functions.BoaAstIntrinsics.parse;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.After;
+import org.junit.Test;
+
+import boa.graphs.cfg.CFG;
+import boa.graphs.cfg.CFGNode;
+import boa.runtime.BoaAbstractFixP;
+import boa.runtime.BoaAbstractTraversal;
+import boa.runtime.BoaAbstractTraversal.TRAVERSALCOUNTER;
+import boa.types.Ast.Method;
+import boa.types.Graph.Traversal.TraversalDirection;
+import boa.types.Graph.Traversal.TraversalKind;
+
+/**
+ * Test that the worklist traversals reach the same fixpoint as traversing
+ * the whole graph over and over, on graphs with many loops and large graphs,
+ * and that they give up when out of budget.
+ *
+ * @author agent
+ */
+public class TestWorklist {
+	private static final Method LOOPS = method(
+			"	int f(int a, int b) {\n" +
+			"		int s = 0, t = 1, u = 2;\n" +
+			"		outer:\n" +
+			"		while (a > 0) {\n" +
+			"			for (int i = 0; i < b; i++) {\n" +
+			"				if (i == t) continue outer;\n" +
+			"				do {\n" +
+			"					s += u;\n" +
+			"					if (s > 100) break outer;\n" +
+			"					u = t;\n" +
+			"				} while (s < a);\n" +
+			"				t = s;\n" +
+			"			}\n" +
+			"			while (b > t) {\n" +
+			"				if (b % 2 == 0) { b = b / 2; continue; }\n" +
+			"				b = u + 1;\n" +
+			"			}\n" +
+			"			a = a - b;\n" +
+			"		}\n" +
+			"		return s + t;\n" +
+			"	}\n");
+
+	private static final Method LARGE = large(2000);
+
+	private static Method method(final String body) {
+		return parse("class C {\n" + body + "}\n").getNamespaces(0).getDeclarations(0).getMethods(0);
+	}
+
+	// a loop over many statements, each reading and writing variables
+	private static Method large(final int statements) {
+		final StringBuilder sb = new StringBuilder("	int f(int a) {\n		int x = 0, y = 0, z = 0;\n		while (a > 0) {\n");
+		final String[] vars = { "x", "y", "z", "a" };
+		for (int i = 0; i < statements; i++)
+			sb.append("			if (").append(vars[i % 4]).append(" > ").append(i).append(") ")
+				.append(vars[(i + 1) % 4]).append(" = ").append(vars[(i + 2) % 4]).append(" + 1;\n");
+		return method(sb.append("		}\n		return x + y + z;\n	}\n").toString());
+	}
+
+	// live variables (backward), or variables maybe defined (forward)
+	private static class Variables extends BoaAbstractTraversal<HashSet<String>> {
+		private final boolean forward;
+
+		Variables(final boolean forward) {
+			super(true, true);
+			this.forward = forward;
+		}
+
+		protected HashSet<String> preTraverse(final CFGNode node) throws Exception {
+			final HashSet<String> in = new HashSet<String>();
+			for (final CFGNode n : forward ? node.getPredecessors() : node.getSuccessors()) {
+				final HashSet<String> v = getValue(n);
+				if (v != null)
+					in.addAll(v);
+			}
+			if (forward) {
+				if (node.getDefVariables() != null)
+					in.add(node.getDefVariables());
+			} else {
+				in.remove(node.getDefVariables());
+				in.addAll(node.getUseVariables());
+			}
+			return in;
+		}
+
+		// as generated
+		@Override
+		public void traverse(final CFGNode node, final boolean flag) throws Exception {
+			if (flag) {
+				currentResult = new HashSet<String>(preTraverse(node));
+				outputMapObj.put(node.getId(), new HashSet<String>(currentResult));
+			} else {
+				outputMapObj.put(node.getId(), new HashSet<String>(preTraverse(node)));
+			}
+		}
+	}
+
+	private static final BoaAbstractFixP EQUAL = new BoaAbstractFixP() {
+		@Override
+		public boolean invoke(final Object curr, final Object prev) {
+			return curr.equals(prev);
+		}
+	};
+
+	private static final BoaAbstractFixP NEVER = new BoaAbstractFixP() {
+		@Override
+		public boolean invoke(final Object curr, final Object prev) {
+			return false;
+		}
+	};
+
+	private final Counters counters = new Counters();
+
+	private void setup(final int budget) throws Exception {
+		final Configuration conf = new Configuration();
+		if (budget > 0)
+			conf.setInt(BoaAbstractTraversal.WORKLIST_BUDGET, budget);
+		final StatusReporter reporter = new StatusReporter() {
+			@Override
+			public Counter getCounter(final Enum<?> name) {
+				return counters.findCounter(name);
+			}
+
+			@Override
+			public Counter getCounter(final String group, final String name) {
+				return counters.findCounter(group, name);
+			}
+
+			@Override
+			public void progress() {
+			}
+
+			@Override
+			public void setStatus(final String status) {
+			}
+		};
+		BoaAbstractTraversal.setup(new Mapper<Text, Text, Text, Text>().new Context(conf, new TaskAttemptID(), null, null, null, reporter, null));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		setup(0);
+	}
+
+	private static Map<Long, HashSet<String>> solve(final CFG cfg, final boolean forward, final TraversalKind kind, final BoaAbstractFixP fixp) throws Exception {
+		final Variables t = new Variables(forward);
+		t.traverse(cfg, forward ? TraversalDirection.FORWARD : TraversalDirection.BACKWARD, kind, fixp);
+		final Map<Long, HashSet<String>> results = new HashMap<Long, HashSet<String>>();
+		for (final CFGNode node : cfg.getNodes())
+			results.put(node.getId(), t.getValue(node));
+		return results;
+	}
+
+	private static void assertSameFixpoint(final CFG cfg) throws Exception {
+		for (final boolean forward : new boolean[] { true, false }) {
+			final Map<Long, HashSet<String>> expected = solve(cfg, forward, TraversalKind.ITERATIVE, EQUAL);
+			assertFalse(expected.containsValue(null));
+			for (final TraversalKind kind : new TraversalKind[] { TraversalKind.WORKLIST_POSTORDER, TraversalKind.WORKLIST_REVERSEPOSTORDER, TraversalKind.HYBRID })
+				assertEquals(kind + (forward ? " forward" : " backward"), expected, solve(cfg, forward, kind, EQUAL));
+		}
+	}
+
+	@Test
+	public void loops() throws Exception {
+		setup(0);
+		final CFG cfg = new CFG(LOOPS).get();
+		assertSameFixpoint(cfg);
+		// the return's uses flow back around every loop
+		assertTrue(solve(cfg, false, TraversalKind.WORKLIST_POSTORDER, EQUAL).get(0L).containsAll(Arrays.asList("a", "b")));
+		assertEquals(0, counters.findCounter(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXCEEDED).getValue());
+	}
+
+	@Test
+	public void large() throws Exception {
+		setup(0);
+		final CFG cfg = new CFG(LARGE).get();
+		assertTrue(cfg.getNodes().size() > 3500);
+		assertSameFixpoint(cfg);
+		assertEquals(0, counters.findCounter(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXCEEDED).getValue());
+	}
+
+	@Test
+	public void budget() throws Exception {
+		setup(1);
+
+		// without loops, every node is visited once
+		solve(new CFG(method("	int f(int a) {\n		int b = a + 1;\n		if (b > 2) a = b;\n		return a;\n	}\n")).get(), true, TraversalKind.WORKLIST_REVERSEPOSTORDER, EQUAL);
+		assertEquals(0, counters.findCounter(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXCEEDED).getValue());
+
+		// but results that always change never settle around a loop
+		final CFG cfg = new CFG(LOOPS).get();
+		solve(cfg, true, TraversalKind.WORKLIST_REVERSEPOSTORDER, NEVER);
+		solve(cfg, false, TraversalKind.WORKLIST_POSTORDER, NEVER);
+		assertEquals(2, counters.findCounter(TRAVERSALCOUNTER.WORKLIST_BUDGET_EXCEEDED).getValue());
+	}
+}